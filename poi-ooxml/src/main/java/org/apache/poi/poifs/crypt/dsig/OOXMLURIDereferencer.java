@@ -42,8 +42,6 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.openxml4j.opc.PackagePart;
-import org.apache.poi.openxml4j.opc.PackagePartName;
-import org.apache.poi.openxml4j.opc.PackagingURIHelper;
 
 /**
  * JSR105 URI dereferencer for Office Open XML documents.
@@ -115,10 +113,8 @@ public class OOXMLURIDereferencer implements URIDereferencer {
             return null;
         }
 
-        PackagePartName ppn;
         try {
-            ppn = PackagingURIHelper.createPartName(path);
-            return signatureInfo.getOpcPackage().getPart(ppn);
+            return PackagePartDigester.findPart(signatureInfo.getOpcPackage(), uri);
         } catch (InvalidFormatException e) {
             LOG.atWarn().log("illegal part name (not expected) in {}", uri);
             return null;
@@ -0,0 +1,149 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.poifs.crypt.dsig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.crypto.dsig.XMLSignatureException;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackagePartName;
+import org.apache.poi.openxml4j.opc.PackagingURIHelper;
+import org.apache.poi.poifs.crypt.CryptoFunctions;
+import org.apache.poi.poifs.crypt.HashAlgorithm;
+import org.apache.poi.util.Internal;
+
+/**
+ * Digests the package parts of signature references without transforms.<p>
+ *
+ * The content of such a reference is the unmodified part, so its digest can be calculated by streaming
+ * the part, without the XML signature implementation. The parts are digested concurrently and the
+ * digests are kept, so they are calculated only once for all signatures of a package.<p>
+ *
+ * The kept digests are only valid as long as the package isn't modified.
+ *
+ * @see SignatureConfig#setStreamingPartDigests(boolean)
+ */
+@Internal
+public final class PackagePartDigester {
+    private final OPCPackage opcPackage;
+    private final Map<String, byte[]> digests = new ConcurrentHashMap<>();
+
+    public PackagePartDigester(OPCPackage opcPackage) {
+        this.opcPackage = opcPackage;
+    }
+
+    /**
+     * Checks, if the digest of a reference can be calculated by this digester, i.e. the references are
+     * dereferenced by the {@link OOXMLURIDereferencer} and the reference has no transforms and
+     * doesn't denote a relationship part, whose line breaks are removed by the dereferencer.
+     *
+     * @param signatureInfo the signature info
+     * @param uri the reference uri
+     * @param transforms the transforms of the reference
+     * @return true, if the part of the reference can be digested directly
+     */
+    public static boolean canDigest(SignatureInfo signatureInfo, String uri, List<?> transforms) {
+        if (signatureInfo.getUriDereferencer() == null
+            || signatureInfo.getUriDereferencer().getClass() != OOXMLURIDereferencer.class
+            || uri == null || (transforms != null && !transforms.isEmpty())) {
+            return false;
+        }
+        try {
+            final String path = new URI(uri).getPath();
+            return path != null && !path.isEmpty() && !path.endsWith(".rels");
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Digests the parts of the given references concurrently.
+     *
+     * @param uris the reference uris of the parts, i.e. the part name and an optional query
+     * @param hashAlgo the digest algorithm
+     * @return the digests by uri
+     * @throws XMLSignatureException if a part doesn't exist or can't be read
+     */
+    public Map<String, byte[]> digest(List<String> uris, HashAlgorithm hashAlgo) throws XMLSignatureException {
+        // resolve the parts beforehand, as the package isn't thread-safe
+        final Map<String, PackagePart> parts = new HashMap<>();
+        for (String uri : uris) {
+            final PackagePart part;
+            try {
+                part = findPart(opcPackage, new URI(uri));
+            } catch (URISyntaxException e) {
+                throw new XMLSignatureException("could not URL decode the uri: " + uri, e);
+            } catch (InvalidFormatException e) {
+                throw new XMLSignatureException("illegal part name in " + uri, e);
+            }
+            if (part == null) {
+                throw new XMLSignatureException("Failed to find part " + uri);
+            }
+            parts.put(uri, part);
+        }
+
+        try {
+            parts.entrySet().parallelStream().forEach(e -> digests.computeIfAbsent(
+                hashAlgo.jceId + " " + e.getKey(), k -> digest(e.getValue(), hashAlgo)));
+        } catch (IllegalStateException e) {
+            throw new XMLSignatureException(e.getCause() != null ? e.getCause() : e);
+        }
+
+        final Map<String, byte[]> result = new HashMap<>();
+        for (String uri : uris) {
+            result.put(uri, digests.get(hashAlgo.jceId + " " + uri).clone());
+        }
+        return result;
+    }
+
+    private static byte[] digest(PackagePart part, HashAlgorithm hashAlgo) {
+        final MessageDigest md = CryptoFunctions.getMessageDigest(hashAlgo);
+        final byte[] buf = new byte[8192];
+        try (InputStream is = part.getInputStream()) {
+            for (int readBytes; (readBytes = is.read(buf)) != -1; ) {
+                md.update(buf, 0, readBytes);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error: " + e.getMessage(), e);
+        }
+        return md.digest();
+    }
+
+    /**
+     * @return the part of a reference uri, or null if the uri doesn't denote a part
+     */
+    /* package */ static PackagePart findPart(OPCPackage opcPackage, URI uri) throws InvalidFormatException {
+        final String path = uri.getPath();
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        final PackagePartName ppn = PackagingURIHelper.createPartName(path);
+        return opcPackage.getPart(ppn);
+    }
+}
@@ -245,6 +245,13 @@ public class SignatureConfig {
      */
     private boolean allowMultipleSignatures = false;
 
+    /**
+     * if true, the package parts are digested by streaming them concurrently
+     *
+     * @since POI 5.3.1
+     */
+    private boolean streamingPartDigests = false;
+
     /**
      * Switch to enable/disable secure validation - see setter for more information
      *
@@ -933,7 +940,7 @@ public class SignatureConfig {
      * @param digestMethodUri the digest algorithm uri
      * @return the hash algorithm for the given digest
      */
-    private static HashAlgorithm getDigestMethodAlgo(String digestMethodUri) {
+    /* package */ static HashAlgorithm getDigestMethodAlgo(String digestMethodUri) {
         if (digestMethodUri == null || digestMethodUri.isEmpty()) {
             return null;
         }
@@ -1063,6 +1070,30 @@ public class SignatureConfig {
         this.allowMultipleSignatures = allowMultipleSignatures;
     }
 
+    /**
+     * @return true, if the package parts are digested by streaming them concurrently
+     *
+     * @since POI 5.3.1
+     */
+    public boolean isStreamingPartDigests() {
+        return streamingPartDigests;
+    }
+
+    /**
+     * The references of whole package parts don't need to be processed by the XML signature
+     * implementation. If this flag is set, those parts are digested by streaming them concurrently
+     * on signing and validation. On validation, the digests are kept while iterating the signatures
+     * of a package, so the parts are digested only once for all signatures.
+     * Defaults to {@code false}
+     *
+     * @param streamingPartDigests if true, digest the package parts concurrently
+     *
+     * @since POI 5.3.1
+     */
+    public void setStreamingPartDigests(boolean streamingPartDigests) {
+        this.streamingPartDigests = streamingPartDigests;
+    }
+
     /**
      * @return is secure validation enabled?
      *
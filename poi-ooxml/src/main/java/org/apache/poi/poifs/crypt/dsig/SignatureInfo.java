@@ -303,6 +303,9 @@ public class SignatureInfo {
         Iterator<PackageRelationship> sigOrigRels;
         private Iterator<PackageRelationship> sigRels;
         private PackagePart sigPart;
+        /** the part digests shared by the signatures, if streaming part digests are enabled */
+        private final PackagePartDigester digester =
+            signatureConfig.isStreamingPartDigests() ? new PackagePartDigester(opcPackage) : null;
 
         private SignaturePartIterator() {
             sigOrigRels = opcPackage.getRelationshipsByType(PackageRelationshipTypes.DIGITAL_SIGNATURE_ORIGIN).iterator();
@@ -339,7 +342,7 @@ public class SignatureInfo {
                     LOG.atWarn().withThrowable(e).log("Reference to signature is invalid.");
                 }
             } while (sigRelPart == null);
-            return new SignaturePart(sigRelPart, SignatureInfo.this);
+            return new SignaturePart(sigRelPart, SignatureInfo.this, digester);
         }
 
         /**
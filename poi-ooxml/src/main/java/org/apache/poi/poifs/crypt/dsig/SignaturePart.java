@@ -23,15 +23,22 @@ import static org.apache.poi.poifs.crypt.dsig.facets.SignatureFacet.XML_DIGSIG_N
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import javax.xml.crypto.MarshalException;
 import javax.xml.crypto.URIDereferencer;
+import javax.xml.crypto.XMLStructure;
+import javax.xml.crypto.dsig.Manifest;
+import javax.xml.crypto.dsig.Reference;
+import javax.xml.crypto.dsig.XMLObject;
 import javax.xml.crypto.dsig.XMLSignature;
 import javax.xml.crypto.dsig.XMLSignatureException;
 import javax.xml.crypto.dsig.XMLSignatureFactory;
@@ -47,6 +54,7 @@ import org.apache.poi.EncryptedDocumentException;
 import org.apache.poi.ooxml.util.DocumentHelper;
 import org.apache.poi.ooxml.util.XPathHelper;
 import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.poifs.crypt.HashAlgorithm;
 import org.apache.xmlbeans.XmlException;
 import org.w3.x2000.x09.xmldsig.SignatureDocument;
 import org.w3c.dom.Document;
@@ -62,12 +70,22 @@ public class SignaturePart {
 
     private final PackagePart signaturePart;
     private final SignatureInfo signatureInfo;
+    private final PackagePartDigester digester;
     private X509Certificate signer;
     private List<X509Certificate> certChain;
 
     /* package */ SignaturePart(final PackagePart signaturePart, final SignatureInfo signatureInfo) {
+        this(signaturePart, signatureInfo, null);
+    }
+
+    /**
+     * @param digester the digester of the package parts, which is shared by the signatures of a package
+     *          or null, if the manifest references are validated by the xml signature implementation
+     */
+    /* package */ SignaturePart(final PackagePart signaturePart, final SignatureInfo signatureInfo, final PackagePartDigester digester) {
         this.signaturePart = signaturePart;
         this.signatureInfo = signatureInfo;
+        this.digester = digester;
     }
 
     /**
@@ -127,7 +145,7 @@ public class SignaturePart {
             }
 
             DOMValidateContext domValidateContext = new DOMValidateContext(keySelector, doc);
-            domValidateContext.setProperty(XMLSEC_VALIDATE_MANIFEST, Boolean.TRUE);
+            domValidateContext.setProperty(XMLSEC_VALIDATE_MANIFEST, digester == null);
             domValidateContext.setProperty(XMLSEC_VALIDATE_SECURE, signatureInfo.getSignatureConfig().isSecureValidation());
 
             URIDereferencer uriDereferencer = signatureInfo.getUriDereferencer();
@@ -137,6 +155,9 @@ public class SignaturePart {
             XMLSignature xmlSignature = xmlSignatureFactory.unmarshalXMLSignature(domValidateContext);
 
             boolean valid = xmlSignature.validate(domValidateContext);
+            if (valid && digester != null) {
+                valid = validateManifests(xmlSignature, domValidateContext);
+            }
 
             if (valid) {
                 signer = keySelector.getSigner();
@@ -168,6 +189,49 @@ public class SignaturePart {
         }
     }
 
+    /**
+     * Validates the manifest references, the references of whole package parts are checked with
+     * the digests of the shared digester and the others by the xml signature implementation.
+     */
+    private boolean validateManifests(final XMLSignature xmlSignature, final DOMValidateContext domValidateContext)
+    throws XMLSignatureException {
+        final Map<HashAlgorithm,List<Reference>> partRefs = new HashMap<>();
+        for (XMLObject object : xmlSignature.getObjects()) {
+            for (XMLStructure content : object.getContent()) {
+                if (!(content instanceof Manifest)) {
+                    continue;
+                }
+                for (Reference ref : ((Manifest)content).getReferences()) {
+                    HashAlgorithm hashAlgo = null;
+                    if (PackagePartDigester.canDigest(signatureInfo, ref.getURI(), ref.getTransforms())) {
+                        try {
+                            hashAlgo = SignatureConfig.getDigestMethodAlgo(ref.getDigestMethod().getAlgorithm());
+                        } catch (EncryptedDocumentException e) {
+                            LOG.atDebug().log("unsupported digest method - validating {} by the xml signature", ref.getURI());
+                        }
+                    }
+                    if (hashAlgo != null) {
+                        partRefs.computeIfAbsent(hashAlgo, k -> new ArrayList<>()).add(ref);
+                    } else if (!ref.validate(domValidateContext)) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        for (Map.Entry<HashAlgorithm,List<Reference>> me : partRefs.entrySet()) {
+            final List<String> uris = me.getValue().stream().map(Reference::getURI).collect(Collectors.toList());
+            final Map<String,byte[]> digests = digester.digest(uris, me.getKey());
+            for (Reference ref : me.getValue()) {
+                if (!MessageDigest.isEqual(digests.get(ref.getURI()), ref.getDigestValue())) {
+                    LOG.atDebug().log("digest of {} doesn't match", ref.getURI());
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     private void extractConfig(final Document doc, final XMLSignature xmlSignature) throws XPathExpressionException {
         SignatureConfig signatureConfig = signatureInfo.getSignatureConfig();
         if (!signatureConfig.isUpdateConfigOnValidate()) {
@@ -35,6 +35,8 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -66,6 +68,7 @@ import org.apache.poi.openxml4j.opc.PackageRelationshipCollection;
 import org.apache.poi.openxml4j.opc.PackagingURIHelper;
 import org.apache.poi.openxml4j.opc.TargetMode;
 import org.apache.poi.poifs.crypt.HashAlgorithm;
+import org.apache.poi.poifs.crypt.dsig.PackagePartDigester;
 import org.apache.poi.poifs.crypt.dsig.SignatureConfig;
 import org.apache.poi.poifs.crypt.dsig.SignatureInfo;
 import org.apache.poi.poifs.crypt.dsig.services.RelationshipTransformService;
@@ -108,6 +111,9 @@ public class OOXMLSignatureFacet implements SignatureFacet {
 
         List<Reference> manifestReferences = new ArrayList<>();
         addManifestReferences(signatureInfo, manifestReferences);
+        if (signatureInfo.getSignatureConfig().isStreamingPartDigests()) {
+            digestManifestReferences(signatureInfo, manifestReferences);
+        }
         Manifest manifest = sigFac.newManifest(manifestReferences);
 
         List<XMLStructure> objectContent = new ArrayList<>();
@@ -206,6 +212,32 @@ public class OOXMLSignatureFacet implements SignatureFacet {
         manifestReferences.sort(Comparator.comparing(URIReference::getURI));
     }
 
+    /**
+     * Replaces the references of whole parts by references with precalculated digests.
+     * The parts are streamed and digested concurrently, instead of one after the other on signing.
+     */
+    private static void digestManifestReferences(SignatureInfo signatureInfo, List<Reference> manifestReferences)
+    throws XMLSignatureException {
+        List<String> uris = manifestReferences.stream()
+            .filter(r -> r.getDigestValue() == null && PackagePartDigester.canDigest(signatureInfo, r.getURI(), r.getTransforms()))
+            .map(Reference::getURI)
+            .collect(Collectors.toList());
+        if (uris.isEmpty()) {
+            return;
+        }
+
+        PackagePartDigester digester = new PackagePartDigester(signatureInfo.getOpcPackage());
+        Map<String, byte[]> digests = digester.digest(uris, signatureInfo.getSignatureConfig().getDigestAlgo());
+
+        for (ListIterator<Reference> iter = manifestReferences.listIterator(); iter.hasNext(); ) {
+            Reference ref = iter.next();
+            byte[] digest = (ref.getDigestValue() == null) ? digests.get(ref.getURI()) : null;
+            if (digest != null) {
+                iter.set(newReference(signatureInfo, ref.getURI(), null, ref.getType(), digest));
+            }
+        }
+    }
+
     /**
      * Normalize a URI/part name
      * TODO: find a better way ...
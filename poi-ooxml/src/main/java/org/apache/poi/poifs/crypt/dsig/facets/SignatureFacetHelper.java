@@ -54,6 +54,19 @@ final class SignatureFacetHelper {
             , List<Transform> transforms
             , String type)
             throws XMLSignatureException {
+        return newReference(signatureInfo, uri, transforms, type, null);
+    }
+
+    /**
+     * @param digestValue the precalculated digest or null, if the reference is digested on signing
+     */
+    static Reference newReference(
+            SignatureInfo signatureInfo
+            , String uri
+            , List<Transform> transforms
+            , String type
+            , byte[] digestValue)
+            throws XMLSignatureException {
         // the references appear in the package signature or the package object
         // so we can use the default digest algorithm
         SignatureConfig signatureConfig = signatureInfo.getSignatureConfig();
@@ -66,6 +79,8 @@ final class SignatureFacetHelper {
             throw new XMLSignatureException("unknown digest method uri: "+digestMethodUri, e);
         }
 
-        return sigFac.newReference(uri, digestMethod, transforms, type, null);
+        return (digestValue == null)
+            ? sigFac.newReference(uri, digestMethod, transforms, type, null)
+            : sigFac.newReference(uri, digestMethod, transforms, type, null, digestValue);
     }
 }
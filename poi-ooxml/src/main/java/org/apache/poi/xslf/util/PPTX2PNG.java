@@ -23,16 +23,26 @@ import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.geom.Dimension2D;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -40,10 +50,12 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.poi.common.usermodel.GenericRecord;
 import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.sl.draw.DrawImageCache;
 import org.apache.poi.sl.draw.Drawable;
 import org.apache.poi.sl.draw.EmbeddedExtractor.EmbeddedPart;
 import org.apache.poi.util.Dimension2DDouble;
 import org.apache.poi.util.GenericRecordJsonWriter;
+import org.apache.poi.util.IOUtils;
 import org.apache.poi.util.LocaleUtil;
 
 /**
@@ -85,7 +97,9 @@ public final class PPTX2PNG {
             "    -fontdir <dir>    (PDF only) font directories separated by \";\" - use $HOME for current users home dir\n" +
             "                      defaults to the usual plattform directories\n" +
             "    -fontTtf <regex>  (PDF only) regex to match the .ttf filenames\n" +
-            "    -fontMap <map>    \";\"-separated list of font mappings <typeface from>:<typeface to>";
+            "    -fontMap <map>    \";\"-separated list of font mappings <typeface from>:<typeface to>\n" +
+            "    -threads <int>    number of slides rendered concurrently, defaults to 1\n" +
+            "                      each thread works on its own copy of the slideshow - not used for pdf";
 
         System.out.println(msg);
         // no System.exit here, as we also run in junit tests!
@@ -118,6 +132,11 @@ public final class PPTX2PNG {
     private String fontDir = null;
     private String fontTtf = null;
     private String fontMap = null;
+    private int threads = 1;
+    /** the buffered input, if stdin is read by multiple threads */
+    private byte[] stdinData = null;
+    /** the decoded images, e.g. of the masters, shared by all slides and threads */
+    private final DrawImageCache imageCache = new DrawImageCache(64L * 1024 * 1024);
 
     private PPTX2PNG() {
     }
@@ -231,6 +250,14 @@ public final class PPTX2PNG {
                         fontMap = null;
                     }
                     break;
+                case "-threads":
+                    if (opt != null) {
+                        threads = Integer.parseInt(opt);
+                        i++;
+                    } else {
+                        threads = 1;
+                    }
+                    break;
                 default:
                     file = new File(args[i]);
                     break;
@@ -277,6 +304,11 @@ public final class PPTX2PNG {
             return false;
         }
 
+        if (threads < 1) {
+            usage("Invalid number of threads given");
+            return false;
+        }
+
         return true;
     }
 
@@ -299,48 +331,21 @@ public final class PPTX2PNG {
             final int width = Math.max((int)Math.rint(dim.getWidth()),1);
             final int height = Math.max((int)Math.rint(dim.getHeight()),1);
 
-            try (OutputFormat outputFormat = getOutput()) {
-                for (int slideNo : slidenum) {
-                    proxy.setSlideNo(slideNo);
-                    if (!quiet) {
-                        String title = proxy.getTitle();
-                        System.out.println("Rendering slide " + slideNo + (title == null ? "" : ": " + title.trim()));
-                    }
-
-                    dumpRecords(proxy);
-
-                    extractEmbedded(proxy, slideNo);
-
-                    Graphics2D graphics = outputFormat.addSlide(width, height);
-
-                    // default rendering options
-                    graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                    graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-                    graphics.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY);
-                    graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-                    graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-                    graphics.setRenderingHint(Drawable.DEFAULT_CHARSET, getDefaultCharset());
-                    graphics.setRenderingHint(Drawable.EMF_FORCE_HEADER_BOUNDS, emfHeaderBounds);
-                    if (fontMap != null) {
-                        Map<String,String> fmap = Arrays.stream(fontMap.split(";"))
-                            .map(s -> s.split(":"))
-                            .collect(Collectors.toMap(s -> s[0], s -> s[1]));
-                        graphics.setRenderingHint(Drawable.FONT_MAP, fmap);
+            // the multi-page pdf document needs to be written in slide order
+            if (threads > 1 && slidenum.size() > 1 && !"pdf".equals(format)) {
+                dumpRecords(proxy);
+                renderConcurrently(proxy, slidenum, width, height, lenSide);
+            } else {
+                try (OutputFormat outputFormat = getOutput()) {
+                    for (int slideNo : slidenum) {
+                        proxy.setSlideNo(slideNo);
+                        printSlideTitle(proxy, slideNo);
+                        dumpRecords(proxy);
+                        renderSlide(proxy, outputFormat, slideNo, width, height, lenSide);
                     }
 
-                    graphics.scale(scale / lenSide, scale / lenSide);
-
-                    graphics.setComposite(AlphaComposite.Clear);
-                    graphics.fillRect(0, 0, width, height);
-                    graphics.setComposite(AlphaComposite.SrcOver);
-
-                    // draw stuff
-                    proxy.draw(graphics);
-
-                    outputFormat.writeSlide(proxy, new File(outdir, calcOutFile(proxy, slideNo)));
+                    outputFormat.writeDocument(proxy, new File(outdir, calcOutFile(proxy, 0)));
                 }
-
-                outputFormat.writeDocument(proxy, new File(outdir, calcOutFile(proxy, 0)));
             }
 
         } catch (NoScratchpadException e) {
@@ -353,6 +358,107 @@ public final class PPTX2PNG {
         }
     }
 
+    /**
+     * Renders the slides by a pool of threads. The usermodel isn't thread-safe, so each thread
+     * works on its own copy of the slideshow and takes the next slide, until all are rendered.
+     * The first thread uses the already parsed slideshow, the others parse a copy once.
+     */
+    private void renderConcurrently(MFProxy parsed, Set<Integer> slidenum, int width, int height, double lenSide)
+    throws IOException {
+        final Integer[] slides = slidenum.toArray(new Integer[0]);
+        final AtomicInteger nextSlide = new AtomicInteger();
+        final int poolSize = Math.min(threads, slides.length);
+        final ExecutorService pool = Executors.newFixedThreadPool(poolSize);
+        try {
+            final List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < poolSize; i++) {
+                final boolean first = (i == 0);
+                futures.add(pool.submit(() -> {
+                    int idx = nextSlide.getAndIncrement();
+                    if (idx >= slides.length) {
+                        // the other threads were faster
+                        return null;
+                    }
+                    try (MFProxy copy = first ? null : initProxy(file); OutputFormat outputFormat = getOutput()) {
+                        final MFProxy proxy = first ? parsed : copy;
+                        do {
+                            proxy.setSlideNo(slides[idx]);
+                            printSlideTitle(proxy, slides[idx]);
+                            renderSlide(proxy, outputFormat, slides[idx], width, height, lenSide);
+                        } while ((idx = nextSlide.getAndIncrement()) < slides.length);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Rendering of the slides was interrupted");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            // the threads stop after their current slide, as the slideshow of the first one is closed by the caller
+            nextSlide.set(slides.length);
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void printSlideTitle(MFProxy proxy, int slideNo) {
+        if (!quiet) {
+            String title = proxy.getTitle();
+            System.out.println("Rendering slide " + slideNo + (title == null ? "" : ": " + title.trim()));
+        }
+    }
+
+    private void renderSlide(MFProxy proxy, OutputFormat outputFormat, int slideNo, int width, int height, double lenSide)
+    throws IOException {
+        extractEmbedded(proxy, slideNo);
+
+        Graphics2D graphics = outputFormat.addSlide(width, height);
+
+        // default rendering options
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY);
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        graphics.setRenderingHint(Drawable.DEFAULT_CHARSET, getDefaultCharset());
+        graphics.setRenderingHint(Drawable.EMF_FORCE_HEADER_BOUNDS, emfHeaderBounds);
+        graphics.setRenderingHint(Drawable.IMAGE_CACHE, imageCache);
+        if (fontMap != null) {
+            Map<String,String> fmap = Arrays.stream(fontMap.split(";"))
+                .map(s -> s.split(":"))
+                .collect(Collectors.toMap(s -> s[0], s -> s[1]));
+            graphics.setRenderingHint(Drawable.FONT_MAP, fmap);
+        }
+
+        graphics.scale(scale / lenSide, scale / lenSide);
+
+        graphics.setComposite(AlphaComposite.Clear);
+        graphics.fillRect(0, 0, width, height);
+        graphics.setComposite(AlphaComposite.SrcOver);
+
+        // draw stuff
+        proxy.draw(graphics);
+
+        outputFormat.writeSlide(proxy, new File(outdir, calcOutFile(proxy, slideNo)));
+    }
+
     private OutputFormat getOutput() {
         switch (format) {
             case "svg": {
@@ -444,7 +550,12 @@ public final class PPTX2PNG {
         FileMagic fm;
         ProxyConsumer con;
         if ("stdin".equals(fileName)) {
-            InputStream bis = FileMagic.prepareToCheckMagic(System.in);
+            if (threads > 1 && stdinData == null) {
+                // stdin can only be read once, but each rendering thread parses its own copy
+                stdinData = IOUtils.toByteArray(System.in);
+            }
+            InputStream bis = FileMagic.prepareToCheckMagic(
+                stdinData == null ? System.in : new ByteArrayInputStream(stdinData));
             fm = FileMagic.valueOf(bis);
             con = (p) -> p.parse(bis);
         } else {
@@ -18,6 +18,7 @@ package org.apache.poi.xssf.eventusermodel;
 
 import static org.apache.poi.xssf.usermodel.XSSFRelation.NS_SPREADSHEETML;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Queue;
@@ -26,6 +27,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.poi.ss.usermodel.BuiltinFormats;
 import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateFormatCache;
 import org.apache.poi.ss.usermodel.RichTextString;
 import org.apache.poi.ss.util.CellAddress;
 import org.apache.poi.xssf.model.*;
@@ -102,6 +104,11 @@ public class XSSFSheetXMLHandler extends DefaultHandler {
     private short formatIndex;
     private String formatString;
     private final DataFormatter formatter;
+
+    // The number formats of the cell styles, which are looked up once per style
+    private short[] styleFormatIndexes = new short[0];
+    private String[] styleFormatStrings = new String[0];
+    private boolean[] styleFormatLoaded = new boolean[0];
     private int rowNum;
     private int nextRowNum;      // some sheets do not have rowNums, Excel can read them so we should try to handle them correctly as well
     private String cellRef;
@@ -134,6 +141,10 @@ public class XSSFSheetXMLHandler extends DefaultHandler {
         this.formulasNotResults = formulasNotResults;
         this.nextDataType = xssfDataType.NUMBER;
         this.formatter = dataFormatter;
+        if (styles != null) {
+            // share the date format checks with the handlers of the other sheets
+            dataFormatter.setDateFormatCache(DateFormatCache.forFormatTable(styles));
+        }
         init(comments);
     }
 
@@ -281,25 +292,50 @@ public class XSSFSheetXMLHandler extends DefaultHandler {
                 nextDataType = xssfDataType.FORMULA;
             else {
                 // Number, but almost certainly with a special style or format
-                XSSFCellStyle style = null;
                 if (stylesTable != null) {
                     if (cellStyleStr != null) {
-                        int styleIndex = Integer.parseInt(cellStyleStr);
-                        style = stylesTable.getStyleAt(styleIndex);
+                        setNumberFormat(Integer.parseInt(cellStyleStr));
                     } else if (stylesTable.getNumCellStyles() > 0) {
-                        style = stylesTable.getStyleAt(0);
+                        setNumberFormat(0);
                     }
                 }
-                if (style != null) {
-                    this.formatIndex = style.getDataFormat();
-                    this.formatString = style.getDataFormatString();
-                    if (this.formatString == null)
-                        this.formatString = BuiltinFormats.getBuiltinFormat(this.formatIndex);
-                }
             }
         }
     }
 
+    /**
+     * Sets the number format of the current cell from the given cell style.
+     * The format of each style is only looked up once, as the styles don't change while
+     * the sheet is read and the cells of a sheet usually share a few styles.
+     */
+    private void setNumberFormat(int styleIndex) {
+        if (styleIndex >= 0 && styleIndex < styleFormatLoaded.length && styleFormatLoaded[styleIndex]) {
+            this.formatIndex = styleFormatIndexes[styleIndex];
+            this.formatString = styleFormatStrings[styleIndex];
+            return;
+        }
+
+        XSSFCellStyle style = stylesTable.getStyleAt(styleIndex);
+        if (style != null) {
+            this.formatIndex = style.getDataFormat();
+            this.formatString = style.getDataFormatString();
+            if (this.formatString == null)
+                this.formatString = BuiltinFormats.getBuiltinFormat(this.formatIndex);
+        }
+
+        if (styleIndex >= 0 && styleIndex < stylesTable.getNumCellStyles()) {
+            if (styleIndex >= styleFormatLoaded.length) {
+                int len = stylesTable.getNumCellStyles();
+                styleFormatIndexes = Arrays.copyOf(styleFormatIndexes, len);
+                styleFormatStrings = Arrays.copyOf(styleFormatStrings, len);
+                styleFormatLoaded = Arrays.copyOf(styleFormatLoaded, len);
+            }
+            styleFormatIndexes[styleIndex] = this.formatIndex;
+            styleFormatStrings[styleIndex] = this.formatString;
+            styleFormatLoaded[styleIndex] = true;
+        }
+    }
+
     @Override
     public void endElement(String uri, String localName, String qName)
             throws SAXException {
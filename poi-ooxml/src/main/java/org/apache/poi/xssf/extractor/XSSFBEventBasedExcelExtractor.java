@@ -105,13 +105,32 @@ public class XSSFBEventBasedExcelExtractor extends XSSFEventBasedExcelExtractor
      * Processes the file and returns the text
      */
     public String getText() {
+        StringBuilder text = new StringBuilder(64);
+        try {
+            writeText(text);
+            return text.toString();
+        } catch (IOException e) {
+            LOGGER.atWarn().withThrowable(e).log("Failed to load text");
+            return "";
+        }
+    }
+
+    /**
+     * Processes the file and writes the text of each sheet, as soon as the sheet is processed
+     *
+     * @throws IOException if the file can't be processed or writing to the output fails
+     * @since POI 5.3.1
+     */
+    @Override
+    public void writeText(Appendable out) throws IOException {
         try {
             XSSFBSharedStringsTable strings = new XSSFBSharedStringsTable(getPackage());
             XSSFBReader xssfbReader = new XSSFBReader(getPackage());
             XSSFBStylesTable styles = xssfbReader.getXSSFBStylesTable();
             XSSFBReader.SheetIterator iter = (XSSFBReader.SheetIterator) xssfbReader.getSheetsData();
 
-            StringBuilder text = new StringBuilder(64);
+            // only the text of the current sheet is buffered, unless the whole text is collected anyway
+            StringBuilder text = (out instanceof StringBuilder) ? (StringBuilder)out : new StringBuilder(64);
             SheetTextExtractor sheetExtractor = new SheetTextExtractor();
             XSSFBHyperlinksTable hyperlinksTable = null;
             while (iter.hasNext()) {
@@ -137,12 +156,13 @@ public class XSSFBEventBasedExcelExtractor extends XSSFEventBasedExcelExtractor
                     }
                     sheetExtractor.reset();
                 }
+                if (text != out) {
+                    out.append(text);
+                    text.setLength(0);
+                }
             }
-
-            return text.toString();
-        } catch (IOException | OpenXML4JException | SAXException e) {
-            LOGGER.atWarn().withThrowable(e).log("Failed to load text");
-            return "";
+        } catch (OpenXML4JException | SAXException e) {
+            throw new IOException(e);
         }
     }
 
@@ -258,12 +258,31 @@ public class XSSFEventBasedExcelExtractor
      * Processes the file and returns the text
      */
     public String getText() {
+        StringBuilder text = new StringBuilder(64);
+        try {
+            writeText(text);
+            return text.toString();
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.atWarn().withThrowable(e).log("Failed to load text");
+            return "";
+        }
+    }
+
+    /**
+     * Processes the file and writes the text of each sheet, as soon as the sheet is processed
+     *
+     * @throws IOException if the file can't be processed or writing to the output fails
+     * @since POI 5.3.1
+     */
+    @Override
+    public void writeText(Appendable out) throws IOException {
         try {
             XSSFReader xssfReader = new XSSFReader(container);
             SharedStrings strings = createSharedStringsTable(xssfReader, container);
             StylesTable styles = xssfReader.getStylesTable();
             XSSFReader.SheetIterator iter = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
-            StringBuilder text = new StringBuilder(64);
+            // only the text of the current sheet is buffered, unless the whole text is collected anyway
+            StringBuilder text = (out instanceof StringBuilder) ? (StringBuilder)out : new StringBuilder(64);
             SheetTextExtractor sheetExtractor = new SheetTextExtractor();
 
             while (iter.hasNext()) {
@@ -286,12 +305,13 @@ public class XSSFEventBasedExcelExtractor
                     }
                     sheetExtractor.reset();
                 }
+                if (text != out) {
+                    out.append(text);
+                    text.setLength(0);
+                }
             }
-
-            return text.toString();
-        } catch (IOException | OpenXML4JException | SAXException | NumberFormatException e) {
-            LOGGER.atWarn().withThrowable(e).log("Failed to load text");
-            return "";
+        } catch (OpenXML4JException | SAXException e) {
+            throw new IOException(e);
         }
     }
 
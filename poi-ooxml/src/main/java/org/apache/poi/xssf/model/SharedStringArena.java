@@ -0,0 +1,150 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.model;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Arrays;
+
+/**
+ * Stores unique plain strings of a {@link SharedStringsTable} in compact mode.<p>
+ *
+ * The strings are appended UTF-8 encoded to a single byte array and found by an open addressing
+ * hash table of their indexes, so a string doesn't need its own objects, apart from the
+ * temporary ones of a lookup.
+ */
+/* package */ final class SharedStringArena {
+    /** the maximum size of the arrays, some VMs reserve header words in an array */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /** the UTF-8 encoded strings */
+    private byte[] data = new byte[1024];
+    private int dataLength;
+
+    /** the start, length and hash of each string in {@link #data} */
+    private int[] offsets = new int[64];
+    private int[] lengths = new int[64];
+    private int[] hashes = new int[64];
+    private int size;
+
+    /** the hash table of the string indexes plus one, 0 marks a free slot */
+    private int[] table = new int[128];
+
+    /**
+     * Finds or adds a string.
+     *
+     * @param str the string
+     * @return the index of an existing string, or {@code -(index + 1)} if the string was added
+     */
+    int intern(String str) {
+        final byte[] bytes = str.getBytes(UTF_8);
+        final int hash = hash(bytes);
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        for (int entry; (entry = table[slot]) != 0; slot = (slot + 1) & mask) {
+            if (hashes[entry - 1] == hash && matches(entry - 1, bytes)) {
+                return entry - 1;
+            }
+        }
+
+        final int idx = append(bytes, hash);
+        table[slot] = idx + 1;
+        // keep the load factor below 0.5
+        if (2 * size > table.length) {
+            rehash();
+        }
+        return -(idx + 1);
+    }
+
+    /**
+     * @return the string with the given index
+     */
+    String get(int idx) {
+        if (idx < 0 || idx >= size) {
+            throw new IndexOutOfBoundsException("Index: " + idx + ", Size: " + size);
+        }
+        return new String(data, offsets[idx], lengths[idx], UTF_8);
+    }
+
+    /**
+     * @return the number of strings
+     */
+    int size() {
+        return size;
+    }
+
+    private int append(byte[] bytes, int hash) {
+        if (size == offsets.length) {
+            final int len = grow(offsets.length, size + 1);
+            offsets = Arrays.copyOf(offsets, len);
+            lengths = Arrays.copyOf(lengths, len);
+            hashes = Arrays.copyOf(hashes, len);
+        }
+        if (bytes.length > data.length - dataLength) {
+            data = Arrays.copyOf(data, grow(data.length, (long)dataLength + bytes.length));
+        }
+        System.arraycopy(bytes, 0, data, dataLength, bytes.length);
+        offsets[size] = dataLength;
+        lengths[size] = bytes.length;
+        hashes[size] = hash;
+        dataLength += bytes.length;
+        return size++;
+    }
+
+    private static int grow(int length, long minLength) {
+        if (minLength > MAX_ARRAY_SIZE) {
+            throw new IllegalStateException("The shared strings exceed the maximum size of the compact mode");
+        }
+        return (int)Math.max(minLength, Math.min(MAX_ARRAY_SIZE, 2L * length));
+    }
+
+    private void rehash() {
+        final int[] newTable = new int[2 * table.length];
+        final int mask = newTable.length - 1;
+        for (int idx = 0; idx < size; idx++) {
+            int slot = hashes[idx] & mask;
+            while (newTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = idx + 1;
+        }
+        table = newTable;
+    }
+
+    private boolean matches(int idx, byte[] bytes) {
+        if (lengths[idx] != bytes.length) {
+            return false;
+        }
+        final int offset = offsets[idx];
+        for (int i = 0; i < bytes.length; i++) {
+            if (data[offset + i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] bytes) {
+        int hash = 1;
+        for (byte b : bytes) {
+            hash = 31 * hash + b;
+        }
+        // spread the bits, as only the lower bits select the slot
+        return hash ^ (hash >>> 16);
+    }
+}
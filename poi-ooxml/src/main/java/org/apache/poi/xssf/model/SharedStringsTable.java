@@ -17,14 +17,19 @@
 
 package org.apache.poi.xssf.model;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.poi.ooxml.POIXMLTypeLoader.DEFAULT_XML_OPTIONS;
 import static org.apache.poi.xssf.usermodel.XSSFRelation.NS_SPREADSHEETML;
 
+import java.io.BufferedWriter;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -61,6 +66,10 @@ import org.openxmlformats.schemas.spreadsheetml.x2006.main.SstDocument;
  * The shared string table contains all the necessary information for displaying the string: the text, formatting
  * properties, and phonetic properties (for East Asian languages).
  * </p>
+ * <p>
+ * Workbooks with many unique strings can use the {@link #setCompactMode(boolean) compact mode}, which keeps
+ * the text of plain strings UTF-8 encoded in a single buffer instead of an XML bean per string.
+ * </p>
  */
 public class SharedStringsTable extends POIXMLDocumentPart implements SharedStrings, Closeable {
 
@@ -74,6 +83,24 @@ public class SharedStringsTable extends POIXMLDocumentPart implements SharedStri
      */
     private final Map<String, Integer> stmap = new HashMap<>();
 
+    /**
+     * The plain strings in compact mode, otherwise null. In compact mode, {@link #strings} only
+     * contains the rich text strings and {@link #stmap} maps them to their index in the table.
+     */
+    private SharedStringArena plainStrings;
+
+    /**
+     * The entries of the table in compact mode: the index of a plain string or {@code -(index + 1)}
+     * of a rich text string in {@link #strings}
+     */
+    private int[] entries;
+
+    /** The index in the table of each plain string in compact mode */
+    private int[] plainEntries;
+
+    /** The number of entries in compact mode */
+    private int entryCount;
+
     /**
      * An integer representing the total count of strings in the workbook. This count does not
      * include any numbers, it counts only the total of text strings in the workbook.
@@ -113,6 +140,46 @@ public class SharedStringsTable extends POIXMLDocumentPart implements SharedStri
         }
     }
 
+    /**
+     * Enables or disables the compact mode, which needs to be set before adding strings, e.g. for a new
+     * workbook with many unique strings or when using {@code SXSSFWorkbook} with a shared strings table.
+     * <p>
+     * In compact mode, the text of strings without formatting or phonetic properties is kept UTF-8 encoded
+     * in a single buffer and only rich text strings are kept as XML beans. Strings returned by
+     * {@link #getItemAt(int)} are created on every call, so changing them doesn't change the table.
+     * </p>
+     *
+     * @param compactMode true to enable the compact mode
+     * @throws IllegalStateException if the table already contains strings
+     * @since POI 5.3.1
+     */
+    public void setCompactMode(boolean compactMode) {
+        if (compactMode == isCompactMode()) {
+            return;
+        }
+        if (!strings.isEmpty() || entryCount > 0) {
+            throw new IllegalStateException("The compact mode can only be changed while the shared strings table is empty");
+        }
+        if (compactMode) {
+            plainStrings = new SharedStringArena();
+            entries = new int[64];
+            plainEntries = new int[64];
+        } else {
+            plainStrings = null;
+            entries = null;
+            plainEntries = null;
+        }
+    }
+
+    /**
+     * @return true, if the table is in compact mode
+     * @see #setCompactMode(boolean)
+     * @since POI 5.3.1
+     */
+    public boolean isCompactMode() {
+        return plainStrings != null;
+    }
+
     /**
      * Read this shared strings table from an XML file.
      *
@@ -126,6 +193,16 @@ public class SharedStringsTable extends POIXMLDocumentPart implements SharedStri
             CTSst sst = _sstDoc.getSst();
             count = (int)sst.getCount();
             uniqueCount = (int)sst.getUniqueCount();
+            if (isCompactMode()) {
+                // only keep the rich text strings in the document
+                _sstDoc = SstDocument.Factory.newInstance();
+                _sstDoc.addNewSst();
+                //noinspection deprecation
+                for (CTRst st : sst.getSiArray()) {
+                    addCompactEntry(st, isPlain(st) ? null : xmlText(st));
+                }
+                return;
+            }
             //noinspection deprecation
             for (CTRst st : sst.getSiArray()) {
                 stmap.put(xmlText(st), cnt);
@@ -149,6 +226,15 @@ public class SharedStringsTable extends POIXMLDocumentPart implements SharedStri
      */
     @Override
     public RichTextString getItemAt(int idx) {
+        if (isCompactMode()) {
+            if (idx < 0 || idx >= entryCount) {
+                throw new IndexOutOfBoundsException("Index: " + idx + ", Size: " + entryCount);
+            }
+            final int entry = entries[idx];
+            return entry >= 0
+                ? new XSSFRichTextString(plainStrings.get(entry))
+                : new XSSFRichTextString(strings.get(-(entry + 1)));
+        }
         return new XSSFRichTextString(strings.get(idx));
     }
 
@@ -188,6 +274,25 @@ public class SharedStringsTable extends POIXMLDocumentPart implements SharedStri
      */
     @Internal
     int addEntry(CTRst st) {
+        if (isCompactMode()) {
+            count++;
+            if (isPlain(st)) {
+                final int plainIdx = plainStrings.intern(st.getT());
+                if (plainIdx >= 0) {
+                    return plainEntries[plainIdx];
+                }
+                uniqueCount++;
+                return addPlainEntry(-(plainIdx + 1), true);
+            }
+            final String s = xmlText(st);
+            final Integer idx = stmap.get(s);
+            if (idx != null) {
+                return idx;
+            }
+            uniqueCount++;
+            return addCompactEntry(st, s);
+        }
+
         String s = xmlText(st);
         count++;
         if (stmap.containsKey(s)) {
@@ -204,6 +309,53 @@ public class SharedStringsTable extends POIXMLDocumentPart implements SharedStri
         return idx;
     }
 
+    /**
+     * Appends an entry in compact mode, without checking for an existing entry
+     *
+     * @param st the entry
+     * @param xmlText the key of a rich text entry, or null for a plain entry
+     * @return the index of the entry
+     */
+    private int addCompactEntry(CTRst st, String xmlText) {
+        if (xmlText == null) {
+            final int plainIdx = plainStrings.intern(st.getT());
+            return (plainIdx >= 0) ? addPlainEntry(plainIdx, false) : addPlainEntry(-(plainIdx + 1), true);
+        }
+
+        CTRst newSt = _sstDoc.getSst().addNewSi();
+        newSt.set(st);
+        final int idx = addEntryIndex(-(strings.size() + 1));
+        stmap.putIfAbsent(xmlText, idx);
+        strings.add(newSt);
+        return idx;
+    }
+
+    private int addPlainEntry(int plainIdx, boolean newString) {
+        final int idx = addEntryIndex(plainIdx);
+        if (newString) {
+            if (plainIdx >= plainEntries.length) {
+                plainEntries = Arrays.copyOf(plainEntries, Math.max(plainIdx + 1, 2 * plainEntries.length));
+            }
+            plainEntries[plainIdx] = idx;
+        }
+        return idx;
+    }
+
+    private int addEntryIndex(int entry) {
+        if (entryCount == entries.length) {
+            entries = Arrays.copyOf(entries, 2 * entries.length);
+        }
+        entries[entryCount] = entry;
+        return entryCount++;
+    }
+
+    /**
+     * @return true, if the entry only has a text without formatting or phonetic properties
+     */
+    private static boolean isPlain(CTRst st) {
+        return st.isSetT() && st.sizeOfRArray() == 0 && st.sizeOfRPhArray() == 0 && !st.isSetPhoneticPr();
+    }
+
     /**
      * Add an entry to this Shared String table (a new value is appended to the end).
      *
@@ -230,6 +382,12 @@ public class SharedStringsTable extends POIXMLDocumentPart implements SharedStri
      */
     public List<RichTextString> getSharedStringItems() {
         ArrayList<RichTextString> items = new ArrayList<>();
+        if (isCompactMode()) {
+            for (int i = 0; i < entryCount; i++) {
+                items.add(getItemAt(i));
+            }
+            return Collections.unmodifiableList(items);
+        }
         for (CTRst rst : strings) {
             items.add(new XSSFRichTextString(rst));
         }
@@ -243,6 +401,11 @@ public class SharedStringsTable extends POIXMLDocumentPart implements SharedStri
      * @throws IOException if an error occurs while writing.
      */
     public void writeTo(OutputStream out) throws IOException {
+        if (isCompactMode()) {
+            writeCompactTo(out);
+            return;
+        }
+
         XmlOptions xmlOptions = new XmlOptions(DEFAULT_XML_OPTIONS);
         // the following two lines turn off writing CDATA
         // see Bugzilla 48936
@@ -257,6 +420,76 @@ public class SharedStringsTable extends POIXMLDocumentPart implements SharedStri
         _sstDoc.save(out, xmlOptions);
     }
 
+    /**
+     * Writes the table in compact mode, where the plain strings aren't part of the XML document
+     */
+    private void writeCompactTo(OutputStream out) throws IOException {
+        XmlOptions richOptions = new XmlOptions(options);
+        richOptions.setSaveCDataLengthThreshold(1000000);
+        richOptions.setSaveCDataEntityCountThreshold(-1);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        writer.write("<sst xmlns=\"" + NS_SPREADSHEETML + "\" count=\"" + count + "\" uniqueCount=\"" + uniqueCount + "\">");
+        for (int i = 0; i < entryCount; i++) {
+            final int entry = entries[i];
+            writer.write("<si>");
+            if (entry >= 0) {
+                final String text = plainStrings.get(entry);
+                writer.write(needsPreserveSpaces(text) ? "<t xml:space=\"preserve\">" : "<t>");
+                writeEscaped(writer, text);
+                writer.write("</t>");
+            } else {
+                writer.write(strings.get(-(entry + 1)).xmlText(richOptions));
+            }
+            writer.write("</si>");
+        }
+        writer.write("</sst>");
+        writer.flush();
+    }
+
+    /**
+     * @return true, if the text has leading or trailing whitespace like in {@code XSSFRichTextString.preserveSpaces}
+     */
+    private static boolean needsPreserveSpaces(String text) {
+        return !text.isEmpty()
+            && (Character.isWhitespace(text.charAt(0)) || Character.isWhitespace(text.charAt(text.length() - 1)));
+    }
+
+    private static void writeEscaped(Writer writer, String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            switch (c) {
+                case '<':
+                    writer.write("&lt;");
+                    break;
+                case '>':
+                    writer.write("&gt;");
+                    break;
+                case '&':
+                    writer.write("&amp;");
+                    break;
+                case '\n':
+                    writer.write("&#xa;");
+                    break;
+                case '\r':
+                    writer.write("&#xd;");
+                    break;
+                case '\t':
+                    writer.write("&#x9;");
+                    break;
+                default:
+                    // XmlBeans replaces the control characters and "not a character" symbols with question marks
+                    if (c < ' ' || c == '\uFFFE' || c == '\uFFFF') {
+                        writer.write('?');
+                    } else {
+                        writer.write(c);
+                    }
+                    break;
+            }
+        }
+    }
+
     @Override
     protected void commit() throws IOException {
         PackagePart part = getPackagePart();
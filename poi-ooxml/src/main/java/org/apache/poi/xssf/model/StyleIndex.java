@@ -0,0 +1,134 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Content index of a list of style elements (fonts, fills, borders) of the {@link StylesTable}.<p>
+ *
+ * The elements are bucketed by a key, which needs to be derived from the same properties
+ * as the {@code equals()} method of the element. The XmlBeans based elements don't provide
+ * a {@code hashCode()} consistent with {@code equals()}, therefore the key is computed by
+ * the supplied key function instead.<p>
+ *
+ * Elements which are modified after registration need to be re-keyed via {@link #update(Object)}.
+ *
+ * @param <T> the type of the style elements
+ */
+final class StyleIndex<T> {
+    private final Function<T, Object> keyFunction;
+    /** key -> ascending list indices */
+    private final Map<Object, List<Integer>> buckets = new HashMap<>();
+    /** list index -> key at time of (re-)indexing */
+    private final List<Object> keys = new ArrayList<>();
+    /** element -> list indices, usually only one */
+    private final Map<T, List<Integer>> positions = new IdentityHashMap<>();
+
+    StyleIndex(Function<T, Object> keyFunction) {
+        this.keyFunction = keyFunction;
+    }
+
+    /**
+     * Indexes the element, which has been appended to the backing list
+     *
+     * @param element the element
+     */
+    void add(T element) {
+        int index = keys.size();
+        Object key = keyFunction.apply(element);
+        keys.add(key);
+        insertSorted(buckets.computeIfAbsent(key, k -> new ArrayList<>(1)), index);
+        positions.computeIfAbsent(element, k -> new ArrayList<>(1)).add(index);
+    }
+
+    /**
+     * Re-keys the given element after its properties have been changed
+     *
+     * @param element the element
+     */
+    void update(T element) {
+        List<Integer> indices = positions.get(element);
+        if (indices == null) {
+            return;
+        }
+        Object newKey = keyFunction.apply(element);
+        for (int index : indices) {
+            Object oldKey = keys.get(index);
+            if (oldKey == null ? newKey == null : oldKey.equals(newKey)) {
+                continue;
+            }
+            List<Integer> oldBucket = buckets.get(oldKey);
+            if (oldBucket != null) {
+                oldBucket.remove((Integer)index);
+                if (oldBucket.isEmpty()) {
+                    buckets.remove(oldKey);
+                }
+            }
+            keys.set(index, newKey);
+            insertSorted(buckets.computeIfAbsent(newKey, k -> new ArrayList<>(1)), index);
+        }
+    }
+
+    /**
+     * @param element the element to look up
+     * @return the key of the element, as computed by the key function
+     */
+    Object keyOf(T element) {
+        return keyFunction.apply(element);
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the ascending list indices of the elements with the given key
+     */
+    List<Integer> candidates(Object key) {
+        List<Integer> bucket = buckets.get(key);
+        return (bucket == null) ? Collections.emptyList() : bucket;
+    }
+
+    /**
+     * Finds the first element in the backing list, which equals the given element
+     *
+     * @param elements the backing list
+     * @param element the element to look up
+     * @return the list index or -1 if not found
+     */
+    int indexOf(List<T> elements, T element) {
+        for (int index : candidates(keyOf(element))) {
+            if (elements.get(index).equals(element)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static void insertSorted(List<Integer> bucket, int index) {
+        int pos = bucket.size();
+        while (pos > 0 && bucket.get(pos - 1) > index) {
+            pos--;
+        }
+        bucket.add(pos, index);
+    }
+}
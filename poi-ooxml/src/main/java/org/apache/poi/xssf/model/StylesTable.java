@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -47,6 +48,7 @@ import org.apache.poi.xssf.usermodel.DefaultIndexedColorMap;
 import org.apache.poi.xssf.usermodel.IndexedColorMap;
 import org.apache.poi.xssf.usermodel.XSSFBuiltinTableStyle;
 import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
 import org.apache.poi.xssf.usermodel.XSSFFont;
 import org.apache.poi.xssf.usermodel.XSSFRelation;
 import org.apache.poi.xssf.usermodel.XSSFTableStyle;
@@ -87,6 +89,16 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
     private final List<CTDxf> dxfs = new ArrayList<>();
     private final Map<String, TableStyle> tableStyles = new HashMap<>();
 
+    // content indexes of the above lists, so registration and lookups don't need to scan them
+    private final Map<String, Short> numberFormatIds = new HashMap<>();
+    private final StyleIndex<XSSFFont> fontIndex = new StyleIndex<>(StylesTable::fontKey);
+    private final StyleIndex<XSSFFont> fontSearchIndex = new StyleIndex<>(StylesTable::fontSearchKey);
+    private final StyleIndex<XSSFCellFill> fillIndex = new StyleIndex<>(StylesTable::fillKey);
+    private final StyleIndex<XSSFCellBorder> borderIndex = new StyleIndex<>(StylesTable::borderKey);
+    // CTXf don't override equals, so cell styles are identified by instance
+    private final Map<CTXf, Integer> xfIndex = new IdentityHashMap<>();
+    private boolean duplicateXfs;
+
     private IndexedColorMap indexedColors = new DefaultIndexedColorMap();
 
     /**
@@ -230,7 +242,9 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
             if( ctfmts != null){
                 for (CTNumFmt nfmt : ctfmts.getNumFmtArray()) {
                     short formatId = (short)nfmt.getNumFmtId();
-                    numberFormats.put(formatId, nfmt.getFormatCode());
+                    String oldFmt = numberFormats.put(formatId, nfmt.getFormatCode());
+                    unindexNumberFormat(oldFmt, formatId);
+                    indexNumberFormat(nfmt.getFormatCode(), formatId);
                 }
             }
 
@@ -240,26 +254,30 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
                 for (CTFont font : ctfonts.getFontArray()) {
                     // Create the font and save it. Themes Table supplied later
                     XSSFFont f = new XSSFFont(font, idx, indexedColors);
-                    fonts.add(f);
+                    addFont(f);
                     idx++;
                 }
             }
             CTFills ctfills = styleSheet.getFills();
             if(ctfills != null){
                 for (CTFill fill : ctfills.getFillArray()) {
-                    fills.add(new XSSFCellFill(fill, indexedColors));
+                    addFill(new XSSFCellFill(fill, indexedColors));
                 }
             }
 
             CTBorders ctborders = styleSheet.getBorders();
             if(ctborders != null) {
                 for (CTBorder border : ctborders.getBorderArray()) {
-                    borders.add(new XSSFCellBorder(border, indexedColors));
+                    addBorder(new XSSFCellBorder(border, indexedColors));
                 }
             }
 
             CTCellXfs cellXfs = styleSheet.getCellXfs();
-            if(cellXfs != null) xfs.addAll(Arrays.asList(cellXfs.getXfArray()));
+            if(cellXfs != null) {
+                for (CTXf xf : cellXfs.getXfArray()) {
+                    addCellXf(xf);
+                }
+            }
 
             CTCellStyleXfs cellStyleXfs = styleSheet.getCellStyleXfs();
             if(cellStyleXfs != null) styleXfs.addAll(Arrays.asList(cellStyleXfs.getXfArray()));
@@ -297,13 +315,31 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
     }
 
     private short getNumberFormatId(String fmt) {
-        // Find the key, and return that
+        Short id = numberFormatIds.get(fmt);
+        if (id == null) {
+            throw new IllegalStateException("Number format not in style table: " + fmt);
+        }
+        return id;
+    }
+
+    private void indexNumberFormat(String fmt, short id) {
+        if (fmt != null) {
+            // like the previous linear search, the lowest id wins for duplicated format codes
+            numberFormatIds.merge(fmt, id, (a, b) -> a < b ? a : b);
+        }
+    }
+
+    private void unindexNumberFormat(String fmt, short id) {
+        if (fmt == null || !numberFormatIds.remove(fmt, id)) {
+            return;
+        }
+        // the format code might be used by another id
         for (Entry<Short,String> numFmt : numberFormats.entrySet()) {
-            if(numFmt.getValue().equals(fmt)) {
-                return numFmt.getKey();
+            if (fmt.equals(numFmt.getValue())) {
+                numberFormatIds.put(fmt, numFmt.getKey());
+                return;
             }
         }
-        throw new IllegalStateException("Number format not in style table: " + fmt);
     }
 
     /**
@@ -319,12 +355,9 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
     @Override
     public int putNumberFormat(String fmt) {
         // Check if number format already exists
-        if (numberFormats.containsValue(fmt)) {
-            try {
-                return getNumberFormatId(fmt);
-            } catch (final IllegalStateException e) {
-                throw new IllegalStateException("Found the format, but couldn't figure out where - should never happen!");
-            }
+        Short existingId = numberFormatIds.get(fmt);
+        if (existingId != null) {
+            return existingId;
         }
 
 
@@ -353,6 +386,7 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
         }
 
         numberFormats.put(formatIndex, fmt);
+        indexNumberFormat(fmt, formatIndex);
         return formatIndex;
     }
 
@@ -368,7 +402,9 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
      */
     @Override
     public void putNumberFormat(short index, String fmt) {
-        numberFormats.put(index, fmt);
+        String oldFmt = numberFormats.put(index, fmt);
+        unindexNumberFormat(oldFmt, index);
+        indexNumberFormat(fmt, index);
     }
 
     /**
@@ -383,6 +419,7 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
         String fmt = numberFormats.remove(index);
         boolean removed = (fmt != null);
         if (removed) {
+            unindexNumberFormat(fmt, index);
             for (final CTXf style : xfs) {
                 if (style.isSetNumFmtId() && style.getNumFmtId() == index) {
                     style.unsetApplyNumberFormat();
@@ -425,7 +462,7 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
     public int putFont(XSSFFont font, boolean forceRegistration) {
         int idx = -1;
         if(!forceRegistration) {
-            idx = fonts.indexOf(font);
+            idx = fontIndex.indexOf(fonts, font);
         }
 
         if (idx != -1) {
@@ -433,10 +470,29 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
         }
 
         idx = fonts.size();
-        fonts.add(font);
+        addFont(font);
         return idx;
     }
 
+    private void addFont(XSSFFont font) {
+        fonts.add(font);
+        fontIndex.add(font);
+        fontSearchIndex.add(font);
+        font.setStylesTable(this);
+    }
+
+    /**
+     * Updates the lookup indexes after a registered font has been modified.
+     * This is called by {@link XSSFFont} itself and is usually not needed by end users.
+     *
+     * @param font the modified font
+     */
+    @Internal
+    public void updateFont(XSSFFont font) {
+        fontIndex.update(font);
+        fontSearchIndex.update(font);
+    }
+
     @Override
     public int putFont(XSSFFont font) {
         return putFont(font, false);
@@ -467,14 +523,21 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
     public int putStyle(XSSFCellStyle style) {
         CTXf mainXF = style.getCoreXf();
 
-        int ret = xfs.indexOf(mainXF);
-        if(ret == -1) {
-            xfs.add(mainXF);
-            ret = xfs.size() - 1;
+        Integer ret = xfIndex.get(mainXF);
+        if(ret == null) {
+            ret = xfs.size();
+            addCellXf(mainXF);
         }
         return ret;
     }
 
+    private void addCellXf(CTXf cellXf) {
+        if (xfIndex.putIfAbsent(cellXf, xfs.size()) != null) {
+            duplicateXfs = true;
+        }
+        xfs.add(cellXf);
+    }
+
     @Override
     public XSSFCellBorder getBorderAt(int idx) {
         return borders.get(idx);
@@ -489,15 +552,33 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
      */
     @Override
     public int putBorder(XSSFCellBorder border) {
-        int idx = borders.indexOf(border);
+        int idx = borderIndex.indexOf(borders, border);
         if (idx != -1) {
             return idx;
         }
-        borders.add(border);
+        addBorder(border);
         border.setThemesTable(theme);
         return borders.size() - 1;
     }
 
+    private void addBorder(XSSFCellBorder border) {
+        borders.add(border);
+        borderIndex.add(border);
+        border.setStylesTable(this);
+    }
+
+    /**
+     * Updates the lookup index after a registered border has been modified.
+     * This is called by {@link XSSFCellBorder} itself and is usually not needed by end users.
+     *
+     * @param border the modified border
+     * @since POI 5.3.1
+     */
+    @Internal
+    public void updateBorder(XSSFCellBorder border) {
+        borderIndex.update(border);
+    }
+
     @Override
     public XSSFCellFill getFillAt(int idx) {
         return fills.get(idx);
@@ -528,14 +609,32 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
      */
     @Override
     public int putFill(XSSFCellFill fill) {
-        int idx = fills.indexOf(fill);
+        int idx = fillIndex.indexOf(fills, fill);
         if (idx != -1) {
             return idx;
         }
-        fills.add(fill);
+        addFill(fill);
         return fills.size() - 1;
     }
 
+    private void addFill(XSSFCellFill fill) {
+        fills.add(fill);
+        fillIndex.add(fill);
+        fill.setStylesTable(this);
+    }
+
+    /**
+     * Updates the lookup index after a registered fill has been modified.
+     * This is called by {@link XSSFCellFill} itself and is usually not needed by end users.
+     *
+     * @param fill the modified fill
+     * @since POI 5.3.1
+     */
+    @Internal
+    public void updateFill(XSSFCellFill fill) {
+        fillIndex.update(fill);
+    }
+
     @Internal
     public CTXf getCellXfAt(int idx) {
         return xfs.get(idx);
@@ -550,13 +649,29 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
      */
     @Internal
     public int putCellXf(CTXf cellXf) {
-        xfs.add(cellXf);
+        addCellXf(cellXf);
         return xfs.size();
     }
 
     @Internal
     public void replaceCellXfAt(int idx, CTXf cellXf) {
-        xfs.set(idx, cellXf);
+        CTXf oldXf = xfs.set(idx, cellXf);
+        if (oldXf != cellXf && xfIndex.remove(oldXf, idx) && duplicateXfs) {
+            // the old instance might still be referenced at a higher index
+            for (int i = idx + 1; i < xfs.size(); i++) {
+                if (xfs.get(i) == oldXf) {
+                    xfIndex.put(oldXf, i);
+                    break;
+                }
+            }
+        }
+        Integer existing = xfIndex.get(cellXf);
+        if (existing == null || existing > idx) {
+            if (existing != null) {
+                duplicateXfs = true;
+            }
+            xfIndex.put(cellXf, idx);
+        }
     }
 
     @Internal
@@ -746,20 +861,20 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
     private void initialize() {
         //CTFont ctFont = createDefaultFont();
         XSSFFont xssfFont = createDefaultFont();
-        fonts.add(xssfFont);
+        addFont(xssfFont);
 
         CTFill[] ctFill = createDefaultFills();
-        fills.add(new XSSFCellFill(ctFill[0], indexedColors));
-        fills.add(new XSSFCellFill(ctFill[1], indexedColors));
+        addFill(new XSSFCellFill(ctFill[0], indexedColors));
+        addFill(new XSSFCellFill(ctFill[1], indexedColors));
 
         CTBorder ctBorder = createDefaultBorder();
-        borders.add(new XSSFCellBorder(ctBorder));
+        addBorder(new XSSFCellBorder(ctBorder));
 
         CTXf styleXf = createDefaultXf();
         styleXfs.add(styleXf);
         CTXf xf = createDefaultXf();
         xf.setXfId(0);
-        xfs.add(xf);
+        addCellXf(xf);
     }
 
     private static CTXf createDefaultXf() {
@@ -879,7 +994,9 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
      * where color is the indexed-value, not the actual color.
      */
     public XSSFFont findFont(boolean bold, short color, short fontHeight, String name, boolean italic, boolean strikeout, short typeOffset, byte underline) {
-        for (XSSFFont font : fonts) {
+        Object key = fontSearchKey(bold, fontHeight, name, italic, strikeout, typeOffset, underline);
+        for (int idx : fontSearchIndex.candidates(key)) {
+            XSSFFont font = fonts.get(idx);
             if (    (font.getBold() == bold)
                     && font.getColor() == color
                     && font.getFontHeight() == fontHeight
@@ -900,7 +1017,9 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
      * where color is the actual Color-value, not the indexed color
      */
     public XSSFFont findFont(boolean bold, Color color, short fontHeight, String name, boolean italic, boolean strikeout, short typeOffset, byte underline) {
-        for (XSSFFont font : fonts) {
+        Object key = fontSearchKey(bold, fontHeight, name, italic, strikeout, typeOffset, underline);
+        for (int idx : fontSearchIndex.candidates(key)) {
+            XSSFFont font = fonts.get(idx);
             if (    (font.getBold() == bold)
                     && font.getXSSFColor().equals(color)
                     && font.getFontHeight() == fontHeight
@@ -922,4 +1041,53 @@ public class StylesTable extends POIXMLDocumentPart implements Styles {
     public IndexedColorMap getIndexedColors() {
         return indexedColors;
     }
+
+    // key functions of the style indexes - these need to be kept in sync with the equals() methods
+    // and must not depend on values, which are derived while reading the elements
+
+    private static Object fontKey(XSSFFont font) {
+        return Arrays.asList(font.getItalic(), font.getBold(), font.getStrikeout(), font.getCharSet(),
+            font.getColor(), font.getFamily(), font.getFontHeight(), font.getFontName(), font.getScheme(),
+            font.getThemeColor(), font.getTypeOffset(), font.getUnderline(), colorKey(font.getXSSFColor()));
+    }
+
+    private static Object fontSearchKey(XSSFFont font) {
+        return fontSearchKey(font.getBold(), font.getFontHeight(), font.getFontName(), font.getItalic(),
+            font.getStrikeout(), font.getTypeOffset(), font.getUnderline());
+    }
+
+    private static Object fontSearchKey(boolean bold, short fontHeight, String name, boolean italic,
+                                        boolean strikeout, short typeOffset, byte underline) {
+        return Arrays.asList(bold, fontHeight, name, italic, strikeout, typeOffset, underline);
+    }
+
+    private static Object fillKey(XSSFCellFill fill) {
+        return Arrays.asList(colorKey(fill.getFillBackgroundColor()), colorKey(fill.getFillForegroundColor()),
+            fill.getPatternType());
+    }
+
+    private static Object borderKey(XSSFCellBorder border) {
+        XSSFCellBorder.BorderSide[] sides = XSSFCellBorder.BorderSide.values();
+        Object[] key = new Object[sides.length * 2];
+        int i = 0;
+        for (XSSFCellBorder.BorderSide side : sides) {
+            key[i++] = colorKey(border.getBorderColor(side));
+            key[i++] = border.getBorderStyle(side);
+        }
+        return Arrays.asList(key);
+    }
+
+    private static Object colorKey(XSSFColor color) {
+        if (color == null) {
+            return null;
+        }
+        // the rgb value of a themed color is not part of the key, as reading the color writes
+        // the rgb value of the theme into it (see ThemesTable#inheritFromThemeAsRequired)
+        return Arrays.asList(
+            color.isRGB() && !color.isThemed() ? Arrays.toString(color.getARGB()) : null,
+            color.isThemed() ? color.getTheme() : null,
+            color.isIndexed() ? color.getIndexed() : null,
+            color.hasTint() ? color.getTint() : null,
+            color.isAuto());
+    }
 }
@@ -21,6 +21,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -31,6 +32,7 @@ import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.DataFormatter;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.SheetUtil;
 import org.apache.poi.util.Internal;
 
@@ -300,7 +302,10 @@ import org.apache.poi.util.Internal;
     public void updateColumnWidths(Row row) {
         // track new columns
         implicitlyTrackColumnsInRow(row);
-        
+
+        // querying the merged regions is time-consuming, so do it once per row
+        final List<CellRangeAddress> mergedRegions = row.getSheet().getMergedRegions();
+
         // update the widths
         // for-loop over the shorter of the number of cells in the row and the number of tracked columns
         // these two for-loops should do the same thing
@@ -313,12 +318,9 @@ import org.apache.poi.util.Internal;
                 // FIXME: if cell belongs to a merged region, some of the merged region may have fallen outside of the random access window
                 // In this case, getting the column width may result in an error. Need to gracefully handle this.
 
-                // FIXME: Most cells are not merged, so calling getCellWidth twice re-computes the same value twice.
-                // Need to rewrite this to avoid unnecessary computation if this proves to be a performance bottleneck.
-
                 if (cell != null) {
                     final ColumnWidthPair pair = e.getValue();
-                    updateColumnWidth(cell, pair);
+                    updateColumnWidth(cell, pair, mergedRegions);
                 }
             }
         }
@@ -330,12 +332,9 @@ import org.apache.poi.util.Internal;
                 // FIXME: if cell belongs to a merged region, some of the merged region may have fallen outside of the random access window
                 // In this case, getting the column width may result in an error. Need to gracefully handle this.
 
-                // FIXME: Most cells are not merged, so calling getCellWidth twice re-computes the same value twice.
-                // Need to rewrite this to avoid unnecessary computation if this proves to be a performance bottleneck.
-
                 if (maxColumnWidths.containsKey(column)) {
                     final ColumnWidthPair pair = maxColumnWidths.get(column);
-                    updateColumnWidth(cell, pair);
+                    updateColumnWidth(cell, pair, mergedRegions);
                 }
             }
         }
@@ -366,11 +365,25 @@ import org.apache.poi.util.Internal;
      *
      * @param cell the cell to compute the best fit width on
      * @param pair the column width pair to update
+     * @param mergedRegions the merged regions of the sheet
      * @since 3.14beta1
      */
-    private void updateColumnWidth(final Cell cell, final ColumnWidthPair pair) {
-        final double unmergedWidth = SheetUtil.getCellWidth(cell, defaultCharWidth, dataFormatter, false);
-        final double mergedWidth = SheetUtil.getCellWidth(cell, defaultCharWidth, dataFormatter, true);
+    private void updateColumnWidth(final Cell cell, final ColumnWidthPair pair, final List<CellRangeAddress> mergedRegions) {
+        // Most cells are not merged and then both widths are the same. Cells within a merged region
+        // are skipped, when merged cells aren't used, so only the merged width needs to be measured.
+        final double mergedWidth = SheetUtil.getCellWidth(cell, defaultCharWidth, dataFormatter, true, mergedRegions);
+        final double unmergedWidth = isMerged(cell, mergedRegions) ? -1 : mergedWidth;
         pair.setMaxColumnWidths(unmergedWidth, mergedWidth);
     }
+
+    private static boolean isMerged(final Cell cell, final List<CellRangeAddress> mergedRegions) {
+        final int rowIndex = cell.getRowIndex();
+        final int column = cell.getColumnIndex();
+        for (final CellRangeAddress region : mergedRegions) {
+            if (region.isInRange(rowIndex, column)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,633 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.usermodel;
+
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.apache.poi.ooxml.POIXMLTypeLoader.DEFAULT_XML_OPTIONS;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCellFormula;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTRow;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTSheetData;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorksheet;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STCellFormulaType;
+
+/**
+ * Compact storage of the not yet loaded rows of a {@link XSSFSheet}.<p>
+ *
+ * When a worksheet is read, the {@code <row>} elements of the {@code <sheetData>} are
+ * filtered out before XmlBeans builds its object tree. Each row is kept as its encoded
+ * XML in a shared byte arena, together with columnar per-row data (row number, cell
+ * range) needed to answer sheet level queries without parsing it. A row is only
+ * turned into a {@link CTRow} when it is accessed via the usermodel. When the sheet is
+ * written, the stored rows are copied to the output as-is and merged with the loaded
+ * rows, so unmodified rows are neither parsed nor rendered by XmlBeans.<p>
+ *
+ * The master cells of shared formulas and the array formula ranges are collected while
+ * filtering, because the sheet needs them before the corresponding rows are loaded.
+ */
+final class CompactSheetData {
+    private static final String NS_MAIN = XSSFRelation.NS_SPREADSHEETML;
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    /** namespace declarations in scope of the {@code <sheetData>} element, prefix -> uri */
+    private final Map<String, String> namespaces = new LinkedHashMap<>();
+
+    /** formulas which need to be registered with the sheet before their rows are loaded */
+    private final List<FormulaCell> formulas = new ArrayList<>();
+
+    /** number of stored rows, including the already loaded ones */
+    private int count;
+    /** the 0-based row numbers in file order */
+    private int[] rowNums = new int[64];
+    /** arena block and offset of the encoded row */
+    private long[] positions = new long[64];
+    private int[] lengths = new int[64];
+    /** first and last column of the cells of the row, -1 if there are no cells */
+    private int[] firstCols = new int[64];
+    private int[] lastCols = new int[64];
+
+    private final List<byte[]> blocks = new ArrayList<>();
+    private int blockPos;
+
+    private final BitSet loaded = new BitSet();
+    private int remaining;
+    private boolean sorted = true;
+
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    /**
+     * A cell holding a shared formula master or an array formula
+     */
+    static final class FormulaCell {
+        final int row;
+        final int col;
+        final CTCellFormula formula;
+
+        private FormulaCell(int row, int col, CTCellFormula formula) {
+            this.row = row;
+            this.col = col;
+            this.formula = formula;
+        }
+    }
+
+    /**
+     * @param reader the reader of the worksheet part
+     * @return a reader, which skips the rows of the {@code <sheetData>} element and
+     *  stores them in this instance instead
+     */
+    XMLStreamReader filter(XMLStreamReader reader) {
+        return new RowFilter(reader);
+    }
+
+    /**
+     * @return {@code true}, if the rows are stored in ascending order without duplicates,
+     *  which is a prerequisite for loading single rows
+     */
+    boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * @return the formulas, which need to be registered with the sheet
+     */
+    List<FormulaCell> getFormulas() {
+        return formulas;
+    }
+
+    /**
+     * @return the number of rows which haven't been loaded yet
+     */
+    int size() {
+        return remaining;
+    }
+
+    /**
+     * @return the lowest number of the rows which haven't been loaded yet or -1
+     */
+    int getFirstRowNum() {
+        int idx = loaded.nextClearBit(0);
+        return (idx < count) ? rowNums[idx] : -1;
+    }
+
+    /**
+     * @return the highest number of the rows which haven't been loaded yet or -1
+     */
+    int getLastRowNum() {
+        int idx = (count == 0) ? -1 : loaded.previousClearBit(count - 1);
+        return (idx >= 0) ? rowNums[idx] : -1;
+    }
+
+    /**
+     * @return the lowest column index of the cells of the rows which haven't been loaded yet or -1
+     */
+    int getFirstColumn() {
+        int col = Integer.MAX_VALUE;
+        for (int idx = loaded.nextClearBit(0); idx < count; idx = loaded.nextClearBit(idx + 1)) {
+            if (firstCols[idx] != -1) {
+                col = Math.min(col, firstCols[idx]);
+            }
+        }
+        return (col == Integer.MAX_VALUE) ? -1 : col;
+    }
+
+    /**
+     * @return the highest column index of the cells of the rows which haven't been loaded yet or -1
+     */
+    int getLastColumn() {
+        int col = -1;
+        for (int idx = loaded.nextClearBit(0); idx < count; idx = loaded.nextClearBit(idx + 1)) {
+            col = Math.max(col, lastCols[idx]);
+        }
+        return col;
+    }
+
+    /**
+     * @param fromRow the lowest row number (inclusive)
+     * @param toRow the highest row number (exclusive)
+     * @return the ascending numbers of the rows within the range, which haven't been loaded yet
+     */
+    int[] getRowNums(int fromRow, int toRow) {
+        int idx = Arrays.binarySearch(rowNums, 0, count, fromRow);
+        if (idx < 0) {
+            idx = -idx - 1;
+        }
+        int[] result = new int[16];
+        int len = 0;
+        for (idx = loaded.nextClearBit(idx); idx < count && rowNums[idx] < toRow; idx = loaded.nextClearBit(idx + 1)) {
+            if (len == result.length) {
+                result = Arrays.copyOf(result, len * 2);
+            }
+            result[len++] = rowNums[idx];
+        }
+        return Arrays.copyOf(result, len);
+    }
+
+    /**
+     * Parses a row, which hasn't been loaded yet. The row is marked as loaded afterwards.
+     *
+     * @param rowNum the 0-based row number
+     * @return the detached row bean or {@code null} if there's no such row left
+     */
+    CTRow load(int rowNum) {
+        int idx = Arrays.binarySearch(rowNums, 0, count, rowNum);
+        if (idx < 0 || loaded.get(idx)) {
+            return null;
+        }
+        CTRow row = parse(idx);
+        loaded.set(idx);
+        remaining--;
+        return row;
+    }
+
+    /**
+     * Appends all rows, which haven't been loaded yet, in file order to the given sheet data.
+     * This is used when the rows aren't sorted and therefore can't be looked up individually.
+     *
+     * @param sheetData the target
+     */
+    void loadAll(CTSheetData sheetData) {
+        for (int idx = loaded.nextClearBit(0); idx < count; idx = loaded.nextClearBit(idx + 1)) {
+            sheetData.addNewRow().set(parse(idx));
+            loaded.set(idx);
+            remaining--;
+        }
+    }
+
+    /**
+     * Saves the worksheet and writes the loaded rows and the stored rows in ascending row order
+     * as the content of its {@code <sheetData>} element. Each row is serialized only once.
+     *
+     * @param worksheet the worksheet bean containing the loaded rows
+     * @param options the save options of the worksheet
+     * @param loadedRows the loaded rows in ascending order
+     * @param out the target stream
+     * @return {@code false}, if the {@code <sheetData>} element couldn't be located in the
+     *  saved worksheet - nothing is written in this case
+     */
+    boolean write(CTWorksheet worksheet, XmlOptions options, Iterable<XSSFRow> loadedRows, OutputStream out)
+    throws IOException {
+        final byte[] xml = saveWithoutRows(worksheet, options);
+        if (xml == null) {
+            return false;
+        }
+
+        final int start = indexOfStartTag(xml);
+        if (start < 0) {
+            return false;
+        }
+        final int tagEnd = indexOf(xml, ">", start);
+        final int resume;
+        if (xml[tagEnd - 1] == '/') {
+            resume = tagEnd + 1;
+        } else {
+            final int endTag = indexOf(xml, "</sheetData>", tagEnd);
+            if (endTag < 0) {
+                return false;
+            }
+            resume = endTag + "</sheetData>".length();
+        }
+
+        out.write(xml, 0, start);
+        out.write(sheetDataStartTag());
+
+        Map<String, String> implicit = new LinkedHashMap<>(namespaces);
+        implicit.put("", NS_MAIN);
+        XmlOptions rowOptions = new XmlOptions(options);
+        rowOptions.setSaveSyntheticDocumentElement(new QName(NS_MAIN, "row"));
+        rowOptions.setSaveImplicitNamespaces(implicit);
+        rowOptions.setSaveNoXmlDecl();
+
+        Iterator<XSSFRow> iter = loadedRows.iterator();
+        XSSFRow next = iter.hasNext() ? iter.next() : null;
+        for (int idx = loaded.nextClearBit(0); idx < count; idx = loaded.nextClearBit(idx + 1)) {
+            while (next != null && next.getRowNum() < rowNums[idx]) {
+                next.getCTRow().save(out, rowOptions);
+                next = iter.hasNext() ? iter.next() : null;
+            }
+            out.write(blocks.get((int)(positions[idx] >>> 32)), (int)positions[idx], lengths[idx]);
+        }
+        while (next != null) {
+            next.getCTRow().save(out, rowOptions);
+            next = iter.hasNext() ? iter.next() : null;
+        }
+
+        out.write("</sheetData>".getBytes(StandardCharsets.US_ASCII));
+        out.write(xml, resume, xml.length - resume);
+        return true;
+    }
+
+    /**
+     * Saves the worksheet without the content of its {@code <sheetData>} element. The loaded rows
+     * are written in the merge pass, so they are moved out of the worksheet while it's saved.
+     * Moving keeps the row beans of the {@link XSSFRow}s valid.
+     *
+     * @return the saved worksheet or {@code null}, if it has no {@code <sheetData>} element
+     */
+    private static byte[] saveWithoutRows(CTWorksheet worksheet, XmlOptions options) throws IOException {
+        final CTSheetData sheetData = worksheet.getSheetData();
+        if (sheetData == null) {
+            return null;
+        }
+        final XmlObject rows = XmlObject.Factory.newInstance();
+        try (XmlCursor dataCur = sheetData.newCursor(); XmlCursor rowsCur = rows.newCursor()) {
+            rowsCur.toEndDoc();
+            dataCur.moveXmlContents(rowsCur);
+            try (UnsynchronizedByteArrayOutputStream bos = UnsynchronizedByteArrayOutputStream.builder().get()) {
+                worksheet.save(bos, options);
+                return bos.toByteArray();
+            } finally {
+                dataCur.toEndToken();
+                rowsCur.toStartDoc();
+                rowsCur.moveXmlContents(dataCur);
+            }
+        }
+    }
+
+    private CTRow parse(int idx) {
+        byte[] block = blocks.get((int)(positions[idx] >>> 32));
+        List<InputStream> parts = Arrays.asList(
+            new ByteArrayInputStream(sheetDataStartTag()),
+            new ByteArrayInputStream(block, (int)positions[idx], lengths[idx]),
+            new ByteArrayInputStream("</sheetData>".getBytes(StandardCharsets.US_ASCII))
+        );
+        try (InputStream is = new SequenceInputStream(Collections.enumeration(parts))) {
+            CTSheetData data = CTSheetData.Factory.parse(is, DEFAULT_XML_OPTIONS);
+            return data.getRowArray(0);
+        } catch (XmlException | IOException e) {
+            throw new POIXMLException("Failed to parse row " + (rowNums[idx] + 1), e);
+        }
+    }
+
+    private byte[] sheetDataStartTag() {
+        StringBuilder sb = new StringBuilder("<sheetData xmlns=\"").append(NS_MAIN).append('"');
+        for (Map.Entry<String, String> me : namespaces.entrySet()) {
+            if (!me.getKey().isEmpty()) {
+                sb.append(" xmlns:").append(me.getKey()).append("=\"");
+                appendEscaped(sb, me.getValue(), true);
+                sb.append('"');
+            }
+        }
+        return sb.append('>').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int indexOfStartTag(byte[] xml) {
+        for (int pos = indexOf(xml, "<sheetData", 0); pos >= 0; pos = indexOf(xml, "<sheetData", pos + 1)) {
+            int next = pos + "<sheetData".length();
+            if (next < xml.length && (xml[next] == '>' || xml[next] == '/' || xml[next] == ' ')) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] data, String pattern, int from) {
+        final byte[] pat = pattern.getBytes(StandardCharsets.US_ASCII);
+        outer:
+        for (int i = from; i <= data.length - pat.length; i++) {
+            for (int j = 0; j < pat.length; j++) {
+                if (data[i + j] != pat[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private void addRow(int rowNum, int firstCol, int lastCol, byte[] data) {
+        if (count == rowNums.length) {
+            int newLength = count * 2;
+            rowNums = Arrays.copyOf(rowNums, newLength);
+            positions = Arrays.copyOf(positions, newLength);
+            lengths = Arrays.copyOf(lengths, newLength);
+            firstCols = Arrays.copyOf(firstCols, newLength);
+            lastCols = Arrays.copyOf(lastCols, newLength);
+        }
+        if (count > 0 && rowNum <= rowNums[count - 1]) {
+            sorted = false;
+        }
+
+        byte[] block = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+        if (block == null || blockPos + data.length > block.length) {
+            block = new byte[Math.max(BLOCK_SIZE, data.length)];
+            blocks.add(block);
+            blockPos = 0;
+        }
+        System.arraycopy(data, 0, block, blockPos, data.length);
+
+        rowNums[count] = rowNum;
+        positions[count] = ((long)(blocks.size() - 1) << 32) | blockPos;
+        lengths[count] = data.length;
+        firstCols[count] = firstCol;
+        lastCols[count] = lastCol;
+        blockPos += data.length;
+        count++;
+        remaining++;
+    }
+
+    private static void appendEscaped(StringBuilder sb, CharSequence text, boolean attribute) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '>':
+                    sb.append("&gt;");
+                    break;
+                case '"':
+                    sb.append(attribute ? "&quot;" : "\"");
+                    break;
+                case '\r':
+                    sb.append("&#13;");
+                    break;
+                case '\n':
+                    sb.append(attribute ? "&#10;" : "\n");
+                    break;
+                case '\t':
+                    sb.append(attribute ? "&#9;" : "\t");
+                    break;
+                default:
+                    sb.append(c);
+                    break;
+            }
+        }
+    }
+
+    private static void appendName(StringBuilder sb, String prefix, String localName) {
+        if (prefix != null && !prefix.isEmpty()) {
+            sb.append(prefix).append(':');
+        }
+        sb.append(localName);
+    }
+
+    /**
+     * @return the 0-based column index of the given cell reference, e.g. "AB12", or -1 if it can't be parsed
+     */
+    private static int parseColumn(String ref) {
+        int col = 0;
+        int i = 0;
+        for (; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                col = col * 26 + (c - 'A' + 1);
+            } else if (c >= 'a' && c <= 'z') {
+                col = col * 26 + (c - 'a' + 1);
+            } else if (c != '$') {
+                break;
+            }
+        }
+        return (i == 0 || col == 0) ? -1 : col - 1;
+    }
+
+    private final class RowFilter extends StreamReaderDelegate {
+        /** number of open elements */
+        private int depth;
+        private int sheetDataDepth = -1;
+        private int lastRowNum = -1;
+
+        RowFilter(XMLStreamReader reader) {
+            super(reader);
+        }
+
+        @Override
+        public int next() throws XMLStreamException {
+            int event = super.next();
+            while (event == START_ELEMENT && sheetDataDepth >= 0 && depth == sheetDataDepth + 1
+                && "row".equals(getLocalName()) && NS_MAIN.equals(getNamespaceURI())) {
+                readRow(getParent());
+                event = super.next();
+            }
+            if (event == START_ELEMENT) {
+                boolean isSheetData = (depth == 1 && "sheetData".equals(getLocalName()) && NS_MAIN.equals(getNamespaceURI()));
+                if (depth == 0 || isSheetData) {
+                    for (int i = 0; i < getNamespaceCount(); i++) {
+                        String prefix = getNamespacePrefix(i);
+                        namespaces.put(prefix == null ? "" : prefix, getNamespaceURI(i));
+                    }
+                }
+                if (isSheetData) {
+                    sheetDataDepth = depth;
+                }
+                depth++;
+            } else if (event == END_ELEMENT) {
+                depth--;
+                if (depth == sheetDataDepth) {
+                    sheetDataDepth = -1;
+                }
+            }
+            return event;
+        }
+
+        /**
+         * Reads the row element, the reader is positioned at its start and will be positioned
+         * at its end afterwards
+         */
+        private void readRow(XMLStreamReader r) throws XMLStreamException {
+            final StringBuilder sb = buffer;
+            sb.setLength(0);
+
+            final String rAttr = r.getAttributeValue(null, "r");
+            final int rowNum = (rAttr == null) ? lastRowNum + 1 : Math.toIntExact(Long.parseLong(rAttr) - 1);
+            lastRowNum = Math.max(lastRowNum, rowNum);
+
+            appendStartTag(sb, r);
+            if (rAttr == null) {
+                // Certain file format writers skip the row number, see XSSFRow
+                sb.append(" r=\"").append(rowNum + 1).append('"');
+            }
+
+            int firstCol = -1, lastCol = -1;
+            int cellCol = -1;
+            boolean pendingStart = true;
+            int level = 1;
+
+            // formula data of the current cell
+            String fType = null, fRef = null, fSi = null;
+            StringBuilder fText = null;
+
+            while (level > 0) {
+                switch (r.next()) {
+                    case START_ELEMENT:
+                        if (pendingStart) {
+                            sb.append('>');
+                        }
+                        appendStartTag(sb, r);
+                        pendingStart = true;
+                        level++;
+                        if (level == 2 && "c".equals(r.getLocalName())) {
+                            String ref = r.getAttributeValue(null, "r");
+                            int col = (ref == null) ? -1 : parseColumn(ref);
+                            cellCol = (col == -1) ? lastCol + 1 : col;
+                            firstCol = (firstCol == -1) ? cellCol : Math.min(firstCol, cellCol);
+                            lastCol = Math.max(lastCol, cellCol);
+                        } else if (level == 3 && "f".equals(r.getLocalName())) {
+                            fType = r.getAttributeValue(null, "t");
+                            fRef = r.getAttributeValue(null, "ref");
+                            fSi = r.getAttributeValue(null, "si");
+                            fText = new StringBuilder();
+                        }
+                        break;
+                    case END_ELEMENT:
+                        if (pendingStart) {
+                            sb.append("/>");
+                            pendingStart = false;
+                        } else {
+                            sb.append("</");
+                            appendName(sb, r.getPrefix(), r.getLocalName());
+                            sb.append('>');
+                        }
+                        if (level == 3 && fText != null) {
+                            addFormula(rowNum, cellCol, fType, fRef, fSi, fText.toString());
+                            fText = null;
+                        }
+                        level--;
+                        break;
+                    case CHARACTERS:
+                    case CDATA:
+                    case SPACE:
+                        if (level <= 2 && r.isWhiteSpace()) {
+                            // indentation between the row and cell elements
+                            break;
+                        }
+                        if (pendingStart) {
+                            sb.append('>');
+                            pendingStart = false;
+                        }
+                        appendEscaped(sb, r.getText(), false);
+                        if (fText != null && level == 3) {
+                            fText.append(r.getText());
+                        }
+                        break;
+                    default:
+                        // comments and processing instructions are dropped
+                        break;
+                }
+            }
+
+            addRow(rowNum, firstCol, lastCol, sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void appendStartTag(StringBuilder sb, XMLStreamReader r) {
+            sb.append('<');
+            appendName(sb, r.getPrefix(), r.getLocalName());
+            for (int i = 0; i < r.getNamespaceCount(); i++) {
+                String prefix = r.getNamespacePrefix(i);
+                sb.append(prefix == null || prefix.isEmpty() ? " xmlns" : " xmlns:" + prefix).append("=\"");
+                appendEscaped(sb, r.getNamespaceURI(i), true);
+                sb.append('"');
+            }
+            for (int i = 0; i < r.getAttributeCount(); i++) {
+                sb.append(' ');
+                appendName(sb, r.getAttributePrefix(i), r.getAttributeLocalName(i));
+                sb.append("=\"");
+                appendEscaped(sb, r.getAttributeValue(i), true);
+                sb.append('"');
+            }
+        }
+
+        private void addFormula(int rowNum, int col, String type, String ref, String si, String text) {
+            final boolean shared = "shared".equals(type) && ref != null && si != null;
+            final boolean array = "array".equals(type) && ref != null;
+            if (!shared && !array) {
+                return;
+            }
+            CTCellFormula f = CTCellFormula.Factory.newInstance();
+            f.setT(shared ? STCellFormulaType.SHARED : STCellFormulaType.ARRAY);
+            f.setRef(ref);
+            if (si != null) {
+                f.setSi(Long.parseLong(si));
+            }
+            f.setStringValue(text);
+            formulas.add(new FormulaCell(rowNum, col, f));
+        }
+    }
+}
@@ -0,0 +1,366 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.usermodel;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+
+/**
+ * Sorted container of rows or cells keyed by their (0-based) index.<p>
+ *
+ * The values are kept in chunks of 64 slots, each with a bitmap of the occupied slots.
+ * Chunks are only allocated when a value is stored in them, so densely populated
+ * ranges are stored as plain arrays, while gaps only cost a {@code null} reference
+ * in the chunk directory. Lookups don't need to box the index or walk a tree and the
+ * bitmaps allow for skipping empty slots when iterating or counting.<p>
+ *
+ * Indexes outside of the range supported by the chunk directory - e.g. negative row
+ * numbers of malformed files - are kept in a {@link TreeMap}, so the container behaves
+ * like the {@code SortedMap} it replaces for every key.
+ *
+ * @param <V> the type of the values, i.e. rows or cells
+ */
+final class SparseIndexArray<V> {
+    private static final int CHUNK_BITS = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    /** number of chunks which are summarized by one block count */
+    private static final int BLOCK_BITS = 6;
+    /** indexes from 0 to {@code LIMIT-1} are stored in the chunks */
+    private static final int LIMIT = 1 << 22;
+
+    private static final long NONE = Long.MAX_VALUE;
+
+    private Object[][] chunks = new Object[0][];
+    private long[] bitmaps = new long[0];
+    /** number of values per block of {@code 1 << BLOCK_BITS} chunks */
+    private int[] blockCounts = new int[0];
+
+    /** values with indexes outside of [0, LIMIT), usually {@code null} */
+    private TreeMap<Integer, V> overflow;
+
+    private int size;
+    private int modCount;
+
+    /**
+     * @param index the index of the value
+     * @return the value at the given index or {@code null} if there's none
+     */
+    @SuppressWarnings("unchecked")
+    V get(int index) {
+        if (index < 0 || index >= LIMIT) {
+            return (overflow == null) ? null : overflow.get(index);
+        }
+        final int chunk = index >>> CHUNK_BITS;
+        if (chunk >= chunks.length) {
+            return null;
+        }
+        Object[] values = chunks[chunk];
+        return (values == null) ? null : (V)values[index & CHUNK_MASK];
+    }
+
+    /**
+     * @param index the index of the value
+     * @param value the value, not {@code null}
+     * @return the previous value at the given index or {@code null} if there was none
+     */
+    @SuppressWarnings("unchecked")
+    V put(int index, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value must not be null");
+        }
+        if (index < 0 || index >= LIMIT) {
+            if (overflow == null) {
+                overflow = new TreeMap<>();
+            }
+            V prev = overflow.put(index, value);
+            if (prev == null) {
+                size++;
+                modCount++;
+            }
+            return prev;
+        }
+
+        final int chunk = index >>> CHUNK_BITS;
+        ensureChunks(chunk + 1);
+        Object[] values = chunks[chunk];
+        if (values == null) {
+            values = new Object[CHUNK_SIZE];
+            chunks[chunk] = values;
+        }
+        final int slot = index & CHUNK_MASK;
+        V prev = (V)values[slot];
+        values[slot] = value;
+        if (prev == null) {
+            bitmaps[chunk] |= 1L << slot;
+            blockCounts[chunk >>> BLOCK_BITS]++;
+            size++;
+            modCount++;
+        }
+        return prev;
+    }
+
+    /**
+     * @param index the index of the value
+     * @return the removed value or {@code null} if there was none
+     */
+    @SuppressWarnings("unchecked")
+    V remove(int index) {
+        if (index < 0 || index >= LIMIT) {
+            V prev = (overflow == null) ? null : overflow.remove(index);
+            if (prev != null) {
+                size--;
+                modCount++;
+            }
+            return prev;
+        }
+
+        final int chunk = index >>> CHUNK_BITS;
+        if (chunk >= chunks.length || chunks[chunk] == null) {
+            return null;
+        }
+        Object[] values = chunks[chunk];
+        final int slot = index & CHUNK_MASK;
+        V prev = (V)values[slot];
+        if (prev != null) {
+            values[slot] = null;
+            bitmaps[chunk] &= ~(1L << slot);
+            if (bitmaps[chunk] == 0) {
+                chunks[chunk] = null;
+            }
+            blockCounts[chunk >>> BLOCK_BITS]--;
+            size--;
+            modCount++;
+        }
+        return prev;
+    }
+
+    void clear() {
+        chunks = new Object[0][];
+        bitmaps = new long[0];
+        blockCounts = new int[0];
+        overflow = null;
+        size = 0;
+        modCount++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the lowest index
+     * @throws NoSuchElementException if the container is empty
+     */
+    int firstKey() {
+        long key = ceilingKey(Integer.MIN_VALUE);
+        if (key == NONE) {
+            throw new NoSuchElementException();
+        }
+        return (int)key;
+    }
+
+    /**
+     * @return the highest index
+     * @throws NoSuchElementException if the container is empty
+     */
+    int lastKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        if (overflow != null && !overflow.isEmpty() && overflow.lastKey() >= LIMIT) {
+            return overflow.lastKey();
+        }
+        for (int chunk = bitmaps.length - 1; chunk >= 0; chunk--) {
+            if (bitmaps[chunk] != 0) {
+                return (chunk << CHUNK_BITS) + (CHUNK_MASK - Long.numberOfLeadingZeros(bitmaps[chunk]));
+            }
+        }
+        // only negative indexes
+        return overflow.lastKey();
+    }
+
+    /**
+     * @param index the (exclusive) upper bound
+     * @return the number of values with an index lower than the given index
+     */
+    int countBelow(int index) {
+        int count = 0;
+        if (overflow != null && !overflow.isEmpty()) {
+            count += overflow.headMap(index).size();
+        }
+        if (index <= 0) {
+            return count;
+        }
+        if (index >= LIMIT) {
+            return count + (size - (overflow == null ? 0 : overflow.size()));
+        }
+
+        final int chunk = index >>> CHUNK_BITS;
+        final int block = chunk >>> BLOCK_BITS;
+        for (int b = 0; b < Math.min(block, blockCounts.length); b++) {
+            count += blockCounts[b];
+        }
+        for (int c = block << BLOCK_BITS; c < Math.min(chunk, bitmaps.length); c++) {
+            count += Long.bitCount(bitmaps[c]);
+        }
+        if (chunk < bitmaps.length) {
+            count += Long.bitCount(bitmaps[chunk] & ((1L << (index & CHUNK_MASK)) - 1));
+        }
+        return count;
+    }
+
+    /**
+     * @return a view of the values in ascending index order. The iterator supports
+     *  removal and is fail-fast like the iterators of the {@code java.util} collections.
+     */
+    Collection<V> values() {
+        return new Values(Integer.MIN_VALUE, NONE);
+    }
+
+    /**
+     * @param fromIndex the lowest index (inclusive)
+     * @param toIndex the highest index (exclusive)
+     * @return a view of the values of the given index range in ascending index order
+     */
+    Collection<V> values(int fromIndex, int toIndex) {
+        return new Values(fromIndex, toIndex);
+    }
+
+    /**
+     * @return the lowest index, which is greater than or equal to the given index,
+     *  or {@link #NONE} if there's none
+     */
+    private long ceilingKey(long index) {
+        if (size == 0 || index > Integer.MAX_VALUE) {
+            return NONE;
+        }
+        if (index < 0) {
+            Integer key = (overflow == null) ? null : overflow.ceilingKey((int)index);
+            if (key != null && key < 0) {
+                return key;
+            }
+            index = 0;
+        }
+        if (index < LIMIT) {
+            int chunk = (int)(index >>> CHUNK_BITS);
+            long bits = (chunk < bitmaps.length) ? bitmaps[chunk] & (-1L << (index & CHUNK_MASK)) : 0;
+            while (bits == 0 && ++chunk < bitmaps.length) {
+                bits = bitmaps[chunk];
+            }
+            if (bits != 0) {
+                return ((long)chunk << CHUNK_BITS) + Long.numberOfTrailingZeros(bits);
+            }
+            index = LIMIT;
+        }
+        Integer key = (overflow == null) ? null : overflow.ceilingKey((int)index);
+        return (key == null) ? NONE : key;
+    }
+
+    private void ensureChunks(int count) {
+        if (count <= chunks.length) {
+            return;
+        }
+        int newLength = Math.min(Math.max(count, chunks.length * 2), LIMIT >>> CHUNK_BITS);
+        chunks = Arrays.copyOf(chunks, newLength);
+        bitmaps = Arrays.copyOf(bitmaps, newLength);
+        blockCounts = Arrays.copyOf(blockCounts, ((newLength - 1) >>> BLOCK_BITS) + 1);
+    }
+
+    private final class Values extends AbstractCollection<V> {
+        private final long fromIndex;
+        private final long toIndex;
+
+        Values(long fromIndex, long toIndex) {
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator(fromIndex, toIndex);
+        }
+
+        @Override
+        public int size() {
+            if (fromIndex == Integer.MIN_VALUE && toIndex == NONE) {
+                return size;
+            }
+            return (fromIndex >= toIndex) ? 0 : countBelow((int)toIndex) - countBelow((int)fromIndex);
+        }
+
+        @Override
+        public Spliterator<V> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        }
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+        private final long toIndex;
+        private long next;
+        private long last = NONE;
+        private int expectedModCount = modCount;
+
+        ValueIterator(long fromIndex, long toIndex) {
+            this.toIndex = toIndex;
+            this.next = ceilingKey(fromIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != NONE && next < toIndex;
+        }
+
+        @Override
+        public V next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            last = next;
+            next = ceilingKey(last + 1);
+            return get((int)last);
+        }
+
+        @Override
+        public void remove() {
+            if (last == NONE) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            SparseIndexArray.this.remove((int)last);
+            last = NONE;
+            expectedModCount = modCount;
+        }
+    }
+}
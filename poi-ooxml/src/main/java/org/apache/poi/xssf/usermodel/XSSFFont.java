@@ -64,6 +64,7 @@ public class XSSFFont implements Font {
 
     private IndexedColorMap _indexedColorMap;
     private ThemesTable _themes;
+    private StylesTable _stylesTable;
     private final CTFont _ctFont;
     private int _index;
 
@@ -316,6 +317,7 @@ public class XSSFFont implements Font {
         } else {
             _ctFont.setBArray(null);
         }
+        fontChanged();
     }
 
     /**
@@ -363,6 +365,7 @@ public class XSSFFont implements Font {
        // We know that FontCharset only has valid entries in it,
        //  so we can just set the int value from it
        charsetProperty.setVal( charSet.getValue() );
+       fontChanged();
     }
 
     /**
@@ -380,6 +383,7 @@ public class XSSFFont implements Font {
         // We know that FontCharset only has valid entries in it,
         //  so we can just set the int value from it
         charsetProperty.setVal( charSet.getNativeId() );
+        fontChanged();
     }
 
     /**
@@ -397,6 +401,7 @@ public class XSSFFont implements Font {
         } else {
             ctColor.setIndexed(color);
         }
+        fontChanged();
     }
 
     /**
@@ -413,6 +418,7 @@ public class XSSFFont implements Font {
             }
             ctColor.setRgb(color.getARGB());
         }
+        fontChanged();
     }
 
     /**
@@ -433,6 +439,7 @@ public class XSSFFont implements Font {
     public void setFontHeight(double height) {
         CTFontSize fontSize = _ctFont.sizeOfSzArray() == 0 ? _ctFont.addNewSz() : _ctFont.getSzArray(0);
         fontSize.setVal(height);
+        fontChanged();
     }
 
     /**
@@ -453,6 +460,7 @@ public class XSSFFont implements Font {
     public void setThemeColor(short theme) {
         CTColor ctColor = _ctFont.sizeOfColorArray() == 0 ? _ctFont.addNewColor() : _ctFont.getColorArray(0);
         ctColor.setTheme(theme);
+        fontChanged();
     }
 
     /**
@@ -470,6 +478,7 @@ public class XSSFFont implements Font {
     public void setFontName(String name) {
         CTFontName fontName = _ctFont.sizeOfNameArray() == 0 ? _ctFont.addNewName() : _ctFont.getNameArray(0);
         fontName.setVal(name == null ? DEFAULT_FONT_NAME : name);
+        fontChanged();
     }
 
 
@@ -487,6 +496,7 @@ public class XSSFFont implements Font {
         } else {
             _ctFont.setIArray(null);
         }
+        fontChanged();
     }
 
 
@@ -504,6 +514,7 @@ public class XSSFFont implements Font {
         } else {
             _ctFont.setStrikeArray(null);
         }
+        fontChanged();
     }
 
     /**
@@ -533,6 +544,7 @@ public class XSSFFont implements Font {
                     throw new IllegalStateException("Invalid type offset: " + offset);
             }
         }
+        fontChanged();
     }
 
     /**
@@ -562,6 +574,7 @@ public class XSSFFont implements Font {
             STUnderlineValues.Enum val = STUnderlineValues.Enum.forInt(underline.getValue());
             ctUnderline.setVal(val);
         }
+        fontChanged();
     }
 
 
@@ -594,6 +607,22 @@ public class XSSFFont implements Font {
        this._themes = themes;
     }
 
+    /**
+     * Records the Styles Table this font is registered to,
+     *  which is notified about modifications to keep its
+     *  font lookups up-to-date.
+     */
+    @Internal
+    public void setStylesTable(StylesTable styles) {
+        this._stylesTable = styles;
+    }
+
+    private void fontChanged() {
+        if (_stylesTable != null) {
+            _stylesTable.updateFont(this);
+        }
+    }
+
     /**
      * get the font scheme property.
      * is used only in StylesTable to create the default instance of font
@@ -617,6 +646,7 @@ public class XSSFFont implements Font {
         CTFontScheme ctFontScheme = _ctFont.sizeOfSchemeArray() == 0 ? _ctFont.addNewScheme() : _ctFont.getSchemeArray(0);
         STFontScheme.Enum val = STFontScheme.Enum.forInt(scheme.getValue());
         ctFontScheme.setVal(val);
+        fontChanged();
     }
 
     /**
@@ -641,6 +671,7 @@ public class XSSFFont implements Font {
     public void setFamily(int value) {
         CTFontFamily family = _ctFont.sizeOfFamilyArray() == 0 ? _ctFont.addNewFamily() : _ctFont.getFamilyArray(0);
         family.setVal(value);
+        fontChanged();
     }
 
     /**
@@ -54,6 +54,7 @@ import org.apache.poi.util.Beta;
 import org.apache.poi.util.Internal;
 import org.apache.poi.util.Removal;
 import org.apache.poi.util.Units;
+import org.apache.poi.util.XMLHelper;
 import org.apache.poi.xssf.model.Comments;
 import org.apache.poi.xssf.usermodel.XSSFPivotTable.PivotTableReferenceConfigurator;
 import org.apache.poi.xssf.usermodel.helpers.ColumnHelper;
@@ -90,7 +91,14 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
     protected CTSheet sheet;
     protected CTWorksheet worksheet;
 
-    private final SortedMap<Integer, XSSFRow> _rows = new TreeMap<>();
+    private final SparseIndexArray<XSSFRow> _rows = new SparseIndexArray<>();
+    /**
+     * rows which haven't been loaded yet, only used if the workbook was opened with compact sheet data
+     *
+     * @see XSSFWorkbook#XSSFWorkbook(OPCPackage, boolean)
+     */
+    private CompactSheetData compactRows;
+    private boolean loadingCompactRow;
     private List<XSSFHyperlink> hyperlinks;
     private ColumnHelper columnHelper;
     private Comments sheetComments;
@@ -144,22 +152,47 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
      */
     @Override
     protected void onDocumentRead() {
+        XSSFWorkbook wb = getWorkbook();
         try (InputStream stream = getPackagePart().getInputStream()) {
-            read(stream);
+            read(stream, wb != null && wb.isCompactSheetData());
         } catch (IOException | ArithmeticException e){
             throw new POIXMLException(e);
         }
     }
 
     protected void read(InputStream is) throws IOException {
+        read(is, false);
+    }
+
+    private void read(InputStream is, boolean compactSheetData) throws IOException {
+        CompactSheetData compactData = compactSheetData ? new CompactSheetData() : null;
         try {
-            worksheet = WorksheetDocument.Factory.parse(is, DEFAULT_XML_OPTIONS).getWorksheet();
-        } catch (XmlException e){
+            if (compactData == null) {
+                worksheet = WorksheetDocument.Factory.parse(is, DEFAULT_XML_OPTIONS).getWorksheet();
+            } else {
+                XMLStreamReader reader = XMLHelper.newXMLInputFactory().createXMLStreamReader(is);
+                try {
+                    worksheet = WorksheetDocument.Factory.parse(compactData.filter(reader), DEFAULT_XML_OPTIONS).getWorksheet();
+                } finally {
+                    reader.close();
+                }
+            }
+        } catch (XmlException | XMLStreamException e){
             throw new POIXMLException(e);
         }
 
         columnHelper = new ColumnHelper(worksheet);
+        if (compactData != null && !compactData.isSorted()) {
+            // rows which aren't in ascending order can't be looked up individually
+            compactData.loadAll(worksheet.getSheetData());
+        }
         initRows(worksheet);
+        if (compactData != null && compactData.size() > 0) {
+            compactRows = compactData;
+            for (CompactSheetData.FormulaCell fc : compactData.getFormulas()) {
+                onReadFormula(fc.formula, fc.row, fc.col);
+            }
+        }
         // Look for bits we're interested in
         for(RelationPart rp : getRelationParts()){
             POIXMLDocumentPart p = rp.getDocumentPart();
@@ -196,15 +229,13 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
         }
 
         _rows.clear();
+        compactRows = null;
         tables = new TreeMap<>();
         sharedFormulas = new HashMap<>();
         arrayFormulas = new ArrayList<>();
         for (CTRow row : worksheetParam.getSheetData().getRowArray()) {
             XSSFRow r = new XSSFRow(row, this);
-            // Performance optimization: explicit boxing is slightly faster than auto-unboxing, though may use more memory
-            //noinspection UnnecessaryBoxing
-            final Integer rownumI = Integer.valueOf(r.getRowNum()); // NOSONAR
-            _rows.put(rownumI, r);
+            _rows.put(r.getRowNum(), r);
         }
     }
 
@@ -266,7 +297,12 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
     }
 
     /**
-     * Provide access to the CTWorksheet bean holding this sheet's data
+     * Provide access to the CTWorksheet bean holding this sheet's data.<p>
+     *
+     * If the workbook has been opened with
+     * {@link XSSFWorkbook#XSSFWorkbook(OPCPackage, boolean) compact sheet data}, the
+     * {@code <sheetData>} element of the bean only contains the rows, which have been loaded
+     * so far. Call {@link #loadAllRows()} before accessing the rows via this bean.
      *
      * @return the CTWorksheet bean holding this sheet's data
      */
@@ -701,11 +737,8 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
      */
     @Override
     public XSSFRow createRow(int rownum) {
-        // Performance optimization: explicit boxing is slightly faster than auto-unboxing, though may use more memory
-        //noinspection UnnecessaryBoxing
-        final Integer rownumI = Integer.valueOf(rownum); // NOSONAR
         CTRow ctRow;
-        XSSFRow prev = _rows.get(rownumI);
+        XSSFRow prev = findRow(rownum);
         if(prev != null){
             // the Cells in an existing row are invalidated on-purpose, in order to clean up correctly, we
             // need to call the remove, so things like ArrayFormulas and CalculationChain updates are done
@@ -725,13 +758,13 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
             } else {
                 // get number of rows where row index < rownum
                 // --> this tells us where our row should go
-                int idx = _rows.headMap(rownumI).size();
+                int idx = _rows.countBelow(rownum);
                 ctRow = worksheet.getSheetData().insertNewRow(idx);
             }
         }
         XSSFRow r = new XSSFRow(ctRow, this);
         r.setRowNum(rownum);
-        _rows.put(rownumI, r);
+        _rows.put(rownum, r);
         return r;
     }
 
@@ -1073,7 +1106,12 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
      */
     @Override
     public int getFirstRowNum() {
-        return _rows.isEmpty() ? -1 : _rows.firstKey();
+        int first = _rows.isEmpty() ? -1 : _rows.firstKey();
+        if (compactRows != null) {
+            int compactFirst = compactRows.getFirstRowNum();
+            first = (first == -1) ? compactFirst : Math.min(first, compactFirst);
+        }
+        return first;
     }
 
     /**
@@ -1191,11 +1229,10 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
 
     @Override
     public int getLastRowNum() {
-        // _rows.getLastKey() (O(logN)) or caching last row (O(1))?
-        // A test with 1_000_000 rows shows that querying getLastRowNum with lastKey() implementation takes ~40 ms,
-        // and ~1.2 ms with cached implementation. 40 ms is negligible compared to the time of evaluation a million
-        // cells, and the lastKey implementation is much more elegant and less error prone than caching.
-        return _rows.isEmpty() ? -1 : _rows.lastKey();
+        // _rows.lastKey() scans the occupancy bitmaps of the row chunks backwards, which is fast enough
+        // compared to caching the last row and less error prone
+        int last = _rows.isEmpty() ? -1 : _rows.lastKey();
+        return (compactRows == null) ? last : Math.max(last, compactRows.getLastRowNum());
     }
 
     @Override
@@ -1409,7 +1446,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
      */
     @Override
     public int getPhysicalNumberOfRows() {
-        return _rows.size();
+        return _rows.size() + (compactRows == null ? 0 : compactRows.size());
     }
 
     /**
@@ -1487,10 +1524,57 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
      */
     @Override
     public XSSFRow getRow(int rownum) {
-        // Performance optimization: explicit boxing is slightly faster than auto-unboxing, though may use more memory
-        //noinspection UnnecessaryBoxing
-        final Integer rownumI = Integer.valueOf(rownum); // NOSONAR
-        return _rows.get(rownumI);
+        return findRow(rownum);
+    }
+
+    /**
+     * Loads all rows, which are still kept in the compact form.
+     * This is only necessary before accessing the rows via the low level XmlBeans API,
+     * as all usermodel methods load the rows on demand.
+     *
+     * @see XSSFWorkbook#XSSFWorkbook(OPCPackage, boolean)
+     * @since POI 5.3.1
+     */
+    public void loadAllRows() {
+        if (compactRows != null) {
+            loadCompactRows(compactRows.getRowNums(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        }
+    }
+
+    private XSSFRow findRow(int rownum) {
+        XSSFRow row = _rows.get(rownum);
+        if (row == null && compactRows != null) {
+            row = loadCompactRow(rownum);
+        }
+        return row;
+    }
+
+    private void loadCompactRows(int[] rownums) {
+        for (int rownum : rownums) {
+            loadCompactRow(rownum);
+        }
+    }
+
+    private XSSFRow loadCompactRow(int rownum) {
+        CTRow parsed = compactRows.load(rownum);
+        if (parsed == null) {
+            return null;
+        }
+        // insert the bean at the position matching its row number among the loaded rows
+        CTRow ctRow = worksheet.getSheetData().insertNewRow(_rows.countBelow(rownum));
+        ctRow.set(parsed);
+        XSSFRow row;
+        loadingCompactRow = true;
+        try {
+            row = new XSSFRow(ctRow, this);
+        } finally {
+            loadingCompactRow = false;
+        }
+        _rows.put(rownum, row);
+        if (compactRows.size() == 0) {
+            compactRows = null;
+        }
+        return row;
     }
 
     /**
@@ -1520,12 +1604,10 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
             }
         }
         else {
-            // Performance optimization: explicit boxing is slightly faster than auto-unboxing, though may use more memory
-            //noinspection UnnecessaryBoxing
-            final Integer startI = Integer.valueOf(startRowNum); // NOSONAR
-            //noinspection UnnecessaryBoxing
-            final Integer endI = Integer.valueOf(endRowNum+1); // NOSONAR
-            final Collection<XSSFRow> inclusive = _rows.subMap(startI, endI).values();
+            if (compactRows != null) {
+                loadCompactRows(compactRows.getRowNums(startRowNum, endRowNum+1));
+            }
+            final Collection<XSSFRow> inclusive = _rows.values(startRowNum, endRowNum+1);
             rows.addAll(inclusive);
         }
         return rows;
@@ -1746,6 +1828,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
     }
 
     private short getMaxOutlineLevelRows(){
+        loadAllRows();
         int outlineLevel = 0;
         for (XSSFRow xrow : _rows.values()) {
             outlineLevel = Math.max(outlineLevel, xrow.getCTRow().getOutlineLevel());
@@ -2041,12 +2124,9 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
         }
 
         final int rowNum = row.getRowNum();
-        // Performance optimization: explicit boxing is slightly faster than auto-unboxing, though may use more memory
-        //noinspection UnnecessaryBoxing
-        final Integer rowNumI = Integer.valueOf(rowNum); // NOSONAR
         // this is not the physical row number!
-        final int idx = _rows.headMap(rowNumI).size();
-        _rows.remove(rowNumI);
+        final int idx = _rows.countBelow(rowNum);
+        _rows.remove(rowNum);
         worksheet.getSheetData().removeRow(idx);
 
         // also remove any comment located in that row
@@ -2135,6 +2215,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
     @Override
     @SuppressWarnings("unchecked")
     public Iterator<Row> rowIterator() {
+        loadAllRows();
         return (Iterator<Row>)(Iterator<? extends Row>) _rows.values().iterator();
     }
 
@@ -2148,6 +2229,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
     @Override
     @SuppressWarnings("unchecked")
     public Spliterator<Row> spliterator() {
+        loadAllRows();
         return (Spliterator<Row>)(Spliterator<? extends Row>) _rows.values().spliterator();
     }
 
@@ -3068,11 +3150,11 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
         XSSFRowShifter rowShifter = new XSSFRowShifter(this);
         rowShifter.shiftMergedRegions(startRow, endRow, n);
         rowShifter.updateNamedRanges(formulaShifter);
-        rowShifter.updateFormulas(formulaShifter);
+        rowShifter.updateFormulas(formulaShifter, startRow, endRow, n);
         rowShifter.updateConditionalFormatting(formulaShifter);
         rowShifter.updateHyperlinks(formulaShifter);
 
-        rebuildRows();
+        reregisterFormulaRanges();
 
         for (XSSFTable table : overlappingTables) {
             rebuildTableFormulas(table);
@@ -3143,6 +3225,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
     }
 
     private void rebuildRows() {
+        loadAllRows();
         //rebuild the CTSheetData CTRow order
         SortedMap<Long, CTRow> ctRows = new TreeMap<>();
         CTSheetData sheetData = getCTWorksheet().getSheetData();
@@ -3159,8 +3242,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
         _rows.clear();
         for (CTRow ctRow : sheetData.getRowList()) {
             XSSFRow row = new XSSFRow(ctRow, this);
-            Integer rownumI = Math.toIntExact(row.getRowNum());
-            _rows.put(rownumI, row);
+            _rows.put(row.getRowNum(), row);
         }
     }
 
@@ -3182,10 +3264,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
                     }
                 }
                 // remove row from worksheet.getSheetData row array
-                // Performance optimization: explicit boxing is slightly faster than auto-unboxing, though may use more memory
-                //noinspection UnnecessaryBoxing
-                final Integer rownumI = Integer.valueOf(row.getRowNum()); // NOSONAR
-                int idx = _rows.headMap(rownumI).size();
+                int idx = _rows.countBelow(row.getRowNum());
                 worksheet.getSheetData().removeRow(idx);
 
                 // remove row from _rows
@@ -3256,41 +3335,56 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
         });
 
 
-        for (Iterator<Row> it = rowIterator() ; it.hasNext() ; ) {
-            XSSFRow row = (XSSFRow)it.next();
-            int rownum = row.getRowNum();
+        loadAllRows();
+
+        if (sheetComments != null) {
+            Iterator<CellAddress> commentAddressIterator = sheetComments.getCellAddresses();
+            while (commentAddressIterator.hasNext()) {
+                CellAddress cellAddress = commentAddressIterator.next();
+                int rownum = cellAddress.getRow();
+
+                // only the comments of existing rows are moved
+                if (_rows.get(rownum) == null) {
+                    continue;
+                }
 
-            if(sheetComments != null) {
-                // calculate the new rownum
+                // calculate the new rownum and check if a change is necessary
                 int newrownum = shiftedRowNum(startRow, endRow, n, rownum);
+                if (newrownum != rownum) {
+                    XSSFComment oldComment = sheetComments.findCellComment(cellAddress);
+                    if (oldComment != null) {
+                        XSSFComment xssfComment = new XSSFComment(sheetComments, oldComment.getCTComment(),
+                                oldComment.getCTShape());
 
-                // is there a change necessary for the current row?
-                if(newrownum != rownum) {
-                    Iterator<CellAddress> commentAddressIterator = sheetComments.getCellAddresses();
-                    while (commentAddressIterator.hasNext()) {
-                        CellAddress cellAddress = commentAddressIterator.next();
-
-                        // is this comment part of the current row?
-                        if(cellAddress.getRow() == rownum) {
-                            XSSFComment oldComment = sheetComments.findCellComment(cellAddress);
-                            if (oldComment != null) {
-                                XSSFComment xssfComment = new XSSFComment(sheetComments, oldComment.getCTComment(),
-                                        oldComment.getCTShape());
-
-                                // we should not perform the shifting right here as we would then find
-                                // already shifted comments and would shift them again...
-                                commentsToShift.put(xssfComment, newrownum);
-                            }
-                        }
+                        // we should not perform the shifting right here as we would then find
+                        // already shifted comments and would shift them again...
+                        commentsToShift.put(xssfComment, newrownum);
                     }
                 }
             }
+        }
 
-            if(rownum < startRow || rownum > endRow) {
-                continue;
+        List<XSSFRow> movedRows = new ArrayList<>();
+        for (XSSFRow row : _rows.values(startRow, Integer.MAX_VALUE)) {
+            if (row.getRowNum() > endRow) {
+                break;
             }
+            movedRows.add(row);
+        }
+        int[] oldRowNums = new int[movedRows.size()];
+        for (int i = 0; i < oldRowNums.length; i++) {
+            XSSFRow row = movedRows.get(i);
+            oldRowNums[i] = row.getRowNum();
             row.shift(n);
         }
+        // re-key the moved rows only after all of them have been shifted, as the ranges might overlap
+        for (int oldRowNum : oldRowNums) {
+            _rows.remove(oldRowNum);
+        }
+        for (XSSFRow row : movedRows) {
+            _rows.put(row.getRowNum(), row);
+        }
+
         // adjust all the affected comment-structures now
         // the Map is sorted and thus provides them in the order that we need here,
         // i.e. from down to up if shifting down, vice-versa otherwise
@@ -3298,7 +3392,69 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
             entry.getKey().setRow(entry.getValue());
         }
 
-        rebuildRows();
+        reorderCTRows(Math.min(startRow, startRow + n), Math.max(endRow, endRow + n));
+    }
+
+    /**
+     * Brings the CTRow beans of the given row range into the order of the row numbers,
+     * after rows have been moved within that range.<p>
+     *
+     * Usually the moved rows don't pass other rows - the rows in their way have been
+     * removed as overwritten - so the order is still intact. Otherwise only the misplaced
+     * beans of the range are replaced and their rows are recreated.
+     */
+    private void reorderCTRows(int firstRow, int lastRow) {
+        CTSheetData sheetData = worksheet.getSheetData();
+        int firstIdx = _rows.countBelow(firstRow);
+        List<XSSFRow> rows = new ArrayList<>();
+        boolean ordered = true;
+        for (XSSFRow row : _rows.values(firstRow, Integer.MAX_VALUE)) {
+            if (row.getRowNum() > lastRow) {
+                break;
+            }
+            // compare on identity, like XSSFRow.onDocumentWrite()
+            ordered &= (sheetData.getRowArray(firstIdx + rows.size()) == row.getCTRow());
+            rows.add(row);
+        }
+        if (ordered) {
+            return;
+        }
+
+        CTRow[] ctRowsCopy = new CTRow[rows.size()];
+        IdentityHashMap<CTRow, Integer> positions = new IdentityHashMap<>(rows.size());
+        for (int i = 0; i < ctRowsCopy.length; i++) {
+            CTRow ctRow = sheetData.getRowArray(firstIdx + i);
+            ctRowsCopy[i] = (CTRow)ctRow.copy();
+            positions.put(ctRow, i);
+        }
+        for (int i = 0; i < ctRowsCopy.length; i++) {
+            Integer pos = positions.get(rows.get(i).getCTRow());
+            Objects.requireNonNull(pos, "Should find CTRow in sheetData");
+            if (pos != i) {
+                sheetData.setRowArray(firstIdx + i, ctRowsCopy[pos]);
+                XSSFRow row = new XSSFRow(sheetData.getRowArray(firstIdx + i), this);
+                _rows.put(row.getRowNum(), row);
+            }
+        }
+    }
+
+    /**
+     * Registers the shared and array formulas again, after their ranges might have been
+     * changed by shifting rows
+     */
+    private void reregisterFormulaRanges() {
+        if (sharedFormulas.isEmpty() && arrayFormulas.isEmpty()) {
+            return;
+        }
+        arrayFormulas.clear();
+        for (XSSFRow row : _rows.values()) {
+            for (Cell c : row) {
+                CTCell ctCell = ((XSSFCell)c).getCTCell();
+                if (ctCell.isSetF() && ctCell.getF().isSetRef()) {
+                    onReadFormula(ctCell.getF(), row.getRowNum(), c.getColumnIndex());
+                }
+            }
+        }
     }
 
     private int shiftedRowNum(int startRow, int endRow, int n, int rownum) {
@@ -3754,15 +3910,21 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
     }
 
     void onReadCell(XSSFCell cell){
+        CTCellFormula f = cell.getCTCell().getF();
+        // the formulas of compact rows have already been registered when the sheet was read
+        if (f != null && !loadingCompactRow) {
+            onReadFormula(f, cell.getRowIndex(), cell.getColumnIndex());
+        }
+    }
+
+    private void onReadFormula(CTCellFormula f, int rowIndex, int columnIndex) {
         //collect cells holding shared formulas
-        CTCell ct = cell.getCTCell();
-        CTCellFormula f = ct.getF();
-        if (f != null && f.getT() == STCellFormulaType.SHARED && f.isSetRef() && f.getStringValue() != null) {
+        if (f.getT() == STCellFormulaType.SHARED && f.isSetRef() && f.getStringValue() != null) {
             // save a detached  copy to avoid XmlValueDisconnectedException,
             // this may happen when the master cell of a shared formula is changed
             CTCellFormula sf = (CTCellFormula)f.copy();
             CellRangeAddress sfRef = CellRangeAddress.valueOf(sf.getRef());
-            CellReference cellRef = new CellReference(cell);
+            CellReference cellRef = new CellReference(rowIndex, columnIndex);
             // If the shared formula range precedes the master cell then the preceding  part is discarded, e.g.
             // if the cell is E60 and the shared formula range is C60:M85 then the effective range is E60:M85
             // see more details in https://issues.apache.org/bugzilla/show_bug.cgi?id=51710
@@ -3776,7 +3938,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
 
             sharedFormulas.put(Math.toIntExact(f.getSi()), sf);
         }
-        if (f != null && f.getT() == STCellFormulaType.ARRAY && f.getRef() != null) {
+        if (f.getT() == STCellFormulaType.ARRAY && f.getRef() != null) {
             arrayFormulas.add(CellRangeAddress.valueOf(f.getRef()));
         }
     }
@@ -3842,8 +4004,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
         CellRangeAddress cellRangeAddress = dimensionOverride;
         if (cellRangeAddress == null) {
             int minCell = Integer.MAX_VALUE, maxCell = Integer.MIN_VALUE;
-            for(Map.Entry<Integer, XSSFRow> entry : _rows.entrySet()) {
-                XSSFRow row = entry.getValue();
+            for(XSSFRow row : _rows.values()) {
 
                 // first perform the normal write actions for the row
                 row.onDocumentWrite();
@@ -3857,6 +4018,11 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
                 }
             }
 
+            if (compactRows != null && compactRows.getLastColumn() != -1) {
+                minCell = Math.min(minCell, compactRows.getFirstColumn());
+                maxCell = Math.max(maxCell, compactRows.getLastColumn());
+            }
+
             // finally, if we had at least one cell we can populate the optional dimension-field
             if(minCell != Integer.MAX_VALUE) {
                 cellRangeAddress = new CellRangeAddress(getFirstRowNum(), getLastRowNum(), minCell, maxCell);
@@ -3873,7 +4039,10 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet, OoxmlSheetEx
         XmlOptions xmlOptions = new XmlOptions(DEFAULT_XML_OPTIONS);
         xmlOptions.setSaveSyntheticDocumentElement(new QName(CTWorksheet.type.getName().getNamespaceURI(), "worksheet"));
 
-        worksheet.save(out, xmlOptions);
+        if (compactRows == null || !compactRows.write(worksheet, xmlOptions, _rows.values(), out)) {
+            loadAllRows();
+            worksheet.save(out, xmlOptions);
+        }
 
         // Bug 52233: Ensure that we have a col-array even if write() removed it
         if(setToNull) {
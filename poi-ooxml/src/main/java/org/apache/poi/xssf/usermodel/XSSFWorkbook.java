@@ -210,6 +210,11 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
 
     private final XSSFFactory xssfFactory;
 
+    /**
+     * whether the rows of the sheets are kept in a compact form until they are accessed
+     */
+    private final boolean compactSheetData;
+
     /**
      * Create a new SpreadsheetML workbook.
      */
@@ -232,6 +237,7 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
     private XSSFWorkbook(XSSFWorkbookType workbookType, XSSFFactory factory) {
         super(newPackage(workbookType));
         this.xssfFactory = (factory == null) ? XSSFFactory.getInstance() : factory;
+        this.compactSheetData = false;
         onWorkbookCreate();
     }
 
@@ -253,8 +259,36 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
      * input format
      */
     public XSSFWorkbook(OPCPackage pkg) throws IOException {
+        this(pkg, false);
+    }
+
+    /**
+     * Constructs a XSSFWorkbook object given a OpenXML4J {@code Package} object,
+     *  optionally keeping the rows of the sheets in a compact form.
+     *
+     * <p>With compact sheet data, the rows of the worksheets are kept in their encoded XML form
+     *  while reading and are only turned into XmlBeans objects when they are accessed, e.g. by
+     *  {@link XSSFSheet#getRow(int)} or {@link XSSFRow#getCell(int)}. Untouched rows are copied as-is
+     *  when the workbook is written. This reduces the memory footprint considerably when only
+     *  parts of a large sheet are read or modified. Sheet operations which need all rows, like
+     *  {@link XSSFSheet#rowIterator()} or {@link XSSFSheet#shiftRows(int, int, int)}, load the
+     *  remaining rows first.
+     *
+     * <p>Low level access via {@link XSSFSheet#getCTWorksheet()} only sees the loaded rows. Use
+     *  {@link XSSFSheet#loadAllRows()} before accessing the sheet data directly.
+     *
+     * @param pkg the OpenXML4J {@code OPC Package} object.
+     * @param compactSheetData whether to keep the rows of the sheets in a compact form until they are accessed
+     * @throws IOException If reading data from the package fails
+     * @throws POIXMLException a RuntimeException that can be caused by invalid OOXML data
+     * @throws IllegalStateException a number of other runtime exceptions can be thrown, especially if there are problems with the
+     * input format
+     * @since POI 5.3.1
+     */
+    public XSSFWorkbook(OPCPackage pkg, boolean compactSheetData) throws IOException {
         super(pkg);
         this.xssfFactory = XSSFFactory.getInstance();
+        this.compactSheetData = compactSheetData;
 
         beforeDocumentRead();
 
@@ -379,6 +413,15 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Su
         return xssfFactory;
     }
 
+    /**
+     * @return whether the rows of the sheets are kept in a compact form until they are accessed
+     * @see #XSSFWorkbook(OPCPackage, boolean)
+     * @since POI 5.3.1
+     */
+    public boolean isCompactSheetData() {
+        return compactSheetData;
+    }
+
     protected void beforeDocumentRead() {
         // Ensure it isn't a XLSB file, which we don't support
         if (getCorePart().getContentType().equals(XSSFRelation.XLSB_BINARY_WORKBOOK.getContentType())) {
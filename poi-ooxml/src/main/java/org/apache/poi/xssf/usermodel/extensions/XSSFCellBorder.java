@@ -20,6 +20,7 @@ package org.apache.poi.xssf.usermodel.extensions;
 import java.util.Objects;
 
 import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.xssf.model.StylesTable;
 import org.apache.poi.xssf.model.ThemesTable;
 import org.apache.poi.xssf.usermodel.IndexedColorMap;
 import org.apache.poi.xssf.usermodel.XSSFColor;
@@ -37,6 +38,7 @@ public class XSSFCellBorder {
     private final IndexedColorMap _indexedColorMap;
     private ThemesTable _theme;
     private final CTBorder border;
+    private StylesTable _stylesTable;
 
     /**
      * Creates a Cell Border from the supplied XML definition
@@ -84,6 +86,24 @@ public class XSSFCellBorder {
        this._theme = themes;
     }
 
+    /**
+     * Records the Styles Table this border is registered to,
+     *  which is notified about modifications to keep its
+     *  border lookups up-to-date.
+     *
+     * @since POI 5.3.1
+     */
+    @Internal
+    public void setStylesTable(StylesTable styles) {
+        this._stylesTable = styles;
+    }
+
+    private void borderChanged() {
+        if (_stylesTable != null) {
+            _stylesTable.updateBorder(this);
+        }
+    }
+
     /**
      * The enumeration value indicating the side being used for a cell border.
      */
@@ -123,6 +143,7 @@ public class XSSFCellBorder {
      */
     public void setBorderStyle(BorderSide side, BorderStyle style) {
         getBorder(side, true).setStyle(STBorderStyle.Enum.forInt(style.ordinal() + 1));
+        borderChanged();
     }
 
     /**
@@ -157,6 +178,7 @@ public class XSSFCellBorder {
         if (color == null) borderPr.unsetColor();
         else
             borderPr.setColor(color.getCTColor());
+        borderChanged();
     }
 
     private CTBorderPr getBorder(BorderSide side) {
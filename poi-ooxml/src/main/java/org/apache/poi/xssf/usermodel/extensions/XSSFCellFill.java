@@ -20,6 +20,7 @@ import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTColor;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTFill;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTPatternFill;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.STPatternType;
+import org.apache.poi.xssf.model.StylesTable;
 import org.apache.poi.xssf.usermodel.IndexedColorMap;
 import org.apache.poi.xssf.usermodel.XSSFColor;
 
@@ -35,6 +36,7 @@ public final class XSSFCellFill {
 
     private IndexedColorMap _indexedColorMap;
     private CTFill _fill;
+    private StylesTable _stylesTable;
 
     /**
      * Creates a CellFill from the supplied parts
@@ -75,6 +77,7 @@ public final class XSSFCellFill {
         CTPatternFill ptrn = ensureCTPatternFill();
         CTColor ctColor = ptrn.isSetBgColor() ? ptrn.getBgColor() : ptrn.addNewBgColor();
         ctColor.setIndexed(index);
+        fillChanged();
     }
 
     /**
@@ -89,6 +92,7 @@ public final class XSSFCellFill {
         } else {
             ptrn.setBgColor(color.getCTColor());
         }
+        fillChanged();
     }
 
     /**
@@ -113,6 +117,7 @@ public final class XSSFCellFill {
         CTPatternFill ptrn = ensureCTPatternFill();
         CTColor ctColor = ptrn.isSetFgColor() ? ptrn.getFgColor() : ptrn.addNewFgColor();
         ctColor.setIndexed(index);
+        fillChanged();
     }
 
     /**
@@ -127,6 +132,7 @@ public final class XSSFCellFill {
         } else {
             ptrn.setFgColor(color.getCTColor());
         }
+        fillChanged();
     }
 
     /**
@@ -147,6 +153,25 @@ public final class XSSFCellFill {
     public void setPatternType(STPatternType.Enum patternType) {
         CTPatternFill ptrn = ensureCTPatternFill();
         ptrn.setPatternType(patternType);
+        fillChanged();
+    }
+
+    /**
+     * Records the Styles Table this fill is registered to,
+     *  which is notified about modifications to keep its
+     *  fill lookups up-to-date.
+     *
+     * @since POI 5.3.1
+     */
+    @Internal
+    public void setStylesTable(StylesTable styles) {
+        this._stylesTable = styles;
+    }
+
+    private void fillChanged() {
+        if (_stylesTable != null) {
+            _stylesTable.updateFill(this);
+        }
     }
 
     private CTPatternFill ensureCTPatternFill() {
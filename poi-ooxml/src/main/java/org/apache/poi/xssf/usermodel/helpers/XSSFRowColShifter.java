@@ -72,22 +72,38 @@ import static org.apache.logging.log4j.util.Unbox.box;
      * Update formulas.
      */
     /*package*/ static void updateFormulas(Sheet sheet, FormulaShifter formulaShifter) {
+        updateFormulas(sheet, formulaShifter, null);
+    }
+
+    /**
+     * Update formulas, shifting the references textually where possible
+     *
+     * @param refShifter the textual shifter for the moved rows or {@code null} to parse all formulas
+     */
+    /*package*/ static void updateFormulas(Sheet sheet, FormulaShifter formulaShifter, XSSFRowRefShifter refShifter) {
         //update formulas on the parent sheet
-        updateSheetFormulas(sheet,formulaShifter);
+        updateSheetFormulas(sheet, formulaShifter, refShifter, null);
 
         //update formulas on other sheets
         Workbook wb = sheet.getWorkbook();
         for(Sheet sh : wb)
         {
             if (sheet == sh) continue;
-            updateSheetFormulas(sh, formulaShifter);
+            updateSheetFormulas(sh, formulaShifter, refShifter, sheet.getSheetName());
         }
     }
 
     /*package*/ static void updateSheetFormulas(Sheet sh, FormulaShifter formulashifter) {
+        updateSheetFormulas(sh, formulashifter, null, null);
+    }
+
+    /**
+     * @param shiftedSheetName the name of the sheet with the shifted cells, if it's not the given sheet
+     */
+    private static void updateSheetFormulas(Sheet sh, FormulaShifter formulashifter, XSSFRowRefShifter refShifter, String shiftedSheetName) {
         for (Row r : sh) {
             XSSFRow row = (XSSFRow) r;
-            updateRowFormulas(row, formulashifter);
+            updateRowFormulas(row, formulashifter, refShifter, shiftedSheetName);
         }
     }
 
@@ -98,6 +114,10 @@ import static org.apache.logging.log4j.util.Unbox.box;
      * @param formulaShifter the formula shifting policy
      */
     /*package*/ static void updateRowFormulas(XSSFRow row, FormulaShifter formulaShifter) {
+        updateRowFormulas(row, formulaShifter, null, null);
+    }
+
+    private static void updateRowFormulas(XSSFRow row, FormulaShifter formulaShifter, XSSFRowRefShifter refShifter, String shiftedSheetName) {
         XSSFSheet sheet = row.getSheet();
         for (Cell c : row) {
             XSSFCell cell = (XSSFCell) c;
@@ -106,27 +126,48 @@ import static org.apache.logging.log4j.util.Unbox.box;
             if (ctCell.isSetF()) {
                 CTCellFormula f = ctCell.getF();
                 String formula = f.getStringValue();
-                if (formula.length() > 0) {
-                    String shiftedFormula = shiftFormula(row, formula, formulaShifter);
+                // formulas on other sheets are only affected by references qualified with the shifted sheet
+                if (formula.length() > 0 &&
+                        (shiftedSheetName == null || XSSFRowRefShifter.mayReferenceSheet(formula, shiftedSheetName))) {
+                    String shiftedFormula = shiftFormula(row, formula, formulaShifter, refShifter, shiftedSheetName == null);
                     if (shiftedFormula != null) {
                         f.setStringValue(shiftedFormula);
                         if(f.getT() == STCellFormulaType.SHARED){
                             int si = Math.toIntExact(f.getSi());
                             CTCellFormula sf = sheet.getSharedFormula(si);
                             sf.setStringValue(shiftedFormula);
-                            updateRefInCTCellFormula(row, formulaShifter, sf);
+                            updateRefInCTCellFormula(row, formulaShifter, refShifter, sf);
                         }
                     }
 
                 }
 
                 //Range of cells which the formula applies to.
-                updateRefInCTCellFormula(row, formulaShifter, f);
+                if (shiftedSheetName == null) {
+                    updateRefInCTCellFormula(row, formulaShifter, refShifter, f);
+                }
             }
 
         }
     }
 
+    /**
+     * Shift a formula textually if possible, otherwise using the supplied FormulaShifter
+     *
+     * @return the shifted formula if the formula was changed,
+     * <code>null</code> if the formula wasn't modified
+     */
+    private static String shiftFormula(Row row, String formula, FormulaShifter formulaShifter,
+                                       XSSFRowRefShifter refShifter, boolean onShiftedSheet) {
+        if (refShifter != null) {
+            String shiftedFmla = refShifter.shift(formula, onShiftedSheet);
+            if (shiftedFmla != null) {
+                return shiftedFmla.equals(formula) ? null : shiftedFmla;
+            }
+        }
+        return shiftFormula(row, formula, formulaShifter);
+    }
+
     /**
      * Shift a formula using the supplied FormulaShifter
      *
@@ -160,9 +201,13 @@ import static org.apache.logging.log4j.util.Unbox.box;
 
     /*package*/
     static void updateRefInCTCellFormula(Row row, FormulaShifter formulaShifter, CTCellFormula f) {
+        updateRefInCTCellFormula(row, formulaShifter, null, f);
+    }
+
+    private static void updateRefInCTCellFormula(Row row, FormulaShifter formulaShifter, XSSFRowRefShifter refShifter, CTCellFormula f) {
         if (f.isSetRef()) { //Range of cells which the formula applies to.
             String ref = f.getRef();
-            String shiftedRef = shiftFormula(row, ref, formulaShifter);
+            String shiftedRef = shiftFormula(row, ref, formulaShifter, refShifter, true);
             if (shiftedRef != null) f.setRef(shiftedRef);
         }
     }
@@ -0,0 +1,478 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.usermodel.helpers;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+
+/**
+ * Shifts the row numbers of the cell references in a formula string without parsing it.<p>
+ *
+ * Parsing and rendering every formula of a workbook dominates the cost of moving rows.
+ * Most formulas either don't reference the moved rows at all or contain plain A1 references,
+ * which are simply moved along with the rows. Those are handled by scanning the formula text
+ * and rewriting the row numbers in place, following the rules of
+ * {@link org.apache.poi.ss.formula.FormulaShifter} for row moves.<p>
+ *
+ * Anything beyond that - references into the destination rows, which turn into {@code #REF!},
+ * truncated areas, whole row references, structured or external references, error literals
+ * or unusual syntax - is left to the {@code FormulaShifter}, which requires parsing the formula.
+ */
+/*private*/ final class XSSFRowRefShifter {
+    private static final int MAX_ROW = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+    private static final int MAX_COLUMN = SpreadsheetVersion.EXCEL2007.getLastColumnIndex();
+
+    /** the reference is not moved by the shift */
+    private static final int UNCHANGED = -1;
+    /** the shift of the reference can't be handled textually */
+    private static final int UNSUPPORTED = -2;
+
+    private final String sheetName;
+    private final int firstMovedRow;
+    private final int lastMovedRow;
+    private final int amountToMove;
+
+    /**
+     * @param sheetName the name of the sheet containing the moved rows
+     * @param firstMovedRow the first moved row (0-based)
+     * @param lastMovedRow the last moved row (0-based)
+     * @param amountToMove the number of rows to move, negative to move upwards
+     */
+    XSSFRowRefShifter(String sheetName, int firstMovedRow, int lastMovedRow, int amountToMove) {
+        this.sheetName = sheetName;
+        this.firstMovedRow = firstMovedRow;
+        this.lastMovedRow = lastMovedRow;
+        this.amountToMove = amountToMove;
+    }
+
+    /**
+     * Checks if a formula on another sheet might reference the sheet containing the moved rows.
+     * Unqualified references of formulas on other sheets are not affected by the move.
+     *
+     * @param formula the formula
+     * @param sheetName the name of the sheet containing the moved rows
+     * @return {@code false} if the formula can't reference the sheet
+     */
+    static boolean mayReferenceSheet(String formula, String sheetName) {
+        // structured and external references are resolved by the parser
+        return formula.indexOf('[') >= 0
+                || containsIgnoreCase(formula, sheetName)
+                || (sheetName.indexOf('\'') >= 0 && containsIgnoreCase(formula, sheetName.replace("'", "''")));
+    }
+
+    /**
+     * @param formula the formula to shift
+     * @param onShiftedSheet {@code true} if the formula is located on the sheet with the moved rows
+     * @return the shifted formula - which equals the given formula if no reference was affected -
+     *  or {@code null} if the formula needs to be parsed to be shifted
+     */
+    String shift(String formula, boolean onShiftedSheet) {
+        final int len = formula.length();
+        StringBuilder sb = null;
+        int copied = 0;
+        int i = 0;
+        while (i < len) {
+            char c = formula.charAt(i);
+            if (c == '"') {
+                i = skipQuoted(formula, i);
+                if (i < 0) {
+                    return null;
+                }
+            } else if (c == '\'') {
+                // quoted sheet name, which needs to be followed by a reference
+                int end = skipQuoted(formula, i);
+                if (end < 0 || end >= len || formula.charAt(end) != '!') {
+                    return null;
+                }
+                String name = formula.substring(i + 1, end - 1).replace("''", "'");
+                if (name.indexOf(':') >= 0) {
+                    // 3D reference
+                    return null;
+                }
+                Ref ref = parseRef(formula, end + 1, name.equalsIgnoreCase(sheetName));
+                if (ref == null) {
+                    return null;
+                }
+                if (ref.changed()) {
+                    sb = ref.append(sb, formula, copied);
+                    copied = ref.lastDigitsEnd();
+                }
+                i = ref.end;
+            } else if (c == '[' || c == '#' || c == ':') {
+                // structured/external references, error literals and ranges, which are not preceded by a cell reference
+                return null;
+            } else if (isDigit(c) || c == '.') {
+                i = skipNumber(formula, i);
+                if (i < 0) {
+                    return null;
+                }
+            } else if (isIdentifierStart(c)) {
+                int end = skipIdentifier(formula, i);
+                char next = (end < len) ? formula.charAt(end) : 0;
+                if (next == '(') {
+                    // function call
+                    i = end;
+                } else if (next == '!') {
+                    String name = formula.substring(i, end);
+                    Ref ref = parseRef(formula, end + 1, name.equalsIgnoreCase(sheetName));
+                    if (ref == null) {
+                        return null;
+                    }
+                    if (ref.changed()) {
+                        sb = ref.append(sb, formula, copied);
+                        copied = ref.lastDigitsEnd();
+                    }
+                    i = ref.end;
+                } else {
+                    Ref ref = parseRef(formula, i, onShiftedSheet);
+                    if (ref == null) {
+                        // a reference which can't be shifted textually or e.g. a 3D reference "Sheet1:Sheet2!A1"
+                        return null;
+                    }
+                    if (ref.changed()) {
+                        sb = ref.append(sb, formula, copied);
+                        copied = ref.lastDigitsEnd();
+                    }
+                    // names or boolean literals end up here as well
+                    i = Math.max(ref.end, end);
+                }
+            } else {
+                // operators, separators, whitespace, array constant delimiters
+                i++;
+            }
+        }
+
+        if (sb == null) {
+            return formula;
+        }
+        sb.append(formula, copied, len);
+        return sb.toString();
+    }
+
+    /**
+     * Parses a cell reference, an area or a column range at the given position
+     *
+     * @return the parsed reference, a reference without row parts for names,
+     *  or {@code null} if the reference can't be shifted textually
+     */
+    private Ref parseRef(String formula, int start, boolean affected) {
+        final int len = formula.length();
+        int end = (start < len && isIdentifierStart(formula.charAt(start))) ? skipIdentifier(formula, start) : start;
+        CellToken first = CellToken.parse(formula, start, end);
+        if (first == null) {
+            // names and literals must not contain '$' or continue with a range operator
+            int dollar = formula.indexOf('$', start);
+            if (end == start || (dollar >= 0 && dollar < end) || (end < len && formula.charAt(end) == ':')) {
+                return null;
+            }
+            return new Ref(end);
+        }
+
+        CellToken second = null;
+        if (end < len && formula.charAt(end) == ':') {
+            int secondEnd = (end + 1 < len && isIdentifierStart(formula.charAt(end + 1)))
+                    ? skipIdentifier(formula, end + 1) : end + 1;
+            second = CellToken.parse(formula, end + 1, secondEnd);
+            if (second == null || second.isColumn() != first.isColumn()) {
+                return null;
+            }
+            end = secondEnd;
+        } else if (first.isColumn()) {
+            // a name, which consists of up to three letters
+            return new Ref(end);
+        }
+
+        Ref ref = new Ref(end);
+        if (!affected) {
+            return ref;
+        }
+
+        if (first.isColumn()) {
+            // whole column references are not affected, unless the move touches the first or last row
+            int destFirstRow = firstMovedRow + amountToMove;
+            int destLastRow = lastMovedRow + amountToMove;
+            boolean unaffected = firstMovedRow > 0 && lastMovedRow < MAX_ROW && destFirstRow >= 0 && destLastRow <= MAX_ROW;
+            return unaffected ? ref : null;
+        }
+
+        if (second == null) {
+            int newRow = shiftRow(first.row);
+            if (newRow == UNSUPPORTED) {
+                return null;
+            }
+            if (newRow != UNCHANGED) {
+                ref.add(first, newRow);
+            }
+            return ref;
+        }
+
+        if (first.row > second.row) {
+            // the parser normalizes the area
+            return null;
+        }
+        int[] newRows = shiftArea(first.row, second.row);
+        if (newRows == null) {
+            return null;
+        }
+        if (newRows[0] != first.row) {
+            ref.add(first, newRows[0]);
+        }
+        if (newRows[1] != second.row) {
+            ref.add(second, newRows[1]);
+        }
+        return ref;
+    }
+
+    /**
+     * @return the new row, {@link #UNCHANGED} or {@link #UNSUPPORTED}
+     */
+    private int shiftRow(int row) {
+        if (firstMovedRow <= row && row <= lastMovedRow) {
+            int newRow = row + amountToMove;
+            return (newRow < 0 || newRow > MAX_ROW) ? UNSUPPORTED : newRow;
+        }
+        int destFirstRow = firstMovedRow + amountToMove;
+        int destLastRow = lastMovedRow + amountToMove;
+        // references into the destination rows are replaced by #REF!
+        return (destFirstRow <= row && row <= destLastRow) ? UNSUPPORTED : UNCHANGED;
+    }
+
+    /**
+     * @return the new first and last row or {@code null} if the area can't be shifted textually
+     */
+    private int[] shiftArea(int aFirstRow, int aLastRow) {
+        int destFirstRow = firstMovedRow + amountToMove;
+        int destLastRow = lastMovedRow + amountToMove;
+        int newFirstRow = aFirstRow;
+        int newLastRow = aLastRow;
+
+        if (firstMovedRow <= aFirstRow && aLastRow <= lastMovedRow) {
+            // the area is moved along with the rows
+            newFirstRow += amountToMove;
+            newLastRow += amountToMove;
+        } else if (aFirstRow < firstMovedRow && lastMovedRow < aLastRow) {
+            // the moved rows are within the area, which is only truncated if the destination overlaps its borders
+            if ((destFirstRow < aFirstRow && aFirstRow <= destLastRow) || (destFirstRow <= aLastRow && aLastRow < destLastRow)) {
+                return null;
+            }
+        } else if (firstMovedRow <= aFirstRow && aFirstRow <= lastMovedRow) {
+            // the moved rows include the top of the area - only expanding the area upwards is simple
+            if (amountToMove > 0) {
+                return null;
+            }
+            newFirstRow += amountToMove;
+        } else if (firstMovedRow <= aLastRow && aLastRow <= lastMovedRow) {
+            // the moved rows include the bottom of the area - only expanding the area downwards is simple
+            if (amountToMove < 0) {
+                return null;
+            }
+            newLastRow += amountToMove;
+        } else if (!(destLastRow < aFirstRow || aLastRow < destFirstRow)) {
+            // the destination rows overlap the area
+            return null;
+        }
+
+        return (newFirstRow < 0 || newLastRow > MAX_ROW) ? null : new int[]{newFirstRow, newLastRow};
+    }
+
+    /**
+     * @return the index after the closing quote or -1 if the quote isn't closed
+     */
+    private static int skipQuoted(String formula, int start) {
+        final char quote = formula.charAt(start);
+        final int len = formula.length();
+        int i = start + 1;
+        while (i < len) {
+            if (formula.charAt(i) == quote) {
+                if (i + 1 < len && formula.charAt(i + 1) == quote) {
+                    // escaped quote
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index after the number or -1 if the number is followed by something unexpected
+     */
+    private static int skipNumber(String formula, int start) {
+        final int len = formula.length();
+        int i = start;
+        while (i < len && (isDigit(formula.charAt(i)) || formula.charAt(i) == '.')) {
+            i++;
+        }
+        if (i < len && (formula.charAt(i) == 'E' || formula.charAt(i) == 'e')) {
+            i++;
+            if (i < len && (formula.charAt(i) == '+' || formula.charAt(i) == '-')) {
+                i++;
+            }
+            while (i < len && isDigit(formula.charAt(i))) {
+                i++;
+            }
+        }
+        if (i < len) {
+            char next = formula.charAt(i);
+            // e.g. a row range "1:3"
+            if (next == ':' || isIdentifierPart(next)) {
+                return -1;
+            }
+        }
+        return i;
+    }
+
+    private static int skipIdentifier(String formula, int start) {
+        final int len = formula.length();
+        int i = start + 1;
+        while (i < len && isIdentifierPart(formula.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_' || c == '\\' || c == '$';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '\\' || c == '$' || c == '?';
+    }
+
+    private static boolean isDigit(char c) {
+        return '0' <= c && c <= '9';
+    }
+
+    private static boolean containsIgnoreCase(String str, String part) {
+        final int max = str.length() - part.length();
+        for (int i = 0; i <= max; i++) {
+            if (str.regionMatches(true, i, part, 0, part.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A cell reference "$A$1" or a column "$A" of a column range
+     */
+    private static final class CellToken {
+        /** 0-based row or -1 for columns */
+        final int row;
+        /** position of the row digits */
+        final int digitsStart;
+        final int digitsEnd;
+
+        private CellToken(int row, int digitsStart, int digitsEnd) {
+            this.row = row;
+            this.digitsStart = digitsStart;
+            this.digitsEnd = digitsEnd;
+        }
+
+        boolean isColumn() {
+            return row < 0;
+        }
+
+        /**
+         * @return the token or {@code null} if the text isn't a cell reference or column
+         */
+        static CellToken parse(String formula, int start, int end) {
+            int i = start;
+            if (i < end && formula.charAt(i) == '$') {
+                i++;
+            }
+            int column = 0;
+            int letters = 0;
+            while (i < end && letters <= 3) {
+                char c = formula.charAt(i);
+                if ('A' <= c && c <= 'Z') {
+                    column = column * 26 + (c - 'A' + 1);
+                } else if ('a' <= c && c <= 'z') {
+                    column = column * 26 + (c - 'a' + 1);
+                } else {
+                    break;
+                }
+                i++;
+                letters++;
+            }
+            if (letters == 0 || letters > 3 || column - 1 > MAX_COLUMN) {
+                return null;
+            }
+            if (i == end) {
+                return new CellToken(-1, end, end);
+            }
+            if (formula.charAt(i) == '$') {
+                i++;
+            }
+            int digitsStart = i;
+            long row = 0;
+            while (i < end && isDigit(formula.charAt(i)) && row <= MAX_ROW + 1) {
+                row = row * 10 + (formula.charAt(i) - '0');
+                i++;
+            }
+            if (i != end || i == digitsStart || row < 1 || row > MAX_ROW + 1) {
+                return null;
+            }
+            return new CellToken((int)row - 1, digitsStart, end);
+        }
+    }
+
+    /**
+     * A parsed reference with the row numbers to replace
+     */
+    private static final class Ref {
+        final int end;
+        private CellToken[] tokens;
+        private int[] newRows;
+
+        Ref(int end) {
+            this.end = end;
+        }
+
+        void add(CellToken token, int newRow) {
+            if (tokens == null) {
+                tokens = new CellToken[]{token};
+                newRows = new int[]{newRow};
+            } else {
+                tokens = new CellToken[]{tokens[0], token};
+                newRows = new int[]{newRows[0], newRow};
+            }
+        }
+
+        boolean changed() {
+            return tokens != null;
+        }
+
+        int lastDigitsEnd() {
+            return tokens[tokens.length - 1].digitsEnd;
+        }
+
+        StringBuilder append(StringBuilder sb, String formula, int copied) {
+            if (sb == null) {
+                sb = new StringBuilder(formula.length() + 4);
+            }
+            int pos = copied;
+            for (int i = 0; i < tokens.length; i++) {
+                sb.append(formula, pos, tokens[i].digitsStart).append(newRows[i] + 1);
+                pos = tokens[i].digitsEnd;
+            }
+            return sb;
+        }
+    }
+}
@@ -43,6 +43,23 @@ public final class XSSFRowShifter extends RowShifter {
         XSSFRowColShifter.updateFormulas(sheet, formulaShifter);
     }
 
+    /**
+     * Update the formulas after the rows {@code startRow} to {@code endRow} have been shifted by {@code n}.
+     * Plain cell references and areas are shifted textually, only formulas which can't be handled that way
+     * are parsed and adjusted by the {@code formulaShifter}, which needs to be created for the same row shift.
+     *
+     * @param formulaShifter the formula shifting policy
+     * @param startRow the first shifted row
+     * @param endRow the last shifted row
+     * @param n the number of rows to shift
+     *
+     * @since POI 5.3.1
+     */
+    public void updateFormulas(FormulaShifter formulaShifter, int startRow, int endRow, int n) {
+        XSSFRowRefShifter refShifter = new XSSFRowRefShifter(sheet.getSheetName(), startRow, endRow, n);
+        XSSFRowColShifter.updateFormulas(sheet, formulaShifter, refShifter);
+    }
+
     /**
      * Update the formulas in specified row using the formula shifting policy specified by shifter
      *
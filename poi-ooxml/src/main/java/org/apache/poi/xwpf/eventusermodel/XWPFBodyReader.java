@@ -0,0 +1,409 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xwpf.eventusermodel;
+
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.apache.poi.openxml4j.opc.PackageNamespaces.MARKUP_COMPATIBILITY;
+import static org.apache.poi.xwpf.usermodel.XWPFRelation.NS_WORDPROCESSINGML;
+import static org.apache.poi.xwpf.usermodel.XWPFRelation.NS_WORDPROCESSINGML_STRICT;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackageRelationship;
+import org.apache.poi.openxml4j.opc.PackageRelationshipTypes;
+import org.apache.poi.util.XMLHelper;
+
+/**
+ * This class handles the streaming processing of the document.xml
+ * part of a XWPF .docx file, and generates paragraph, run, table
+ * and field events for it.
+ * <p>
+ * The part is read with StAX, so neither the XmlBeans object tree nor
+ * the XWPF usermodel is built. This allows to extract the text of huge
+ * documents without needing large amounts of main memory. Both transitional
+ * and strict OOXML documents are supported.
+ * <p>
+ * See {@link BodyContentsHandler} for the interface that you need to
+ * implement for reading information from a file. Besides the main
+ * document part, any part with wordprocessingml body content, like
+ * headers, footers or footnotes, can be processed via {@link #process(InputStream)}.
+ *
+ * @since POI 5.3.1
+ */
+public class XWPFBodyReader {
+    /**
+     * Receives the contents of a document body. Paragraphs are reported
+     * within table cells and - for text boxes - within runs, so the
+     * events can be nested.
+     */
+    public interface BodyContentsHandler {
+        /**
+         * A paragraph starts
+         *
+         * @param styleId the paragraph style id or null
+         */
+        default void startParagraph(String styleId) {}
+
+        /** A paragraph ends */
+        default void endParagraph() {}
+
+        /** A run starts */
+        default void startRun() {}
+
+        /** A run ends */
+        default void endRun() {}
+
+        /**
+         * Text of a run. Tabs are reported as {@code "\t"} and breaks as {@code "\n"}.
+         * The text of a run can be split into several calls.
+         */
+        void text(String text);
+
+        /**
+         * A field starts. The runs of the field result follow.
+         *
+         * @param instruction the field instruction, e.g. {@code PAGE} or {@code HYPERLINK "..."}
+         */
+        default void field(String instruction) {}
+
+        /** A table starts */
+        default void startTable() {}
+
+        /** A table ends */
+        default void endTable() {}
+
+        /** A table row starts */
+        default void startRow() {}
+
+        /** A table row ends */
+        default void endRow() {}
+
+        /** A table cell starts */
+        default void startCell() {}
+
+        /** A table cell ends */
+        default void endCell() {}
+    }
+
+    /**
+     * The state of a complex field, i.e. a field built by {@code fldChar} elements.
+     * Fields can be nested in the instruction of another field, e.g. {@code IF} fields.
+     */
+    private static final class ComplexField {
+        private final StringBuilder instruction = new StringBuilder();
+        /** true, if the instruction is complete, i.e. after the {@code separate} or {@code end} character */
+        private boolean reported;
+    }
+
+    private final BodyContentsHandler handler;
+
+    /** the local names of the open elements, elements of other namespaces are kept as empty strings */
+    private String[] elements = new String[32];
+    private int depth;
+
+    /** the depth of the paragraph, whose start isn't reported yet, as its properties are still read */
+    private int pendingParagraph = -1;
+    private String paragraphStyle;
+
+    /** the collected text of a {@code t} or {@code instrText} element */
+    private StringBuilder chars;
+    private final StringBuilder text = new StringBuilder();
+    private final Deque<ComplexField> fields = new ArrayDeque<>();
+
+    public XWPFBodyReader(BodyContentsHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Processes the main document part of a package
+     *
+     * @param pkg the package of the .docx file
+     * @throws IOException if the part can't be read or parsed
+     * @throws InvalidFormatException if the package doesn't contain a main document part
+     */
+    public void process(OPCPackage pkg) throws IOException, InvalidFormatException {
+        try (InputStream is = getDocumentPart(pkg).getInputStream()) {
+            process(is);
+        }
+    }
+
+    /**
+     * Processes a part with wordprocessingml body content
+     *
+     * @param is the stream of the part
+     * @throws IOException if the part can't be read or parsed
+     */
+    public void process(InputStream is) throws IOException {
+        depth = 0;
+        pendingParagraph = -1;
+        chars = null;
+        fields.clear();
+        try {
+            XMLStreamReader reader = XMLHelper.newXMLInputFactory().createXMLStreamReader(is);
+            try {
+                parse(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to parse the document part", e);
+        }
+    }
+
+    /**
+     * @return the main document part of the package
+     */
+    public static PackagePart getDocumentPart(OPCPackage pkg) throws InvalidFormatException {
+        PackageRelationship coreDocRelationship = pkg.getRelationshipsByType(
+                PackageRelationshipTypes.CORE_DOCUMENT).getRelationship(0);
+        if (coreDocRelationship == null) {
+            coreDocRelationship = pkg.getRelationshipsByType(
+                    PackageRelationshipTypes.STRICT_CORE_DOCUMENT).getRelationship(0);
+        }
+        if (coreDocRelationship == null) {
+            throw new POIXMLException("OOXML file structure broken/invalid - no core document found!");
+        }
+        PackagePart part = pkg.getPart(coreDocRelationship);
+        if (part == null) {
+            throw new InvalidFormatException("The main document part " + coreDocRelationship.getTargetURI() + " is missing");
+        }
+        return part;
+    }
+
+    private void parse(XMLStreamReader reader) throws XMLStreamException {
+        // the depth of the skipped alternative content, as it duplicates the chosen content
+        int skipDepth = -1;
+        int xmlDepth = 0;
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case START_ELEMENT:
+                    xmlDepth++;
+                    if (skipDepth >= 0) {
+                        break;
+                    }
+                    if (MARKUP_COMPATIBILITY.equals(reader.getNamespaceURI()) && "Fallback".equals(reader.getLocalName())) {
+                        skipDepth = xmlDepth;
+                        break;
+                    }
+                    startElement(reader, isWordprocessingML(reader.getNamespaceURI()) ? reader.getLocalName() : "");
+                    break;
+                case END_ELEMENT:
+                    if (skipDepth >= 0) {
+                        if (skipDepth == xmlDepth) {
+                            skipDepth = -1;
+                        }
+                    } else {
+                        endElement();
+                    }
+                    xmlDepth--;
+                    break;
+                case CHARACTERS:
+                case CDATA:
+                case SPACE:
+                    if (skipDepth < 0 && chars != null) {
+                        chars.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static boolean isWordprocessingML(String namespace) {
+        return NS_WORDPROCESSINGML.equals(namespace) || NS_WORDPROCESSINGML_STRICT.equals(namespace);
+    }
+
+    private void startElement(XMLStreamReader reader, String name) {
+        // the attributes are qualified by the namespace of the element
+        final String ns = reader.getNamespaceURI();
+        final String parent = (depth > 0) ? elements[depth - 1] : "";
+        if (pendingParagraph >= 0 && pendingParagraph == depth - 1 && !"pPr".equals(name)) {
+            reportParagraph();
+        }
+        if (depth == elements.length) {
+            elements = Arrays.copyOf(elements, 2 * depth);
+        }
+        elements[depth++] = name;
+
+        switch (name) {
+            case "p":
+                pendingParagraph = depth - 1;
+                paragraphStyle = null;
+                break;
+            case "pStyle":
+                if (pendingParagraph >= 0 && "pPr".equals(parent)) {
+                    paragraphStyle = reader.getAttributeValue(ns, "val");
+                }
+                break;
+            case "r":
+                handler.startRun();
+                break;
+            case "t":
+                if ("r".equals(parent)) {
+                    text.setLength(0);
+                    chars = text;
+                }
+                break;
+            case "instrText":
+                if ("r".equals(parent) && !fields.isEmpty()) {
+                    chars = fields.peek().instruction;
+                }
+                break;
+            case "tab":
+                if ("r".equals(parent)) {
+                    reportText("\t");
+                }
+                break;
+            case "br":
+            case "cr":
+                if ("r".equals(parent)) {
+                    reportText("\n");
+                }
+                break;
+            case "fldSimple": {
+                String instr = reader.getAttributeValue(ns, "instr");
+                handler.field(instr == null ? "" : instr.trim());
+                break;
+            }
+            case "fldChar":
+                handleFieldChar(reader.getAttributeValue(ns, "fldCharType"));
+                break;
+            case "tbl":
+                handler.startTable();
+                break;
+            case "tr":
+                handler.startRow();
+                break;
+            case "tc":
+                handler.startCell();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void endElement() {
+        final String name = elements[--depth];
+        switch (name) {
+            case "p":
+                if (pendingParagraph == depth) {
+                    reportParagraph();
+                }
+                handler.endParagraph();
+                break;
+            case "pPr":
+                if (pendingParagraph == depth - 1) {
+                    reportParagraph();
+                }
+                break;
+            case "r":
+                handler.endRun();
+                break;
+            case "t":
+                if (chars == text) {
+                    chars = null;
+                    if (text.length() > 0) {
+                        reportText(text.toString());
+                    }
+                }
+                break;
+            case "instrText":
+                chars = null;
+                break;
+            case "tbl":
+                handler.endTable();
+                break;
+            case "tr":
+                handler.endRow();
+                break;
+            case "tc":
+                handler.endCell();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void reportParagraph() {
+        pendingParagraph = -1;
+        handler.startParagraph(paragraphStyle);
+    }
+
+    private void handleFieldChar(String type) {
+        if ("begin".equals(type)) {
+            fields.push(new ComplexField());
+        } else if ("separate".equals(type)) {
+            reportField();
+        } else if ("end".equals(type)) {
+            reportField();
+            fields.poll();
+        }
+    }
+
+    private void reportField() {
+        ComplexField field = fields.peek();
+        if (field != null && !field.reported) {
+            field.reported = true;
+            // a field nested in the instruction of another field only contributes its result
+            if (getInstructionField() == null) {
+                handler.field(field.instruction.toString().trim());
+            }
+        }
+    }
+
+    /**
+     * Reports run text, unless it's part of a field instruction
+     */
+    private void reportText(String str) {
+        ComplexField field = getInstructionField();
+        if (field == null) {
+            handler.text(str);
+        } else {
+            // e.g. the result of a nested field
+            field.instruction.append(str);
+        }
+    }
+
+    /**
+     * @return the innermost field, whose instruction is currently read, or null if no instruction is read
+     */
+    private ComplexField getInstructionField() {
+        for (ComplexField field : fields) {
+            if (!field.reported) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
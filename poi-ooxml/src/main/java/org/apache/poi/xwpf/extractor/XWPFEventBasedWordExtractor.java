@@ -0,0 +1,230 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xwpf.extractor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.ooxml.POIXMLDocument;
+import org.apache.poi.ooxml.POIXMLProperties;
+import org.apache.poi.ooxml.POIXMLProperties.CoreProperties;
+import org.apache.poi.ooxml.POIXMLProperties.CustomProperties;
+import org.apache.poi.ooxml.POIXMLProperties.ExtendedProperties;
+import org.apache.poi.ooxml.extractor.POIXMLTextExtractor;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.xwpf.eventusermodel.XWPFBodyReader;
+import org.apache.poi.xwpf.eventusermodel.XWPFBodyReader.BodyContentsHandler;
+import org.apache.xmlbeans.XmlException;
+
+/**
+ * Implementation of a text extractor from OOXML Word
+ * files that uses StAX event based parsing.
+ * <p>
+ * Only the text of the main document body is extracted, i.e. without
+ * headers, footers, comments and footnotes. Paragraphs are separated by
+ * line breaks, table cells by tabs and table rows by line breaks.
+ *
+ * @see XWPFBodyReader
+ * @since POI 5.3.1
+ */
+public class XWPFEventBasedWordExtractor implements POIXMLTextExtractor {
+
+    private static final Logger LOGGER = LogManager.getLogger(XWPFEventBasedWordExtractor.class);
+
+    protected final OPCPackage container;
+    protected final POIXMLProperties properties;
+
+    private boolean doCloseFilesystem = true;
+
+    public XWPFEventBasedWordExtractor(String path) throws XmlException, OpenXML4JException, IOException {
+        this(OPCPackage.open(path));
+    }
+
+    public XWPFEventBasedWordExtractor(OPCPackage container) throws XmlException, OpenXML4JException, IOException {
+        this.container = container;
+        properties = new POIXMLProperties(container);
+    }
+
+    /**
+     * Processes the file and returns the text
+     */
+    @Override
+    public String getText() {
+        StringBuilder text = new StringBuilder(64);
+        try {
+            writeText(text);
+            return text.toString();
+        } catch (IOException e) {
+            LOGGER.atWarn().withThrowable(e).log("Failed to load text");
+            return "";
+        }
+    }
+
+    /**
+     * Processes the file and writes the text of each paragraph and table row, as soon as it's read
+     *
+     * @throws IOException if the file can't be processed or writing to the output fails
+     */
+    @Override
+    public void writeText(Appendable out) throws IOException {
+        try {
+            new XWPFBodyReader(new BodyTextExtractor(out)).process(container);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (OpenXML4JException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public POIXMLDocument getDocument() {
+        return null;
+    }
+
+    /**
+     * Returns the opened OPCPackage container.
+     */
+    @Override
+    public OPCPackage getPackage() {
+        return container;
+    }
+
+    /**
+     * Returns the core document properties
+     */
+    @Override
+    public CoreProperties getCoreProperties() {
+        return properties.getCoreProperties();
+    }
+
+    /**
+     * Returns the extended document properties
+     */
+    @Override
+    public ExtendedProperties getExtendedProperties() {
+        return properties.getExtendedProperties();
+    }
+
+    /**
+     * Returns the custom document properties
+     */
+    @Override
+    public CustomProperties getCustomProperties() {
+        return properties.getCustomProperties();
+    }
+
+    @Override
+    public void setCloseFilesystem(boolean doCloseFilesystem) {
+        this.doCloseFilesystem = doCloseFilesystem;
+    }
+
+    @Override
+    public boolean isCloseFilesystem() {
+        return doCloseFilesystem;
+    }
+
+    @Override
+    public OPCPackage getFilesystem() {
+        return container;
+    }
+
+    /**
+     * Writes the body events as text
+     */
+    private class BodyTextExtractor implements BodyContentsHandler {
+        private final Appendable output;
+        /** the number of cells of the current row of each open table */
+        private final Deque<int[]> cells = new ArrayDeque<>();
+        private boolean firstParagraphInCell;
+
+        BodyTextExtractor(Appendable output) {
+            this.output = output;
+        }
+
+        @Override
+        public void startParagraph(String styleId) {
+            if (!cells.isEmpty()) {
+                if (!firstParagraphInCell) {
+                    append("\n");
+                }
+                firstParagraphInCell = false;
+            }
+        }
+
+        @Override
+        public void endParagraph() {
+            if (cells.isEmpty()) {
+                append("\n");
+            }
+        }
+
+        @Override
+        public void text(String text) {
+            append(text);
+        }
+
+        @Override
+        public void startTable() {
+            cells.push(new int[1]);
+        }
+
+        @Override
+        public void endTable() {
+            cells.poll();
+            if (cells.isEmpty()) {
+                append("\n");
+            }
+        }
+
+        @Override
+        public void startRow() {
+            if (!cells.isEmpty()) {
+                cells.peek()[0] = 0;
+            }
+        }
+
+        @Override
+        public void endRow() {
+            append("\n");
+        }
+
+        @Override
+        public void startCell() {
+            if (!cells.isEmpty() && cells.peek()[0]++ > 0) {
+                append("\t");
+            }
+            firstParagraphInCell = true;
+        }
+
+        private void append(String text) {
+            if (output instanceof StringBuilder) {
+                checkMaxTextSize((StringBuilder)output, text);
+            }
+            try {
+                output.append(text);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -86,21 +86,45 @@ public class XWPFWordExtractor implements POIXMLTextExtractor {
 
     public String getText() {
         StringBuilder text = new StringBuilder(64);
+        try {
+            writeText(text);
+        } catch (IOException e) {
+            // a StringBuilder doesn't throw IOExceptions
+            throw new IllegalStateException(e);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes the text of each body element, as soon as it's extracted.
+     * The elements are extracted by {@link #appendBodyElementText(StringBuilder, IBodyElement)}.
+     *
+     * @since POI 5.3.1
+     */
+    @Override
+    public void writeText(Appendable text) throws IOException {
+        final boolean direct = text instanceof StringBuilder;
+        final StringBuilder sb = direct ? (StringBuilder) text : new StringBuilder(64);
         XWPFHeaderFooterPolicy hfPolicy = document.getHeaderFooterPolicy();
 
         // Start out with all headers
-        extractHeaders(text, hfPolicy);
+        extractHeaders(sb, hfPolicy);
 
         // Process all body elements
         for (IBodyElement e : document.getBodyElements()) {
-            appendBodyElementText(text, e);
-            text.append('\n');
+            appendBodyElementText(sb, e);
+            sb.append('\n');
+            if (!direct) {
+                text.append(sb);
+                sb.setLength(0);
+            }
         }
 
         // Finish up with all the footers
-        extractFooters(text, hfPolicy);
-
-        return text.toString();
+        extractFooters(sb, hfPolicy);
+        if (!direct) {
+            text.append(sb);
+        }
     }
 
     public void appendBodyElementText(StringBuilder text, IBodyElement e) {
@@ -34,6 +34,20 @@ public final class XWPFRelation extends POIXMLRelation {
 
     /* package */ static final String NS_DRAWINGML = XSSFRelation.NS_DRAWINGML;
 
+    /**
+     * The namespace of wordprocessingml elements in transitional documents
+     *
+     * @since POI 5.3.1
+     */
+    public static final String NS_WORDPROCESSINGML = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    /**
+     * The namespace of wordprocessingml elements in strict OOXML documents
+     *
+     * @since POI 5.3.1
+     */
+    public static final String NS_WORDPROCESSINGML_STRICT = "http://purl.oclc.org/ooxml/wordprocessingml/main";
+
     /**
      * A map to lookup POIXMLRelation by its relation type
      */
@@ -29,10 +29,17 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import org.apache.poi.POIDataSamples;
+import org.apache.poi.extractor.BatchTextExtractor;
 import org.apache.poi.extractor.ExtractorFactory;
 import org.apache.poi.extractor.POIOLE2TextExtractor;
 import org.apache.poi.extractor.POITextExtractor;
@@ -459,6 +466,70 @@ class TestExtractorFactory {
         }
     }
 
+    @ParameterizedTest
+    @MethodSource("testFileData")
+    void testWriteText(String testcase, File file, String extractor, int count) throws Exception {
+        try {
+            for (boolean preferEvent : new boolean[]{ false, true }) {
+                ExtractorFactory.setThreadPrefersEventExtractors(preferEvent);
+                try (POITextExtractor ext = createExtractor(file)) {
+                    StringWriter sw = new StringWriter();
+                    ext.writeText(sw);
+                    assertEquals(ext.getText(), sw.toString(), testcase);
+                }
+            }
+        } finally {
+            ExtractorFactory.removeThreadPrefersEventExtractorsSetting();
+        }
+    }
+
+    @Test
+    void testBatchExtraction() throws Exception {
+        final List<File> files = Arrays.asList(xls, xlsx, doc, docx, pptx, txt);
+        final Map<File,String> texts = new HashMap<>();
+        final Map<File,Throwable> failures = new HashMap<>();
+        final BatchTextExtractor.TextSink sink = new BatchTextExtractor.TextSink() {
+            @Override
+            public void text(File file, String text) {
+                texts.put(file, text);
+            }
+
+            @Override
+            public void failed(File file, Throwable cause) {
+                failures.put(file, cause);
+            }
+        };
+
+        BatchTextExtractor batch = new BatchTextExtractor();
+        batch.setParallelism(3);
+        batch.setTimeout(Duration.ofMinutes(5));
+        batch.extract(files, sink);
+
+        assertEquals(files.size() - 1, texts.size());
+        assertEquals(1, failures.size());
+        assertInstanceOf(IOException.class, failures.get(txt));
+
+        ExtractorFactory.setThreadPrefersEventExtractors(true);
+        try {
+            for (File file : files.subList(0, files.size() - 1)) {
+                try (POITextExtractor ext = createExtractor(file)) {
+                    assertEquals(ext.getText(), texts.get(file), file.getName());
+                }
+            }
+        } finally {
+            ExtractorFactory.removeThreadPrefersEventExtractorsSetting();
+        }
+
+        // larger files aren't opened
+        texts.clear();
+        failures.clear();
+        batch.setMaxFileSize(1);
+        batch.extract(files, sink);
+        assertTrue(texts.isEmpty());
+        assertEquals(files.size(), failures.size());
+        failures.values().forEach(e -> assertInstanceOf(IOException.class, e));
+    }
+
     private void testExtractor(final POITextExtractor ext, final String testcase, final String extrClass, final Integer minLength) {
         assertEquals(extrClass, ext.getClass().getSimpleName(), "invalid extractor for " + testcase);
         final String actual = ext.getText();
@@ -404,6 +404,49 @@ class TestSignatureInfo {
         }
     }
 
+    @Test
+    @DisabledOnJreEx("1.8.0_292")
+    void testStreamingPartDigests() throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(testdata.getFile("hello-world-signed-twice.docx"), PackageAccess.READ)) {
+            SignatureConfig sic = new SignatureConfig();
+            sic.setStreamingPartDigests(true);
+            SignatureInfo si = new SignatureInfo();
+            si.setOpcPackage(pkg);
+            si.setSignatureConfig(sic);
+            assertTrue(si.verifySignature());
+            pkg.revert();
+        }
+
+        DummyKeystore ks = new DummyKeystore(STORE_PASS);
+        KeyCertPair certPair = ks.createDummyKey();
+
+        for (boolean streamingSign : new boolean[]{ false, true }) {
+            String testFile = "hello-world-unsigned.xlsx";
+            try (OPCPackage pkg = OPCPackage.open(copy(testdata.getFile(testFile)), PackageAccess.READ_WRITE)) {
+                SignatureConfig sic = new SignatureConfig();
+                sic.setKey(certPair.getKey());
+                sic.setSigningCertificateChain(certPair.getX509Chain());
+                sic.setStreamingPartDigests(streamingSign);
+                SignatureInfo si = new SignatureInfo();
+                si.setOpcPackage(pkg);
+                si.setSignatureConfig(sic);
+                si.confirmSignature();
+
+                for (boolean streamingVerify : new boolean[]{ false, true }) {
+                    sic.setStreamingPartDigests(streamingVerify);
+                    assertTrue(si.verifySignature(), "signed " + streamingSign + ", verified " + streamingVerify);
+                }
+
+                // manipulate a part, which is only covered by a manifest reference
+                try (CommitableWorkbook wb = new CommitableWorkbook(pkg)) {
+                    wb.setSheetName(0, "manipulated");
+                    wb.commit();
+                }
+                assertFalse(si.verifySignature(), "signature should be broken");
+            }
+        }
+    }
+
     @Test
     @DisabledOnJreEx("1.8.0_292")
     void testSignSpreadsheetWithSignatureInfo() throws Exception {
@@ -23,6 +23,7 @@ import org.apache.poi.ss.formula.EvaluationConditionalFormatRule;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Color;
 import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.CellReference;
 import org.apache.poi.xssf.XSSFTestDataSamples;
 import org.apache.poi.xssf.usermodel.XSSFColor;
@@ -31,12 +32,15 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class TestConditionalFormattingEval {
 
@@ -185,6 +189,35 @@ class TestConditionalFormattingEval {
         }
     }
 
+    @Test
+    void testRangeEvaluation() throws IOException {
+        try (XSSFWorkbook wb = XSSFTestDataSamples.openSampleWorkbook("ConditionalFormattingSamples.xlsx")) {
+            XSSFFormulaEvaluator formulaEval = new XSSFFormulaEvaluator(wb);
+            ConditionalFormattingEvaluator cfe = new ConditionalFormattingEvaluator(wb, formulaEval);
+            ConditionalFormattingEvaluator uncached = new ConditionalFormattingEvaluator(wb, formulaEval);
+            uncached.setMaxCachedValues(0);
+            assertEquals(0, uncached.getMaxCachedValues());
+            assertThrows(IllegalArgumentException.class, () -> uncached.setMaxCachedValues(-1));
+
+            for (String sheetName : new String[]{"Products1", "Products2", "Book tour", "Compare to totals"}) {
+                Sheet sheet = wb.getSheet(sheetName);
+                CellRangeAddress range = new CellRangeAddress(0, 30, 0, 10);
+                Map<CellReference, List<EvaluationConditionalFormatRule>> rules =
+                    cfe.getConditionalFormattingForRange(sheet, range);
+                assertFalse(rules.isEmpty(), "no rules for " + sheetName);
+
+                for (int row = range.getFirstRow(); row <= range.getLastRow(); row++) {
+                    for (int col = range.getFirstColumn(); col <= range.getLastColumn(); col++) {
+                        CellReference ref = new CellReference(sheetName, row, col, false, false);
+                        List<EvaluationConditionalFormatRule> expected = cfe.getConditionalFormattingForCell(ref);
+                        assertEquals(expected, rules.getOrDefault(ref, Collections.emptyList()), "wrong rules for " + ref);
+                        assertEquals(expected, uncached.getConditionalFormattingForCell(ref), "wrong rules for " + ref);
+                    }
+                }
+            }
+        }
+    }
+
     private RuleResult getRuleResultFor(int row, int col, Sheet sheet, ConditionalFormattingEvaluator cfe) {
         CellReference ref = new CellReference(sheet.getSheetName(), row, col, false, false);
         return new RuleResult(ref, cfe.getConditionalFormattingForCell(ref));
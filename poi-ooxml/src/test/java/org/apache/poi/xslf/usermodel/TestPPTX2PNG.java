@@ -42,6 +42,7 @@ import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.xslf.util.PPTX2PNG;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -132,6 +133,16 @@ class TestPPTX2PNG {
         }
     }
 
+    @Test
+    void renderConcurrently() throws Exception {
+        for (String fileName : new String[]{ "alterman_security.pptx", "themes.pptx" }) {
+            File file = samples.getFile(fileName);
+            List<String> args = new ArrayList<>(asList(getArgs(fileName, file, file.getParentFile(), "null")));
+            args.addAll(0, asList("-threads", "4"));
+            PPTX2PNG.main(args.toArray(new String[0]));
+        }
+    }
+
     private String[] getArgs(String fileName, Object fileObj, Object fileContainer, String format) throws IOException {
         File tmpDir = new File("build/tmp/");
 
@@ -18,8 +18,12 @@
 package org.apache.poi.xssf.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -29,6 +33,7 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.XSSFTestDataSamples;
@@ -241,4 +246,51 @@ public final class TestSharedStringsTable {
         assertNotNull(w3);
         w3.close();
     }
+
+    @Test
+    void testCompactMode() throws IOException {
+        SharedStringsTable sst = new SharedStringsTable();
+        assertFalse(sst.isCompactMode());
+        sst.setCompactMode(true);
+        assertTrue(sst.isCompactMode());
+
+        XSSFRichTextString rich = new XSSFRichTextString("Second string");
+        XSSFFont font = new XSSFFont();
+        font.setBold(true);
+        rich.applyFont(0, 6, font);
+
+        assertEquals(0, sst.addSharedStringItem(new XSSFRichTextString("Hello, World!")));
+        assertEquals(1, sst.addSharedStringItem(new XSSFRichTextString("Second string")));
+        assertEquals(2, sst.addSharedStringItem(rich));
+        assertEquals(0, sst.addSharedStringItem(new XSSFRichTextString("Hello, World!")));
+        assertEquals(2, sst.addSharedStringItem(rich));
+        assertEquals(3, sst.addSharedStringItem(new XSSFRichTextString(" <a & b>\n\u00e4\ud83d\ude00 ")));
+        assertEquals(6, sst.getCount());
+        assertEquals(4, sst.getUniqueCount());
+
+        assertThrows(IllegalStateException.class, () -> sst.setCompactMode(false));
+
+        assertEquals("Hello, World!", sst.getItemAt(0).getString());
+        assertEquals("Second string", sst.getItemAt(1).getString());
+        assertEquals("Second string", sst.getItemAt(2).getString());
+        assertEquals(2, sst.getItemAt(2).numFormattingRuns());
+        assertEquals(" <a & b>\n\u00e4\ud83d\ude00 ", sst.getItemAt(3).getString());
+        assertEquals(4, sst.getSharedStringItems().size());
+
+        // the compact table is written like a regular one
+        UnsynchronizedByteArrayOutputStream bos = UnsynchronizedByteArrayOutputStream.builder().get();
+        sst.writeTo(bos);
+        for (boolean compactMode : new boolean[]{false, true}) {
+            SharedStringsTable sst2 = new SharedStringsTable();
+            sst2.setCompactMode(compactMode);
+            sst2.readFrom(new ByteArrayInputStream(bos.toByteArray()));
+            assertEquals(6, sst2.getCount());
+            assertEquals(4, sst2.getUniqueCount());
+            for (int i = 0; i < 4; i++) {
+                assertEquals(sst.getItemAt(i).getString(), sst2.getItemAt(i).getString());
+            }
+            assertEquals(2, sst2.getItemAt(2).numFormattingRuns());
+            assertEquals(1, sst2.addSharedStringItem(new XSSFRichTextString("Second string")));
+        }
+    }
 }
@@ -21,11 +21,15 @@ import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.openxml4j.opc.PackagePart;
 import org.apache.poi.xssf.usermodel.XSSFRelation;
 import org.junit.jupiter.api.BeforeAll;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STPatternType;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -34,12 +38,21 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Map;
 
+import org.apache.poi.ss.usermodel.BorderStyle;
 import org.apache.poi.ss.usermodel.BuiltinFormats;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
 import org.apache.poi.xssf.XSSFTestDataSamples;
 import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+import org.apache.poi.xssf.usermodel.XSSFFont;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.usermodel.extensions.XSSFCellBorder;
+import org.apache.poi.xssf.usermodel.extensions.XSSFCellFill;
+import org.apache.poi.xssf.usermodel.extensions.XSSFCellBorder.BorderSide;
 
 public final class TestStylesTable {
     private static final String testFile = "Formatting.xlsx";
@@ -353,4 +366,125 @@ public final class TestStylesTable {
             assertNotNull(XSSFTestDataSamples.writeOutAndReadBack(workbook));
         }
     }
+
+    @Test
+    void testFontIndexFollowsModifications() throws IOException {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            StylesTable st = wb.getStylesSource();
+            XSSFFont font = wb.createFont();
+            assertNull(st.findFont(true, IndexedColors.RED.getIndex(), (short)240, "Arial", false, false, Font.SS_NONE, Font.U_NONE));
+
+            font.setBold(true);
+            font.setColor(IndexedColors.RED.getIndex());
+            font.setFontHeightInPoints((short)12);
+            font.setFontName("Arial");
+            assertSame(font, st.findFont(true, IndexedColors.RED.getIndex(), (short)240, "Arial", false, false, Font.SS_NONE, Font.U_NONE));
+
+            XSSFFont other = new XSSFFont();
+            other.setBold(true);
+            other.setColor(IndexedColors.RED.getIndex());
+            other.setFontHeightInPoints((short)12);
+            other.setFontName("Arial");
+            assertEquals(font.getIndex(), st.putFont(other));
+
+            font.setItalic(true);
+            assertNull(st.findFont(true, IndexedColors.RED.getIndex(), (short)240, "Arial", false, false, Font.SS_NONE, Font.U_NONE));
+            assertEquals(st.getFonts().size(), st.putFont(other));
+        }
+    }
+
+    @Test
+    void testFillAndBorderIndexFollowModifications() throws IOException {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            StylesTable st = wb.getStylesSource();
+
+            XSSFCellFill fill = new XSSFCellFill();
+            fill.setPatternType(STPatternType.SOLID);
+            int fillIdx = st.putFill(fill);
+            fill.setFillForegroundColor(IndexedColors.RED.getIndex());
+
+            XSSFCellFill otherFill = new XSSFCellFill();
+            otherFill.setPatternType(STPatternType.SOLID);
+            otherFill.setFillForegroundColor(IndexedColors.RED.getIndex());
+            int numFills = st.getFills().size();
+            assertEquals(fillIdx, st.putFill(otherFill));
+            assertEquals(numFills, st.getFills().size());
+
+            XSSFCellBorder border = new XSSFCellBorder();
+            border.setBorderStyle(BorderSide.LEFT, BorderStyle.THIN);
+            int borderIdx = st.putBorder(border);
+            border.setBorderColor(BorderSide.LEFT, new XSSFColor(new byte[]{(byte)0x12, (byte)0x34, (byte)0x56}));
+
+            XSSFCellBorder otherBorder = new XSSFCellBorder();
+            otherBorder.setBorderStyle(BorderSide.LEFT, BorderStyle.THIN);
+            otherBorder.setBorderColor(BorderSide.LEFT, new XSSFColor(new byte[]{(byte)0x12, (byte)0x34, (byte)0x56}));
+            int numBorders = st.getBorders().size();
+            assertEquals(borderIdx, st.putBorder(otherBorder));
+            assertEquals(numBorders, st.getBorders().size());
+        }
+    }
+
+    @Test
+    void testStyleRegistrationDedup() throws IOException {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            StylesTable st = wb.getStylesSource();
+            int numFills = 0, numBorders = 0;
+            for (int i = 0; i < 1000; i++) {
+                if (i == 10) {
+                    numFills = st.getFills().size();
+                    numBorders = st.getBorders().size();
+                }
+                XSSFCellStyle style = wb.createCellStyle();
+                style.setFillForegroundColor(IndexedColors.values()[i % 10].getIndex());
+                style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                style.setBorderBottom(BorderStyle.THIN);
+                style.setDataFormat(wb.createDataFormat().getFormat("0.0" + (i % 5)));
+                assertEquals(style.getIndex(), st.putStyle(style));
+            }
+            // after the first round, all fills and borders are reused
+            assertEquals(numFills, st.getFills().size());
+            assertEquals(numBorders, st.getBorders().size());
+            assertEquals(5, st.getNumDataFormats());
+            assertEquals(1001, st.getNumCellStyles());
+
+            short id = (short)st.putNumberFormat("0.03");
+            st.putNumberFormat(id, "0.000");
+            assertEquals(id, st.putNumberFormat("0.000"));
+            assertNotEquals(id, st.putNumberFormat("0.03"));
+        }
+    }
+
+    @Test
+    void testThemedColorsAfterSetTheme() throws IOException {
+        try (XSSFWorkbook wb = XSSFTestDataSamples.openSampleWorkbook("Themes.xlsx")) {
+            StylesTable st = wb.getStylesSource();
+            ThemesTable theme = st.getTheme();
+            assertNotNull(theme);
+            st.setTheme(null);
+
+            XSSFFont font = new XSSFFont();
+            font.setFontName("Themed");
+            font.setThemeColor((short)4);
+            int fontIdx = st.putFont(font, true);
+
+            XSSFCellBorder border = new XSSFCellBorder();
+            border.setBorderStyle(BorderSide.TOP, BorderStyle.DASH_DOT_DOT);
+            XSSFColor color = new XSSFColor(st.getIndexedColors());
+            color.setTheme(4);
+            border.setBorderColor(BorderSide.TOP, color);
+            int borderIdx = st.putBorder(border);
+
+            // reading the colors inherits the rgb value of the theme
+            st.setTheme(theme);
+            assertNotNull(font.getXSSFColor().getRGB());
+            assertNotNull(border.getBorderColor(BorderSide.TOP).getRGB());
+
+            XSSFFont otherFont = new XSSFFont(font.getCTFont().copy());
+            otherFont.setThemesTable(theme);
+            assertEquals(fontIdx, st.putFont(otherFont));
+
+            XSSFCellBorder otherBorder = new XSSFCellBorder(border.getCTBorder().copy(), theme, st.getIndexedColors());
+            assertEquals(borderIdx, st.putBorder(otherBorder));
+        }
+    }
 }
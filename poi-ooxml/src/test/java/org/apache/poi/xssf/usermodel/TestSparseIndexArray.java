@@ -0,0 +1,124 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.usermodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+final class TestSparseIndexArray {
+
+    @Test
+    void testEmpty() {
+        SparseIndexArray<String> arr = new SparseIndexArray<>();
+        assertTrue(arr.isEmpty());
+        assertEquals(0, arr.size());
+        assertNull(arr.get(0));
+        assertNull(arr.remove(5));
+        assertEquals(0, arr.countBelow(100));
+        assertFalse(arr.values().iterator().hasNext());
+        assertThrows(NoSuchElementException.class, arr::firstKey);
+        assertThrows(NoSuchElementException.class, arr::lastKey);
+    }
+
+    @Test
+    void testBehavesLikeTreeMap() {
+        SparseIndexArray<Integer> arr = new SparseIndexArray<>();
+        TreeMap<Integer, Integer> map = new TreeMap<>();
+        Random rnd = new Random(4711);
+        for (int i = 0; i < 20_000; i++) {
+            int key;
+            switch (rnd.nextInt(4)) {
+                case 0:
+                    key = rnd.nextInt(200);
+                    break;
+                case 1:
+                    key = rnd.nextInt(1_048_576);
+                    break;
+                case 2:
+                    key = -1 - rnd.nextInt(10);
+                    break;
+                default:
+                    key = Integer.MAX_VALUE - rnd.nextInt(10);
+                    break;
+            }
+            if (rnd.nextInt(3) == 0) {
+                assertEquals(map.remove(key), arr.remove(key));
+            } else {
+                assertEquals(map.put(key, i), arr.put(key, i));
+            }
+        }
+
+        assertEquals(map.size(), arr.size());
+        assertEquals((int)map.firstKey(), arr.firstKey());
+        assertEquals((int)map.lastKey(), arr.lastKey());
+        assertEquals(new ArrayList<>(map.values()), new ArrayList<>(arr.values()));
+        for (int key : new int[]{Integer.MIN_VALUE, -5, 0, 1, 63, 64, 4095, 4096, 100_000, 1_048_576, Integer.MAX_VALUE}) {
+            assertEquals(map.headMap(key).size(), arr.countBelow(key), "countBelow " + key);
+            assertEquals(map.get(key), arr.get(key));
+        }
+        assertEquals(new ArrayList<>(map.subMap(50, 100_000).values()), new ArrayList<>(arr.values(50, 100_000)));
+        assertEquals(map.subMap(50, 100_000).size(), arr.values(50, 100_000).size());
+    }
+
+    @Test
+    void testIteratorRemove() {
+        SparseIndexArray<String> arr = new SparseIndexArray<>();
+        for (int i = 0; i < 300; i += 3) {
+            arr.put(i, "v" + i);
+        }
+        for (Iterator<String> it = arr.values().iterator(); it.hasNext(); ) {
+            String s = it.next();
+            if (Integer.parseInt(s.substring(1)) % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(50, arr.size());
+        assertEquals(3, arr.firstKey());
+        assertEquals(297, arr.lastKey());
+        assertNull(arr.get(6));
+
+        List<String> values = new ArrayList<>();
+        arr.values().spliterator().forEachRemaining(values::add);
+        assertEquals(50, values.size());
+        assertEquals("v3", values.get(0));
+    }
+
+    @Test
+    void testFailFastIterator() {
+        SparseIndexArray<String> arr = new SparseIndexArray<>();
+        arr.put(1, "a");
+        arr.put(2, "b");
+        Iterator<String> it = arr.values().iterator();
+        it.next();
+        arr.put(3, "c");
+        assertThrows(ConcurrentModificationException.class, it::next);
+    }
+}
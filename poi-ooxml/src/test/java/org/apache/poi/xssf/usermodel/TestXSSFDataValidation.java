@@ -22,6 +22,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.BitSet;
 import java.util.List;
 
 import org.apache.poi.ss.formula.DataValidationEvaluator;
@@ -377,4 +378,48 @@ class TestXSSFDataValidation extends BaseTestDataValidation {
             assertEquals(32, values.size(), "wrong # of valid values");
         }
     }
+
+    @Test
+    void testInvalidCellsOfRange() throws IOException {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            XSSFSheet sheet = wb.createSheet("Sheet1");
+            for (int r = 0; r < 4; r++) {
+                sheet.createRow(r).createCell(0).setCellValue("Item" + r);
+            }
+            sheet.getRow(0).createCell(1).setCellValue("ITEM1");
+            sheet.getRow(1).createCell(1).setCellValue("other");
+            sheet.getRow(2).createCell(1).setCellValue("");
+            sheet.getRow(0).createCell(2).setCellValue("b");
+            sheet.getRow(1).createCell(2).setCellValue("d");
+            sheet.getRow(0).createCell(3).setCellValue(5);
+            sheet.getRow(1).createCell(3).setCellValue(50);
+
+            DataValidationHelper helper = sheet.getDataValidationHelper();
+            DataValidation listFromRange = helper.createValidation(
+                helper.createFormulaListConstraint("$A$1:$A$4"), new CellRangeAddressList(0, 3, 1, 1));
+            listFromRange.setEmptyCellAllowed(false);
+            sheet.addValidationData(listFromRange);
+            // overlaps the first validation, which takes precedence
+            sheet.addValidationData(helper.createValidation(
+                helper.createExplicitListConstraint(new String[] {"a", "b", "c"}), new CellRangeAddressList(0, 3, 1, 2)));
+            sheet.addValidationData(helper.createValidation(
+                helper.createIntegerConstraint(OperatorType.BETWEEN, "1", "10"), new CellRangeAddressList(0, 3, 3, 3)));
+
+            XSSFFormulaEvaluator fEval = wb.getCreationHelper().createFormulaEvaluator();
+            DataValidationEvaluator dve = new DataValidationEvaluator(wb, fEval);
+            CellRangeAddress range = new CellRangeAddress(0, 4, 0, 4);
+            BitSet invalid = dve.getInvalidCells(sheet, range);
+
+            int width = range.getNumberOfColumns();
+            for (int r = range.getFirstRow(); r <= range.getLastRow(); r++) {
+                for (int c = range.getFirstColumn(); c <= range.getLastColumn(); c++) {
+                    boolean valid = dve.isValidCell(new CellReference("Sheet1", r, c, false, false));
+                    assertEquals(!valid, invalid.get(r * width + c), "cell " + new CellReference(r, c).formatAsString());
+                }
+            }
+
+            // B2 and C2 are not in their lists, D2 is out of bounds, B3 and B4 are empty
+            assertEquals("{6, 7, 8, 11, 16}", invalid.toString());
+        }
+    }
 }
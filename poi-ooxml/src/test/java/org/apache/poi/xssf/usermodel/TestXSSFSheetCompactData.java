@@ -0,0 +1,152 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.usermodel;
+
+import static org.apache.poi.xssf.XSSFTestDataSamples.openSamplePackage;
+import static org.apache.poi.xssf.XSSFTestDataSamples.writeOut;
+import static org.apache.poi.xssf.XSSFTestDataSamples.writeOutAndReadBack;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for reading sheets with {@link XSSFWorkbook#XSSFWorkbook(OPCPackage, boolean)}
+ */
+final class TestXSSFSheetCompactData {
+
+    @Test
+    void rowsAreLoadedOnDemand() throws IOException {
+        try (XSSFWorkbook wb = createWorkbook();
+             XSSFWorkbook wb2 = readCompact(wb)) {
+            assertTrue(wb2.isCompactSheetData());
+            XSSFSheet sheet = wb2.getSheetAt(0);
+            assertEquals(0, sheet.getCTWorksheet().getSheetData().sizeOfRowArray());
+            assertEquals(200, sheet.getPhysicalNumberOfRows());
+            assertEquals(0, sheet.getFirstRowNum());
+            assertEquals(398, sheet.getLastRowNum());
+            assertNull(sheet.getRow(1));
+
+            XSSFRow row = sheet.getRow(100);
+            assertEquals("str100", row.getCell(1).getStringCellValue());
+            assertEquals(1, sheet.getCTWorksheet().getSheetData().sizeOfRowArray());
+            assertEquals(200, sheet.getPhysicalNumberOfRows());
+
+            // the array formula has been registered without loading its row
+            assertTrue(sheet.isCellInArrayFormulaContext(sheet.getRow(398).getCell(3)));
+
+            int count = 0;
+            for (Row r : sheet) {
+                assertEquals(count * 2, r.getRowNum());
+                count++;
+            }
+            assertEquals(200, count);
+            assertEquals(200, sheet.getCTWorksheet().getSheetData().sizeOfRowArray());
+        }
+    }
+
+    @Test
+    void modifiedAndUntouchedRowsAreWritten() throws IOException {
+        try (XSSFWorkbook wb = createWorkbook();
+             XSSFWorkbook wb2 = readCompact(wb)) {
+            XSSFSheet sheet = wb2.getSheetAt(0);
+            sheet.getRow(100).getCell(0).setCellValue(-1);
+            sheet.createRow(101).createCell(5).setCellValue("new");
+            sheet.removeRow(sheet.getRow(200));
+
+            try (XSSFWorkbook wb3 = writeOutAndReadBack(wb2)) {
+                assertFalse(wb3.isCompactSheetData());
+                XSSFSheet sheet3 = wb3.getSheetAt(0);
+                assertEquals(200, sheet3.getPhysicalNumberOfRows());
+                assertEquals(-1, sheet3.getRow(100).getCell(0).getNumericCellValue(), 0);
+                assertEquals("new", sheet3.getRow(101).getCell(5).getStringCellValue());
+                assertNull(sheet3.getRow(200));
+                assertEquals(398, sheet3.getRow(398).getCell(0).getNumericCellValue(), 0);
+                assertEquals("str398", sheet3.getRow(398).getCell(1).getStringCellValue());
+                assertEquals("A399*2", sheet3.getRow(398).getCell(2).getCellFormula());
+                assertEquals("A1:F399", sheet3.getCTWorksheet().getDimension().getRef());
+
+                int prev = -1;
+                for (Row r : sheet3) {
+                    assertTrue(r.getRowNum() > prev);
+                    prev = r.getRowNum();
+                }
+            }
+        }
+    }
+
+    @Test
+    void loadedRowsStayUsableAfterWriting() throws IOException {
+        try (XSSFWorkbook wb = createWorkbook();
+             XSSFWorkbook wb2 = readCompact(wb)) {
+            XSSFSheet sheet = wb2.getSheetAt(0);
+            XSSFRow row = sheet.getRow(100);
+            writeOut(wb2).close();
+
+            // the loaded rows have been moved out of the worksheet while it was saved
+            assertEquals(1, sheet.getCTWorksheet().getSheetData().sizeOfRowArray());
+            row.getCell(0).setCellValue(-1);
+
+            try (XSSFWorkbook wb3 = writeOutAndReadBack(wb2)) {
+                XSSFSheet sheet3 = wb3.getSheetAt(0);
+                assertEquals(200, sheet3.getPhysicalNumberOfRows());
+                assertEquals(-1, sheet3.getRow(100).getCell(0).getNumericCellValue(), 0);
+                assertEquals("str100", sheet3.getRow(100).getCell(1).getStringCellValue());
+            }
+        }
+    }
+
+    @Test
+    void sharedFormulaMasterIsKnownBeforeLoading() throws IOException {
+        try (XSSFWorkbook wb = new XSSFWorkbook(openSamplePackage("shared_formulas.xlsx"), true)) {
+            XSSFSheet sheet = wb.getSheetAt(0);
+            // the master cell A2 is not loaded
+            assertEquals("B10", sheet.getRow(9).getCell(0).getCellFormula());
+            assertEquals(1, sheet.getCTWorksheet().getSheetData().sizeOfRowArray());
+        }
+    }
+
+    private static XSSFWorkbook readCompact(XSSFWorkbook wb) throws IOException {
+        try {
+            return new XSSFWorkbook(OPCPackage.open(writeOut(wb).toInputStream()), true);
+        } catch (InvalidFormatException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static XSSFWorkbook createWorkbook() {
+        XSSFWorkbook wb = new XSSFWorkbook();
+        XSSFSheet sheet = wb.createSheet();
+        for (int i = 0; i < 400; i += 2) {
+            XSSFRow row = sheet.createRow(i);
+            row.createCell(0).setCellValue(i);
+            row.createCell(1).setCellValue("str" + i);
+            row.createCell(2).setCellFormula("A" + (i + 1) + "*2");
+        }
+        sheet.setArrayFormula("A399+1", CellRangeAddress.valueOf("D399"));
+        return wb;
+    }
+}
@@ -20,7 +20,9 @@ package org.apache.poi.xssf.usermodel;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.util.stream.IntStream;
@@ -38,6 +40,7 @@ import org.apache.poi.ss.util.CellUtil;
 import org.apache.poi.xssf.XSSFITestDataProvider;
 import org.apache.poi.xssf.XSSFTestDataSamples;
 import org.junit.jupiter.api.Test;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTRow;
 
 public final class TestXSSFSheetShiftRows extends BaseTestSheetShiftRows {
 
@@ -552,4 +555,46 @@ public final class TestXSSFSheetShiftRows extends BaseTestSheetShiftRows {
             assertEquals(expectedMR, mr);
         }
     }
+
+    @Test
+    void testShiftRowsPastOtherRows() throws IOException {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            XSSFSheet sheet = wb.createSheet("Data");
+            XSSFSheet other = wb.createSheet("Other");
+            for (int i = 0; i < 10; i++) {
+                sheet.createRow(i).createCell(0).setCellValue(i);
+            }
+            sheet.getRow(0).createCell(1).setCellFormula("A7+A10");
+            sheet.getRow(1).createCell(1).setCellFormula("A2*2");
+            other.createRow(0).createCell(0).setCellFormula("Data!A2+A2");
+            other.getRow(0).createCell(1).setCellFormula("SUM(A1:A5)");
+
+            Comment comment = sheet.createDrawingPatriarch().createCellComment(
+                    wb.getCreationHelper().createClientAnchor());
+            comment.setAddress(1, 0);
+
+            // rows 2 and 3 are moved past rows 4 to 6 and overwrite rows 7 and 8
+            sheet.shiftRows(1, 2, 5);
+
+            assertEquals(8, sheet.getPhysicalNumberOfRows());
+            int prev = -1;
+            for (CTRow ctRow : sheet.getCTWorksheet().getSheetData().getRowList()) {
+                int rownum = Math.toIntExact(ctRow.getR()) - 1;
+                assertTrue(rownum > prev);
+                assertSame(ctRow, sheet.getRow(rownum).getCTRow());
+                prev = rownum;
+            }
+            assertEquals(1, sheet.getRow(6).getCell(0).getNumericCellValue(), 0);
+            assertEquals(2, sheet.getRow(7).getCell(0).getNumericCellValue(), 0);
+            assertEquals(3, sheet.getRow(3).getCell(0).getNumericCellValue(), 0);
+            assertNull(sheet.getRow(1));
+
+            assertEquals("#REF!+A10", sheet.getRow(0).getCell(1).getCellFormula());
+            assertEquals("A7*2", sheet.getRow(6).getCell(1).getCellFormula());
+            assertEquals("Data!A7+A2", other.getRow(0).getCell(0).getCellFormula());
+            assertEquals("SUM(A1:A5)", other.getRow(0).getCell(1).getCellFormula());
+            assertNotNull(sheet.getCellComment(new CellAddress(6, 0)));
+            assertNull(sheet.getCellComment(new CellAddress(1, 0)));
+        }
+    }
 }
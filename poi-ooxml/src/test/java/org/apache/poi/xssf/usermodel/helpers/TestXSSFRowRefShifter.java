@@ -0,0 +1,87 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.usermodel.helpers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+final class TestXSSFRowRefShifter {
+
+    @Test
+    void testShiftDown() {
+        // rows 5 to 10 are moved down by 2 rows
+        XSSFRowRefShifter shifter = new XSSFRowRefShifter("Data", 4, 9, 2);
+
+        assertEquals("A7+B12", shifter.shift("A5+B10", true));
+        assertEquals("A4+B13", shifter.shift("A4+B13", true));
+        assertEquals("SUM($A$7:$A$12)", shifter.shift("SUM($A$5:$A$10)", true));
+        assertEquals("SUM(A1:A20)", shifter.shift("SUM(A1:A20)", true));
+        assertEquals("SUM(A1:A9)", shifter.shift("SUM(A1:A7)", true));
+        assertEquals("SUM(A:A)", shifter.shift("SUM(A:A)", true));
+        assertEquals("LOG10(A7)&\"A5\"", shifter.shift("LOG10(A5)&\"A5\"", true));
+        assertEquals("MyName*A7+1.5E3", shifter.shift("MyName*A5+1.5E3", true));
+        assertEquals("_xlfn.STDEV.S(A7:A8)", shifter.shift("_xlfn.STDEV.S(A5:A6)", true));
+        assertEquals("A7 B7:C8", shifter.shift("A5 B5:C6", true));
+
+        // references into the destination rows, truncated areas and row ranges are left to the parser
+        assertNull(shifter.shift("A11", true));
+        assertNull(shifter.shift("SUM(A7:A20)", true));
+        assertNull(shifter.shift("SUM(5:6)", true));
+        assertNull(shifter.shift("A6:A5", true));
+        assertNull(shifter.shift("Table1[Col]", true));
+        assertNull(shifter.shift("IF(ISERROR(A5),#N/A,A5)", true));
+    }
+
+    @Test
+    void testShiftUp() {
+        // rows 5 to 10 are moved up by 3 rows
+        XSSFRowRefShifter shifter = new XSSFRowRefShifter("Data", 4, 9, -3);
+
+        assertEquals("A2", shifter.shift("A5", true));
+        assertEquals("A1", shifter.shift("A1", true));
+        assertEquals("SUM(A2:A20)", shifter.shift("SUM(A5:A20)", true));
+        assertNull(shifter.shift("A3", true));
+        assertNull(shifter.shift("SUM(A1:A6)", true));
+    }
+
+    @Test
+    void testSheetReferences() {
+        XSSFRowRefShifter shifter = new XSSFRowRefShifter("Data", 4, 9, 2);
+        assertEquals("Data!A7+'Data'!A8+Other!A5+A5", shifter.shift("Data!A5+'Data'!A6+Other!A5+A5", false));
+        assertEquals("data!A7+Other!A5+A7", shifter.shift("data!A5+Other!A5+A5", true));
+        assertNull(shifter.shift("SUM(Data:Other!A5)", false));
+
+        shifter = new XSSFRowRefShifter("It's", 4, 9, 2);
+        assertEquals("'It''s'!A7", shifter.shift("'It''s'!A5", false));
+
+        assertTrue(XSSFRowRefShifter.mayReferenceSheet("'It''s'!A5", "It's"));
+        assertTrue(XSSFRowRefShifter.mayReferenceSheet("SUM(DATA!A1:A2)", "Data"));
+        assertTrue(XSSFRowRefShifter.mayReferenceSheet("SUM(Table1[Col])", "Data"));
+        assertFalse(XSSFRowRefShifter.mayReferenceSheet("SUM(A1:A2)", "Data"));
+    }
+
+    @Test
+    void testWholeColumns() {
+        assertEquals("SUM(A:B)", new XSSFRowRefShifter("Data", 4, 9, 2).shift("SUM(A:B)", true));
+        assertNull(new XSSFRowRefShifter("Data", 0, 9, 1).shift("SUM(A:B)", true));
+    }
+}
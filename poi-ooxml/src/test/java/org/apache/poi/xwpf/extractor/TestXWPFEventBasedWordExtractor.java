@@ -0,0 +1,220 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xwpf.extractor;
+
+import static org.apache.poi.POITestCase.assertEndsWith;
+import static org.apache.poi.POITestCase.assertStartsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
+import org.apache.poi.POIDataSamples;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageNamespaces;
+import org.apache.poi.xwpf.eventusermodel.XWPFBodyReader;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRelation;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.junit.jupiter.api.Test;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTSimpleField;
+
+/**
+ * Tests for {@link XWPFEventBasedWordExtractor} and {@link XWPFBodyReader}
+ */
+class TestXWPFEventBasedWordExtractor {
+    private static final POIDataSamples docTests = POIDataSamples.getDocumentInstance();
+
+    @Test
+    void testGetSimpleText() throws Exception {
+        try (InputStream is = docTests.openResourceAsStream("sample.docx");
+             XWPFEventBasedWordExtractor extractor = new XWPFEventBasedWordExtractor(OPCPackage.open(is))) {
+            String text = extractor.getText();
+            assertStartsWith(text,
+                "Lorem ipsum dolor sit amet, consectetuer adipiscing elit. Nunc at risus vel erat tempus posuere. Aenean non ante. Suspendisse vehicula dolor sit amet odio."
+            );
+            assertEndsWith(text,
+                "Phasellus ultricies mi nec leo. Sed tempus. In sit amet lorem at velit faucibus vestibulum.\n"
+            );
+
+            StringWriter sw = new StringWriter();
+            extractor.writeText(sw);
+            assertEquals(text, sw.toString());
+        }
+    }
+
+    @Test
+    void testGetWithHyperlinks() throws Exception {
+        try (InputStream is = docTests.openResourceAsStream("TestDocument.docx");
+             XWPFEventBasedWordExtractor extractor = new XWPFEventBasedWordExtractor(OPCPackage.open(is))) {
+            assertEquals(
+                "This is a test document.\nThis bit is in bold and italic\n" +
+                    "Back to normal\n" +
+                    "This contains BOLD, ITALIC and BOTH, as well as RED and YELLOW text.\n" +
+                    "We have a hyperlink here, and another.\n",
+                extractor.getText()
+            );
+        }
+    }
+
+    @Test
+    void testBodyEvents() throws Exception {
+        UnsynchronizedByteArrayOutputStream bos = UnsynchronizedByteArrayOutputStream.builder().get();
+        try (XWPFDocument doc = new XWPFDocument()) {
+            XWPFParagraph p = doc.createParagraph();
+            p.setStyle("Heading1");
+            p.createRun().setText("Title");
+
+            XWPFTable table = doc.createTable(2, 2);
+            table.getRow(0).getCell(0).setText("a1");
+            table.getRow(0).getCell(1).setText("b1");
+            table.getRow(1).getCell(0).setText("a2");
+            table.getRow(1).getCell(1).setText("b2");
+
+            p = doc.createParagraph();
+            p.createRun().setText("Page ");
+            CTSimpleField field = p.getCTP().addNewFldSimple();
+            field.setInstr(" PAGE ");
+            field.addNewR().addNewT().setStringValue("1");
+
+            doc.write(bos);
+        }
+
+        List<String> events = new ArrayList<>();
+        try (OPCPackage pkg = OPCPackage.open(bos.toInputStream())) {
+            new XWPFBodyReader(recorder(events)).process(pkg);
+        }
+
+        assertEquals(Arrays.asList(
+            "p:Heading1", "Title",
+            "tbl", "tc", "p:null", "a1", "tc", "p:null", "b1", "/tr", "tc", "p:null", "a2", "tc", "p:null", "b2", "/tr",
+            "p:null", "Page ", "field:PAGE", "1"
+        ), events);
+    }
+
+    @Test
+    void testComplexFieldEvents() throws Exception {
+        String body =
+            "<w:p>" +
+            "<w:r><w:t xml:space=\"preserve\">Page </w:t></w:r>" +
+            "<w:r><w:fldChar w:fldCharType=\"begin\"/></w:r>" +
+            "<w:r><w:instrText xml:space=\"preserve\"> PAGE </w:instrText></w:r>" +
+            "<w:r><w:fldChar w:fldCharType=\"separate\"/></w:r>" +
+            "<w:r><w:t>3</w:t></w:r>" +
+            "<w:r><w:fldChar w:fldCharType=\"end\"/></w:r>" +
+            "</w:p>" +
+            // a NUMPAGES field nested in the instruction of an IF field
+            "<w:p>" +
+            "<w:r><w:fldChar w:fldCharType=\"begin\"/></w:r>" +
+            "<w:r><w:instrText xml:space=\"preserve\"> IF </w:instrText></w:r>" +
+            "<w:r><w:fldChar w:fldCharType=\"begin\"/></w:r>" +
+            "<w:r><w:instrText xml:space=\"preserve\"> NUMPAGES </w:instrText></w:r>" +
+            "<w:r><w:fldChar w:fldCharType=\"separate\"/></w:r>" +
+            "<w:r><w:t>5</w:t></w:r>" +
+            "<w:r><w:fldChar w:fldCharType=\"end\"/></w:r>" +
+            "<w:r><w:instrText xml:space=\"preserve\"> &gt; 1 \"pages\" \"page\" </w:instrText></w:r>" +
+            "<w:r><w:fldChar w:fldCharType=\"separate\"/></w:r>" +
+            "<w:r><w:t>pages</w:t></w:r>" +
+            "<w:r><w:fldChar w:fldCharType=\"end\"/></w:r>" +
+            "</w:p>";
+
+        List<String> expected = Arrays.asList(
+            "p:null", "Page ", "field:PAGE", "3",
+            "p:null", "field:IF 5 > 1 \"pages\" \"page\"", "pages"
+        );
+        assertEquals(expected, recordEvents(document(XWPFRelation.NS_WORDPROCESSINGML, body)));
+        // strict OOXML documents use a different namespace
+        assertEquals(expected, recordEvents(document(XWPFRelation.NS_WORDPROCESSINGML_STRICT, body)));
+    }
+
+    @Test
+    void testAlternateContentEvents() throws Exception {
+        String textBox = "<w:txbxContent><w:p><w:r><w:t>Box</w:t></w:r></w:p></w:txbxContent>";
+        String body =
+            "<w:p>" +
+            "<w:r><w:t>Before</w:t></w:r>" +
+            "<w:r><mc:AlternateContent>" +
+            "<mc:Choice Requires=\"wps\"><w:drawing><wps:txbx>" + textBox + "</wps:txbx></w:drawing></mc:Choice>" +
+            "<mc:Fallback><w:pict><v:shape><v:textbox>" + textBox + "</v:textbox></v:shape></w:pict></mc:Fallback>" +
+            "</mc:AlternateContent></w:r>" +
+            "<w:r><w:t>After</w:t></w:r>" +
+            "</w:p>";
+
+        // the text box of the fallback isn't reported
+        assertEquals(Arrays.asList("p:null", "Before", "p:null", "Box", "After"),
+            recordEvents(document(XWPFRelation.NS_WORDPROCESSINGML, body)));
+    }
+
+    private static InputStream document(String namespace, String body) {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+            "<w:document xmlns:w=\"" + namespace + "\"" +
+            " xmlns:mc=\"" + PackageNamespaces.MARKUP_COMPATIBILITY + "\"" +
+            " xmlns:wps=\"http://schemas.microsoft.com/office/word/2010/wordprocessingShape\"" +
+            " xmlns:v=\"urn:schemas-microsoft-com:vml\">" +
+            "<w:body>" + body + "</w:body></w:document>";
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> recordEvents(InputStream is) throws IOException {
+        List<String> events = new ArrayList<>();
+        new XWPFBodyReader(recorder(events)).process(is);
+        return events;
+    }
+
+    private static XWPFBodyReader.BodyContentsHandler recorder(List<String> events) {
+        return new XWPFBodyReader.BodyContentsHandler() {
+            @Override
+            public void startParagraph(String styleId) {
+                events.add("p:" + styleId);
+            }
+
+            @Override
+            public void text(String text) {
+                events.add(text);
+            }
+
+            @Override
+            public void field(String instruction) {
+                events.add("field:" + instruction);
+            }
+
+            @Override
+            public void startTable() {
+                events.add("tbl");
+            }
+
+            @Override
+            public void endRow() {
+                events.add("/tr");
+            }
+
+            @Override
+            public void startCell() {
+                events.add("tc");
+            }
+        };
+    }
+}
@@ -27,6 +27,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -37,6 +38,7 @@ import org.apache.poi.util.StringUtil;
 import org.apache.poi.xssf.usermodel.XSSFRelation;
 import org.apache.poi.xwpf.XWPFTestDataSamples;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
 import org.apache.poi.xwpf.usermodel.XWPFSDT;
 import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlObject;
@@ -77,6 +79,22 @@ class TestXWPFWordExtractor {
         }
     }
 
+    @Test
+    void testWriteTextUsesOverriddenParagraphText() throws IOException {
+        try (XWPFDocument doc = XWPFTestDataSamples.openSampleDocument("sample.docx");
+            XWPFWordExtractor extractor = new XWPFWordExtractor(doc) {
+                @Override
+                public void appendParagraphText(StringBuilder text, XWPFParagraph paragraph) {
+                    text.append("[p]");
+                }
+            }) {
+            StringWriter sw = new StringWriter();
+            extractor.writeText(sw);
+            assertEquals("[p]\n[p]\n[p]\n", sw.toString());
+            assertEquals(sw.toString(), extractor.getText());
+        }
+    }
+
     /**
      * Tests getting the text out of a complex file
      */
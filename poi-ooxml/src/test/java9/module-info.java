@@ -39,6 +39,7 @@ module org.apache.poi.ooxml {
     exports org.apache.poi.xwpf.extractor;
     exports org.apache.poi.xwpf.usermodel;
     exports org.apache.poi.xwpf.model;
+    exports org.apache.poi.xwpf.eventusermodel;
     exports org.apache.poi.xdgf.extractor;
     exports org.apache.poi.xdgf.exceptions;
     exports org.apache.poi.xdgf.usermodel;
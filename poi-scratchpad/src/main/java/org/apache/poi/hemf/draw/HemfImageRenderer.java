@@ -21,7 +21,6 @@ import static org.apache.poi.hwmf.draw.HwmfImageRenderer.getOuterBounds;
 
 import java.awt.Graphics2D;
 import java.awt.Insets;
-import java.awt.RenderingHints;
 import java.awt.geom.Dimension2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
@@ -34,18 +33,31 @@ import org.apache.poi.common.usermodel.GenericRecord;
 import org.apache.poi.hemf.usermodel.HemfPicture;
 import org.apache.poi.hwmf.draw.HwmfGraphicsState;
 import org.apache.poi.hwmf.draw.HwmfImageRenderer;
+import org.apache.poi.hwmf.draw.HwmfTiledRasterizer;
 import org.apache.poi.sl.draw.BitmapImageRenderer;
+import org.apache.poi.sl.draw.DrawImageCache;
 import org.apache.poi.sl.draw.Drawable;
 import org.apache.poi.sl.draw.EmbeddedExtractor;
 import org.apache.poi.sl.draw.ImageRenderer;
 import org.apache.poi.sl.usermodel.PictureData;
+import org.apache.poi.util.IOUtils;
 import org.apache.poi.util.Units;
 
 @SuppressWarnings("unused")
 public class HemfImageRenderer implements ImageRenderer, EmbeddedExtractor {
+    /** the size of metafiles, which are rendered in streaming mode instead of keeping all parsed records */
+    private static final int STREAMING_SIZE = 10_000_000;
+    /** draws the whole image in the calling thread */
+    private static final HwmfTiledRasterizer SEQUENTIAL_RASTERIZER = new HwmfTiledRasterizer(HwmfTiledRasterizer.DEFAULT_TILE_SIZE, 1);
+
     HemfPicture image;
     double alpha;
     boolean charsetInitialized = false;
+    DrawImageCache imageCache;
+    /** the digest of the loaded image data, if the rasterized images are cached */
+    byte[] imageDigest;
+    /** the rasterizer of large images or null to draw them in the calling thread */
+    HwmfTiledRasterizer tiledRasterizer;
 
     @Override
     public boolean canRender(String contentType) {
@@ -57,6 +69,12 @@ public class HemfImageRenderer implements ImageRenderer, EmbeddedExtractor {
         if (!PictureData.PictureType.EMF.contentType.equals(contentType)) {
             throw new IOException("Invalid picture type");
         }
+        if (imageCache != null) {
+            // the cache needs the digest of the data
+            loadImage(IOUtils.toByteArray(data), contentType);
+            return;
+        }
+        imageDigest = null;
         image = new HemfPicture(data);
     }
 
@@ -65,7 +83,15 @@ public class HemfImageRenderer implements ImageRenderer, EmbeddedExtractor {
         if (!PictureData.PictureType.EMF.contentType.equals(contentType)) {
             throw new IOException("Invalid picture type");
         }
-        image = new HemfPicture(UnsynchronizedByteArrayInputStream.builder().setByteArray(data).get());
+        imageDigest = (imageCache == null) ? null : DrawImageCache.digest(data);
+        image = (data.length > STREAMING_SIZE)
+            ? new HemfPicture(() -> UnsynchronizedByteArrayInputStream.builder().setByteArray(data).get())
+            : new HemfPicture(UnsynchronizedByteArrayInputStream.builder().setByteArray(data).get());
+    }
+
+    @Override
+    public void setImageCache(DrawImageCache imageCache) {
+        this.imageCache = imageCache;
     }
 
     @Override
@@ -73,6 +99,16 @@ public class HemfImageRenderer implements ImageRenderer, EmbeddedExtractor {
         this.alpha = alpha;
     }
 
+    /**
+     * Sets the rasterizer used by {@link #getImage(Dimension2D)}, to draw large images in tiles concurrently.
+     *
+     * @param tiledRasterizer the rasterizer or {@code null} (default) to draw the image in the calling thread
+     * @since POI 5.3.1
+     */
+    public void setTiledRasterizer(HwmfTiledRasterizer tiledRasterizer) {
+        this.tiledRasterizer = tiledRasterizer;
+    }
+
     @Override
     public BufferedImage getImage() {
         return getImage(getDimension());
@@ -84,18 +120,24 @@ public class HemfImageRenderer implements ImageRenderer, EmbeddedExtractor {
             return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
         }
 
-        BufferedImage bufImg = new BufferedImage((int)dim.getWidth(), (int)dim.getHeight(), BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g = bufImg.createGraphics();
-        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-        image.draw(g, new Rectangle2D.Double(0,0,dim.getWidth(),dim.getHeight()));
-        g.dispose();
+        final int width = (int)dim.getWidth(), height = (int)dim.getHeight();
+        BufferedImage bufImg = (imageCache == null || imageDigest == null)
+            ? rasterize(width, height)
+            : imageCache.getImage(imageDigest, width, height, () -> rasterize(width, height));
 
         return BitmapImageRenderer.setAlpha(bufImg, alpha);
     }
 
+    private BufferedImage rasterize(int width, int height) {
+        final Rectangle2D bounds = new Rectangle2D.Double(0,0,width,height);
+        if (tiledRasterizer == null) {
+            return SEQUENTIAL_RASTERIZER.rasterize(width, height, g -> image.draw(g, bounds));
+        }
+        // the tiles are drawn concurrently, so the records need to be parsed beforehand
+        image.getHeader();
+        return tiledRasterizer.rasterize(width, height, g -> image.draw(g, bounds));
+    }
+
     @Override
     public boolean drawImage(Graphics2D graphics, Rectangle2D anchor) {
         return drawImage(graphics, anchor, null);
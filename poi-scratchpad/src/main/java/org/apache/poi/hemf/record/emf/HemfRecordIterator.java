@@ -20,6 +20,7 @@ package org.apache.poi.hemf.record.emf;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.function.Predicate;
 
 import org.apache.poi.util.LittleEndianConsts;
 import org.apache.poi.util.LittleEndianInputStream;
@@ -30,10 +31,23 @@ public class HemfRecordIterator implements Iterator<HemfRecord> {
     static final int HEADER_SIZE = 2*LittleEndianConsts.INT_SIZE;
 
     private final LittleEndianInputStream stream;
+    private final Predicate<HemfRecordType> filter;
     private HemfRecord currentRecord;
 
     public HemfRecordIterator(LittleEndianInputStream leis) {
+        this(leis, null);
+    }
+
+    /**
+     * @param leis the stream of the records
+     * @param filter the record types to be parsed and returned or null for all records.
+     *          The other records are skipped, without parsing them.
+     *
+     * @since POI 5.3.1
+     */
+    public HemfRecordIterator(LittleEndianInputStream leis, Predicate<HemfRecordType> filter) {
         stream = leis;
+        this.filter = filter;
         //queue the first non-header record
         currentRecord = _next();
     }
@@ -58,21 +72,33 @@ public class HemfRecordIterator implements Iterator<HemfRecord> {
             return null;
         }
 
-        final int readIndex = stream.getReadIndex();
+        int readIndex;
+        long recordId, recordSize;
+        HemfRecordType type;
+        for (;;) {
+            readIndex = stream.getReadIndex();
+            try {
+                recordId = stream.readUInt();
+                recordSize = stream.readUInt();
+            } catch (RuntimeException e) {
+                // EOF
+                return null;
+            }
 
-        final long recordId, recordSize;
-        try {
-            recordId = stream.readUInt();
-            recordSize = stream.readUInt();
-        } catch (RuntimeException e) {
-            // EOF
-            return null;
+            type = HemfRecordType.getById(recordId);
+            if (type == null) {
+                throw new RecordFormatException("Undefined record of type: "+recordId+" at "+Integer.toHexString(readIndex));
+            }
+            if (filter == null || type == HemfRecordType.eof || filter.test(type)) {
+                break;
+            }
+            try {
+                stream.skipFully((int)(recordSize - HEADER_SIZE));
+            } catch (IOException|RuntimeException e) {
+                throw new RecordFormatException(e);
+            }
         }
 
-        HemfRecordType type = HemfRecordType.getById(recordId);
-        if (type == null) {
-            throw new RecordFormatException("Undefined record of type: "+recordId+" at "+Integer.toHexString(readIndex));
-        }
         final HemfRecord record = type.constructor.get();
 
         try {
@@ -20,9 +20,9 @@ package org.apache.poi.hemf.record.emfplus;
 import static org.apache.poi.util.GenericRecordUtil.getBitsAsString;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Supplier;
 
 import org.apache.poi.common.usermodel.GenericRecord;
@@ -140,7 +140,7 @@ public class HemfPlusObject {
         @SuppressWarnings("FieldCanBeLocal")
         private int objectId;
         private EmfPlusObjectData objectData;
-        private List<EmfPlusObjectData> continuedObjectData;
+        private CopyOnWriteArrayList<EmfPlusObjectData> continuedObjectData;
         private int totalObjectSize;
 
         @Override
@@ -217,11 +217,12 @@ public class HemfPlusObject {
             objectData.applyObject((HemfGraphics)ctx, continuedObjectData);
         }
 
-        void linkContinuedObject(EmfPlusObjectData continueObject) {
+        synchronized void linkContinuedObject(EmfPlusObjectData continueObject) {
+            // the record might be drawn repeatedly or concurrently, e.g. by a tiled rasterizer
             if (continuedObjectData == null) {
-                continuedObjectData = new ArrayList<>();
+                continuedObjectData = new CopyOnWriteArrayList<>();
             }
-            continuedObjectData.add(continueObject);
+            continuedObjectData.addIfAbsent(continueObject);
         }
 
         List<EmfPlusObjectData> getContinuedObject() {
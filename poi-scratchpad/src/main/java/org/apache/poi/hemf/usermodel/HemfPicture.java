@@ -29,19 +29,25 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Dimension2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Method;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.Spliterator;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
+import org.apache.commons.io.function.IOSupplier;
 import org.apache.poi.common.usermodel.GenericRecord;
 import org.apache.poi.hemf.draw.HemfGraphics;
 import org.apache.poi.hemf.record.emf.HemfComment;
@@ -49,6 +55,7 @@ import org.apache.poi.hemf.record.emf.HemfHeader;
 import org.apache.poi.hemf.record.emf.HemfRecord;
 import org.apache.poi.hemf.record.emf.HemfRecord.RenderBounds;
 import org.apache.poi.hemf.record.emf.HemfRecordIterator;
+import org.apache.poi.hemf.record.emf.HemfRecordType;
 import org.apache.poi.hwmf.usermodel.HwmfCharsetAware;
 import org.apache.poi.hwmf.usermodel.HwmfEmbedded;
 import org.apache.poi.sl.draw.Drawable;
@@ -60,13 +67,24 @@ import org.apache.poi.util.RecordFormatException;
 import org.apache.poi.util.Units;
 
 /**
- * Read-only EMF extractor.  Lots remain
+ * Read-only EMF extractor.  Lots remain<p>
+ *
+ * A picture created from a stream keeps all parsed records. A picture created from a
+ * {@link IOSupplier source} of streams works in streaming mode, i.e. the bounds calculation and the
+ * drawing parse the records of a new stream and only keep the drawing state, so the memory usage
+ * doesn't grow with the size of the metafile. Only {@link #getRecords()} and the methods based on it,
+ * like {@link #iterator()}, parse and keep all records in streaming mode.
  */
 @Internal
 public class HemfPicture implements Iterable<HemfRecord>, GenericRecord {
+    /** the record types, which can change the bounds - the others are skipped by the streaming bounds calculation */
+    private static final Set<HemfRecordType> BOUNDS_RECORDS = getBoundsRecordTypes();
+
     private final LittleEndianInputStream stream;
+    private final IOSupplier<InputStream> source;
     private final List<HemfRecord> records = new ArrayList<>();
     private boolean isParsed = false;
+    private HemfHeader header;
     private Charset defaultCharset = LocaleUtil.CHARSET_1252;
 
     public HemfPicture(InputStream is) {
@@ -75,9 +93,25 @@ public class HemfPicture implements Iterable<HemfRecord>, GenericRecord {
 
     public HemfPicture(LittleEndianInputStream is) {
         stream = is;
+        source = null;
+    }
+
+    /**
+     * Creates a picture in streaming mode
+     *
+     * @param source the source of the metafile streams, which is called for each pass over the records
+     *
+     * @since POI 5.3.1
+     */
+    public HemfPicture(IOSupplier<InputStream> source) {
+        stream = null;
+        this.source = source;
     }
 
     public HemfHeader getHeader() {
+        if (source != null) {
+            return getStreamingHeader();
+        }
         List<HemfRecord> r = getRecords();
         if (r.isEmpty()) {
             throw new RecordFormatException("No records could be parsed - your .emf file is invalid");
@@ -91,19 +125,82 @@ public class HemfPicture implements Iterable<HemfRecord>, GenericRecord {
             // in case the (first) parsing throws an exception, we can provide the
             // records up to that point
             isParsed = true;
-            HemfHeader[] header = new HemfHeader[1];
-            new HemfRecordIterator(stream).forEachRemaining(r -> {
-                if (r instanceof HemfHeader) {
-                    header[0] = (HemfHeader) r;
+            if (source == null) {
+                parseRecords(stream, null, records::add);
+            } else {
+                streamRecords(null, records::add);
+            }
+        }
+        return records;
+    }
+
+    private void parseRecords(LittleEndianInputStream leis, Predicate<HemfRecordType> filter, Consumer<HemfRecord> action) {
+        HemfHeader[] header = { (source == null) ? null : getStreamingHeader() };
+        new HemfRecordIterator(leis, filter).forEachRemaining(r -> {
+            if (r instanceof HemfHeader) {
+                header[0] = (HemfHeader) r;
+            }
+            r.setHeader(header[0]);
+            if (r instanceof HwmfCharsetAware) {
+                ((HwmfCharsetAware)r).setCharsetProvider(this::getDefaultCharset);
+            }
+            action.accept(r);
+        });
+    }
+
+    /**
+     * Calls the action for each record. In streaming mode, the records are parsed from a new stream
+     * and are not kept, unless they were already parsed by {@link #getRecords()}.
+     *
+     * @param filter the record types to be parsed in streaming mode or null for all records
+     * @param action the action
+     */
+    private void forEachRecord(Predicate<HemfRecordType> filter, Consumer<HemfRecord> action) {
+        if (source == null || isParsed) {
+            getRecords().forEach(action);
+        } else {
+            streamRecords(filter, action);
+        }
+    }
+
+    private void streamRecords(Predicate<HemfRecordType> filter, Consumer<HemfRecord> action) {
+        try (InputStream is = source.get()) {
+            parseRecords(new LittleEndianInputStream(is), filter, action);
+        } catch (IOException e) {
+            throw new RecordFormatException(e);
+        }
+    }
+
+    private HemfHeader getStreamingHeader() {
+        if (header == null) {
+            try (InputStream is = source.get()) {
+                HemfRecordIterator iter = new HemfRecordIterator(new LittleEndianInputStream(is));
+                HemfRecord r = iter.hasNext() ? iter.next() : null;
+                if (!(r instanceof HemfHeader)) {
+                    throw new RecordFormatException("No records could be parsed - your .emf file is invalid");
                 }
-                r.setHeader(header[0]);
-                if (r instanceof HwmfCharsetAware) {
-                    ((HwmfCharsetAware)r).setCharsetProvider(this::getDefaultCharset);
+                header = (HemfHeader)r;
+                header.setHeader(header);
+            } catch (IOException e) {
+                throw new RecordFormatException(e);
+            }
+        }
+        return header;
+    }
+
+    private static Set<HemfRecordType> getBoundsRecordTypes() {
+        Set<HemfRecordType> types = EnumSet.noneOf(HemfRecordType.class);
+        for (HemfRecordType type : HemfRecordType.values()) {
+            try {
+                Method m = type.constructor.get().getClass().getMethod("calcBounds", RenderBounds.class);
+                if (m.getDeclaringClass() != HemfRecord.class) {
+                    types.add(type);
                 }
-                records.add(r);
-            });
+            } catch (NoSuchMethodException | RuntimeException e) {
+                types.add(type);
+            }
         }
-        return records;
+        return types;
     }
 
     @Override
@@ -118,7 +215,7 @@ public class HemfPicture implements Iterable<HemfRecord>, GenericRecord {
 
     @Override
     public void forEach(Consumer<? super HemfRecord> action) {
-        getRecords().forEach(action);
+        forEachRecord(null, action::accept);
     }
 
     /**
@@ -169,12 +266,12 @@ public class HemfPicture implements Iterable<HemfRecord>, GenericRecord {
             }
         };
 
-        for (HemfRecord r : getRecords()) {
+        forEachRecord(BOUNDS_RECORDS::contains, r -> {
             if (
                 (holder.getState() == EMF_ONLY && r instanceof HemfComment.EmfComment) ||
                 (holder.getState() == EMFPLUS_ONLY && !(r instanceof HemfComment.EmfComment))
             ) {
-                continue;
+                return;
             }
 
             try {
@@ -185,7 +282,7 @@ public class HemfPicture implements Iterable<HemfRecord>, GenericRecord {
 //            if (!window.isEmpty() && !viewport.isEmpty()) {
 //                break;
 //            }
-        }
+        });
     }
 
     /**
@@ -258,14 +355,12 @@ public class HemfPicture implements Iterable<HemfRecord>, GenericRecord {
 
             HemfGraphics g = new HemfGraphics(ctx, b);
 
-            int idx = 0;
-            for (HemfRecord r : getRecords()) {
+            forEachRecord(null, r -> {
                 try {
                     g.draw(r);
                 } catch (RuntimeException ignored) {
                 }
-                idx++;
-            }
+            });
         } finally {
             ctx.setTransform(at);
             ctx.setClip(clip);
@@ -88,6 +88,23 @@ public class OutlookTextExtractor implements POIOLE2TextExtractor {
      */
     public String getText() {
         StringBuilder s = new StringBuilder();
+        try {
+            writeText(s);
+        } catch (IOException e) {
+            // a StringBuilder doesn't throw IOExceptions
+            throw new IllegalStateException(e);
+        }
+        return s.toString();
+    }
+
+    /**
+     * Writes the headers and then the text body, without copying the body
+     *
+     * @since POI 5.3.1
+     */
+    @Override
+    public void writeText(Appendable out) throws IOException {
+        StringBuilder s = new StringBuilder();
 
         // See if we can get a suitable encoding for any
         //  non unicode text in the file
@@ -163,12 +180,11 @@ public class OutlookTextExtractor implements POIOLE2TextExtractor {
             s.append("Attachment: ").append(attName).append("\n");
         }
 
+        out.append(s);
         try {
-            s.append("\n").append(msg.getTextBody()).append("\n");
+            out.append("\n").append(msg.getTextBody()).append("\n");
         } catch (ChunkNotFoundException ignored) {
         }
-
-        return s.toString();
     }
 
     /**
@@ -20,7 +20,6 @@ package org.apache.poi.hwmf.draw;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Insets;
-import java.awt.RenderingHints;
 import java.awt.geom.Dimension2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
@@ -34,11 +33,13 @@ import org.apache.poi.common.usermodel.GenericRecord;
 import org.apache.poi.hwmf.usermodel.HwmfEmbedded;
 import org.apache.poi.hwmf.usermodel.HwmfPicture;
 import org.apache.poi.sl.draw.BitmapImageRenderer;
+import org.apache.poi.sl.draw.DrawImageCache;
 import org.apache.poi.sl.draw.DrawPictureShape;
 import org.apache.poi.sl.draw.Drawable;
 import org.apache.poi.sl.draw.EmbeddedExtractor;
 import org.apache.poi.sl.draw.ImageRenderer;
 import org.apache.poi.sl.usermodel.PictureData.PictureType;
+import org.apache.poi.util.IOUtils;
 import org.apache.poi.util.Internal;
 import org.apache.poi.util.Units;
 
@@ -47,9 +48,17 @@ import org.apache.poi.util.Units;
  * via reflection
  */
 public class HwmfImageRenderer implements ImageRenderer, EmbeddedExtractor {
+    /** draws the whole image in the calling thread */
+    private static final HwmfTiledRasterizer SEQUENTIAL_RASTERIZER = new HwmfTiledRasterizer(HwmfTiledRasterizer.DEFAULT_TILE_SIZE, 1);
+
     HwmfPicture image;
     double alpha;
     boolean charsetInitialized = false;
+    DrawImageCache imageCache;
+    /** the digest of the loaded image data, if the rasterized images are cached */
+    byte[] imageDigest;
+    /** the rasterizer of large images or null to draw them in the calling thread */
+    HwmfTiledRasterizer tiledRasterizer;
 
     @Override
     public boolean canRender(String contentType) {
@@ -61,6 +70,12 @@ public class HwmfImageRenderer implements ImageRenderer, EmbeddedExtractor {
         if (!PictureType.WMF.contentType.equals(contentType)) {
             throw new IOException("Invalid picture type");
         }
+        if (imageCache != null) {
+            // the cache needs the digest of the data
+            loadImage(IOUtils.toByteArray(data), contentType);
+            return;
+        }
+        imageDigest = null;
         image = new HwmfPicture(data);
     }
 
@@ -69,6 +84,7 @@ public class HwmfImageRenderer implements ImageRenderer, EmbeddedExtractor {
         if (!PictureType.WMF.contentType.equals(contentType)) {
             throw new IOException("Invalid picture type");
         }
+        imageDigest = (imageCache == null) ? null : DrawImageCache.digest(data);
         image = new HwmfPicture(new ByteArrayInputStream(data));
     }
 
@@ -77,11 +93,26 @@ public class HwmfImageRenderer implements ImageRenderer, EmbeddedExtractor {
         return Units.pointsToPixel(image == null ? new Dimension() : image.getSize());
     }
 
+    @Override
+    public void setImageCache(DrawImageCache imageCache) {
+        this.imageCache = imageCache;
+    }
+
     @Override
     public void setAlpha(double alpha) {
         this.alpha = alpha;
     }
 
+    /**
+     * Sets the rasterizer used by {@link #getImage(Dimension2D)}, to draw large images in tiles concurrently.
+     *
+     * @param tiledRasterizer the rasterizer or {@code null} (default) to draw the image in the calling thread
+     * @since POI 5.3.1
+     */
+    public void setTiledRasterizer(HwmfTiledRasterizer tiledRasterizer) {
+        this.tiledRasterizer = tiledRasterizer;
+    }
+
     @Override
     public BufferedImage getImage() {
         return getImage(getDimension());
@@ -93,18 +124,20 @@ public class HwmfImageRenderer implements ImageRenderer, EmbeddedExtractor {
             return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
         }
 
-        BufferedImage bufImg = new BufferedImage((int)dim.getWidth(), (int)dim.getHeight(), BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g = bufImg.createGraphics();
-        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-        image.draw(g, new Rectangle2D.Double(0,0,dim.getWidth(),dim.getHeight()));
-        g.dispose();
+        final int width = (int)dim.getWidth(), height = (int)dim.getHeight();
+        BufferedImage bufImg = (imageCache == null || imageDigest == null)
+            ? rasterize(width, height)
+            : imageCache.getImage(imageDigest, width, height, () -> rasterize(width, height));
 
         return BitmapImageRenderer.setAlpha(bufImg, alpha);
     }
 
+    private BufferedImage rasterize(int width, int height) {
+        final Rectangle2D bounds = new Rectangle2D.Double(0,0,width,height);
+        return (tiledRasterizer == null ? SEQUENTIAL_RASTERIZER : tiledRasterizer)
+            .rasterize(width, height, g -> image.draw(g, bounds));
+    }
+
     @Override
     public boolean drawImage(Graphics2D graphics, Rectangle2D anchor) {
         return drawImage(graphics, anchor, null);
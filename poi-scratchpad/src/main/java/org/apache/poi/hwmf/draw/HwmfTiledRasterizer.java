@@ -0,0 +1,158 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hwmf.draw;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Rasterizes a metafile in tiles concurrently.<p>
+ *
+ * The image is divided into tiles. Each tile is drawn by replaying the whole picture into its own
+ * {@link Graphics2D}, which is translated and clipped to the tile, and then copied into the image.
+ * As the device transform of a tile differs from the one of the image only by an integer translation,
+ * the tiles fit seamlessly. The memory usage is bounded by the image and one tile per task.<p>
+ *
+ * The painter is called concurrently, so the picture has to be parsed before and it must not be
+ * modified by drawing it.<p>
+ *
+ * The image renderers draw in the calling thread by default. Tiling is enabled by passing a rasterizer
+ * to {@link HwmfImageRenderer#setTiledRasterizer(HwmfTiledRasterizer)}. A rasterizer is immutable and
+ * can be shared between threads.
+ *
+ * @since POI 5.3.1
+ */
+public final class HwmfTiledRasterizer {
+    /** the default edge length of the tiles */
+    public static final int DEFAULT_TILE_SIZE = 2048;
+
+    private final int tileSize;
+    private final int parallelism;
+    private final Executor executor;
+
+    /**
+     * Creates a rasterizer with the default tile size and a task per available processor,
+     * which runs on the common fork/join pool
+     */
+    public HwmfTiledRasterizer() {
+        this(DEFAULT_TILE_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a rasterizer, which runs on the common fork/join pool
+     *
+     * @param tileSize the edge length of the tiles
+     * @param parallelism the number of concurrently drawn tiles - 1 draws the image sequentially
+     */
+    public HwmfTiledRasterizer(int tileSize, int parallelism) {
+        this(tileSize, parallelism, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param tileSize the edge length of the tiles
+     * @param parallelism the number of concurrently drawn tiles - 1 draws the image sequentially
+     * @param executor the executor of the tile tasks, the calling thread draws tiles too
+     */
+    public HwmfTiledRasterizer(int tileSize, int parallelism, Executor executor) {
+        if (tileSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("tileSize and parallelism need to be positive");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null");
+        }
+        this.tileSize = tileSize;
+        this.parallelism = parallelism;
+        this.executor = executor;
+    }
+
+    /**
+     * Rasterizes a picture
+     *
+     * @param width the image width
+     * @param height the image height
+     * @param painter draws the picture onto the graphics context in the bounds {@code (0,0,width,height)}
+     * @return the ARGB image
+     */
+    public BufferedImage rasterize(int width, int height, Consumer<Graphics2D> painter) {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final int cols = (width + tileSize - 1) / tileSize;
+        final int rows = (height + tileSize - 1) / tileSize;
+        final int tiles = cols * rows;
+
+        if (parallelism == 1 || tiles <= 1) {
+            Graphics2D g = image.createGraphics();
+            initGraphics(g);
+            painter.accept(g);
+            g.dispose();
+            return image;
+        }
+
+        final AtomicInteger nextTile = new AtomicInteger();
+        final Runnable task = () -> {
+            for (int tile; (tile = nextTile.getAndIncrement()) < tiles; ) {
+                final int x = (tile % cols) * tileSize;
+                final int y = (tile / cols) * tileSize;
+                drawTile(image, new Rectangle(x, y, Math.min(tileSize, width - x), Math.min(tileSize, height - y)), painter);
+            }
+        };
+
+        final int tasks = Math.min(parallelism, tiles);
+        @SuppressWarnings("unchecked")
+        final CompletableFuture<Void>[] futures = new CompletableFuture[tasks - 1];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = CompletableFuture.runAsync(task, executor);
+        }
+        // draw tiles in the calling thread too
+        task.run();
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            throw (e.getCause() instanceof RuntimeException) ? (RuntimeException)e.getCause() : e;
+        }
+        return image;
+    }
+
+    private static void drawTile(BufferedImage image, Rectangle bounds, Consumer<Graphics2D> painter) {
+        final BufferedImage tile = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g = tile.createGraphics();
+        initGraphics(g);
+        g.translate(-bounds.x, -bounds.y);
+        g.clip(bounds);
+        painter.accept(g);
+        g.dispose();
+
+        synchronized (image) {
+            image.getRaster().setDataElements(bounds.x, bounds.y, tile.getRaster());
+        }
+    }
+
+    private static void initGraphics(Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+    }
+}
@@ -19,12 +19,17 @@
 package org.apache.poi.hemf.usermodel;
 
 import static org.apache.poi.POITestCase.assertContains;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.awt.Dimension;
+import java.awt.Graphics2D;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -32,9 +37,12 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
 import org.apache.poi.POIDataSamples;
+import org.apache.poi.hemf.draw.HemfImageRenderer;
 import org.apache.poi.hemf.record.emf.HemfComment;
 import org.apache.poi.hemf.record.emf.HemfComment.EmfComment;
 import org.apache.poi.hemf.record.emf.HemfComment.EmfCommentDataFormat;
@@ -43,11 +51,13 @@ import org.apache.poi.hemf.record.emf.HemfHeader;
 import org.apache.poi.hemf.record.emf.HemfRecord;
 import org.apache.poi.hemf.record.emf.HemfRecordType;
 import org.apache.poi.hemf.record.emf.HemfText;
+import org.apache.poi.hwmf.draw.HwmfTiledRasterizer;
 import org.apache.poi.hwmf.record.HwmfRecord;
 import org.apache.poi.hwmf.record.HwmfText;
 import org.apache.poi.hwmf.usermodel.HwmfEmbedded;
 import org.apache.poi.hwmf.usermodel.HwmfEmbeddedType;
 import org.apache.poi.hwmf.usermodel.HwmfPicture;
+import org.apache.poi.sl.usermodel.PictureData.PictureType;
 import org.apache.poi.util.IOUtils;
 import org.apache.poi.util.RecordFormatException;
 import org.junit.jupiter.api.Test;
@@ -251,6 +261,95 @@ public class TestHemfPicture {
         }
     }
 
+    @Test
+    void streaming() throws Exception {
+        for (String file : new String[]{ "wrench.emf", "nested_wmf.emf" }) {
+            final byte[] data;
+            try (InputStream is = sl_samples.openResourceAsStream(file)) {
+                data = IOUtils.toByteArray(is);
+            }
+            HemfPicture parsed = new HemfPicture(new ByteArrayInputStream(data));
+            int[] streams = { 0 };
+            HemfPicture streamed = new HemfPicture(() -> {
+                streams[0]++;
+                return new ByteArrayInputStream(data);
+            });
+
+            assertEquals(parsed.getHeader().getBoundsRectangle(), streamed.getHeader().getBoundsRectangle(), file);
+            assertEquals(parsed.getBounds(), streamed.getBounds(), file);
+
+            Rectangle2D[] parsedBounds = { new Rectangle2D.Double(), new Rectangle2D.Double(), new Rectangle2D.Double() };
+            Rectangle2D[] streamedBounds = { new Rectangle2D.Double(), new Rectangle2D.Double(), new Rectangle2D.Double() };
+            parsed.getInnerBounds(parsedBounds[0], parsedBounds[1], parsedBounds[2]);
+            streamed.getInnerBounds(streamedBounds[0], streamedBounds[1], streamedBounds[2]);
+            assertArrayEquals(parsedBounds, streamedBounds, file);
+
+            BufferedImage parsedImg = draw(parsed);
+            BufferedImage streamedImg = draw(streamed);
+            for (int y = 0; y < parsedImg.getHeight(); y++) {
+                for (int x = 0; x < parsedImg.getWidth(); x++) {
+                    assertEquals(parsedImg.getRGB(x, y), streamedImg.getRGB(x, y), file);
+                }
+            }
+
+            int[] count = { 0 };
+            streamed.forEach(r -> count[0]++);
+            assertEquals(parsed.getRecords().size(), count[0], file);
+
+            // the records aren't kept in streaming mode, so each pass reads a new stream
+            int before = streams[0];
+            streamed.forEach(r -> {});
+            assertEquals(before + 1, streams[0], file);
+        }
+    }
+
+    @Test
+    void tiledRasterizer() throws Exception {
+        for (String file : new String[]{ "wrench.emf", "nested_wmf.emf" }) {
+            final byte[] data;
+            try (InputStream is = sl_samples.openResourceAsStream(file)) {
+                data = IOUtils.toByteArray(is);
+            }
+            HemfPicture parsed = new HemfPicture(new ByteArrayInputStream(data));
+            HemfPicture streamed = new HemfPicture(() -> new ByteArrayInputStream(data));
+            parsed.getHeader();
+            streamed.getHeader();
+
+            Rectangle2D bounds = new Rectangle2D.Double(0, 0, 300, 200);
+            BufferedImage expected = new HwmfTiledRasterizer(64, 1).rasterize(300, 200, g -> parsed.draw(g, bounds));
+            BufferedImage tiled = new HwmfTiledRasterizer(64, 4).rasterize(300, 200, g -> parsed.draw(g, bounds));
+            BufferedImage tiledStreamed = new HwmfTiledRasterizer(64, 4).rasterize(300, 200, g -> streamed.draw(g, bounds));
+
+            // the renderer draws in the calling thread, unless a rasterizer is set
+            HemfImageRenderer renderer = new HemfImageRenderer();
+            renderer.loadImage(data, PictureType.EMF.contentType);
+            BufferedImage rendered = renderer.getImage(new Dimension(300, 200));
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            final BufferedImage renderedTiled;
+            try {
+                renderer.setTiledRasterizer(new HwmfTiledRasterizer(64, 3, executor));
+                renderedTiled = renderer.getImage(new Dimension(300, 200));
+            } finally {
+                executor.shutdown();
+            }
+
+            for (int y = 0; y < expected.getHeight(); y++) {
+                for (int x = 0; x < expected.getWidth(); x++) {
+                    assertEquals(expected.getRGB(x, y), tiled.getRGB(x, y), file);
+                    assertEquals(expected.getRGB(x, y), tiledStreamed.getRGB(x, y), file);
+                    assertEquals(rendered.getRGB(x, y), renderedTiled.getRGB(x, y), file);
+                }
+            }
+        }
+    }
+
+    private static BufferedImage draw(HemfPicture pic) {
+        BufferedImage img = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        pic.draw(g, new Rectangle2D.Double(0, 0, 200, 200));
+        g.dispose();
+        return img;
+    }
 
     /* govdocs1 064213.doc-0.emf contains an example of extextouta */
 }
\ No newline at end of file
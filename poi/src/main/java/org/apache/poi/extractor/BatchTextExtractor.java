@@ -0,0 +1,292 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.extractor;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.util.IOUtils;
+
+/**
+ * Extracts the text of many files concurrently.<p>
+ *
+ * The files are processed by a bounded number of worker threads. The type of each file is detected by
+ * {@link FileMagic} and its extractor is created by the {@link ExtractorFactory}. By default, the event
+ * based extractors are preferred, as they need less memory than the usermodel based ones. The text of a file
+ * is passed to the sink as soon as it's extracted, i.e. the files are reported in the order of completion.<p>
+ *
+ * The size of a file and its extraction time can be limited. If the time limit is exceeded, the file is
+ * reported as failed and its extractor is closed and interrupted, which usually aborts the extraction.
+ * An extraction, which doesn't react on this, keeps its worker thread until it ends, so the number of
+ * threads and concurrently processed files never exceeds the parallelism. {@link #extract(Iterable, TextSink)}
+ * returns as soon as all files are reported.<p>
+ *
+ * The event extractor preference is set per worker thread, so a global setting by
+ * {@link ExtractorFactory#setAllThreadsPreferEventExtractors(Boolean)} takes precedence.
+ *
+ * @since POI 5.3.1
+ */
+public final class BatchTextExtractor {
+    /**
+     * Receives the results of a batch. The sink calls are serialized, but they come from the worker threads.
+     */
+    public interface TextSink {
+        /**
+         * @param file the file
+         * @param text the extracted text
+         */
+        void text(File file, String text);
+
+        /**
+         * @param file the file
+         * @param cause an {@link IOException}, if the file type isn't supported or the file exceeds the
+         *              maximum size, a {@link TimeoutException}, if the extraction exceeds the timeout,
+         *              or the exception or error of the extraction
+         */
+        void failed(File file, Throwable cause);
+    }
+
+    private static final ThreadFactory THREAD_FACTORY = r -> {
+        Thread t = new Thread(r, "BatchTextExtractor");
+        // an extraction, which doesn't react on the timeout, shouldn't prevent the exit of the VM
+        t.setDaemon(true);
+        return t;
+    };
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean preferEventExtractors = true;
+    private long maxFileSize = -1;
+    private Duration timeout;
+
+    /**
+     * @return the number of concurrently processed files
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param parallelism the number of concurrently processed files, defaults to the number of processors
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism needs to be positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return true, if event based extractors are preferred
+     */
+    public boolean isPreferEventExtractors() {
+        return preferEventExtractors;
+    }
+
+    /**
+     * @param preferEventExtractors true (default), if event based extractors are preferred
+     */
+    public void setPreferEventExtractors(boolean preferEventExtractors) {
+        this.preferEventExtractors = preferEventExtractors;
+    }
+
+    /**
+     * @return the maximum file size in bytes or -1 for unlimited
+     */
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    /**
+     * @param maxFileSize the maximum file size in bytes or -1 (default) for unlimited.
+     *                    Larger files are reported as failed without opening them.
+     */
+    public void setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * @return the maximum extraction time per file or null for unlimited
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @param timeout the maximum extraction time per file or null (default) for unlimited
+     */
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Extracts the text of the files. The files are iterated lazily, i.e. only as many files are taken
+     * as can be processed, so the iterable can be backed by a large directory walk.
+     *
+     * @param files the files
+     * @param sink the receiver of the results
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the workers
+     */
+    public void extract(Iterable<File> files, TextSink sink) throws InterruptedException {
+        // a slot is freed, when the worker of a file has finished, even if the file was reported as timed out
+        final Semaphore running = new Semaphore(parallelism);
+        final Semaphore reported = new Semaphore(0);
+        // the slots bound the number of queued tasks, the queue only bridges the time between
+        // freeing a slot and returning the worker thread to the pool
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism,
+            0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), THREAD_FACTORY);
+        final ScheduledThreadPoolExecutor watchdog;
+        if (timeout == null) {
+            watchdog = null;
+        } else {
+            watchdog = new ScheduledThreadPoolExecutor(1, THREAD_FACTORY);
+            watchdog.setRemoveOnCancelPolicy(true);
+        }
+
+        try {
+            int submitted = 0;
+            for (File file : files) {
+                running.acquire();
+                Task task = new Task(file, sink, running, reported);
+                if (watchdog != null) {
+                    task.timer = watchdog.schedule(task::timeout, timeout.toMillis(), TimeUnit.MILLISECONDS);
+                }
+                pool.execute(task);
+                submitted++;
+            }
+            // wait for the remaining files to be reported
+            reported.acquire(submitted);
+        } finally {
+            pool.shutdownNow();
+            if (watchdog != null) {
+                watchdog.shutdownNow();
+            }
+        }
+    }
+
+    private final class Task implements Runnable {
+        private final File file;
+        private final TextSink sink;
+        private final Semaphore running;
+        private final Semaphore reported;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private Future<?> timer;
+        private Thread thread;
+        private volatile POITextExtractor extractor;
+
+        Task(File file, TextSink sink, Semaphore running, Semaphore reported) {
+            this.file = file;
+            this.sink = sink;
+            this.running = running;
+            this.reported = reported;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                thread = Thread.currentThread();
+            }
+            ExtractorFactory.setThreadPrefersEventExtractors(preferEventExtractors);
+            String text = null;
+            Throwable failure = null;
+            try {
+                text = extractText();
+            } catch (Throwable e) {
+                // errors like OutOfMemoryError or StackOverflowError of a single file shouldn't stop the batch
+                failure = e;
+            } finally {
+                ExtractorFactory.removeThreadPrefersEventExtractorsSetting();
+                synchronized (this) {
+                    thread = null;
+                    // clear the interrupt of a timeout, before the thread is reused
+                    Thread.interrupted();
+                }
+            }
+
+            final String result = text;
+            final Throwable cause = failure;
+            try {
+                complete(() -> {
+                    if (cause == null) {
+                        sink.text(file, result);
+                    } else {
+                        sink.failed(file, cause);
+                    }
+                });
+            } finally {
+                // the slot is only freed when the worker is done, even if the file has timed out before
+                running.release();
+            }
+        }
+
+        private String extractText() throws IOException {
+            if (maxFileSize >= 0 && file.length() > maxFileSize) {
+                throw new IOException("The file size of " + file.length() + " exceeds the maximum of " + maxFileSize + " bytes");
+            }
+            try (POITextExtractor ext = ExtractorFactory.createExtractor(file)) {
+                extractor = ext;
+                return done.get() ? null : ext.getText();
+            } finally {
+                extractor = null;
+            }
+        }
+
+        private void timeout() {
+            if (complete(() -> sink.failed(file, new TimeoutException("The extraction exceeded the timeout of " + timeout)))) {
+                synchronized (this) {
+                    if (thread != null) {
+                        thread.interrupt();
+                    }
+                }
+                IOUtils.closeQuietly(extractor);
+            }
+        }
+
+        /**
+         * Reports the result, if the file wasn't reported yet
+         *
+         * @return true, if the result was reported
+         */
+        private boolean complete(Runnable report) {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            try {
+                synchronized (sink) {
+                    report.run();
+                }
+            } finally {
+                reported.release();
+            }
+            return true;
+        }
+    }
+}
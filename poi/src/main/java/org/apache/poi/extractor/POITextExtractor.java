@@ -40,6 +40,20 @@ public interface POITextExtractor extends Closeable {
      */
     String getText();
 
+    /**
+     * Writes all the text from the document to the output.
+     * The text is the same as of {@link #getText()}, but extractors,
+     *  which support it, write the text while visiting the document,
+     *  instead of building the whole text first.
+     *
+     * @param out the output, e.g. a {@link java.io.Writer}
+     * @throws IOException if writing to the output fails
+     * @since POI 5.3.1
+     */
+    default void writeText(Appendable out) throws IOException {
+        out.append(getText());
+    }
+
     /**
      * Returns another text extractor, which is able to
      *  output the textual content of the document
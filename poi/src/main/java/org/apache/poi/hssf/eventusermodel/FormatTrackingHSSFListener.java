@@ -33,6 +33,7 @@ import org.apache.poi.hssf.record.NumberRecord;
 import org.apache.poi.hssf.record.Record;
 import org.apache.poi.hssf.usermodel.HSSFDataFormat;
 import org.apache.poi.hssf.usermodel.HSSFDataFormatter;
+import org.apache.poi.ss.usermodel.DateFormatCache;
 import org.apache.poi.util.LocaleUtil;
 
 import static org.apache.logging.log4j.util.Unbox.box;
@@ -49,6 +50,7 @@ public class FormatTrackingHSSFListener implements HSSFListener {
     private final NumberFormat _defaultFormat;
     private final Map<Integer, FormatRecord> _customFormatRecords = new HashMap<>();
     private final List<ExtendedFormatRecord> _xfRecords = new ArrayList<>();
+    private final DateFormatCache _dateFormats = new DateFormatCache();
 
     /**
      * Creates a format tracking wrapper around the given listener, using
@@ -71,6 +73,7 @@ public class FormatTrackingHSSFListener implements HSSFListener {
             HSSFListener childListener, Locale locale) {
         _childListener = childListener;
         _formatter = new HSSFDataFormatter(locale);
+        _formatter.setDateFormatCache(_dateFormats);
         _defaultFormat = NumberFormat.getInstance(locale);
     }
 
@@ -135,7 +138,7 @@ public class FormatTrackingHSSFListener implements HSSFListener {
 
         // Get the built in format, if there is one
         int formatIndex = getFormatIndex(cell);
-        String formatString = getFormatString(cell);
+        String formatString = (formatIndex == -1) ? null : getFormatString(formatIndex);
 
         if (formatString == null) {
             return _defaultFormat.format(value);
@@ -183,6 +186,25 @@ public class FormatTrackingHSSFListener implements HSSFListener {
         return getFormatString(formatIndex);
     }
 
+    /**
+     * Checks if the format used by your cell is a date format. The result is remembered
+     * per format index, so this can be called for every numeric cell of the workbook.
+     * {@link #formatNumberDateCell(CellValueRecordInterface)} uses the same cache.
+     *
+     * @param cell the cell
+     *
+     * @return true if the cell has a date format, false if not or if no format was found
+     *
+     * @since POI 5.3.1
+     */
+    public boolean isADateFormat(CellValueRecordInterface cell) {
+        int formatIndex = getFormatIndex(cell);
+        if (formatIndex == -1) {
+            return false;
+        }
+        return _dateFormats.isADateFormat(formatIndex, getFormatString(formatIndex));
+    }
+
     /**
      * Returns the index of the format string, used by your cell, or -1 if none found
      *
@@ -272,6 +272,22 @@ public class ExcelExtractor implements POIOLE2TextExtractor, org.apache.poi.ss.e
     @Override
     public String getText() {
         StringBuilder text = new StringBuilder();
+        try {
+            writeText(text);
+        } catch (IOException e) {
+            // a StringBuilder doesn't throw IOExceptions
+            throw new IllegalStateException(e);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes the text of each row, as soon as it's extracted
+     *
+     * @since POI 5.3.1
+     */
+    @Override
+    public void writeText(Appendable text) throws IOException {
 
         // We don't care about the difference between
         //  null (missing) and blank cells
@@ -324,7 +340,7 @@ public class ExcelExtractor implements POIOLE2TextExtractor, org.apache.poi.ss.e
                                 text.append(_formatter.formatCellValue(cell));
                                 break;
                             case BOOLEAN:
-                                text.append(cell.getBooleanCellValue());
+                                text.append(String.valueOf(cell.getBooleanCellValue()));
                                 break;
                             case ERROR:
                                 text.append(ErrorEval.getText(cell.getErrorCellValue()));
@@ -337,7 +353,7 @@ public class ExcelExtractor implements POIOLE2TextExtractor, org.apache.poi.ss.e
                                         case STRING:
                                             HSSFRichTextString str = cell.getRichStringCellValue();
                                             if(str != null && str.length() > 0) {
-                                                text.append(str);
+                                                text.append(str.getString());
                                             }
                                             break;
                                         case NUMERIC:
@@ -348,7 +364,7 @@ public class ExcelExtractor implements POIOLE2TextExtractor, org.apache.poi.ss.e
                                             text.append(_formatter.formatRawCellContents(nVal, df, dfs));
                                             break;
                                         case BOOLEAN:
-                                            text.append(cell.getBooleanCellValue());
+                                            text.append(String.valueOf(cell.getBooleanCellValue()));
                                             break;
                                         case ERROR:
                                             text.append(ErrorEval.getText(cell.getErrorCellValue()));
@@ -388,8 +404,6 @@ public class ExcelExtractor implements POIOLE2TextExtractor, org.apache.poi.ss.e
                 text.append(_extractHeaderFooter(sheet.getFooter()));
             }
         }
-
-        return text.toString();
     }
 
     public static String _extractHeaderFooter(HeaderFooter hf) {
@@ -19,6 +19,8 @@
 
 package org.apache.poi.hssf.record;
 
+import java.util.function.Consumer;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.poi.hssf.record.common.UnicodeString;
@@ -31,10 +33,14 @@ import static org.apache.logging.log4j.util.Unbox.box;
  */
 class SSTDeserializer {
     private static final Logger LOG = LogManager.getLogger(SSTDeserializer.class);
-    private IntMapper<UnicodeString> strings;
+    private final Consumer<UnicodeString> strings;
 
     public SSTDeserializer(IntMapper<UnicodeString> strings) {
-        this.strings = strings;
+        this.strings = strings::add;
+    }
+
+    SSTDeserializer(SSTStringStore strings) {
+        this.strings = strings::add;
     }
 
     /**
@@ -54,7 +60,7 @@ class SSTDeserializer {
             } else {
                 str = new UnicodeString(in);
             }
-            addToStringTable(strings, str);
+            strings.accept(str);
         }
     }
 
@@ -25,12 +25,12 @@ import org.apache.poi.hssf.record.common.UnicodeString;
 import org.apache.poi.hssf.record.cont.ContinuableRecord;
 import org.apache.poi.hssf.record.cont.ContinuableRecordOutput;
 import org.apache.poi.util.GenericRecordUtil;
-import org.apache.poi.util.IntMapper;
 
 /**
  * Static String Table Record (0x00FC)<p>
  *
- * This holds all the strings for LabelSSTRecords.
+ * This holds all the strings for LabelSSTRecords. Plain strings are kept in a compact
+ * byte arena, so {@link #getString(int)} might return a new instance on each call.
  *
  * @see org.apache.poi.hssf.record.LabelSSTRecord
  * @see org.apache.poi.hssf.record.ContinueRecord
@@ -49,7 +49,7 @@ public final class SSTRecord extends ContinuableRecord {
      * according to docs ONLY SST
      */
     private int field_2_num_unique_strings;
-    private final IntMapper<UnicodeString> field_3_strings;
+    private final SSTStringStore field_3_strings;
 
     private final SSTDeserializer deserializer;
 
@@ -65,7 +65,7 @@ public final class SSTRecord extends ContinuableRecord {
     public SSTRecord() {
         field_1_num_strings = 0;
         field_2_num_unique_strings = 0;
-        field_3_strings = new IntMapper<>();
+        field_3_strings = new SSTStringStore();
         deserializer = new SSTDeserializer(field_3_strings);
     }
 
@@ -99,9 +99,8 @@ public final class SSTRecord extends ContinuableRecord {
         } else {
             // This is a new string -- we didn't see it among the
             // strings we've already collected
-            rval = field_3_strings.size();
             field_2_num_unique_strings++;
-            SSTDeserializer.addToStringTable( field_3_strings, ucs );
+            rval = field_3_strings.add(ucs);
         }
         return rval;
     }
@@ -222,7 +221,7 @@ public final class SSTRecord extends ContinuableRecord {
         // we initialize our fields
         field_1_num_strings = in.readInt();
         field_2_num_unique_strings = in.readInt();
-        field_3_strings = new IntMapper<>();
+        field_3_strings = new SSTStringStore();
 
         deserializer = new SSTDeserializer(field_3_strings);
         // Bug 57456: some Excel Sheets send 0 as field=1, but have some random number in field_2,
@@ -30,7 +30,7 @@ final class SSTSerializer {
     private final int _numStrings;
     private final int _numUniqueStrings;
 
-    private final IntMapper<UnicodeString> strings;
+    private final SSTStringStore strings;
 
     /** Offsets from the beginning of the SST record (even across continuations) */
     private final int[] bucketAbsoluteOffsets;
@@ -38,6 +38,11 @@ final class SSTSerializer {
     private final int[] bucketRelativeOffsets;
 
     public SSTSerializer( IntMapper<UnicodeString> strings, int numStrings, int numUniqueStrings )
+    {
+        this(SSTStringStore.of(strings), numStrings, numUniqueStrings);
+    }
+
+    SSTSerializer( SSTStringStore strings, int numStrings, int numUniqueStrings )
     {
         this.strings = strings;
         _numStrings = numStrings;
@@ -64,22 +69,10 @@ final class SSTSerializer {
                  bucketRelativeOffsets[index] = rOff;
               }
           }
-          UnicodeString s = getUnicodeString(k);
-          s.serialize(out);
+          strings.serialize(k, out);
         }
     }
 
-
-    private UnicodeString getUnicodeString( int index )
-    {
-        return getUnicodeString(strings, index);
-    }
-
-    private static UnicodeString getUnicodeString( IntMapper<UnicodeString> strings, int index )
-    {
-        return ( strings.get( index ) );
-    }
-
     public int[] getBucketAbsoluteOffsets()
     {
         return bucketAbsoluteOffsets;
@@ -0,0 +1,366 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.record;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.common.Duplicatable;
+import org.apache.poi.hssf.record.common.UnicodeString;
+import org.apache.poi.hssf.record.cont.ContinuableRecordOutput;
+import org.apache.poi.util.IntMapper;
+
+/**
+ * Compact storage of the strings of a {@link SSTRecord}.<p>
+ *
+ * Plain strings, i.e. strings without formatting runs or phonetic (ExtRst) data, are
+ * packed into a single byte arena - in "ISO-8859-1" or "UTF-16LE" encoding depending on
+ * their option flags - and are indexed by an open-addressing hash table. Only rich text
+ * strings are kept as {@link UnicodeString} instances.<p>
+ *
+ * Like {@link IntMapper}, the store is a list which also allows for getting the index
+ * of a value. {@link UnicodeString} instances returned by {@link #get(int)} for plain
+ * strings are materialized on each call, so modifications of them are not reflected
+ * in the store.
+ *
+ * @since POI 5.3.1
+ */
+final class SSTStringStore implements Duplicatable, Iterable<UnicodeString> {
+    private static final int HIGH_BYTE = 0x01;
+    private static final int EXT_AND_RICH_TEXT = 0x04 | 0x08;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int size;
+
+    /** encoded character data of all plain strings */
+    private byte[] arena;
+    private int arenaLength;
+
+    /** start offset of each entry in the arena, entry {@code i} ends at {@code offsets[i+1]} */
+    private int[] offsets;
+    /** option flags of each entry */
+    private byte[] flags;
+    /** hash of each entry */
+    private int[] hashes;
+
+    /** entries which are stored as {@link UnicodeString} */
+    private final BitSet richEntries;
+    private final Map<Integer, UnicodeString> richStrings;
+    private final Map<UnicodeString, Integer> richIndex;
+
+    /** open-addressing table of entry index + 1, 0 marks an empty slot */
+    private int[] table;
+
+    SSTStringStore() {
+        arena = new byte[DEFAULT_CAPACITY * 8];
+        offsets = new int[DEFAULT_CAPACITY + 1];
+        flags = new byte[DEFAULT_CAPACITY];
+        hashes = new int[DEFAULT_CAPACITY];
+        table = new int[DEFAULT_CAPACITY * 2];
+        richEntries = new BitSet();
+        richStrings = new HashMap<>();
+        richIndex = new HashMap<>();
+    }
+
+    SSTStringStore(SSTStringStore other) {
+        size = other.size;
+        arena = other.arena.clone();
+        arenaLength = other.arenaLength;
+        offsets = other.offsets.clone();
+        flags = other.flags.clone();
+        hashes = other.hashes.clone();
+        table = other.table.clone();
+        richEntries = (BitSet)other.richEntries.clone();
+        richStrings = new HashMap<>(other.richStrings);
+        richIndex = new HashMap<>(other.richIndex);
+    }
+
+    /**
+     * Creates a store containing the elements of the given mapper, in the same order
+     *
+     * @param strings the strings to add
+     * @return the new store
+     */
+    static SSTStringStore of(IntMapper<UnicodeString> strings) {
+        SSTStringStore store = new SSTStringStore();
+        for (UnicodeString s : strings) {
+            store.add(s);
+        }
+        return store;
+    }
+
+    /**
+     * Appends the specified string to the end of this store.
+     * Duplicates are not checked, but lookups via {@link #getIndex(UnicodeString)}
+     * will return the index of the last added occurrence.
+     *
+     * @param value string to be appended
+     * @return the index of the appended string
+     */
+    int add(UnicodeString value) {
+        final int index = size;
+        ensureEntryCapacity(index + 1);
+
+        if (isPlain(value)) {
+            final String str = value.getString();
+            final byte flag = value.getOptionFlags();
+            final boolean wide = (flag & HIGH_BYTE) != 0;
+            final int len = str.length() * (wide ? 2 : 1);
+            ensureArenaCapacity(arenaLength + len);
+            int pos = arenaLength;
+            for (int i = 0; i < str.length(); i++) {
+                char c = str.charAt(i);
+                arena[pos++] = (byte)c;
+                if (wide) {
+                    arena[pos++] = (byte)(c >>> 8);
+                }
+            }
+            arenaLength = pos;
+            flags[index] = flag;
+            hashes[index] = hash(str, flag);
+            size++;
+            offsets[size] = arenaLength;
+            putIndex(index, str);
+        } else {
+            richEntries.set(index);
+            richStrings.put(index, value);
+            richIndex.put(value, index);
+            flags[index] = value.getOptionFlags();
+            size++;
+            offsets[size] = arenaLength;
+        }
+        return index;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param index the index of the string
+     * @return the string at the given index
+     */
+    UnicodeString get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (richEntries.get(index)) {
+            return richStrings.get(index);
+        }
+        UnicodeString us = new UnicodeString(getPlainString(index));
+        us.setOptionFlags(flags[index]);
+        return us;
+    }
+
+    /**
+     * @param value the string to look up
+     * @return the index of the string or -1 if it isn't stored
+     */
+    int getIndex(UnicodeString value) {
+        if (!isPlain(value)) {
+            return richIndex.getOrDefault(value, -1);
+        }
+        final String str = value.getString();
+        final byte flag = value.getOptionFlags();
+        final int h = hash(str, flag);
+        final int mask = table.length - 1;
+        for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            int idx = entry - 1;
+            if (hashes[idx] == h && flags[idx] == flag && matches(idx, str)) {
+                return idx;
+            }
+        }
+    }
+
+    /**
+     * Serializes the string at the given index without materializing a {@link UnicodeString}
+     * for plain strings
+     */
+    void serialize(int index, ContinuableRecordOutput out) {
+        if (richEntries.get(index)) {
+            richStrings.get(index).serialize(out);
+        } else {
+            out.writeString(getPlainString(index), 0, 0);
+        }
+    }
+
+    @Override
+    public Iterator<UnicodeString> iterator() {
+        return getElements().iterator();
+    }
+
+    /**
+     * @return a read-only list view of the stored strings
+     */
+    List<UnicodeString> getElements() {
+        return new AbstractList<UnicodeString>() {
+            @Override
+            public UnicodeString get(int index) {
+                return SSTStringStore.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public SSTStringStore copy() {
+        return new SSTStringStore(this);
+    }
+
+    private static boolean isPlain(UnicodeString value) {
+        if ((value.getOptionFlags() & EXT_AND_RICH_TEXT) != 0
+            || value.getFormatRunCount() > 0
+            || value.getExtendedRst() != null) {
+            return false;
+        }
+        String str = value.getString();
+        if (value.getCharCount() != str.length()) {
+            return false;
+        }
+        if ((value.getOptionFlags() & HIGH_BYTE) == 0) {
+            // a compressed string needs to fit into 8 bits per character
+            for (int i = 0; i < str.length(); i++) {
+                if (str.charAt(i) > 0xFF) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private String getPlainString(int index) {
+        final int start = offsets[index];
+        final int end = offsets[index + 1];
+        if ((flags[index] & HIGH_BYTE) == 0) {
+            char[] chars = new char[end - start];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char)(arena[start + i] & 0xFF);
+            }
+            return new String(chars);
+        }
+        char[] chars = new char[(end - start) / 2];
+        for (int i = 0, pos = start; i < chars.length; i++, pos += 2) {
+            chars[i] = (char)((arena[pos] & 0xFF) | ((arena[pos + 1] & 0xFF) << 8));
+        }
+        return new String(chars);
+    }
+
+    private boolean matches(int index, String str) {
+        final int start = offsets[index];
+        final int end = offsets[index + 1];
+        final boolean wide = (flags[index] & HIGH_BYTE) != 0;
+        if ((end - start) != str.length() * (wide ? 2 : 1)) {
+            return false;
+        }
+        int pos = start;
+        for (int i = 0; i < str.length(); i++) {
+            char c;
+            if (wide) {
+                c = (char)((arena[pos] & 0xFF) | ((arena[pos + 1] & 0xFF) << 8));
+                pos += 2;
+            } else {
+                c = (char)(arena[pos++] & 0xFF);
+            }
+            if (c != str.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(String str, byte flag) {
+        int h = flag;
+        for (int i = 0; i < str.length(); i++) {
+            h = 31 * h + str.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private void putIndex(int index, String str) {
+        // keep the load factor below 0.5
+        if ((index + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        final int h = hashes[index];
+        final int mask = table.length - 1;
+        for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                table[slot] = index + 1;
+                return;
+            }
+            int idx = entry - 1;
+            if (hashes[idx] == h && flags[idx] == flags[index] && matches(idx, str)) {
+                // like IntMapper, the last added duplicate wins
+                table[slot] = index + 1;
+                return;
+            }
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        int[] newTable = new int[newCapacity];
+        final int mask = newCapacity - 1;
+        for (int entry : table) {
+            if (entry == 0) {
+                continue;
+            }
+            int slot = hashes[entry - 1] & mask;
+            while (newTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = entry;
+        }
+        table = newTable;
+    }
+
+    private void ensureEntryCapacity(int capacity) {
+        if (capacity <= flags.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, flags.length * 2);
+        flags = Arrays.copyOf(flags, newCapacity);
+        hashes = Arrays.copyOf(hashes, newCapacity);
+        offsets = Arrays.copyOf(offsets, newCapacity + 1);
+    }
+
+    private void ensureArenaCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalStateException("SST string data exceeds the maximum supported size");
+        }
+        if (capacity <= arena.length) {
+            return;
+        }
+        long newCapacity = Math.max(capacity, (long)arena.length * 2);
+        arena = Arrays.copyOf(arena, (int)Math.min(newCapacity, Integer.MAX_VALUE - 8));
+    }
+}
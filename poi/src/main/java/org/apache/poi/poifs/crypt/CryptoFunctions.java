@@ -25,7 +25,9 @@ import java.security.Provider;
 import java.security.Security;
 import java.security.spec.AlgorithmParameterSpec;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 
 import javax.crypto.Cipher;
 import javax.crypto.Mac;
@@ -64,6 +66,51 @@ public final class CryptoFunctions {
         return MAX_RECORD_LENGTH;
     }
 
+    /** the maximum number of cached password hashes, 0 disables the cache */
+    private static int passwordHashCacheSize;
+
+    /** the cached password hashes in access order, guarded by itself */
+    private static final Map<PasswordHashKey, byte[]> PASSWORD_HASHES = new LinkedHashMap<PasswordHashKey, byte[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PasswordHashKey, byte[]> eldest) {
+            return size() > passwordHashCacheSize;
+        }
+    };
+
+    /**
+     * Sets the number of password hashes, which are remembered by {@link #hashPassword(String, HashAlgorithm, byte[], int, boolean)}.
+     * <p>
+     * The iterated hashing of a password takes a noticeable time, e.g. 100.000 iterations for agile encryption.
+     * When many documents with the same password and salt are opened, the cache avoids repeating the iterations.
+     * The cache keeps the least recently used hashes, which are key material, in memory - so it's disabled by default.
+     * The cache is keyed by the initial hash of the salt and the password, so it doesn't contain the passwords.
+     * </p>
+     *
+     * @param size the maximum number of cached password hashes, 0 to disable and clear the cache
+     * @throws IllegalArgumentException if the size is negative
+     * @since POI 5.3.1
+     */
+    public static void setPasswordHashCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The cache size must not be negative, but was " + size);
+        }
+        synchronized (PASSWORD_HASHES) {
+            passwordHashCacheSize = size;
+            PASSWORD_HASHES.clear();
+        }
+    }
+
+    /**
+     * @return the maximum number of cached password hashes, 0 if the cache is disabled
+     * @see #setPasswordHashCacheSize(int)
+     * @since POI 5.3.1
+     */
+    public static int getPasswordHashCacheSize() {
+        synchronized (PASSWORD_HASHES) {
+            return passwordHashCacheSize;
+        }
+    }
+
     private CryptoFunctions() {
     }
 
@@ -130,6 +177,18 @@ public final class CryptoFunctions {
 
         hashAlg.update(salt);
         byte[] hash = hashAlg.digest(StringUtil.getToUnicodeLE(password));
+
+        PasswordHashKey key = null;
+        synchronized (PASSWORD_HASHES) {
+            if (passwordHashCacheSize > 0) {
+                key = new PasswordHashKey(hash, hashAlgorithm, spinCount, iteratorFirst);
+                byte[] cached = PASSWORD_HASHES.get(key);
+                if (cached != null) {
+                    return cached.clone();
+                }
+            }
+        }
+
         byte[] iterator = new byte[LittleEndianConsts.INT_SIZE];
 
         byte[] first = (iteratorFirst ? iterator : hash);
@@ -147,9 +206,52 @@ public final class CryptoFunctions {
             throw new EncryptedDocumentException("error in password hashing");
         }
 
+        if (key != null) {
+            synchronized (PASSWORD_HASHES) {
+                if (passwordHashCacheSize > 0) {
+                    PASSWORD_HASHES.put(key, hash.clone());
+                }
+            }
+        }
+
         return hash;
     }
 
+    /**
+     * The key of a cached password hash
+     */
+    private static final class PasswordHashKey {
+        /** the initial hash of the salt and the password */
+        private final byte[] initialHash;
+        private final HashAlgorithm hashAlgorithm;
+        private final int spinCount;
+        private final boolean iteratorFirst;
+
+        PasswordHashKey(byte[] initialHash, HashAlgorithm hashAlgorithm, int spinCount, boolean iteratorFirst) {
+            this.initialHash = initialHash.clone();
+            this.hashAlgorithm = hashAlgorithm;
+            this.spinCount = spinCount;
+            this.iteratorFirst = iteratorFirst;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PasswordHashKey)) {
+                return false;
+            }
+            PasswordHashKey other = (PasswordHashKey)o;
+            return hashAlgorithm == other.hashAlgorithm
+                && spinCount == other.spinCount
+                && iteratorFirst == other.iteratorFirst
+                && Arrays.equals(initialHash, other.initialHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(initialHash);
+        }
+    }
+
     /**
      * <p><cite>2.3.4.12 Initialization Vector Generation (Agile Encryption)</cite></p>
      *
@@ -19,8 +19,11 @@ package org.apache.poi.poifs.crypt;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.GeneralSecurityException;
+import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
@@ -107,6 +110,61 @@ public abstract class Decryptor implements GenericRecord {
     public abstract boolean verifyPassword(String password)
         throws GeneralSecurityException;
 
+    /**
+     * Verifies several candidate passwords concurrently, e.g. when the password of a document
+     * is one of a few known passwords.
+     * <p>
+     * Each candidate is verified with a {@link #copy() copy} of this decryptor in the common
+     * fork/join pool. If a candidate matches, this decryptor is initialized like by
+     * {@link #verifyPassword(String)} with the matching password.
+     * </p>
+     *
+     * @param candidates the passwords to try
+     * @return the first matching password in the order of the candidates, or null if none matches
+     * @throws GeneralSecurityException if a candidate can't be verified
+     * @see CryptoFunctions#setPasswordHashCacheSize(int)
+     * @since POI 5.3.1
+     */
+    public String verifyPasswords(List<String> candidates) throws GeneralSecurityException {
+        final Decryptor[] copies = new Decryptor[candidates.size()];
+        final OptionalInt match;
+        try {
+            match = IntStream.range(0, copies.length).parallel()
+                .filter(i -> (copies[i] = verifyCopy(candidates.get(i))) != null)
+                .findFirst();
+        } catch (EncryptedDocumentException e) {
+            if (e.getCause() instanceof GeneralSecurityException) {
+                throw (GeneralSecurityException)e.getCause();
+            }
+            throw e;
+        }
+
+        if (!match.isPresent()) {
+            return null;
+        }
+        final Decryptor dec = copies[match.getAsInt()];
+        setSecretKey(dec.getSecretKey());
+        setVerifier(dec.getVerifier());
+        setIntegrityHmacKey(dec.getIntegrityHmacKey());
+        setIntegrityHmacValue(dec.getIntegrityHmacValue());
+        return candidates.get(match.getAsInt());
+    }
+
+    /**
+     * @return a copy of this decryptor, which verified the password, or null if the password doesn't match
+     */
+    private Decryptor verifyCopy(String password) {
+        final Decryptor dec = copy();
+        try {
+            if (!dec.verifyPassword(password)) {
+                return null;
+            }
+        } catch (GeneralSecurityException e) {
+            throw new EncryptedDocumentException(e);
+        }
+        return dec;
+    }
+
     /**
      * Returns the length of the encrypted data that can be safely read with
      * {@link #getDataStream(org.apache.poi.poifs.filesystem.DirectoryNode)}.
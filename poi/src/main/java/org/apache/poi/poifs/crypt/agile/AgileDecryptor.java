@@ -61,6 +61,7 @@ public class AgileDecryptor extends Decryptor {
     static final byte[] kIntegrityValueBlock = longToBytes(0xa0677f02b22c8433L);
 
     private long _length = -1;
+    private int _parallelism = 1;
 
     protected AgileDecryptor() {
     }
@@ -68,6 +69,7 @@ public class AgileDecryptor extends Decryptor {
     protected AgileDecryptor(AgileDecryptor other) {
         super(other);
         _length = other._length;
+        _parallelism = other._parallelism;
     }
 
     private static byte[] longToBytes(long l) {
@@ -214,9 +216,39 @@ public class AgileDecryptor extends Decryptor {
     public InputStream getDataStream(DirectoryNode dir) throws IOException, GeneralSecurityException {
         DocumentInputStream dis = dir.createDocumentInputStream(DEFAULT_POIFS_ENTRY);
         _length = dis.readLong();
+        if (_parallelism > 1) {
+            return new ParallelCipherInputStream(dis, _length, _parallelism, getEncryptionInfo(), getSecretKey());
+        }
         return new AgileCipherInputStream(dis, _length);
     }
 
+    /**
+     * Sets the number of threads, which decrypt the segments of the encrypted package concurrently for
+     * the streams of {@link #getDataStream(DirectoryNode)}. The decryption is done in the calling thread
+     * and the {@link java.util.concurrent.ForkJoinPool#commonPool() common pool}.
+     * A parallel decryption buffers 64 kilobytes of the package for each concurrent decryption.
+     *
+     * @param parallelism the number of concurrent decryptions, 1 (the default) to decrypt
+     *                    the segments sequentially while reading
+     * @throws IllegalArgumentException if parallelism is less than 1 or greater than 1024
+     * @since POI 5.3.1
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1 || parallelism > 1024) {
+            throw new IllegalArgumentException("parallelism needs to be between 1 and 1024, but was " + parallelism);
+        }
+        _parallelism = parallelism;
+    }
+
+    /**
+     * @return the number of concurrent decryptions
+     * @see #setParallelism(int)
+     * @since POI 5.3.1
+     */
+    public int getParallelism() {
+        return _parallelism;
+    }
+
     @Override
     public long getLength(){
         if(_length == -1) {
@@ -69,6 +69,7 @@ public class AgileEncryptor extends Encryptor {
 
     private byte[] integritySalt;
     private byte[] pwHash;
+    private int parallelism = 1;
 
     protected AgileEncryptor() {}
 
@@ -76,6 +77,7 @@ public class AgileEncryptor extends Encryptor {
         super(other);
         integritySalt = (other.integritySalt == null) ? null : other.integritySalt.clone();
         pwHash = (other.pwHash == null) ? null : other.pwHash.clone();
+        parallelism = other.parallelism;
     }
 
     @Override
@@ -210,9 +212,40 @@ public class AgileEncryptor extends Encryptor {
     public OutputStream getDataStream(DirectoryNode dir)
             throws IOException, GeneralSecurityException {
         // TODO: initialize headers
+        if (parallelism > 1) {
+            return new ParallelCipherOutputStream(this, dir, parallelism);
+        }
         return new AgileCipherOutputStream(dir);
     }
 
+    /**
+     * Sets the number of threads, which encrypt the segments of the package concurrently for
+     * the streams of {@link #getDataStream(DirectoryNode)}. The segments are encrypted in the
+     * {@link java.util.concurrent.ForkJoinPool#commonPool() common pool}, while the next segments
+     * are written to the stream. A parallel encryption buffers 128 kilobytes of the package
+     * for each concurrent encryption.
+     *
+     * @param parallelism the number of concurrent encryptions, 1 (the default) to encrypt
+     *                    the segments sequentially while writing
+     * @throws IllegalArgumentException if parallelism is less than 1 or greater than 1024
+     * @since POI 5.3.1
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1 || parallelism > 1024) {
+            throw new IllegalArgumentException("parallelism needs to be between 1 and 1024, but was " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return the number of concurrent encryptions
+     * @see #setParallelism(int)
+     * @since POI 5.3.1
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
     /**
      * Generate an HMAC, as specified in [RFC2104], of the encrypted form of the data (message),
      * which the DataIntegrity element will verify by using the Salt generated in step 2 as the key.
@@ -362,23 +395,27 @@ public class AgileEncryptor extends Encryptor {
         @Override
         protected void createEncryptionInfoEntry(DirectoryNode dir, File tmpFile)
         throws IOException {
-            DataSpaceMapUtils.addDefaultDataSpace(dir);
-            createEncryptionEntry(dir, ENCRYPTION_INFO_ENTRY, this::marshallEncryptionRecord);
+            AgileEncryptor.this.createEncryptionInfoEntry(dir);
         }
+    }
 
-        private void marshallEncryptionRecord(LittleEndianByteArrayOutputStream bos) {
-            final EncryptionInfo info = getEncryptionInfo();
+    /* package */ void createEncryptionInfoEntry(DirectoryNode dir) throws IOException {
+        DataSpaceMapUtils.addDefaultDataSpace(dir);
+        createEncryptionEntry(dir, ENCRYPTION_INFO_ENTRY, this::marshallEncryptionRecord);
+    }
 
-            // EncryptionVersionInfo (4 bytes): A Version structure (section 2.1.4), where
-            // Version.vMajor MUST be 0x0004 and Version.vMinor MUST be 0x0004
-            bos.writeShort(info.getVersionMajor());
-            bos.writeShort(info.getVersionMinor());
-            // Reserved (4 bytes): A value that MUST be 0x00000040
-            bos.writeInt(info.getEncryptionFlags());
+    private void marshallEncryptionRecord(LittleEndianByteArrayOutputStream bos) {
+        final EncryptionInfo info = getEncryptionInfo();
 
-            EncryptionDocument ed = createEncryptionDocument();
-            marshallEncryptionDocument(ed, bos);
-        }
+        // EncryptionVersionInfo (4 bytes): A Version structure (section 2.1.4), where
+        // Version.vMajor MUST be 0x0004 and Version.vMinor MUST be 0x0004
+        bos.writeShort(info.getVersionMajor());
+        bos.writeShort(info.getVersionMinor());
+        // Reserved (4 bytes): A value that MUST be 0x00000040
+        bos.writeInt(info.getEncryptionFlags());
+
+        EncryptionDocument ed = createEncryptionDocument();
+        marshallEncryptionDocument(ed, bos);
     }
 
     @Override
@@ -0,0 +1,170 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.poifs.crypt.agile;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+
+import org.apache.poi.EncryptedDocumentException;
+import org.apache.poi.poifs.crypt.EncryptionInfo;
+
+/**
+ * Decrypts the segments of an agile encrypted package concurrently.<p>
+ *
+ * Each segment of an agile encrypted package has its own initialization vector, so the segments
+ * can be decrypted independently. This stream reads a batch of segments, decrypts slices of the
+ * batch in parallel with a cipher per slice and then returns the plain data of the batch, so the
+ * memory usage is bounded by the batch size instead of the package size.
+ *
+ * @see AgileDecryptor#setParallelism(int)
+ */
+/* package */ final class ParallelCipherInputStream extends InputStream {
+    /** the size of the segments, see 2.3.4.15 Data Encryption (Agile Encryption) */
+    private static final int SEGMENT_SIZE = 4096;
+
+    /** the number of segments, which are decrypted by a task */
+    private static final int SEGMENTS_PER_TASK = 16;
+
+    private final InputStream stream;
+    private final long size;
+    private final int parallelism;
+    private final EncryptionInfo encryptionInfo;
+    private final SecretKey secretKey;
+
+    /** the decrypted segments of the current batch */
+    private final byte[] batch;
+    /** the number of decrypted bytes in {@link #batch} and the position of the next byte to return */
+    private int batchLength, batchPos;
+    /** the index of the first segment of the next batch */
+    private int nextSegment;
+    /** the number of bytes returned so far */
+    private long pos;
+
+    ParallelCipherInputStream(InputStream stream, long size, int parallelism, EncryptionInfo encryptionInfo, SecretKey secretKey) {
+        this.stream = stream;
+        this.size = size;
+        this.parallelism = parallelism;
+        this.encryptionInfo = encryptionInfo;
+        this.secretKey = secretKey;
+        this.batch = new byte[parallelism * SEGMENTS_PER_TASK * SEGMENT_SIZE];
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = { 0 };
+        return (read(b, 0, 1) == 1) ? (b[0] & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= size) {
+            return -1;
+        }
+        if (batchPos == batchLength) {
+            nextBatch();
+        }
+        final int count = (int)Math.min(Math.min(len, batchLength - batchPos), size - pos);
+        System.arraycopy(batch, batchPos, b, off, count);
+        batchPos += count;
+        pos += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return (int)Math.min(Integer.MAX_VALUE, size - pos);
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+
+    /**
+     * Reads and decrypts the next segments
+     */
+    private void nextBatch() throws IOException {
+        final long segmentsLeft = (size - pos + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+        final int todo = (int)Math.min(batch.length, segmentsLeft * SEGMENT_SIZE);
+        int totalBytes = 0;
+        for (int readBytes; totalBytes < todo && (readBytes = stream.read(batch, totalBytes, todo - totalBytes)) != -1; ) {
+            totalBytes += readBytes;
+        }
+        if (totalBytes < Math.min(todo, size - pos)) {
+            throw new EOFException("buffer underrun");
+        }
+
+        final int firstSegment = nextSegment;
+        final int segments = (totalBytes + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+        final int tasks = (segments + SEGMENTS_PER_TASK - 1) / SEGMENTS_PER_TASK;
+        final int length = totalBytes;
+
+        @SuppressWarnings("unchecked")
+        final CompletableFuture<Void>[] futures = new CompletableFuture[Math.max(0, tasks - 1)];
+        for (int task = 1; task < tasks; task++) {
+            final int from = task * SEGMENTS_PER_TASK;
+            futures[task - 1] = CompletableFuture.runAsync(
+                () -> decrypt(firstSegment, from, Math.min(segments, from + SEGMENTS_PER_TASK), length),
+                ForkJoinPool.commonPool());
+        }
+        // decrypt the first slice in the reading thread
+        decrypt(firstSegment, 0, Math.min(segments, SEGMENTS_PER_TASK), length);
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            throw (e.getCause() instanceof RuntimeException) ? (RuntimeException)e.getCause() : e;
+        }
+
+        nextSegment += segments;
+        batchLength = totalBytes;
+        batchPos = 0;
+    }
+
+    /**
+     * Decrypts the segments {@code from} to {@code to} (exclusive) of the batch
+     */
+    private void decrypt(int firstSegment, int from, int to, int length) {
+        try {
+            Cipher cipher = null;
+            for (int segment = from; segment < to; segment++) {
+                cipher = AgileDecryptor.initCipherForBlock(cipher, firstSegment + segment, false,
+                    encryptionInfo, secretKey, Cipher.DECRYPT_MODE);
+                final int offset = segment * SEGMENT_SIZE;
+                final int len = Math.min(SEGMENT_SIZE, length - offset);
+                if (len == SEGMENT_SIZE) {
+                    cipher.doFinal(batch, offset, len, batch, offset);
+                } else {
+                    cipher.update(batch, offset, len, batch, offset);
+                }
+            }
+        } catch (GeneralSecurityException e) {
+            throw new EncryptedDocumentException(e.getMessage(), e);
+        }
+    }
+}
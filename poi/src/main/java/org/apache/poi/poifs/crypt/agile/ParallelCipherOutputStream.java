@@ -0,0 +1,235 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.poifs.crypt.agile;
+
+import static org.apache.poi.poifs.crypt.Decryptor.DEFAULT_POIFS_ENTRY;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.crypto.Cipher;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.EncryptedDocumentException;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.POIFSWriterEvent;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.util.LittleEndian;
+import org.apache.poi.util.LittleEndianConsts;
+import org.apache.poi.util.TempFile;
+
+/**
+ * Encrypts the segments of an agile encrypted package concurrently.<p>
+ *
+ * The written data is collected in batches of segments. A full batch is encrypted by concurrent
+ * tasks with a cipher per slice of the batch and then appended to a temporary file, while the next
+ * batch is filled. On close, the integrity HMAC is calculated and the package is added to the
+ * POIFS directory like by the sequential {@code AgileCipherOutputStream}.
+ *
+ * @see AgileEncryptor#setParallelism(int)
+ */
+/* package */ final class ParallelCipherOutputStream extends OutputStream {
+    private static final Logger LOG = LogManager.getLogger(ParallelCipherOutputStream.class);
+
+    /** the size of the segments, see 2.3.4.15 Data Encryption (Agile Encryption) */
+    private static final int SEGMENT_SIZE = 4096;
+
+    /** the number of segments, which are encrypted by a task */
+    private static final int SEGMENTS_PER_TASK = 16;
+
+    private final AgileEncryptor encryptor;
+    private final DirectoryNode dir;
+    private final File fileOut;
+    private final OutputStream out;
+
+    /** the batch, which is filled, and the batch, which is encrypted and written in the background */
+    private byte[] batch, pendingBatch;
+    private int batchLength;
+    /** the index of the first segment of the current batch */
+    private int batchSegment;
+    /** the encryption of the pending batch */
+    private CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+
+    /** the number of plain bytes */
+    private long pos;
+    private boolean isClosed;
+
+    ParallelCipherOutputStream(AgileEncryptor encryptor, DirectoryNode dir, int parallelism) throws IOException {
+        this.encryptor = encryptor;
+        this.dir = dir;
+        this.batch = new byte[parallelism * SEGMENTS_PER_TASK * SEGMENT_SIZE];
+        this.pendingBatch = new byte[batch.length];
+        this.fileOut = TempFile.createTempFile("encrypted_package", "crypt");
+        this.out = Files.newOutputStream(fileOut.toPath());
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte)b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (isClosed) {
+            throw new IOException("ParallelCipherOutputStream is closed");
+        }
+        while (len > 0) {
+            final int count = Math.min(len, batch.length - batchLength);
+            System.arraycopy(b, off, batch, batchLength, count);
+            batchLength += count;
+            pos += count;
+            off += count;
+            len -= count;
+            if (batchLength == batch.length) {
+                submitBatch(false);
+            }
+        }
+    }
+
+    /**
+     * Starts the encryption of the current batch, after the previous batch was written
+     *
+     * @param lastBatch if true, the last segment is padded
+     */
+    private void submitBatch(boolean lastBatch) throws IOException {
+        awaitPending();
+
+        final byte[] data = batch;
+        batch = pendingBatch;
+        pendingBatch = data;
+
+        final int firstSegment = batchSegment;
+        final int length = batchLength;
+        final int segments = (length + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+        final int tasks = (segments + SEGMENTS_PER_TASK - 1) / SEGMENTS_PER_TASK;
+        final boolean padLast = lastBatch && (length % SEGMENT_SIZE) != 0;
+
+        @SuppressWarnings("unchecked")
+        final CompletableFuture<Void>[] futures = new CompletableFuture[tasks];
+        for (int task = 0; task < tasks; task++) {
+            final int from = task * SEGMENTS_PER_TASK;
+            final int to = Math.min(segments, from + SEGMENTS_PER_TASK);
+            futures[task] = CompletableFuture.runAsync(
+                () -> encrypt(data, firstSegment, from, to, length, padLast), ForkJoinPool.commonPool());
+        }
+        // the last segment might grow by the padding
+        final int encryptedLength = padLast ? (segments - 1) * SEGMENT_SIZE + paddedLength(length % SEGMENT_SIZE) : length;
+        pending = CompletableFuture.allOf(futures).thenRun(() -> {
+            try {
+                out.write(data, 0, encryptedLength);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        batchSegment += segments;
+        batchLength = 0;
+    }
+
+    private void awaitPending() throws IOException {
+        try {
+            pending.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException)cause).getCause();
+            }
+            throw (cause instanceof RuntimeException) ? (RuntimeException)cause : e;
+        }
+    }
+
+    /**
+     * Encrypts the segments {@code from} to {@code to} (exclusive) of the batch
+     */
+    private void encrypt(byte[] data, int firstSegment, int from, int to, int length, boolean padLast) {
+        try {
+            Cipher cipher = null;
+            for (int segment = from; segment < to; segment++) {
+                final int offset = segment * SEGMENT_SIZE;
+                final int len = Math.min(SEGMENT_SIZE, length - offset);
+                final boolean lastChunk = padLast && len < SEGMENT_SIZE;
+                cipher = AgileDecryptor.initCipherForBlock(cipher, firstSegment + segment, lastChunk,
+                    encryptor.getEncryptionInfo(), encryptor.getSecretKey(), Cipher.ENCRYPT_MODE);
+                cipher.doFinal(data, offset, len, data, offset);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new UncheckedIOException(new IOException("can't re-/initialize cipher", e));
+        }
+    }
+
+    /**
+     * @return the length of the last segment with the PKCS5 padding
+     */
+    private static int paddedLength(int length) {
+        return (length / 16 + 1) * 16;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (isClosed) {
+            LOG.atDebug().log("ParallelCipherOutputStream was already closed - ignoring");
+            return;
+        }
+
+        isClosed = true;
+
+        try {
+            if (batchLength > 0) {
+                submitBatch(true);
+            }
+            awaitPending();
+            out.close();
+
+            int oleStreamSize = (int)(fileOut.length()+LittleEndianConsts.LONG_SIZE);
+            encryptor.updateIntegrityHMAC(fileOut, (int)pos);
+            dir.createDocument(DEFAULT_POIFS_ENTRY, oleStreamSize, this::processPOIFSWriterEvent);
+            encryptor.createEncryptionInfoEntry(dir);
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        } finally {
+            out.close();
+            if (!fileOut.delete()) {
+                //ignore
+            }
+        }
+    }
+
+    private void processPOIFSWriterEvent(POIFSWriterEvent event) {
+        try (OutputStream os = event.getStream();
+             InputStream fis = Files.newInputStream(fileOut.toPath())) {
+
+            // StreamSize (8 bytes): the number of bytes of the unencrypted data
+            byte[] buf = new byte[LittleEndianConsts.LONG_SIZE];
+            LittleEndian.putLong(buf, 0, pos);
+            os.write(buf);
+
+            IOUtils.copy(fis, os);
+        } catch (IOException e) {
+            throw new EncryptedDocumentException(e);
+        }
+    }
+}
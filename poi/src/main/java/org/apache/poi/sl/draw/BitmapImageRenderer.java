@@ -70,6 +70,9 @@ public class BitmapImageRenderer implements ImageRenderer {
     private boolean doCache;
     private byte[] cachedImage;
     private String cachedContentType;
+    private DrawImageCache imageCache;
+    /** the digest of the loaded image data, if the decoded image is cached */
+    private byte[] imageDigest;
 
     private interface ImageLoader {
         BufferedImage load(ImageReader reader, ImageInputStream iis, ImageReadParam param) throws IOException;
@@ -83,6 +86,12 @@ public class BitmapImageRenderer implements ImageRenderer {
 
     @Override
     public void loadImage(InputStream data, String contentType) throws IOException {
+        if (imageCache != null) {
+            // the cache needs the digest of the data
+            loadImage(IOUtils.toByteArray(data), contentType);
+            return;
+        }
+        imageDigest = null;
         InputStream in = data;
         if (doCache) {
             try (UnsynchronizedByteArrayOutputStream bos = UnsynchronizedByteArrayOutputStream.builder().get()) {
@@ -104,7 +113,14 @@ public class BitmapImageRenderer implements ImageRenderer {
             cachedImage = data.clone();
             cachedContentType = contentType;
         }
-        img = readImage(UnsynchronizedByteArrayInputStream.builder().setByteArray(data).get(), contentType);
+        if (imageCache == null) {
+            imageDigest = null;
+            img = readImage(UnsynchronizedByteArrayInputStream.builder().setByteArray(data).get(), contentType);
+        } else {
+            imageDigest = DrawImageCache.digest(data);
+            img = imageCache.getImage(imageDigest, -1, -1,
+                () -> readImage(UnsynchronizedByteArrayInputStream.builder().setByteArray(data).get(), contentType));
+        }
     }
 
     /**
@@ -264,6 +280,14 @@ public class BitmapImageRenderer implements ImageRenderer {
         if (w_old == w_new && h_old == h_new) {
             return img;
         }
+        return (imageCache == null || imageDigest == null)
+            ? scaleImage(w_new, h_new)
+            : imageCache.getImage(imageDigest, (int)w_new, (int)h_new, () -> scaleImage(w_new, h_new));
+    }
+
+    private BufferedImage scaleImage(double w_new, double h_new) {
+        double w_old = img.getWidth();
+        double h_old = img.getHeight();
         BufferedImage scaled = new BufferedImage((int)w_new, (int)h_new, BufferedImage.TYPE_INT_ARGB);
         AffineTransform at = new AffineTransform();
         at.scale(w_new/w_old, h_new/h_old);
@@ -282,6 +306,10 @@ public class BitmapImageRenderer implements ImageRenderer {
     @Override
     public void setAlpha(double alpha) {
         img = setAlpha(img, alpha);
+        if (alpha != 0) {
+            // the image doesn't match the cached one anymore
+            imageDigest = null;
+        }
     }
 
     public static BufferedImage setAlpha(BufferedImage image, double alpha) {
@@ -357,6 +385,11 @@ public class BitmapImageRenderer implements ImageRenderer {
         }
     }
 
+    @Override
+    public void setImageCache(DrawImageCache imageCache) {
+        this.imageCache = imageCache;
+    }
+
     @Override
     public byte[] getCachedImage() {
         return cachedImage;
@@ -0,0 +1,183 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.sl.draw;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.poi.poifs.crypt.CryptoFunctions;
+import org.apache.poi.poifs.crypt.HashAlgorithm;
+
+/**
+ * A size-bounded cache of decoded or rasterized images, which can be shared by the renderings of
+ * several slides - even concurrently - to decode recurring images, e.g. logos on the slide masters,
+ * only once.<p>
+ *
+ * The images are keyed by the digest of the picture data and the target size. The least recently
+ * used images are evicted, when the memory of all cached images exceeds the limit.<p>
+ *
+ * The cached images are shared, i.e. they must not be modified by the image renderers or their callers.
+ *
+ * @see Drawable#IMAGE_CACHE
+ * @since POI 5.3.1
+ */
+public final class DrawImageCache {
+    /**
+     * Decodes or rasterizes an image on a cache miss
+     */
+    @FunctionalInterface
+    public interface ImageLoader<E extends Exception> {
+        /**
+         * @return the image or null, if the image can't be loaded
+         */
+        BufferedImage load() throws E;
+    }
+
+    private static final class Key {
+        private final byte[] digest;
+        private final int width, height;
+
+        Key(byte[] digest, int width, int height) {
+            this.digest = digest;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key)o;
+            return width == other.width && height == other.height && Arrays.equals(digest, other.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Arrays.hashCode(digest) + width) + height;
+        }
+    }
+
+    private final long maxBytes;
+    /** the images in access order */
+    private final Map<Key, BufferedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    /**
+     * @param maxBytes the maximum memory of the cached images in bytes
+     */
+    public DrawImageCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Calculates the digest of the picture data, which is used as the key of the images.
+     *
+     * @param data the picture data
+     * @return the digest
+     */
+    public static byte[] digest(byte[] data) {
+        return CryptoFunctions.getMessageDigest(HashAlgorithm.sha256).digest(data);
+    }
+
+    /**
+     * Returns the cached image or loads and caches it.
+     * Images are loaded outside of the lock, so concurrent callers might load the same image.
+     *
+     * @param digest the digest of the picture data, see {@link #digest(byte[])}
+     * @param width the target width or -1 for the native size of a decoded image
+     * @param height the target height or -1 for the native size of a decoded image
+     * @param loader the loader, which is called on a cache miss
+     * @return the image or null, if the loader couldn't load it
+     * @throws E if the image can't be loaded
+     */
+    public <E extends Exception> BufferedImage getImage(byte[] digest, int width, int height, ImageLoader<E> loader) throws E {
+        final Key key = new Key(digest, width, height);
+        synchronized (images) {
+            final BufferedImage img = images.get(key);
+            if (img != null) {
+                return img;
+            }
+        }
+
+        final BufferedImage img = loader.load();
+        if (img == null) {
+            return null;
+        }
+
+        final long size = getSize(img);
+        if (size > maxBytes) {
+            return img;
+        }
+
+        synchronized (images) {
+            final BufferedImage other = images.get(key);
+            if (other != null) {
+                // another thread was faster
+                return other;
+            }
+            images.put(key, img);
+            bytes += size;
+            for (Iterator<BufferedImage> iter = images.values().iterator(); bytes > maxBytes && iter.hasNext(); ) {
+                bytes -= getSize(iter.next());
+                iter.remove();
+            }
+        }
+        return img;
+    }
+
+    /**
+     * @return the number of cached images
+     */
+    public int getImageCount() {
+        synchronized (images) {
+            return images.size();
+        }
+    }
+
+    /**
+     * @return the memory of the cached images in bytes
+     */
+    public long getBytes() {
+        synchronized (images) {
+            return bytes;
+        }
+    }
+
+    /**
+     * Removes all images
+     */
+    public void clear() {
+        synchronized (images) {
+            images.clear();
+            bytes = 0;
+        }
+    }
+
+    private static long getSize(BufferedImage img) {
+        final DataBuffer db = img.getRaster().getDataBuffer();
+        return (long)db.getSize() * db.getNumBanks() * DataBuffer.getDataTypeSize(db.getDataType()) / 8;
+    }
+}
@@ -82,6 +82,12 @@ public class DrawPictureShape extends DrawSimpleShape {
      * @return the image renderer
      */
     public static ImageRenderer getImageRenderer(Graphics2D graphics, String contentType) {
+        final ImageRenderer renderer = findImageRenderer(graphics, contentType);
+        renderer.setImageCache((graphics != null) ? (DrawImageCache)graphics.getRenderingHint(Drawable.IMAGE_CACHE) : null);
+        return renderer;
+    }
+
+    private static ImageRenderer findImageRenderer(Graphics2D graphics, String contentType) {
         final ImageRenderer renderer = (graphics != null) ? (ImageRenderer)graphics.getRenderingHint(Drawable.IMAGE_RENDERER) : null;
         if (renderer != null && renderer.canRender(contentType)) {
             return renderer;
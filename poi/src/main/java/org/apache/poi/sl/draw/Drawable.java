@@ -51,6 +51,7 @@ public interface Drawable {
             case 14: return "DEFAULT_CHARSET";
             case 15: return "EMF_FORCE_HEADER_BOUNDS";
             case 16: return "CACHE_IMAGE_SOURCE";
+            case 17: return "IMAGE_CACHE";
             default: return "UNKNOWN_ID "+intKey();
             }
         }
@@ -173,6 +174,14 @@ public interface Drawable {
      */
     DrawableHint CACHE_IMAGE_SOURCE = new DrawableHint(16);
 
+    /**
+     * A {@link DrawImageCache} to reuse decoded and rasterized images, e.g. of the slide masters,
+     * while rendering several slides. The cache can be shared between the graphics of concurrent renderings.
+     *
+     * @since POI 5.3.1
+     */
+    DrawableHint IMAGE_CACHE = new DrawableHint(17);
+
 
     /**
      * Apply 2-D transforms before drawing this shape. This includes rotation and flipping.
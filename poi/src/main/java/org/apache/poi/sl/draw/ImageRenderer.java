@@ -181,4 +181,14 @@ public interface ImageRenderer {
      * @return the cached content type
      */
     default String getCachedContentType() { return null; }
+
+    /**
+     * Sets the cache of decoded/rasterized images - this is an optional operation.
+     * The cache needs to be set before the image is loaded.
+     *
+     * @param imageCache the image cache or null to not use a cache
+     *
+     * @since POI 5.3.1
+     */
+    default void setImageCache(DrawImageCache imageCache) {}
 }
\ No newline at end of file
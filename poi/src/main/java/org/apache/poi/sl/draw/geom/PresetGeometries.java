@@ -19,22 +19,43 @@
 
 package org.apache.poi.sl.draw.geom;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
-import javax.xml.transform.stream.StreamSource;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.util.IOUtils;
 import org.apache.poi.util.XMLHelper;
 
+/**
+ * The preset shape geometries.<p>
+ *
+ * The definitions are only scanned for the offsets of the shapes on initialization and a shape
+ * is parsed on its first access, so the first rendering doesn't need to wait for the parsing
+ * of all shapes.
+ */
 public final class PresetGeometries {
-    private final Map<String, CustomGeometry> map = new TreeMap<>();
+    private static final Logger LOG = LogManager.getLogger(PresetGeometries.class);
+
+    /** the UTF-8 encoded shape definitions */
+    private final byte[] definitions;
+    /** the start and end offset of each shape definition */
+    private final Map<String, int[]> index = new TreeMap<>();
+    /** the already parsed shapes */
+    private final Map<String, CustomGeometry> map = new ConcurrentHashMap<>();
 
     private static class SingletonHelper{
         private static final PresetGeometries INSTANCE = new PresetGeometries();
@@ -45,18 +66,109 @@ public final class PresetGeometries {
     }
 
     private PresetGeometries() {
-        // use a local object first to not assign a partly constructed object in case of failure
-        try {
-            try (InputStream is = PresetGeometries.class.getResourceAsStream("presetShapeDefinitions.xml")) {
-                XMLInputFactory staxFactory = XMLHelper.newXMLInputFactory();
-                XMLStreamReader sr = staxFactory.createXMLStreamReader(new StreamSource(is));
-                try {
-                    PresetParser p = new PresetParser(PresetParser.Mode.FILE);
-                    p.parse(sr);
-                    map.putAll(p.getGeom());
-                } finally {
-                    sr.close();
+        try (InputStream is = PresetGeometries.class.getResourceAsStream("presetShapeDefinitions.xml")) {
+            definitions = IOUtils.toByteArray(is);
+        } catch (IOException e){
+            throw new IllegalStateException(e);
+        }
+        buildIndex();
+    }
+
+    /**
+     * Finds the child elements of the document element, i.e. the shape definitions.
+     * The definitions file doesn't contain CDATA sections or DTDs, so it's sufficient to
+     * skip the processing instructions, comments and quoted attribute values.
+     */
+    private void buildIndex() {
+        final byte[] data = definitions;
+        int depth = 0;
+        int start = -1;
+        String name = null;
+        for (int i = 0; i < data.length; ) {
+            if (data[i] != '<') {
+                i++;
+                continue;
+            }
+            if (startsWith(i, "<?")) {
+                i = indexOf(i, "?>") + 2;
+            } else if (startsWith(i, "<!--")) {
+                i = indexOf(i, "-->") + 3;
+            } else if (data[i + 1] == '/') {
+                final int end = indexOf(i, ">") + 1;
+                if (--depth == 1) {
+                    addShape(name, start, end);
+                }
+                i = end;
+            } else {
+                int nameEnd = i + 1;
+                while (nameEnd < data.length && " \t\r\n/>".indexOf(data[nameEnd]) == -1) {
+                    nameEnd++;
+                }
+                int tagEnd = nameEnd;
+                for (byte quote = 0; tagEnd < data.length && (quote != 0 || data[tagEnd] != '>'); tagEnd++) {
+                    if (quote == 0 && (data[tagEnd] == '"' || data[tagEnd] == '\'')) {
+                        quote = data[tagEnd];
+                    } else if (quote == data[tagEnd]) {
+                        quote = 0;
+                    }
+                }
+                if (tagEnd == data.length) {
+                    throw new IllegalStateException("Unterminated element in the preset shape definitions");
                 }
+                if (depth == 1) {
+                    start = i;
+                    name = new String(data, i + 1, nameEnd - i - 1, UTF_8);
+                }
+                if (data[tagEnd - 1] == '/') {
+                    if (depth == 1) {
+                        addShape(name, start, tagEnd + 1);
+                    }
+                } else {
+                    depth++;
+                }
+                i = tagEnd + 1;
+            }
+        }
+    }
+
+    private void addShape(String name, int start, int end) {
+        if (index.put(name, new int[]{start, end}) != null) {
+            LOG.atWarn().log("Duplicate definition of {}", name);
+        }
+    }
+
+    private boolean startsWith(int offset, String prefix) {
+        if (offset + prefix.length() > definitions.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (definitions[offset + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(int offset, String str) {
+        for (int i = offset; i < definitions.length; i++) {
+            if (startsWith(i, str)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Unterminated markup in the preset shape definitions");
+    }
+
+    private CustomGeometry parse(String name) {
+        final int[] range = index.get(name);
+        final XMLInputFactory staxFactory = XMLHelper.newXMLInputFactory();
+        try (InputStream is = new ByteArrayInputStream(definitions, range[0], range[1] - range[0])) {
+            XMLStreamReader sr = staxFactory.createXMLStreamReader(is, UTF_8.name());
+            try {
+                PresetParser p = new PresetParser(PresetParser.Mode.SHAPE_LST);
+                p.parse(sr);
+                return p.getGeom().get(name);
+            } finally {
+                sr.close();
             }
         } catch (IOException | XMLStreamException e){
             throw new IllegalStateException(e);
@@ -64,15 +176,15 @@ public final class PresetGeometries {
     }
 
     public CustomGeometry get(String name) {
-        return name == null ? null : map.get(name);
+        return (name == null || !index.containsKey(name)) ? null : map.computeIfAbsent(name, this::parse);
     }
 
     public Set<String> keySet() {
-        return map.keySet();
+        return Collections.unmodifiableSet(index.keySet());
     }
 
     public int size() {
-        return map.size();
+        return index.size();
     }
 
     @SuppressWarnings("EqualsWhichDoesntCheckParameterClass")
@@ -83,6 +195,10 @@ public final class PresetGeometries {
 
     @Override
     public int hashCode() {
-        return Objects.hash(map);
+        final Map<String, CustomGeometry> all = new TreeMap<>();
+        for (String name : index.keySet()) {
+            all.put(name, get(name));
+        }
+        return Objects.hash(all);
     }
 }
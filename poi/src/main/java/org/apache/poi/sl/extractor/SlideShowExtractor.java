@@ -17,6 +17,8 @@
 
 package org.apache.poi.sl.extractor;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.LinkedList;
@@ -127,13 +129,38 @@ public class SlideShowExtractor<
     @Override
     public String getText() {
         final StringBuilder sb = new StringBuilder();
-        for (final Slide<S, P> slide : slideshow.getSlides()) {
-            getText(slide, sb::append);
+        try {
+            writeText(sb);
+        } catch (IOException e) {
+            // a StringBuilder doesn't throw IOExceptions
+            throw new IllegalStateException(e);
         }
-
         return sb.toString();
     }
 
+    /**
+     * Writes the text of each slide, as soon as it's extracted
+     *
+     * @since POI 5.3.1
+     */
+    @Override
+    public void writeText(final Appendable out) throws IOException {
+        final Consumer<String> consumer = str -> {
+            try {
+                out.append(str);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        try {
+            for (final Slide<S, P> slide : slideshow.getSlides()) {
+                getText(slide, consumer);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
     public String getText(final Slide<S,P> slide) {
         final StringBuilder sb = new StringBuilder();
         getText(slide, sb::append);
@@ -21,8 +21,8 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -131,9 +131,18 @@ public class CellFormat {
         };
     }
 
-    /** Maps a format string to its parsed version for efficiencies sake. */
-    private static final Map<Locale, Map<String, CellFormat>> formatCache =
-            new WeakHashMap<>();
+    /**
+     * The maximum number of cached formats per locale. If the limit is reached,
+     * the cached formats of the locale are discarded.
+     */
+    private static final int MAX_CACHED_FORMATS = 4096;
+
+    /**
+     * Maps a format string to its parsed version for efficiencies sake.
+     * The formats are immutable and shared by all threads, so lookups don't need to lock.
+     */
+    private static final ConcurrentMap<Locale, ConcurrentMap<String, CellFormat>> formatCache =
+            new ConcurrentHashMap<>();
 
     /**
      * Returns a CellFormat that applies the given format.  Two calls
@@ -149,22 +158,35 @@ public class CellFormat {
 
     /**
      * Returns a CellFormat that applies the given format.  Two calls
-     * with the same format may or may not return the same object.
+     * with the same format may or may not return the same object.<p>
+     *
+     * This method can be called concurrently - the parsed formats are cached
+     * and shared between threads.
      *
      * @param locale The locale.
      * @param format The format.
      *
      * @return A CellFormat that applies the given format.
      */
-    public static synchronized CellFormat getInstance(Locale locale, String format) {
-        Map<String, CellFormat> formatMap = formatCache.computeIfAbsent(locale, k -> new WeakHashMap<>());
+    public static CellFormat getInstance(Locale locale, String format) {
+        ConcurrentMap<String, CellFormat> formatMap = formatCache.get(locale);
+        if (formatMap == null) {
+            formatMap = formatCache.computeIfAbsent(locale, k -> new ConcurrentHashMap<>());
+        }
         CellFormat fmt = formatMap.get(format);
         if (fmt == null) {
+            // parse outside of any lock - if another thread was faster, its instance is used
             if (format.equals("General") || format.equals("@"))
                 fmt = createGeneralFormat(locale);
             else
                 fmt = new CellFormat(locale, format);
-            formatMap.put(format, fmt);
+            if (formatMap.size() >= MAX_CACHED_FORMATS) {
+                formatMap.clear();
+            }
+            CellFormat prev = formatMap.putIfAbsent(format, fmt);
+            if (prev != null) {
+                fmt = prev;
+            }
         }
         return fmt;
     }
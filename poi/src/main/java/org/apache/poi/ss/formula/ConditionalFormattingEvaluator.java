@@ -20,6 +20,7 @@ package org.apache.poi.ss.formula;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -44,6 +45,9 @@ import org.apache.poi.ss.util.CellReference;
  */
 public class ConditionalFormattingEvaluator {
 
+    /** The default number of cells, whose matching rules are cached */
+    private static final int DEFAULT_MAX_CACHED_VALUES = 100_000;
+
     private final WorkbookEvaluator workbookEvaluator;
     private final Workbook workbook;
 
@@ -60,6 +64,12 @@ public class ConditionalFormattingEvaluator {
      */
     private final Map<String, List<EvaluationConditionalFormatRule>> formats = new HashMap<>();
 
+    /**
+     * Sheets with many conditional formatting ranges would need to check all of them for each cell,
+     * so the ranges of each sheet are indexed. The indexes are discarded together with the rules.
+     */
+    private final Map<String, ConditionalFormattingRuleIndex> indexes = new HashMap<>();
+
     /**
      * Evaluating rules for cells in their region(s) is expensive, so we want to cache them,
      * and empty/reevaluate the cache when values change.
@@ -67,8 +77,18 @@ public class ConditionalFormattingEvaluator {
      * Rule lists are in priority order, as evaluated by Excel (smallest priority # for XSSF, definition order for HSSF)
      * <p>
      * CellReference implements equals().
+     * <p>
+     * The cache is limited to {@link #getMaxCachedValues()} cells, the oldest entries are evicted first.
      */
-    private final Map<CellReference, List<EvaluationConditionalFormatRule>> values = new HashMap<>();
+    private final Map<CellReference, List<EvaluationConditionalFormatRule>> values =
+        new LinkedHashMap<CellReference, List<EvaluationConditionalFormatRule>>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CellReference, List<EvaluationConditionalFormatRule>> eldest) {
+                return size() > maxCachedValues;
+            }
+        };
+
+    private int maxCachedValues = DEFAULT_MAX_CACHED_VALUES;
 
     public ConditionalFormattingEvaluator(Workbook wb, WorkbookEvaluatorProvider provider) {
         this.workbook = wb;
@@ -85,6 +105,7 @@ public class ConditionalFormattingEvaluator {
      */
     public void clearAllCachedFormats() {
         formats.clear();
+        indexes.clear();
     }
 
     /**
@@ -98,6 +119,31 @@ public class ConditionalFormattingEvaluator {
         values.clear();
     }
 
+    /**
+     * @return the maximum number of cells, whose matching rules are cached
+     * @since POI 5.3.1
+     */
+    public int getMaxCachedValues() {
+        return maxCachedValues;
+    }
+
+    /**
+     * Limits the number of cells, whose matching rules are cached. When more cells are evaluated,
+     * the results of the cells evaluated first are discarded and evaluated again when needed.
+     *
+     * @param maxCachedValues the maximum number of cached cells, 0 to disable the cache
+     * @since POI 5.3.1
+     */
+    public void setMaxCachedValues(int maxCachedValues) {
+        if (maxCachedValues < 0) {
+            throw new IllegalArgumentException("The cache size must not be negative, but was " + maxCachedValues);
+        }
+        this.maxCachedValues = maxCachedValues;
+        if (values.size() > maxCachedValues) {
+            values.clear();
+        }
+    }
+
     /**
      * lazy load by sheet since reading can be expensive
      *
@@ -130,6 +176,45 @@ public class ConditionalFormattingEvaluator {
         return Collections.unmodifiableList(rules);
     }
 
+    /**
+     * @param sheet The sheet to look at
+     * @return the index of the rule regions of the sheet
+     */
+    private ConditionalFormattingRuleIndex getIndex(Sheet sheet) {
+        final String sheetName = sheet.getSheetName();
+        ConditionalFormattingRuleIndex index = indexes.get(sheetName);
+        if (index == null) {
+            index = new ConditionalFormattingRuleIndex(getRules(sheet));
+            indexes.put(sheetName, index);
+        }
+        return index;
+    }
+
+    /**
+     * @param candidates the rules with a region containing the cell, in priority order
+     * @return the matching rules
+     */
+    private static List<EvaluationConditionalFormatRule> matchRules(
+            List<EvaluationConditionalFormatRule> candidates, CellReference cellRef) {
+        /*
+         * Per Excel help:
+         * https://support.office.com/en-us/article/Manage-conditional-formatting-rule-precedence-e09711a3-48df-4bcb-b82c-9d8b8b22463d#__toc269129417
+         * stopIfTrue is true for all rules from HSSF files, and an explicit value for XSSF files.
+         * thus the explicit ordering of the rule lists in #getFormattingRulesForSheet(Sheet)
+         */
+        final List<EvaluationConditionalFormatRule> rules = new ArrayList<>();
+        for (EvaluationConditionalFormatRule rule : candidates) {
+            if (rule.matches(cellRef)) {
+                rules.add(rule);
+                if (rule.getRule().getStopIfTrue()) {
+                    break; // a previous rule matched and wants no more evaluations
+                }
+            }
+        }
+        Collections.sort(rules);
+        return rules;
+    }
+
     /**
      * This checks all applicable {@link ConditionalFormattingRule}s for the cell's sheet,
      * in defined "priority" order, returning the matches if any.  This is a property currently
@@ -157,8 +242,6 @@ public class ConditionalFormattingEvaluator {
 
         if (rules == null) {
             // compute and cache them
-            rules = new ArrayList<>();
-
             final Sheet sheet;
             if (cellRef.getSheetName() != null) {
                 sheet = workbook.getSheet(cellRef.getSheetName());
@@ -166,26 +249,11 @@ public class ConditionalFormattingEvaluator {
                 sheet = workbook.getSheetAt(workbook.getActiveSheetIndex());
             }
 
-            /*
-             * Per Excel help:
-             * https://support.office.com/en-us/article/Manage-conditional-formatting-rule-precedence-e09711a3-48df-4bcb-b82c-9d8b8b22463d#__toc269129417
-             * stopIfTrue is true for all rules from HSSF files, and an explicit value for XSSF files.
-             * thus the explicit ordering of the rule lists in #getFormattingRulesForSheet(Sheet)
-             */
-            boolean stopIfTrue = false;
-            for (EvaluationConditionalFormatRule rule : getRules(sheet)) {
-
-                if (stopIfTrue) {
-                    continue; // a previous rule matched and wants no more evaluations
-                }
-
-                if (rule.matches(cellRef)) {
-                    rules.add(rule);
-                    stopIfTrue = rule.getRule().getStopIfTrue();
-                }
+            // only the rules with a region containing the cell can match
+            rules = matchRules(getIndex(sheet).getRules(cellRef.getRow(), cellRef.getCol()), cellRef);
+            if (maxCachedValues > 0) {
+                values.put(cellRef, rules);
             }
-            Collections.sort(rules);
-            values.put(cellRef, rules);
         }
 
         return Collections.unmodifiableList(rules);
@@ -217,6 +285,64 @@ public class ConditionalFormattingEvaluator {
         return getConditionalFormattingForCell(getRef(cell));
     }
 
+    /**
+     * Evaluates the conditional formatting of all cells in a range of a sheet, including undefined cells.
+     * This looks up the rules, which may apply to a row, only once for all columns of the range.
+     * <p>
+     * The results are neither taken from nor added to the cache of {@link #getConditionalFormattingForCell(CellReference)},
+     * so a large range doesn't evict the cached cells.
+     *
+     * @param sheet The sheet to look at
+     * @param range The cells to evaluate
+     * @return the unmodifiable lists of the matching rules, in priority order, by cell reference in row-major order.
+     *         Cells without matching rules are omitted.
+     * @see #getConditionalFormattingForCell(CellReference)
+     * @since POI 5.3.1
+     */
+    public Map<CellReference, List<EvaluationConditionalFormatRule>> getConditionalFormattingForRange(
+            Sheet sheet, CellRangeAddressBase range) {
+        final Map<CellReference, List<EvaluationConditionalFormatRule>> result = new LinkedHashMap<>();
+        final ConditionalFormattingRuleIndex index = getIndex(sheet);
+        final int[] found = new int[index.getNumberOfRegions()];
+        final int[] ruleIdx = new int[found.length];
+        final String sheetName = sheet.getSheetName();
+
+        for (int r = range.getFirstRow(); r <= range.getLastRow(); r++) {
+            final int cnt = index.findRegions(r, found);
+            if (cnt == 0) {
+                continue;
+            }
+            // only visit the columns covered by the regions overlapping this row
+            int firstCol = Integer.MAX_VALUE, lastCol = -1;
+            for (int i = 0; i < cnt; i++) {
+                final CellRangeAddress region = index.getRegion(found[i]);
+                firstCol = Math.min(firstCol, region.getFirstColumn());
+                lastCol = Math.max(lastCol, region.getLastColumn());
+            }
+            firstCol = Math.max(firstCol, range.getFirstColumn());
+            lastCol = Math.min(lastCol, range.getLastColumn());
+
+            for (int c = firstCol; c <= lastCol; c++) {
+                int ruleCnt = 0;
+                for (int i = 0; i < cnt; i++) {
+                    final CellRangeAddress region = index.getRegion(found[i]);
+                    if (region.getFirstColumn() <= c && c <= region.getLastColumn()) {
+                        ruleIdx[ruleCnt++] = index.getRuleIndex(found[i]);
+                    }
+                }
+                if (ruleCnt == 0) {
+                    continue;
+                }
+                final CellReference cellRef = new CellReference(sheetName, r, c, false, false);
+                final List<EvaluationConditionalFormatRule> rules = matchRules(index.toRules(ruleIdx, ruleCnt), cellRef);
+                if (!rules.isEmpty()) {
+                    result.put(cellRef, Collections.unmodifiableList(rules));
+                }
+            }
+        }
+        return result;
+    }
+
     public static CellReference getRef(Cell cell) {
         return new CellReference(cell.getSheet().getSheetName(), cell.getRowIndex(), cell.getColumnIndex(), false, false);
     }
@@ -0,0 +1,192 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * Finds the conditional formatting rules of a sheet, which have a region containing a cell,
+ * without checking the regions of all rules.<p>
+ *
+ * The regions are sorted by their first row and kept in an implicit interval tree, which stores
+ * the maximum last row of each subtree. So a lookup only visits the regions overlapping the
+ * requested row, instead of all regions of the sheet.
+ */
+/* package */ final class ConditionalFormattingRuleIndex {
+    private final List<EvaluationConditionalFormatRule> rules;
+
+    /** the regions of all rules, sorted by their first row */
+    private final CellRangeAddress[] regions;
+    /** the index of the rule of each region */
+    private final int[] ruleIndexes;
+    /** the first rows of the regions, for binary searches */
+    private final int[] firstRows;
+    /** the maximum last row of the regions below each node, the leaves start at {@link #leafOffset} */
+    private final int[] maxLastRows;
+    private final int leafOffset;
+
+    /**
+     * @param rules the rules of a sheet, in priority order
+     */
+    ConditionalFormattingRuleIndex(List<EvaluationConditionalFormatRule> rules) {
+        this.rules = rules;
+
+        final List<CellRangeAddress> allRegions = new ArrayList<>();
+        final List<Integer> allRuleIndexes = new ArrayList<>();
+        for (int i = 0; i < rules.size(); i++) {
+            for (CellRangeAddress region : rules.get(i).getRegions()) {
+                allRegions.add(region);
+                allRuleIndexes.add(i);
+            }
+        }
+        final Integer[] order = new Integer[allRegions.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> allRegions.get(i).getFirstRow()));
+
+        final int count = order.length;
+        regions = new CellRangeAddress[count];
+        ruleIndexes = new int[count];
+        firstRows = new int[count];
+        for (int i = 0; i < count; i++) {
+            regions[i] = allRegions.get(order[i]);
+            ruleIndexes[i] = allRuleIndexes.get(order[i]);
+            firstRows[i] = regions[i].getFirstRow();
+        }
+
+        int size = 1;
+        while (size < count) {
+            size <<= 1;
+        }
+        leafOffset = size;
+        maxLastRows = new int[2 * size];
+        Arrays.fill(maxLastRows, -1);
+        for (int i = 0; i < count; i++) {
+            maxLastRows[size + i] = regions[i].getLastRow();
+        }
+        for (int node = size - 1; node > 0; node--) {
+            maxLastRows[node] = Math.max(maxLastRows[2 * node], maxLastRows[2 * node + 1]);
+        }
+    }
+
+    /**
+     * @return the rules, in priority order, with a region containing the cell
+     */
+    List<EvaluationConditionalFormatRule> getRules(int row, int column) {
+        // a buffer per lookup, so lookups can run concurrently or nested
+        final int[] found = new int[upperBound(row)];
+        final int cnt = findRegions(row, found);
+        // the rule indexes replace the region indexes, which have already been read
+        int ruleCnt = 0;
+        for (int i = 0; i < cnt; i++) {
+            final CellRangeAddress region = regions[found[i]];
+            if (region.getFirstColumn() <= column && column <= region.getLastColumn()) {
+                found[ruleCnt++] = ruleIndexes[found[i]];
+            }
+        }
+        return toRules(found, ruleCnt);
+    }
+
+    /**
+     * Finds the regions overlapping the given row.
+     *
+     * @param row the row
+     * @param found receives the indexes of the found regions, needs to be large enough for all regions
+     *  starting before or at the row
+     * @return the number of found regions
+     */
+    int findRegions(int row, int[] found) {
+        // only the regions starting before or at the row can contain it
+        int end = upperBound(row);
+        return (end == 0) ? 0 : findRegions(1, 0, leafOffset, end, row, found, 0);
+    }
+
+    private int findRegions(int node, int from, int to, int end, int row, int[] found, int cnt) {
+        if (from >= end || maxLastRows[node] < row) {
+            return cnt;
+        }
+        if (node >= leafOffset) {
+            found[cnt++] = node - leafOffset;
+            return cnt;
+        }
+        final int mid = (from + to) >>> 1;
+        cnt = findRegions(2 * node, from, mid, end, row, found, cnt);
+        return findRegions(2 * node + 1, mid, to, end, row, found, cnt);
+    }
+
+    /**
+     * @return the index of the first region starting after the given row
+     */
+    private int upperBound(int row) {
+        int lo = 0, hi = firstRows.length;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (firstRows[mid] <= row) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return the region with the given index, as returned by {@link #findRegions(int, int[])}
+     */
+    CellRangeAddress getRegion(int regionIdx) {
+        return regions[regionIdx];
+    }
+
+    /**
+     * @return the index of the rule of the region with the given index
+     */
+    int getRuleIndex(int regionIdx) {
+        return ruleIndexes[regionIdx];
+    }
+
+    /**
+     * @return the number of regions of all rules
+     */
+    int getNumberOfRegions() {
+        return regions.length;
+    }
+
+    /**
+     * @return the rules with the given indexes in priority order, without duplicates
+     */
+    List<EvaluationConditionalFormatRule> toRules(int[] ruleIdx, int cnt) {
+        if (cnt == 0) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(ruleIdx, 0, cnt);
+        final List<EvaluationConditionalFormatRule> result = new ArrayList<>(cnt);
+        for (int i = 0; i < cnt; i++) {
+            if (i == 0 || ruleIdx[i] != ruleIdx[i - 1]) {
+                result.add(rules.get(ruleIdx[i]));
+            }
+        }
+        return result;
+    }
+}
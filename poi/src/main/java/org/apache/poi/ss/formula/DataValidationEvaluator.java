@@ -18,10 +18,13 @@
 package org.apache.poi.ss.formula;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.poi.ss.formula.eval.BlankEval;
 import org.apache.poi.ss.formula.eval.BoolEval;
@@ -30,12 +33,16 @@ import org.apache.poi.ss.formula.eval.NumberEval;
 import org.apache.poi.ss.formula.eval.RefEval;
 import org.apache.poi.ss.formula.eval.StringEval;
 import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.ptg.AbstractFunctionPtg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.ptg.RefPtgBase;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.DataValidation;
 import org.apache.poi.ss.usermodel.DataValidationConstraint;
 import org.apache.poi.ss.usermodel.DataValidationConstraint.OperatorType;
 import org.apache.poi.ss.usermodel.DataValidationConstraint.ValidationType;
+import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddressBase;
@@ -250,6 +257,198 @@ public class DataValidationEvaluator {
         return ValidationEnum.isValid(cell, context);
     }
 
+    /**
+     * Validates all cells of a range, including undefined cells, like {@link #isValidCell(CellReference)}.
+     * <p>
+     * The validation of each part of the range is resolved once, instead of searching the validation
+     * regions for every cell. The allowed values of list validations, which don't depend on the
+     * position of the cell, are evaluated once per validation region.
+     * <p>
+     * The result has a bit for each cell of the range, in row-major order, i.e. the bit
+     * {@code (row - range.getFirstRow()) * range.getNumberOfColumns() + (column - range.getFirstColumn())}
+     * is set if the cell fails its validation.
+     *
+     * @param sheet The sheet to validate
+     * @param range The cells to validate
+     * @return the invalid cells of the range
+     * @throws IllegalArgumentException if the range has more than {@link Integer#MAX_VALUE} cells
+     * @see #isValidCell(CellReference)
+     * @since POI 5.3.1
+     */
+    public BitSet getInvalidCells(Sheet sheet, CellRangeAddressBase range) {
+        final int firstRow = range.getFirstRow();
+        final int firstCol = range.getFirstColumn();
+        final int width = range.getLastColumn() - firstCol + 1;
+        final long cellCount = (long) (range.getLastRow() - firstRow + 1) * width;
+        if (cellCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The range " + range.formatAsString() + " has too many cells");
+        }
+
+        final BitSet invalid = new BitSet();
+        final List<? extends DataValidation> dataValidations = getValidations(sheet);
+        if (dataValidations == null) {
+            return invalid;
+        }
+
+        // the cells, which already got their validation, as only the first matching validation applies
+        final BitSet resolved = new BitSet();
+        final String sheetName = sheet.getSheetName();
+        for (DataValidation dv : dataValidations) {
+            final CellRangeAddressList regions = dv.getRegions();
+            if (regions == null) {
+                break;
+            }
+            for (CellRangeAddressBase region : regions.getCellRangeAddresses()) {
+                final int fromRow = Math.max(firstRow, region.getFirstRow());
+                final int toRow = Math.min(range.getLastRow(), region.getLastRow());
+                final int fromCol = Math.max(firstCol, region.getFirstColumn());
+                final int toCol = Math.min(range.getLastColumn(), region.getLastColumn());
+                if (fromRow > toRow || fromCol > toCol) {
+                    continue;
+                }
+
+                final RegionValidator validator = new RegionValidator(dv, region, sheetName);
+                for (int r = fromRow; r <= toRow; r++) {
+                    final Row row = sheet.getRow(r);
+                    for (int c = fromCol; c <= toCol; c++) {
+                        final int bit = (r - firstRow) * width + (c - firstCol);
+                        if (resolved.get(bit)) {
+                            continue;
+                        }
+                        resolved.set(bit);
+                        final Cell cell = (row == null) ? null : row.getCell(c);
+                        if (!validator.isValid(cell, r, c)) {
+                            invalid.set(bit);
+                        }
+                    }
+                }
+            }
+        }
+        return invalid;
+    }
+
+    /**
+     * Validates the cells of a validation region for {@link #getInvalidCells(Sheet, CellRangeAddressBase)}
+     */
+    private final class RegionValidator {
+        private final DataValidation dv;
+        private final CellRangeAddressBase region;
+        private final String sheetName;
+        private final boolean constantList;
+        /** the allowed values of a constant list validation, once evaluated */
+        private Set<Object> listValues;
+        /** true, if the constant list contains a blank value, so any value is allowed */
+        private boolean anyListValue;
+
+        RegionValidator(DataValidation dv, CellRangeAddressBase region, String sheetName) {
+            this.dv = dv;
+            this.region = region;
+            this.sheetName = sheetName;
+            this.constantList = isConstantList(dv.getValidationConstraint(), sheetName, region);
+        }
+
+        boolean isValid(Cell cell, int row, int col) {
+            // if empty, return not allowed flag
+            if (   cell == null
+                || isType(cell, CellType.BLANK)
+                || (isType(cell,CellType.STRING)
+                    && (cell.getStringCellValue() == null || cell.getStringCellValue().isEmpty())
+                   )
+               ) {
+                return dv.getEmptyCellAllowed();
+            }
+
+            final DataValidationContext context =
+                new DataValidationContext(dv, DataValidationEvaluator.this, region, new CellReference(sheetName, row, col, false, false));
+            if (!constantList) {
+                return ValidationEnum.isValid(cell, context);
+            }
+
+            if (listValues == null) {
+                listValues = new HashSet<>();
+                for (ValueEval listVal : getValidationValuesForConstraint(context)) {
+                    final ValueEval comp = listVal instanceof RefEval ? ((RefEval) listVal).getInnerValueEval(context.getSheetIndex()) : listVal;
+                    // any value is valid if the list contains a blank value per Excel help
+                    if (comp instanceof BlankEval) {
+                        anyListValue = true;
+                    } else if (comp instanceof BoolEval) {
+                        listValues.add(((BoolEval) comp).getBooleanValue());
+                    } else if (comp instanceof NumberEval) {
+                        listValues.add(normalize(((NumberEval) comp).getNumberValue()));
+                    } else if (comp instanceof StringEval) {
+                        listValues.add(foldCase(((StringEval) comp).getStringValue()));
+                    }
+                }
+            }
+            if (anyListValue) {
+                return true;
+            }
+            if (isType(cell, CellType.BOOLEAN)) {
+                return listValues.contains(cell.getBooleanCellValue());
+            }
+            if (isType(cell, CellType.NUMERIC)) {
+                return listValues.contains(normalize(cell.getNumericCellValue()));
+            }
+            if (isType(cell, CellType.STRING)) {
+                return listValues.contains(foldCase(cell.getStringCellValue()));
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @return true, if the constraint is a list validation, whose values don't depend on the validated cell
+     */
+    private boolean isConstantList(DataValidationConstraint constraint, String sheetName, CellRangeAddressBase region) {
+        if (constraint.getValidationType() != ValidationType.LIST) {
+            return false;
+        }
+        if (constraint.getExplicitListValues() != null && constraint.getExplicitListValues().length > 0) {
+            return true;
+        }
+        final String formula = constraint.getFormula1();
+        if (formula == null) {
+            return true;
+        }
+        try {
+            final int sheetIndex = workbookEvaluator.getSheetIndex(sheetName);
+            final Ptg[] ptgs = FormulaParser.parse(formula, (FormulaParsingWorkbook) workbookEvaluator.getWorkbook(),
+                FormulaType.DATAVALIDATION_LIST, sheetIndex, region.getFirstRow());
+            for (Ptg ptg : ptgs) {
+                // relative references are moved with the validated cell, functions like ROW() depend on it
+                if (ptg instanceof RefPtgBase
+                    && (((RefPtgBase) ptg).isRowRelative() || ((RefPtgBase) ptg).isColRelative())) {
+                    return false;
+                }
+                if (ptg instanceof AbstractFunctionPtg) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // let the evaluation of each cell report the failure
+            return false;
+        }
+    }
+
+    /**
+     * The list values are compared with ==, so 0.0 and -0.0 need to match
+     */
+    private static Double normalize(double value) {
+        return (value == 0.0) ? 0.0 : value;
+    }
+
+    /**
+     * Maps the string to a key, which matches all strings being {@link String#equalsIgnoreCase(String) equal ignoring case}
+     */
+    private static String foldCase(String str) {
+        final char[] chars = str.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
     /**
     * Note that this assumes the cell cached value is up to date and in sync with data edits
      *
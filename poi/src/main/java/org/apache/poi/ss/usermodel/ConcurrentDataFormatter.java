@@ -0,0 +1,113 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.apache.poi.ss.formula.ConditionalFormattingEvaluator;
+
+/**
+ * A {@link DataFormatter} which can be shared between threads.<p>
+ *
+ * {@code DataFormatter} caches {@link java.text.Format} instances, which are not thread-safe,
+ * so each thread formats with its own {@code DataFormatter} created by the given factory.
+ * The parsed multi-part formats of {@link org.apache.poi.ss.format.CellFormat} are shared
+ * between all threads.<p>
+ *
+ * The per-thread formatters are kept until the thread ends or this instance is garbage collected,
+ * so a {@code ConcurrentDataFormatter} should be reused for all the formatting of a task, e.g.
+ * by the workers of an export, instead of being created per workbook or cell.
+ *
+ * @since POI 5.3.1
+ */
+public final class ConcurrentDataFormatter {
+    private final ThreadLocal<DataFormatter> formatters;
+
+    /**
+     * Creates a formatter using the {@link org.apache.poi.util.LocaleUtil#getUserLocale() user locale}.
+     */
+    public ConcurrentDataFormatter() {
+        this(DataFormatter::new);
+    }
+
+    /**
+     * Creates a formatter using the given locale.
+     *
+     * @param locale the locale
+     * @param emulateCSV whether to emulate CSV output
+     */
+    public ConcurrentDataFormatter(Locale locale, boolean emulateCSV) {
+        this(() -> new DataFormatter(locale, emulateCSV));
+    }
+
+    /**
+     * Creates a formatter, which uses the formatters of the given factory.
+     * The factory needs to return a new and identically configured instance on each call,
+     * e.g. with the same custom formats.
+     *
+     * @param factory the factory for the per-thread formatters
+     */
+    public ConcurrentDataFormatter(Supplier<DataFormatter> factory) {
+        Objects.requireNonNull(factory, "factory");
+        formatters = ThreadLocal.withInitial(factory);
+    }
+
+    /**
+     * @return the {@code DataFormatter} of the current thread, which must not be passed to other threads
+     */
+    public DataFormatter getFormatter() {
+        return formatters.get();
+    }
+
+    /**
+     * @see DataFormatter#formatCellValue(Cell)
+     */
+    public String formatCellValue(Cell cell) {
+        return formatters.get().formatCellValue(cell);
+    }
+
+    /**
+     * @see DataFormatter#formatCellValue(Cell, FormulaEvaluator)
+     */
+    public String formatCellValue(Cell cell, FormulaEvaluator evaluator) {
+        return formatters.get().formatCellValue(cell, evaluator);
+    }
+
+    /**
+     * @see DataFormatter#formatCellValue(Cell, FormulaEvaluator, ConditionalFormattingEvaluator)
+     */
+    public String formatCellValue(Cell cell, FormulaEvaluator evaluator, ConditionalFormattingEvaluator cfEvaluator) {
+        return formatters.get().formatCellValue(cell, evaluator, cfEvaluator);
+    }
+
+    /**
+     * @see DataFormatter#formatRawCellContents(double, int, String)
+     */
+    public String formatRawCellContents(double value, int formatIndex, String formatString) {
+        return formatters.get().formatRawCellContents(value, formatIndex, formatString);
+    }
+
+    /**
+     * @see DataFormatter#formatRawCellContents(double, int, String, boolean)
+     */
+    public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+        return formatters.get().formatRawCellContents(value, formatIndex, formatString, use1904Windowing);
+    }
+}
@@ -28,6 +28,7 @@ import java.text.Format;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -112,6 +113,10 @@ import org.apache.poi.util.StringUtil;
  *   These locale directives are (currently) ignored.
  *  You can use {@link DateFormatConverter} to do some of this localisation if
  *   you need it.
+ * <p>
+ *  Instances of this class are not thread-safe. Use a {@link ConcurrentDataFormatter}
+ *   to format cells from multiple threads.
+ * </p>
  */
 @SuppressWarnings("unused")
 public class DataFormatter {
@@ -162,6 +167,15 @@ public class DataFormatter {
      */
     private static final Pattern alternateGrouping = Pattern.compile("([#0]([^.#0])[#0]{3})");
 
+    /** A pattern to add the missing '+' to the exponent of a number in E-notation */
+    private static final Pattern exponentPattern = Pattern.compile("E(\\d)");
+
+    /** Formats with an index up to this limit are looked up by their index */
+    private static final int MAX_INDEXED_FORMATS = 1024;
+
+    /** The maximum number of other analyzed formats, which are kept */
+    private static final int MAX_COMPILED_FORMATS = 4096;
+
     /**
       * Cells formatted with a date or time format and which contain invalid date or time values
      *  show 255 pound signs ("#").
@@ -200,6 +214,19 @@ public class DataFormatter {
      */
     private final Map<String,Format> formats = new HashMap<>();
 
+    /** The analyzed formats by their format index */
+    private CompiledFormat[] compiledFormatsByIndex = new CompiledFormat[0];
+
+    /** The analyzed formats with an index beyond {@link #MAX_INDEXED_FORMATS} by their format string */
+    private final Map<String,CompiledFormat> compiledFormats = new HashMap<>();
+
+    /** The date formats by their format index */
+    private DateFormatCache dateFormats = new DateFormatCache();
+
+    /** buffer and field position for formatting raw values */
+    private final StringBuffer reusableBuffer = new StringBuffer();
+    private final FieldPosition fieldPosition = new FieldPosition(0);
+
     /** whether CSV friendly adjustments should be made to the formatted text **/
     private boolean emulateCSV = false;
 
@@ -328,6 +355,29 @@ public class DataFormatter {
         return use4DigitYearsInAllDateFormats;
     }
 
+    /**
+     * Sets the cache, which remembers the date formats, e.g. the cache of the
+     * {@link DateFormatCache#forFormatTable(Object) format table} of the workbook.
+     * By default, each formatter uses its own cache.
+     *
+     * @param dateFormatCache the cache for the date formats
+     * @since POI 5.3.1
+     */
+    public void setDateFormatCache(DateFormatCache dateFormatCache) {
+        if (dateFormatCache == null) {
+            throw new IllegalArgumentException("dateFormatCache must not be null");
+        }
+        this.dateFormats = dateFormatCache;
+    }
+
+    /**
+     * @return the cache, which remembers the date formats
+     * @since POI 5.3.1
+     */
+    public DateFormatCache getDateFormatCache() {
+        return dateFormats;
+    }
+
     /**
      * Return a Format for the given cell if one exists, otherwise try to
      * create one. This method will return {@code null} if any of the
@@ -370,7 +420,10 @@ public class DataFormatter {
         if (formatStrIn == null) {
             throw new IllegalArgumentException("Missing input format for value " + cellValue + " and index " + formatIndex);
         }
+        return getFormat(cellValue, compileFormat(formatIndex, formatStrIn), use1904Windowing);
+    }
 
+    private Format getFormat(double cellValue, CompiledFormat compiled, boolean use1904Windowing) {
         checkForLocaleChange();
 
         // Might be better to separate out the n p and z formats, falling back to p when n and z are not set.
@@ -379,8 +432,7 @@ public class DataFormatter {
         // int i = cellValue > 0.0 ? 0 : cellValue < 0.0 ? 1 : 2;
         // String formatStr = (i < formatBits.length) ? formatBits[i] : formatBits[0];
 
-        // this replace is done to fix https://bz.apache.org/bugzilla/show_bug.cgi?id=63211
-        String formatStr = formatStrIn.replace("\\%", "\'%\'");
+        String formatStr = compiled.formatStr;
 
         // Excel supports 2+ part conditional data formats, eg positive/negative/zero,
         //  or (>1000),(>0),(0),(negative). As Java doesn't handle these kinds
@@ -388,16 +440,13 @@ public class DataFormatter {
         //  handle these ourselves in a special way.
         // For now, if we detect 2+ parts, we call out to CellFormat to handle it
         // TODO Going forward, we should really merge the logic between the two classes
-        if (formatStr.contains(";") &&
-                (formatStr.indexOf(';') != formatStr.lastIndexOf(';')
-                 || rangeConditionalPattern.matcher(formatStr).matches()
-                ) ) {
+        if (compiled.multiPart) {
             try {
                 // Ask CellFormat to get a formatter for it
                 CellFormat cfmt = CellFormat.getInstance(locale, formatStr);
                 // CellFormat requires callers to identify date vs not, so do so
                 // don't try to handle Date value 0, let a 3 or 4-part format take care of it
-                Object cellValueO = (cellValue != 0.0 && DateUtil.isADateFormat(formatIndex, formatStr))
+                Object cellValueO = (cellValue != 0.0 && compiled.isMultiPartDate)
                     ? DateUtil.getJavaDate(cellValue, use1904Windowing)
                     : cellValue;
                 // Wrap and return (non-cacheable - CellFormat does that)
@@ -408,8 +457,8 @@ public class DataFormatter {
         }
 
        // Excel's # with value 0 will output empty where Java will output 0. This hack removes the # from the format.
-       if (emulateCSV && cellValue == 0.0 && formatStr.contains("#") && !formatStr.contains("0")) {
-           formatStr = formatStr.replace("#", "");
+       if (emulateCSV && cellValue == 0.0 && compiled.zeroFormatStr != null) {
+           formatStr = compiled.zeroFormatStr;
        }
 
         // See if we already have it cached
@@ -424,11 +473,43 @@ public class DataFormatter {
         }
 
         // Build a formatter, and cache it
-        format = createFormat(cellValue, formatIndex, formatStr);
+        format = createFormat(cellValue, compiled.formatIndex, formatStr);
         formats.put(formatStr, format);
         return format;
     }
 
+    /**
+     * Returns the analysis of the given format, which only depends on the format index and string.
+     * Formats are looked up by their index first, as the index usually identifies the format string
+     * of the workbook, and only need to be compiled once per distinct format.
+     */
+    private CompiledFormat compileFormat(int formatIndex, String formatStr) {
+        if (formatIndex >= 0 && formatIndex < MAX_INDEXED_FORMATS) {
+            if (formatIndex >= compiledFormatsByIndex.length) {
+                compiledFormatsByIndex = Arrays.copyOf(compiledFormatsByIndex,
+                    Math.min(MAX_INDEXED_FORMATS, Math.max(2 * compiledFormatsByIndex.length, formatIndex + 32)));
+            }
+            CompiledFormat compiled = compiledFormatsByIndex[formatIndex];
+            // the index might refer to a different format, e.g. when formatting cells of another workbook
+            if (compiled != null && (compiled.formatStrIn == formatStr || compiled.formatStrIn.equals(formatStr))) {
+                return compiled;
+            }
+            compiled = new CompiledFormat(formatIndex, formatStr, dateFormats);
+            compiledFormatsByIndex[formatIndex] = compiled;
+            return compiled;
+        }
+
+        CompiledFormat compiled = compiledFormats.get(formatStr);
+        if (compiled == null || compiled.formatIndex != formatIndex) {
+            if (compiledFormats.size() >= MAX_COMPILED_FORMATS) {
+                compiledFormats.clear();
+            }
+            compiled = new CompiledFormat(formatIndex, formatStr, dateFormats);
+            compiledFormats.put(formatStr, compiled);
+        }
+        return compiled;
+    }
+
     /**
      * Create and return a Format based on the format string from a  cell's
      * style. If the pattern cannot be parsed, return a default pattern.
@@ -496,7 +577,7 @@ public class DataFormatter {
             return null;
         }
 
-        if(DateUtil.isADateFormat(formatIndex, formatStr) &&
+        if(dateFormats.isADateFormat(formatIndex, formatStr) &&
                 DateUtil.isValidExcelDate(cellValue)) {
             return createDateFormat(formatStr, cellValue);
         }
@@ -962,7 +1043,8 @@ public class DataFormatter {
         } catch (NumberFormatException nfe) {
             formatted = numberFormat.format(d);
         }
-        return formatted.replaceFirst("E(\\d)", "E+$1"); // to match Excel's E-notation
+        // to match Excel's E-notation
+        return (formatted.indexOf('E') < 0) ? formatted : exponentPattern.matcher(formatted).replaceFirst("E+$1");
     }
 
     /**
@@ -979,29 +1061,70 @@ public class DataFormatter {
      * @see #formatCellValue(Cell)
      */
     public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+        StringBuffer buf = reusableBuffer;
+        buf.setLength(0);
+        formatRawCellContents(value, formatIndex, formatString, use1904Windowing, buf);
+        return buf.toString();
+    }
+
+    /**
+     * Formats the given raw cell value, based on the supplied format index and string,
+     * according to excel style rules and appends it to the given builder.<p>
+     *
+     * The analysis of the format is cached by the format index, so this avoids the
+     * intermediate strings of {@link #formatRawCellContents(double, int, String, boolean)}
+     * when writing many values, e.g. into a CSV file.
+     *
+     * @param value the raw cell value
+     * @param formatIndex the index of the format
+     * @param formatString the format string
+     * @param use1904Windowing whether the workbook uses the 1904 date system
+     * @param out the builder to append the formatted value to
+     * @return the given builder
+     * @see #formatCellValue(Cell)
+     * @since POI 5.3.1
+     */
+    public StringBuilder formatRawCellContents(double value, int formatIndex, String formatString,
+                                               boolean use1904Windowing, StringBuilder out) {
+        StringBuffer buf = reusableBuffer;
+        buf.setLength(0);
+        formatRawCellContents(value, formatIndex, formatString, use1904Windowing, buf);
+        return out.append(buf);
+    }
+
+    private void formatRawCellContents(double value, int formatIndex, String formatString,
+                                       boolean use1904Windowing, StringBuffer out) {
         checkForLocaleChange();
 
+        if (formatString == null) {
+            throw new IllegalArgumentException("Missing input format for value " + value + " and index " + formatIndex);
+        }
+        CompiledFormat compiled = compileFormat(formatIndex, formatString);
+
         // Is it a date?
-        if(DateUtil.isADateFormat(formatIndex,formatString)) {
+        if(compiled.isDate) {
             if(DateUtil.isValidExcelDate(value)) {
-                Format dateFormat = getFormat(value, formatIndex, formatString, use1904Windowing);
+                Format dateFormat = getFormat(value, compiled, use1904Windowing);
                 if(dateFormat instanceof ExcelStyleDateFormatter) {
                     // Hint about the raw excel value
                     ((ExcelStyleDateFormatter)dateFormat).setDateToBeFormatted(value);
                 }
                 Date d = DateUtil.getJavaDate(value, use1904Windowing);
-                return performDateFormatting(d, dateFormat);
+                out.append(performDateFormatting(d, dateFormat));
+                return;
             }
             // RK: Invalid dates are 255 #s.
             if (emulateCSV) {
-                return invalidDateTimeString;
+                out.append(invalidDateTimeString);
+                return;
             }
         }
 
         // else Number
-        Format numberFormat = getFormat(value, formatIndex, formatString, use1904Windowing);
+        Format numberFormat = getFormat(value, compiled, use1904Windowing);
         if (numberFormat == null) {
-            return String.valueOf(value);
+            out.append(value);
+            return;
         }
 
         // When formatting 'value', double to text to BigDecimal produces more
@@ -1009,23 +1132,29 @@ public class DataFormatter {
         // previous versions). However, if the value contains E notation, this
         // would expand the values, which we do not want, so revert to
         // original method.
-        String result;
+        final int start = out.length();
         final String textValue = NumberToTextConverter.toText(value);
+        final StringBuffer result;
         if (textValue.indexOf('E') > -1) {
-            result = numberFormat.format(value);
+            result = numberFormat.format(value, out, fieldPosition);
         }
         else {
-            result = numberFormat.format(new BigDecimal(textValue));
+            result = numberFormat.format(new BigDecimal(textValue), out, fieldPosition);
+        }
+        // some formats, like ExcelStyleDateFormatter, post-process the text into a new buffer
+        if (result != out) {
+            out.setLength(start);
+            out.append(result);
         }
 
         // If they requested a non-abbreviated Scientific format,
         //  and there's an E## (but not E-##), add the missing '+' for E+##
-        String fslc = formatString.toLowerCase(Locale.ROOT);
-        if ((fslc.contains("general") || fslc.contains("e+0"))
-                && result.contains("E") && !result.contains("E-")) {
-            result = result.replaceFirst("E", "E+");
+        if (compiled.scientific) {
+            int e = out.indexOf("E", start);
+            if (e >= 0 && out.indexOf("E-", start) < 0) {
+                out.insert(e + 1, '+');
+            }
         }
-        return result;
     }
 
     /**
@@ -1127,7 +1256,7 @@ public class DataFormatter {
         switch (cellType) {
             case NUMERIC :
 
-                if (DateUtil.isCellDateFormatted(cell, cfEvaluator)) {
+                if (dateFormats.isCellDateFormatted(cell, cfEvaluator)) {
                     return getFormattedDateString(cell, cfEvaluator);
                 }
                 return getFormattedNumberString(cell, cfEvaluator);
@@ -1292,7 +1421,7 @@ public class DataFormatter {
         }
 
         /** Format a number as an SSN */
-        public static String format(Number num) {
+        public static synchronized String format(Number num) {
             String result = df.format(num);
             return result.substring(0, 3) + '-' +
                     result.substring(3, 5) + '-' +
@@ -1323,7 +1452,7 @@ public class DataFormatter {
         }
 
         /** Format a number as Zip + 4 */
-        public static String format(Number num) {
+        public static synchronized String format(Number num) {
             String result = df.format(num);
             return result.substring(0, 5) + '-' +
                     result.substring(5, 9);
@@ -1353,7 +1482,7 @@ public class DataFormatter {
         }
 
         /** Format a number as a phone number */
-        public static String format(Number num) {
+        public static synchronized String format(Number num) {
             String result = df.format(num);
             StringBuilder sb = new StringBuilder();
             String seg1, seg2, seg3;
@@ -1416,6 +1545,43 @@ public class DataFormatter {
             return df.parseObject(source, pos);
         }
     }
+    /**
+     * The value independent analysis of a format index and string
+     */
+    private static final class CompiledFormat {
+        private final int formatIndex;
+        /** the format string as given by the caller */
+        private final String formatStrIn;
+        /** the format string with escaped percent signs quoted */
+        private final String formatStr;
+        /** true, if the format has more than two sections or a condition */
+        private final boolean multiPart;
+        /** true, if a multi-part format is a date format */
+        private final boolean isMultiPartDate;
+        /** true, if the format (as given by the caller) is a date format */
+        private final boolean isDate;
+        /** true, if an exponent needs to be prefixed with '+' */
+        private final boolean scientific;
+        /** the format used for zero values when emulating CSV, or null if it's the same format */
+        private final String zeroFormatStr;
+
+        private CompiledFormat(int formatIndex, String formatStrIn, DateFormatCache dateFormats) {
+            this.formatIndex = formatIndex;
+            this.formatStrIn = formatStrIn;
+            // this replace is done to fix https://bz.apache.org/bugzilla/show_bug.cgi?id=63211
+            formatStr = formatStrIn.replace("\\%", "\'%\'");
+            multiPart = formatStr.contains(";") &&
+                (formatStr.indexOf(';') != formatStr.lastIndexOf(';')
+                 || rangeConditionalPattern.matcher(formatStr).matches()
+                );
+            isMultiPartDate = multiPart && DateUtil.isADateFormat(formatIndex, formatStr);
+            isDate = dateFormats.isADateFormat(formatIndex, formatStrIn);
+            String fslc = formatStrIn.toLowerCase(Locale.ROOT);
+            scientific = fslc.contains("general") || fslc.contains("e+0");
+            zeroFormatStr = (formatStr.contains("#") && !formatStr.contains("0")) ? formatStr.replace("#", "") : null;
+        }
+    }
+
     /**
      * Workaround until we merge {@link DataFormatter} with {@link CellFormat}.
      * Constant, non-cachable wrapper around a {@link CellFormatResult}
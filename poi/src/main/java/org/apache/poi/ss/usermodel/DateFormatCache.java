@@ -0,0 +1,160 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.poi.ss.formula.ConditionalFormattingEvaluator;
+
+/**
+ * Remembers which number formats of a workbook are date formats.<p>
+ *
+ * {@link DateUtil#isADateFormat(int, String)} only caches the last checked format per thread,
+ * so alternating formats, e.g. of the columns of a sheet, are analyzed again for each cell.
+ * This cache keeps the result for each format index and checks that the format string of
+ * the index hasn't changed, so it can be used for the cells of a workbook while reading or
+ * modifying it.<p>
+ *
+ * The readers of a workbook share one cache through {@link #forFormatTable(Object)}, e.g. the
+ * handlers of the sheets and their {@link DataFormatter}. Therefore, instances of this class
+ * can be used by several threads.
+ *
+ * @since POI 5.3.1
+ */
+public final class DateFormatCache {
+    /** Formats with an index up to this limit are looked up by their index */
+    private static final int MAX_INDEXED_FORMATS = 1024;
+
+    /** The maximum number of other formats, which are kept */
+    private static final int MAX_OTHER_FORMATS = 4096;
+
+    private static final Map<Object, DateFormatCache> CACHES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private volatile CachedFormat[] indexedFormats = new CachedFormat[0];
+    private final Map<String,Boolean> otherFormats = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the cache of the given style or format table, which is created on first use.
+     * The cache is released together with the table.
+     *
+     * @param formatTable the table, which maps the format indexes to the format strings
+     * @return the date format cache of the table
+     */
+    public static DateFormatCache forFormatTable(Object formatTable) {
+        return CACHES.computeIfAbsent(formatTable, t -> new DateFormatCache());
+    }
+
+    /**
+     * Checks if the given format is a date format.
+     *
+     * @param formatIndex The index of the format, eg from ExtendedFormatRecord.getFormatIndex
+     * @param formatString The format string, eg from FormatRecord.getFormatString
+     * @return true if it is a valid date format, false if not or null
+     * @see DateUtil#isADateFormat(int, String)
+     */
+    public boolean isADateFormat(int formatIndex, String formatString) {
+        if (DateUtil.isInternalDateFormat(formatIndex)) {
+            return true;
+        }
+        if (formatString == null || formatString.isEmpty()) {
+            return false;
+        }
+
+        if (formatIndex < 0 || formatIndex >= MAX_INDEXED_FORMATS) {
+            Boolean isDate = otherFormats.get(formatString);
+            if (isDate == null) {
+                if (otherFormats.size() >= MAX_OTHER_FORMATS) {
+                    otherFormats.clear();
+                }
+                isDate = DateUtil.isADateFormat(formatIndex, formatString);
+                otherFormats.put(formatString, isDate);
+            }
+            return isDate;
+        }
+
+        CachedFormat[] formats = indexedFormats;
+        CachedFormat cached = formatIndex < formats.length ? formats[formatIndex] : null;
+        if (cached != null && (cached.formatString == formatString || cached.formatString.equals(formatString))) {
+            return cached.isDate;
+        }
+
+        boolean isDate = DateUtil.isADateFormat(formatIndex, formatString);
+        synchronized (this) {
+            formats = indexedFormats;
+            if (formatIndex >= formats.length) {
+                int len = Math.min(MAX_INDEXED_FORMATS, Math.max(2 * formats.length, formatIndex + 32));
+                formats = Arrays.copyOf(formats, len);
+            }
+            formats[formatIndex] = new CachedFormat(formatString, isDate);
+            indexedFormats = formats;
+        }
+        return isDate;
+    }
+
+    /**
+     * Checks if the given format is a date format.
+     *
+     * @param numFmt The number format index and string expression, or null if not specified
+     * @return true if it is a valid date format, false if not or null
+     * @see DateUtil#isADateFormat(ExcelNumberFormat)
+     */
+    public boolean isADateFormat(ExcelNumberFormat numFmt) {
+        return numFmt != null && isADateFormat(numFmt.getIdx(), numFmt.getFormat());
+    }
+
+    /**
+     * Check if a cell contains a date, based on the applicable conditional formatting,
+     * if any, or the cell style.
+     *
+     * @param cell The cell to look at
+     * @param cfEvaluator if available, or null
+     * @return true if it looks like a date
+     * @see DateUtil#isCellDateFormatted(Cell, ConditionalFormattingEvaluator)
+     */
+    public boolean isCellDateFormatted(Cell cell, ConditionalFormattingEvaluator cfEvaluator) {
+        if (cell == null) {
+            return false;
+        }
+        double d = cell.getNumericCellValue();
+        return DateUtil.isValidExcelDate(d) && isADateFormat(ExcelNumberFormat.from(cell, cfEvaluator));
+    }
+
+    /**
+     * Forgets all cached formats
+     */
+    public void clear() {
+        synchronized (this) {
+            indexedFormats = new CachedFormat[0];
+        }
+        otherFormats.clear();
+    }
+
+    private static final class CachedFormat {
+        private final String formatString;
+        private final boolean isDate;
+
+        private CachedFormat(String formatString, boolean isDate) {
+            this.formatString = formatString;
+            this.isDate = isDate;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * Workbook scoped lookup of cell styles by their {@link CellUtil} format properties.<p>
+ *
+ * Styles are bucketed by their format properties, apart from the fill colors which
+ * are matched more leniently by {@link CellUtil}. Styles created since the last lookup
+ * are indexed incrementally, so finding an existing style doesn't depend on the number of
+ * styles in the workbook. Candidates are verified against their current properties, as styles
+ * might have been modified after they have been indexed. Before a miss is reported, all styles
+ * are re-keyed by their current properties, so a modified style is still found.
+ */
+final class CellStyleCache {
+    private static final Map<Workbook, CellStyleCache> CACHES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** marker for properties which are not contained in the property map */
+    private static final Object ABSENT = new Object();
+
+    private static final String[] KEY_PROPERTIES = {
+        CellUtil.ALIGNMENT, CellUtil.BORDER_BOTTOM, CellUtil.BORDER_LEFT, CellUtil.BORDER_RIGHT,
+        CellUtil.BORDER_TOP, CellUtil.BOTTOM_BORDER_COLOR, CellUtil.LEFT_BORDER_COLOR, CellUtil.RIGHT_BORDER_COLOR,
+        CellUtil.TOP_BORDER_COLOR, CellUtil.DATA_FORMAT, CellUtil.FILL_BACKGROUND_COLOR,
+        CellUtil.FILL_FOREGROUND_COLOR, CellUtil.FILL_PATTERN, CellUtil.FONT, CellUtil.HIDDEN,
+        CellUtil.INDENTION, CellUtil.LOCKED, CellUtil.ROTATION, CellUtil.VERTICAL_ALIGNMENT,
+        CellUtil.WRAP_TEXT, CellUtil.SHRINK_TO_FIT, CellUtil.QUOTE_PREFIXED
+    };
+
+    /** property key -> ascending style indices */
+    private final Map<List<Object>, List<Integer>> buckets = new HashMap<>();
+    /** style index -> property key at time of indexing */
+    private final List<List<Object>> keys = new ArrayList<>();
+
+    private CellStyleCache() {}
+
+    /**
+     * @param workbook the workbook
+     * @return the style cache of the given workbook
+     */
+    static CellStyleCache forWorkbook(Workbook workbook) {
+        return CACHES.computeIfAbsent(workbook, wb -> new CellStyleCache());
+    }
+
+    /**
+     * Finds the first style of the workbook, which matches the given format properties
+     *
+     * @param workbook the workbook containing the styles
+     * @param properties the desired format properties
+     * @param disableNullColorCheck if {@code true}, missing fill colors need to match exactly
+     * @return the matching style or {@code null} if none was found
+     */
+    CellStyle find(Workbook workbook, Map<String, Object> properties, boolean disableNullColorCheck) {
+        update(workbook);
+
+        CellStyle match = lookup(workbook, properties, disableNullColorCheck);
+        // styles modified via their setters keep their old key until they are looked at again,
+        // so all keys are verified before reporting a miss, which makes the caller create a new style
+        if (match == null && revalidate(workbook)) {
+            match = lookup(workbook, properties, disableNullColorCheck);
+        }
+        return match;
+    }
+
+    private CellStyle lookup(Workbook workbook, Map<String, Object> properties, boolean disableNullColorCheck) {
+        List<Integer> bucket = buckets.get(keyOf(properties));
+        if (bucket == null) {
+            return null;
+        }
+
+        for (int idx : bucket) {
+            CellStyle wbStyle = workbook.getCellStyleAt(idx);
+            Map<String, Object> wbStyleMap = CellUtil.getFormatProperties(wbStyle);
+            // skip styles, which have been modified since they have been indexed
+            if (keys.get(idx).equals(keyOf(wbStyleMap)) &&
+                CellUtil.styleMapsMatch(wbStyleMap, properties, disableNullColorCheck)) {
+                return wbStyle;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Re-keys the styles, which have been modified since they have been indexed
+     *
+     * @return true, if any style has been re-keyed
+     */
+    private boolean revalidate(Workbook workbook) {
+        boolean modified = false;
+        for (int idx = 0; idx < keys.size(); idx++) {
+            List<Object> oldKey = keys.get(idx);
+            if (oldKey == null) {
+                continue;
+            }
+            List<Object> newKey = keyOf(CellUtil.getFormatProperties(workbook.getCellStyleAt(idx)));
+            if (!oldKey.equals(newKey)) {
+                reindex(idx, newKey);
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * Indexes the styles which have been added since the last call
+     */
+    private void update(Workbook workbook) {
+        int numStyles = workbook.getNumCellStyles();
+        if (numStyles < keys.size()) {
+            // styles have been removed, e.g. by HSSFOptimiser - start from scratch
+            buckets.clear();
+            keys.clear();
+        }
+        for (int idx = keys.size(); idx < numStyles; idx++) {
+            CellStyle style = workbook.getCellStyleAt(idx);
+            List<Object> key = (style == null) ? null : keyOf(CellUtil.getFormatProperties(style));
+            keys.add(key);
+            if (key != null) {
+                addToBucket(key, idx);
+            }
+        }
+    }
+
+    private void reindex(int idx, List<Object> newKey) {
+        List<Object> oldKey = keys.get(idx);
+        List<Integer> oldBucket = buckets.get(oldKey);
+        if (oldBucket != null) {
+            oldBucket.remove((Integer)idx);
+            if (oldBucket.isEmpty()) {
+                buckets.remove(oldKey);
+            }
+        }
+        keys.set(idx, newKey);
+        addToBucket(newKey, idx);
+    }
+
+    private void addToBucket(List<Object> key, int idx) {
+        List<Integer> bucket = buckets.computeIfAbsent(key, k -> new ArrayList<>(1));
+        int pos = bucket.size();
+        while (pos > 0 && bucket.get(pos - 1) > idx) {
+            pos--;
+        }
+        bucket.add(pos, idx);
+    }
+
+    private static List<Object> keyOf(Map<String, Object> properties) {
+        Object[] key = new Object[KEY_PROPERTIES.length];
+        for (int i = 0; i < key.length; i++) {
+            String name = KEY_PROPERTIES[i];
+            key[i] = properties.containsKey(name) ? properties.get(name) : ABSENT;
+        }
+        return Arrays.asList(key);
+    }
+}
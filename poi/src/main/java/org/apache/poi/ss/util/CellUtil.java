@@ -38,6 +38,9 @@ import org.apache.poi.util.Beta;
  * style change to a cell, the code will attempt to see if a style already exists that meets your
  * needs. If not, then it will create a new style. This is to prevent creating too many styles.
  * there is an upper limit in Excel on the number of styles that can be supported.
+ * <p>
+ * Existing styles are looked up via a workbook scoped cache keyed by the style properties,
+ * so applying a style doesn't get slower with the number of styles in the workbook.
  */
 public final class CellUtil {
 
@@ -393,7 +396,6 @@ public final class CellUtil {
         Workbook workbook = cell.getSheet().getWorkbook();
         CellStyle originalStyle = cell.getCellStyle();
 
-        CellStyle newStyle = null;
         Map<String, Object> values = getFormatProperties(originalStyle);
         if (properties.containsKey(FILL_FOREGROUND_COLOR_COLOR) && properties.get(FILL_FOREGROUND_COLOR_COLOR) == null) {
             values.remove(FILL_FOREGROUND_COLOR);
@@ -409,20 +411,9 @@ public final class CellUtil {
         }
         putAll(properties, values);
 
-        // index seems like what index the cellstyle is in the list of styles for a workbook.
-        // not good to compare on!
-        int numberCellStyles = workbook.getNumCellStyles();
-
-        for (int i = 0; i < numberCellStyles; i++) {
-            CellStyle wbStyle = workbook.getCellStyleAt(i);
-            Map<String, Object> wbStyleMap = getFormatProperties(wbStyle);
-
-            // the desired style already exists in the workbook. Use the existing style.
-            if (styleMapsMatch(wbStyleMap, values, disableNullColorCheck)) {
-                newStyle = wbStyle;
-                break;
-            }
-        }
+        // the style cache of the workbook finds an existing style without iterating
+        // over all styles of the workbook
+        CellStyle newStyle = CellStyleCache.forWorkbook(workbook).find(workbook, values, disableNullColorCheck);
 
         // the desired style does not exist in the workbook. Create a new style with desired properties.
         if (newStyle == null) {
@@ -433,8 +424,8 @@ public final class CellUtil {
         cell.setCellStyle(newStyle);
     }
 
-    private static boolean styleMapsMatch(final Map<String, Object> newProps,
-                                          final Map<String, Object> storedProps, final boolean disableNullColorCheck) {
+    static boolean styleMapsMatch(final Map<String, Object> newProps,
+                                  final Map<String, Object> storedProps, final boolean disableNullColorCheck) {
         final Map<String, Object> map1Copy = new HashMap<>(newProps);
         final Map<String, Object> map2Copy = new HashMap<>(storedProps);
         final Object backColor1 = map1Copy.remove(FILL_BACKGROUND_COLOR_COLOR);
@@ -497,7 +488,7 @@ public final class CellUtil {
      * @return map of format properties (String -> Object)
      * @see #setFormatProperties(CellStyle, Workbook, Map)
      */
-    private static Map<String, Object> getFormatProperties(CellStyle style) {
+    static Map<String, Object> getFormatProperties(CellStyle style) {
         Map<String, Object> properties = new HashMap<>();
         put(properties, ALIGNMENT, style.getAlignment());
         put(properties, VERTICAL_ALIGNMENT, style.getVerticalAlignment());
@@ -0,0 +1,309 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * Estimates the best-fit width of columns much faster than {@link SheetUtil#getColumnWidth(Sheet, int, boolean)}.<p>
+ *
+ * Instead of laying out the text of each cell, the width of plain text is computed from the advance widths
+ * of its characters, which are cached per font. Text which needs a real layout, e.g. right-to-left or
+ * combining characters or rotated cells, is measured like
+ * {@link SheetUtil} does. As kerning is ignored, the widths can differ slightly from the ones of
+ * {@link SheetUtil}.<p>
+ *
+ * All requested columns are measured in a single pass over the rows and the rows can be sampled,
+ * i.e. only every n-th row is measured. Sampling is only useful if the values of a column have
+ * a similar length, as the longest value of a column might be skipped.<p>
+ *
+ * Instances of this class are bound to a workbook and are not thread-safe.
+ *
+ * @since POI 5.3.1
+ */
+public final class ColumnWidthEstimator {
+    /** The maximum column width for an individual cell is 255 characters */
+    private static final int MAX_COLUMN_WIDTH = 255 * 256;
+
+    private final Workbook workbook;
+    private final DataFormatter formatter = new DataFormatter();
+    private final float defaultCharWidth;
+    private final Map<Integer, GlyphMetrics> fontMetrics = new HashMap<>();
+    private int sampleSize;
+
+    /**
+     * Creates an estimator for the sheets of the given workbook.
+     * Note that this can fail if your OS does not have the right fonts installed.
+     *
+     * @param workbook the workbook
+     */
+    public ColumnWidthEstimator(Workbook workbook) {
+        this.workbook = workbook;
+        this.defaultCharWidth = SheetUtil.getDefaultCharWidthAsFloat(workbook);
+        // numeric formula cells are measured by their cached results
+        formatter.setUseCachedValuesForFormulaCells(true);
+    }
+
+    /**
+     * @return the maximum number of rows, which are measured, or 0 if all rows are measured
+     */
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * Limits the number of measured rows. If a sheet has more rows, only every n-th row is measured.
+     *
+     * @param sampleSize the maximum number of rows, which are measured, or 0 to measure all rows
+     */
+    public void setSampleSize(int sampleSize) {
+        if (sampleSize < 0) {
+            throw new IllegalArgumentException("The sample size must not be negative, but was " + sampleSize);
+        }
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Compute width of a column.
+     *
+     * @param sheet the sheet to calculate
+     * @param column 0-based index of the column
+     * @param useMergedCells whether to use merged cells
+     * @return the width in default character widths or -1 if all cells are empty
+     * @see SheetUtil#getColumnWidth(Sheet, int, boolean)
+     */
+    public double getColumnWidth(Sheet sheet, int column, boolean useMergedCells) {
+        return getColumnWidths(sheet, column, column, useMergedCells)[0];
+    }
+
+    /**
+     * Compute the widths of a range of columns.
+     *
+     * @param sheet the sheet to calculate
+     * @param firstColumn 0-based index of the first column (inclusive)
+     * @param lastColumn 0-based index of the last column (inclusive)
+     * @param useMergedCells whether to use merged cells
+     * @return the widths of the columns in default character widths, or -1 for columns where all cells are empty
+     */
+    public double[] getColumnWidths(Sheet sheet, int firstColumn, int lastColumn, boolean useMergedCells) {
+        if (firstColumn < 0 || lastColumn < firstColumn) {
+            throw new IllegalArgumentException("Invalid column range " + firstColumn + " to " + lastColumn);
+        }
+        double[] widths = new double[lastColumn - firstColumn + 1];
+        Arrays.fill(widths, -1);
+
+        List<CellRangeAddress> mergedRegions = new ArrayList<>();
+        for (CellRangeAddress region : sheet.getMergedRegions()) {
+            if (region.getFirstColumn() <= lastColumn && region.getLastColumn() >= firstColumn) {
+                mergedRegions.add(region);
+            }
+        }
+
+        int step = 1;
+        if (sampleSize > 0) {
+            int rows = sheet.getPhysicalNumberOfRows();
+            step = Math.max(1, (rows + sampleSize - 1) / sampleSize);
+        }
+
+        int rowCnt = 0;
+        for (Row row : sheet) {
+            if (rowCnt++ % step != 0) {
+                continue;
+            }
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Cell cell = row.getCell(column);
+                if (cell != null) {
+                    double width = getCellWidth(row, cell, useMergedCells, mergedRegions);
+                    widths[column - firstColumn] = Math.max(widths[column - firstColumn], width);
+                }
+            }
+        }
+        return widths;
+    }
+
+    /**
+     * Adjusts the widths of a range of columns to fit their contents.
+     *
+     * @param sheet the sheet
+     * @param firstColumn 0-based index of the first column (inclusive)
+     * @param lastColumn 0-based index of the last column (inclusive)
+     * @param useMergedCells whether to use the contents of merged cells
+     * @see Sheet#autoSizeColumn(int, boolean)
+     */
+    public void autoSizeColumns(Sheet sheet, int firstColumn, int lastColumn, boolean useMergedCells) {
+        double[] widths = getColumnWidths(sheet, firstColumn, lastColumn, useMergedCells);
+        for (int i = 0; i < widths.length; i++) {
+            if (widths[i] != -1) {
+                double width = Math.min(widths[i] * 256, MAX_COLUMN_WIDTH);
+                sheet.setColumnWidth(firstColumn + i, Math.toIntExact(Math.round(width)));
+            }
+        }
+    }
+
+    private double getCellWidth(Row row, Cell cell, boolean useMergedCells, List<CellRangeAddress> mergedRegions) {
+        int column = cell.getColumnIndex();
+        int colspan = 1;
+        for (CellRangeAddress region : mergedRegions) {
+            if (region.isInRange(row.getRowNum(), column)) {
+                if (!useMergedCells) {
+                    return -1;
+                }
+                cell = row.getCell(region.getFirstColumn());
+                if (cell == null) {
+                    return -1;
+                }
+                colspan = 1 + region.getLastColumn() - region.getFirstColumn();
+            }
+        }
+
+        CellStyle style = cell.getCellStyle();
+        CellType cellType = cell.getCellType();
+
+        // for formula cells we compute the cell width for the cached formula result
+        if (cellType == CellType.FORMULA) {
+            cellType = cell.getCachedFormulaResultType();
+        }
+
+        double width = -1;
+        if (cellType == CellType.STRING) {
+            RichTextString rt = cell.getRichStringCellValue();
+            if (rt != null && rt.getString() != null) {
+                for (String line : rt.getString().split("\\n")) {
+                    width = Math.max(width, getTextWidth(line, style, colspan));
+                }
+            }
+        } else if (cellType == CellType.NUMERIC) {
+            String sval;
+            // Try to get it formatted to look the same as excel
+            try {
+                sval = formatter.formatCellValue(cell);
+            } catch (Exception e) {
+                sval = String.valueOf(cell.getNumericCellValue());
+            }
+            width = getTextWidth(sval, style, colspan);
+        } else if (cellType == CellType.BOOLEAN) {
+            width = getTextWidth(String.valueOf(cell.getBooleanCellValue()).toUpperCase(Locale.ROOT), style, colspan);
+        }
+        return width;
+    }
+
+    private double getTextWidth(String text, CellStyle style, int colspan) {
+        Font font = workbook.getFontAt(style.getFontIndex());
+        double frameWidth = Double.NaN;
+        if (style.getRotation() == 0) {
+            frameWidth = fontMetrics.computeIfAbsent(style.getFontIndex(), k -> new GlyphMetrics(font)).getWidth(text);
+        }
+        if (Double.isNaN(frameWidth)) {
+            frameWidth = SheetUtil.getFrameWidth(text, font, style.getRotation());
+        }
+        return ((frameWidth / colspan) / defaultCharWidth) + style.getIndention();
+    }
+
+    /**
+     * The advance widths of the characters of a font
+     */
+    private static final class GlyphMetrics {
+        private final Font font;
+        /** the right edge of the default char, which is appended to the measured text */
+        private final double defaultCharEdge;
+        /** the advances of the chars, in blocks of 256 chars, NaN if the char needs a text layout */
+        private final float[][] advances = new float[256][];
+
+        GlyphMetrics(Font font) {
+            this.font = font;
+            defaultCharEdge = SheetUtil.getFrameWidth("", font, (short)0);
+        }
+
+        /**
+         * @return the width of the text followed by the default char, or NaN if the text needs a text layout
+         */
+        double getWidth(String text) {
+            double width = 0;
+            for (int i = 0; i < text.length(); i++) {
+                float advance = getAdvance(text.charAt(i));
+                if (Float.isNaN(advance)) {
+                    return Double.NaN;
+                }
+                width += advance;
+            }
+            return width + defaultCharEdge;
+        }
+
+        private float getAdvance(char c) {
+            float[] block = advances[c >>> 8];
+            if (block == null) {
+                block = new float[256];
+                Arrays.fill(block, -1);
+                advances[c >>> 8] = block;
+            }
+            float advance = block[c & 0xFF];
+            if (advance == -1) {
+                // the char moves the default char, which follows it, by its advance
+                advance = isPlain(c)
+                    ? (float) (SheetUtil.getFrameWidth(String.valueOf(c), font, (short)0) - defaultCharEdge)
+                    : Float.NaN;
+                block[c & 0xFF] = advance;
+            }
+            return advance;
+        }
+
+        /**
+         * @return true, if the char is laid out by just advancing by its width
+         */
+        private static boolean isPlain(char c) {
+            if (Character.isISOControl(c) || Character.isSurrogate(c)) {
+                return false;
+            }
+            switch (Character.getType(c)) {
+                case Character.NON_SPACING_MARK:
+                case Character.ENCLOSING_MARK:
+                case Character.COMBINING_SPACING_MARK:
+                case Character.FORMAT:
+                    return false;
+                default:
+                    break;
+            }
+            switch (Character.getDirectionality(c)) {
+                case Character.DIRECTIONALITY_RIGHT_TO_LEFT:
+                case Character.DIRECTIONALITY_RIGHT_TO_LEFT_ARABIC:
+                case Character.DIRECTIONALITY_RIGHT_TO_LEFT_EMBEDDING:
+                case Character.DIRECTIONALITY_RIGHT_TO_LEFT_OVERRIDE:
+                    return false;
+                default:
+                    break;
+            }
+            // scripts, which need shaping, e.g. Indic or Thai
+            return c < 0x0900 || (c >= 0x1E00 && c < 0xA000) || c >= 0xF900;
+        }
+    }
+}
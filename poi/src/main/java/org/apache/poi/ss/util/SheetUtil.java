@@ -259,9 +259,31 @@ public class SheetUtil {
      */
     private static double getCellWidth(float defaultCharWidth, int colspan,
             CellStyle style, double minWidth, AttributedString str) {
+        final double frameWidth = getFrameWidth(str, style.getRotation());
+        return Math.max(minWidth, ((frameWidth / colspan) / defaultCharWidth) + style.getIndention());
+    }
+
+    /**
+     * Lays out a line of text followed by the default char, like
+     * {@link #getCellWidth(Cell, float, DataFormatter, boolean, List)} does, and
+     * returns the width of its frame. This is used by {@link ColumnWidthEstimator}.
+     *
+     * @param text the text
+     * @param font the font of the text
+     * @param rotation the text rotation of the cell style
+     * @return the width of the text including its leading spaces
+     */
+    static double getFrameWidth(String text, Font font, short rotation) {
+        String txt = text + defaultChar;
+        AttributedString str = new AttributedString(txt);
+        copyAttributes(font, str, 0, txt.length());
+        return getFrameWidth(str, rotation);
+    }
+
+    private static double getFrameWidth(AttributedString str, short rotation) {
         TextLayout layout = new TextLayout(str.getIterator(), fontRenderContext);
         final Rectangle2D bounds;
-        if (style.getRotation() != 0) {
+        if (rotation != 0) {
             /*
              * Transform the text using a scale so that its height is increased by a multiple of the leading,
              * and then rotate the text before computing the bounds. The scale results in some whitespace around
@@ -269,7 +291,7 @@ public class SheetUtil {
              * is added by the standard Excel autosize.
              */
             AffineTransform trans = new AffineTransform();
-            trans.concatenate(AffineTransform.getRotateInstance(style.getRotation()*2.0*Math.PI/360.0));
+            trans.concatenate(AffineTransform.getRotateInstance(rotation*2.0*Math.PI/360.0));
             trans.concatenate(
                     AffineTransform.getScaleInstance(1, fontHeightMultiple)
             );
@@ -278,8 +300,7 @@ public class SheetUtil {
             bounds = layout.getBounds();
         }
         // frameWidth accounts for leading spaces which is excluded from bounds.getWidth()
-        final double frameWidth = bounds.getX() + bounds.getWidth();
-        return Math.max(minWidth, ((frameWidth / colspan) / defaultCharWidth) + style.getIndention());
+        return bounds.getX() + bounds.getWidth();
     }
 
     /**
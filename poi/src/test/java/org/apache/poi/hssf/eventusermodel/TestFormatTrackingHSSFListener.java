@@ -29,6 +29,7 @@ import org.apache.poi.hssf.record.CellValueRecordInterface;
 import org.apache.poi.hssf.record.FormulaRecord;
 import org.apache.poi.hssf.record.NumberRecord;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.DateUtil;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -97,6 +98,9 @@ final class TestFormatTrackingHSSFListener {
                     String s = listener.formatNumberDateCell(cvr);
                     assertNotNull(s);
                     assertTrue(s.length() > 0);
+
+                    boolean isDate = DateUtil.isADateFormat(listener.getFormatIndex(cvr), listener.getFormatString(cvr));
+                    assertEquals(isDate, listener.isADateFormat(cvr));
                 }
             }
 
@@ -0,0 +1,130 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.record;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.apache.poi.hssf.record.common.FormatRun;
+import org.apache.poi.hssf.record.common.UnicodeString;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the compact SST string storage
+ */
+final class TestSSTStringStore {
+
+    @Test
+    void testAddAndLookup() {
+        SSTStringStore store = new SSTStringStore();
+        UnicodeString latin = new UnicodeString("Hello world");
+        UnicodeString wide = new UnicodeString("Hello world\u2122");
+
+        assertEquals(0, store.add(latin));
+        assertEquals(1, store.add(wide));
+        assertEquals(2, store.size());
+
+        assertEquals(0, store.getIndex(new UnicodeString("Hello world")));
+        assertEquals(1, store.getIndex(new UnicodeString("Hello world\u2122")));
+        assertEquals(-1, store.getIndex(new UnicodeString("Hello")));
+
+        assertEquals(latin, store.get(0));
+        assertEquals(wide, store.get(1));
+        assertEquals(0, store.get(0).getOptionFlags());
+        assertEquals(1, store.get(1).getOptionFlags());
+    }
+
+    @Test
+    void testOptionFlagsAreRetained() {
+        SSTStringStore store = new SSTStringStore();
+        // a latin-1 string which was read as 16-bit string
+        UnicodeString wideLatin = new UnicodeString("abc");
+        wideLatin.setOptionFlags((byte)1);
+        store.add(wideLatin);
+
+        assertEquals(-1, store.getIndex(new UnicodeString("abc")));
+        assertEquals(0, store.getIndex(wideLatin));
+        assertEquals(wideLatin, store.get(0));
+    }
+
+    @Test
+    void testRichText() {
+        SSTStringStore store = new SSTStringStore();
+        UnicodeString plain = new UnicodeString("rich");
+        UnicodeString rich = new UnicodeString("rich");
+        rich.addFormatRun(new FormatRun((short)0, (short)1));
+
+        assertEquals(0, store.add(plain));
+        assertEquals(1, store.add(rich));
+
+        assertEquals(0, store.getIndex(plain));
+        assertEquals(1, store.getIndex(rich));
+        assertSame(rich, store.get(1));
+    }
+
+    @Test
+    void testManyStrings() {
+        SSTStringStore store = new SSTStringStore();
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, store.add(new UnicodeString("str" + i + (i % 2 == 0 ? "" : "\u20ac"))));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            String exp = "str" + i + (i % 2 == 0 ? "" : "\u20ac");
+            assertEquals(i, store.getIndex(new UnicodeString(exp)));
+            assertEquals(exp, store.get(i).getString());
+        }
+
+        SSTStringStore copy = store.copy();
+        copy.add(new UnicodeString("new"));
+        assertEquals(10_000, store.size());
+        assertEquals(-1, store.getIndex(new UnicodeString("new")));
+        assertEquals(10_000, copy.getIndex(new UnicodeString("new")));
+    }
+
+    @Test
+    void testDuplicatesResolveToLastIndex() {
+        SSTStringStore store = new SSTStringStore();
+        store.add(new UnicodeString("dup"));
+        store.add(new UnicodeString("other"));
+        store.add(new UnicodeString("dup"));
+        assertEquals(2, store.getIndex(new UnicodeString("dup")));
+    }
+
+    @Test
+    void testRoundTrip() {
+        UnicodeString rich = new UnicodeString("rich");
+        rich.addFormatRun(new FormatRun((short)1, (short)2));
+        UnicodeString[] strings = {
+            new UnicodeString("plain"), new UnicodeString("wide\u2122"), rich
+        };
+
+        SSTRecord record = new SSTRecord();
+        for (UnicodeString s : strings) {
+            record.addString(s);
+        }
+        byte[] data = record.serialize();
+
+        SSTRecord read = new SSTRecord(TestcaseRecordInputStream.create(data));
+        assertEquals(strings.length, read.countStrings());
+        for (int i = 0; i < strings.length; i++) {
+            assertEquals(strings[i], read.getString(i));
+        }
+        assertArrayEquals(data, read.serialize());
+    }
+}
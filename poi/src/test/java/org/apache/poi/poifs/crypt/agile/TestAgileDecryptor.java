@@ -19,27 +19,37 @@ package org.apache.poi.poifs.crypt.agile;
 
 import static org.apache.poi.poifs.crypt.Decryptor.DEFAULT_POIFS_ENTRY;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Stream;
 
 import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
+import org.apache.poi.poifs.crypt.CryptoFunctions;
 import org.apache.poi.poifs.crypt.Decryptor;
 import org.apache.poi.poifs.crypt.EncryptionInfo;
+import org.apache.poi.poifs.crypt.EncryptionVerifier;
 import org.apache.poi.poifs.crypt.EncryptionMode;
 import org.apache.poi.poifs.crypt.Encryptor;
 import org.apache.poi.poifs.filesystem.DocumentInputStream;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.util.HexDump;
 import org.apache.poi.util.IOUtils;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 class TestAgileDecryptor {
     @SuppressWarnings("PrimitiveArrayArgumentToVarargsMethod")
@@ -99,4 +109,93 @@ class TestAgileDecryptor {
                 HexDump.dump(encDocument, 0, 0) + " full encrypted \n" +
                 HexDump.dump(encData, 0, 0));
     }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 17, 4096, 4097, 16 * 4096, 16 * 4096 + 1, 200_000, 1_000_003})
+    void testParallelDecryption(int length) throws Exception {
+        byte[] testData = new byte[length];
+        new Random(length).nextBytes(testData);
+
+        EncryptionInfo infoEnc = new EncryptionInfo(EncryptionMode.agile);
+        Encryptor enc = infoEnc.getEncryptor();
+        enc.confirmPassword("f");
+
+        UnsynchronizedByteArrayOutputStream bos = UnsynchronizedByteArrayOutputStream.builder().get();
+        try (POIFSFileSystem fsEnc = new POIFSFileSystem()) {
+            try (OutputStream os = enc.getDataStream(fsEnc)) {
+                os.write(testData);
+            }
+            fsEnc.writeFilesystem(bos);
+        }
+
+        for (int parallelism : new int[]{1, 3}) {
+            try (POIFSFileSystem fsDec = new POIFSFileSystem(bos.toInputStream())) {
+                AgileDecryptor dec = (AgileDecryptor) new EncryptionInfo(fsDec).getDecryptor();
+                assertTrue(dec.verifyPassword("f"));
+                dec.setParallelism(parallelism);
+                assertEquals(parallelism, dec.getParallelism());
+                try (InputStream is = dec.getDataStream(fsDec)) {
+                    assertEquals(length, is.available());
+                    assertArrayEquals(testData, IOUtils.toByteArray(is), "parallelism " + parallelism);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testVerifyPasswords() throws Exception {
+        byte[] testData = new byte[5000];
+        new Random(5000).nextBytes(testData);
+
+        EncryptionInfo infoEnc = new EncryptionInfo(EncryptionMode.agile);
+        Encryptor enc = infoEnc.getEncryptor();
+        enc.confirmPassword("secret");
+
+        UnsynchronizedByteArrayOutputStream bos = UnsynchronizedByteArrayOutputStream.builder().get();
+        try (POIFSFileSystem fsEnc = new POIFSFileSystem()) {
+            try (OutputStream os = enc.getDataStream(fsEnc)) {
+                os.write(testData);
+            }
+            fsEnc.writeFilesystem(bos);
+        }
+
+        try (POIFSFileSystem fsDec = new POIFSFileSystem(bos.toInputStream())) {
+            Decryptor dec = new EncryptionInfo(fsDec).getDecryptor();
+            assertNull(dec.verifyPasswords(Arrays.asList("a", "b", "c")));
+            assertNull(dec.getSecretKey());
+            assertEquals("secret", dec.verifyPasswords(Arrays.asList("a", "secret", "b", "secret")));
+            try (InputStream is = dec.getDataStream(fsDec)) {
+                assertArrayEquals(testData, IOUtils.toByteArray(is));
+            }
+        }
+    }
+
+    @Test
+    void testPasswordHashCache() {
+        EncryptionVerifier ver = new EncryptionInfo(EncryptionMode.agile).getVerifier();
+        byte[] salt = new byte[16];
+        new Random(16).nextBytes(salt);
+
+        byte[] expected = CryptoFunctions.hashPassword("secret", ver.getHashAlgorithm(), salt, ver.getSpinCount());
+        assertEquals(0, CryptoFunctions.getPasswordHashCacheSize());
+        try {
+            CryptoFunctions.setPasswordHashCacheSize(2);
+            assertEquals(2, CryptoFunctions.getPasswordHashCacheSize());
+            byte[] first = CryptoFunctions.hashPassword("secret", ver.getHashAlgorithm(), salt, ver.getSpinCount());
+            byte[] cached = CryptoFunctions.hashPassword("secret", ver.getHashAlgorithm(), salt, ver.getSpinCount());
+            assertArrayEquals(expected, first);
+            assertArrayEquals(expected, cached);
+            // the cached hash can't be changed by the callers
+            assertNotSame(first, cached);
+            cached[0]++;
+            assertArrayEquals(expected, CryptoFunctions.hashPassword("secret", ver.getHashAlgorithm(), salt, ver.getSpinCount()));
+
+            // other parameters result in other hashes
+            assertFalse(Arrays.equals(expected, CryptoFunctions.hashPassword("Secret", ver.getHashAlgorithm(), salt, ver.getSpinCount())));
+            assertFalse(Arrays.equals(expected, CryptoFunctions.hashPassword("secret", ver.getHashAlgorithm(), salt, ver.getSpinCount() - 1)));
+            assertFalse(Arrays.equals(expected, CryptoFunctions.hashPassword("secret", ver.getHashAlgorithm(), salt, ver.getSpinCount(), false)));
+        } finally {
+            CryptoFunctions.setPasswordHashCacheSize(0);
+        }
+    }
 }
@@ -0,0 +1,113 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.poifs.crypt.agile;
+
+import static org.apache.poi.poifs.crypt.Decryptor.DEFAULT_POIFS_ENTRY;
+import static org.apache.poi.poifs.crypt.EncryptionInfo.ENCRYPTION_INFO_ENTRY;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
+import org.apache.poi.poifs.crypt.Decryptor;
+import org.apache.poi.poifs.crypt.EncryptionHeader;
+import org.apache.poi.poifs.crypt.EncryptionInfo;
+import org.apache.poi.poifs.crypt.EncryptionMode;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.util.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class TestAgileEncryptor {
+    @ParameterizedTest
+    @ValueSource(ints = {0, 17, 4096, 4097, 16 * 4096, 3 * 16 * 4096, 200_000, 1_000_003})
+    void testParallelEncryption(int length) throws Exception {
+        byte[] testData = new byte[length];
+        new Random(length).nextBytes(testData);
+
+        byte[][] packages = new byte[2][];
+        byte[][] infos = new byte[2][];
+        UnsynchronizedByteArrayOutputStream parallelFs = UnsynchronizedByteArrayOutputStream.builder().get();
+        int[] parallelisms = {1, 3};
+        for (int i = 0; i < parallelisms.length; i++) {
+            EncryptionInfo infoEnc = new EncryptionInfo(EncryptionMode.agile);
+            AgileEncryptor enc = (AgileEncryptor) infoEnc.getEncryptor();
+            enc.setParallelism(parallelisms[i]);
+            assertEquals(parallelisms[i], enc.getParallelism());
+
+            // use fixed keys and salts, so both encryptions have the same result
+            EncryptionHeader header = infoEnc.getHeader();
+            Random random = new Random(4711);
+            enc.confirmPassword("f",
+                randomBytes(random, header.getKeySize() / 8),
+                randomBytes(random, header.getBlockSize()),
+                randomBytes(random, header.getBlockSize()),
+                randomBytes(random, header.getBlockSize()),
+                randomBytes(random, header.getHashAlgorithm().hashSize));
+
+            try (POIFSFileSystem fsEnc = new POIFSFileSystem()) {
+                try (OutputStream os = enc.getDataStream(fsEnc)) {
+                    // write in uneven parts to cross the segment and batch boundaries
+                    for (int off = 0; off < length; off += 10_007) {
+                        os.write(testData, off, Math.min(10_007, length - off));
+                    }
+                }
+                try (DocumentInputStream dis = fsEnc.getRoot().createDocumentInputStream(DEFAULT_POIFS_ENTRY)) {
+                    packages[i] = IOUtils.toByteArray(dis);
+                }
+                try (DocumentInputStream dis = fsEnc.getRoot().createDocumentInputStream(ENCRYPTION_INFO_ENTRY)) {
+                    infos[i] = IOUtils.toByteArray(dis);
+                }
+                if (parallelisms[i] > 1) {
+                    fsEnc.writeFilesystem(parallelFs);
+                }
+            }
+        }
+
+        // the encrypted package and the integrity HMAC need to match the sequential encryption
+        assertArrayEquals(packages[0], packages[1]);
+        assertArrayEquals(infos[0], infos[1]);
+
+        try (POIFSFileSystem fsDec = new POIFSFileSystem(parallelFs.toInputStream())) {
+            Decryptor dec = new EncryptionInfo(fsDec).getDecryptor();
+            assertTrue(dec.verifyPassword("f"));
+            try (InputStream is = dec.getDataStream(fsDec)) {
+                assertArrayEquals(testData, IOUtils.toByteArray(is));
+            }
+        }
+    }
+
+    @Test
+    void testInvalidParallelism() {
+        AgileEncryptor enc = (AgileEncryptor) new EncryptionInfo(EncryptionMode.agile).getEncryptor();
+        assertThrows(IllegalArgumentException.class, () -> enc.setParallelism(0));
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
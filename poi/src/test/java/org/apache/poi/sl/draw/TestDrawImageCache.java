@@ -0,0 +1,105 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.sl.draw;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.poi.POIDataSamples;
+import org.apache.poi.sl.usermodel.PictureData.PictureType;
+import org.apache.poi.util.Dimension2DDouble;
+import org.apache.poi.util.IOUtils;
+import org.junit.jupiter.api.Test;
+
+class TestDrawImageCache {
+    private static final POIDataSamples samples = POIDataSamples.getSlideShowInstance();
+
+    @Test
+    void decodedImages() throws IOException {
+        byte[] data;
+        try (InputStream is = samples.openResourceAsStream("tomcat.png")) {
+            data = IOUtils.toByteArray(is);
+        }
+
+        DrawImageCache cache = new DrawImageCache(64L * 1024 * 1024);
+
+        BitmapImageRenderer rdr1 = new BitmapImageRenderer();
+        rdr1.setImageCache(cache);
+        rdr1.loadImage(data, PictureType.PNG.contentType);
+        BitmapImageRenderer rdr2 = new BitmapImageRenderer();
+        rdr2.setImageCache(cache);
+        rdr2.loadImage(data, PictureType.PNG.contentType);
+
+        BufferedImage img = rdr1.getImage();
+        assertNotNull(img);
+        assertSame(img, rdr2.getImage());
+        assertEquals(1, cache.getImageCount());
+        assertEquals(4L * img.getWidth() * img.getHeight(), cache.getBytes());
+
+        // the scaled images are cached too
+        Dimension2DDouble dim = new Dimension2DDouble(img.getWidth() / 2., img.getHeight() / 2.);
+        BufferedImage scaled = rdr1.getImage(dim);
+        assertSame(scaled, rdr2.getImage(dim));
+        assertEquals(2, cache.getImageCount());
+
+        // without a cache, the image is decoded again
+        BitmapImageRenderer rdr3 = new BitmapImageRenderer();
+        rdr3.loadImage(data, PictureType.PNG.contentType);
+        assertNotSame(img, rdr3.getImage());
+    }
+
+    @Test
+    void eviction() {
+        BufferedImage img1 = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage img2 = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage img3 = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        byte[] digest1 = DrawImageCache.digest(new byte[]{1});
+        byte[] digest2 = DrawImageCache.digest(new byte[]{2});
+        byte[] digest3 = DrawImageCache.digest(new byte[]{3});
+
+        // room for two images
+        DrawImageCache cache = new DrawImageCache(2 * 400);
+        assertSame(img1, cache.getImage(digest1, -1, -1, () -> img1));
+        assertSame(img2, cache.getImage(digest2, -1, -1, () -> img2));
+        // touch the first image, so the second is the least recently used
+        assertSame(img1, cache.getImage(digest1, -1, -1, () -> null));
+        assertSame(img3, cache.getImage(digest3, -1, -1, () -> img3));
+
+        assertEquals(2, cache.getImageCount());
+        assertEquals(800, cache.getBytes());
+        assertSame(img1, cache.getImage(digest1, -1, -1, () -> null));
+        assertSame(img3, cache.getImage(digest3, -1, -1, () -> null));
+        assertNull(cache.getImage(digest2, -1, -1, () -> null));
+
+        // images larger than the cache aren't kept
+        BufferedImage large = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+        assertSame(large, cache.getImage(digest2, 100, 100, () -> large));
+        assertEquals(2, cache.getImageCount());
+
+        cache.clear();
+        assertEquals(0, cache.getImageCount());
+        assertEquals(0, cache.getBytes());
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.poi.sl.draw.geom;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.awt.geom.Path2D;
@@ -51,4 +52,15 @@ class TestPresetGeometries {
         // we get the same instance on further calls
         assertSame(shapes, PresetGeometries.getInstance());
     }
+
+    @Test
+    void testGet() {
+        PresetGeometries shapes = PresetGeometries.getInstance();
+        CustomGeometry geom = shapes.get("rightArrow");
+        assertNotNull(geom);
+        // a shape is only parsed once
+        assertSame(geom, shapes.get("rightArrow"));
+        assertNull(shapes.get("unknownShape"));
+        assertNull(shapes.get(null));
+    }
 }
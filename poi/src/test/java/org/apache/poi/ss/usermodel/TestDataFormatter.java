@@ -1165,6 +1165,80 @@ class TestDataFormatter {
         }
     }
 
+    @Test
+    void testConcurrentDataFormatter() throws Exception {
+        String[] formats = {"#,##0.00;[Red](#,##0.00);\"zero\"", "0.0%", "000-00-0000", "[>1000]#,##0;[<0]\"neg\";0.0", "m/d/yy"};
+        double[] values = {-1234.567, 0, 0.1234, 123456789, 43551.50990171296};
+
+        DataFormatter reference = new DataFormatter(Locale.US);
+        String[] expected = new String[formats.length * values.length];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = reference.formatRawCellContents(values[i % values.length], -1, formats[i / values.length]);
+        }
+
+        ConcurrentDataFormatter formatter = new ConcurrentDataFormatter(Locale.US, false);
+        ArrayList<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int t = 0; t < 200; t++) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                for (int i = 0; i < expected.length; i++) {
+                    String result = formatter.formatRawCellContents(values[i % values.length], -1, formats[i / values.length]);
+                    if (!expected[i].equals(result)) {
+                        return false;
+                    }
+                }
+                return true;
+            }));
+        }
+        for (CompletableFuture<Boolean> future : futures) {
+            assertTrue(future.get(1, TimeUnit.MINUTES));
+        }
+    }
+
+    @Test
+    void testFormatRawCellContentsToBuilder() {
+        DataFormatter dfUS = new DataFormatter(Locale.US);
+        StringBuilder sb = new StringBuilder("x");
+        assertEquals("x12,345.68", dfUS.formatRawCellContents(12345.678, 4, "#,##0.00", false, sb).toString());
+        sb.append(';');
+        dfUS.formatRawCellContents(1e12, 0, "General", false, sb);
+        sb.append(';');
+        dfUS.formatRawCellContents(12.343, 11, "0.00E+00", false, sb);
+        sb.append(';');
+        dfUS.formatRawCellContents(41000.75, 22, "m/d/yy hh:mm", false, sb);
+        assertEquals("x12,345.68;1E+12;1.23E+01;4/1/12 18:00", sb.toString());
+
+        // the same index used with a different format string
+        assertEquals("12346", dfUS.formatRawCellContents(12345.678, 4, "0"));
+        assertEquals("12,345.68", dfUS.formatRawCellContents(12345.678, 4, "#,##0.00"));
+
+        // indexes beyond the indexed formats
+        assertEquals("1.5%", dfUS.formatRawCellContents(0.015, 5000, "0.0%"));
+        assertEquals("1.50%", dfUS.formatRawCellContents(0.015, 5000, "0.00%"));
+        assertEquals("15.0", dfUS.formatRawCellContents(15, -1, "0.0"));
+
+        DataFormatter dfCSV = new DataFormatter(Locale.US, true);
+        assertEquals("", dfCSV.formatRawCellContents(0, 200, "#"));
+        assertEquals("5", dfCSV.formatRawCellContents(5, 200, "#"));
+        String invalid = dfCSV.formatRawCellContents(-1, 14, "m/d/yy");
+        assertEquals(255, invalid.length());
+        assertTrue(invalid.chars().allMatch(c -> c == '#'));
+    }
+
+    @Test
+    void testFormatRawCellContentsToBuilderExcelStyleDates() {
+        // these formats are post-processed by ExcelStyleDateFormatter
+        DataFormatter dfUS = new DataFormatter(Locale.US);
+        StringBuilder sb = new StringBuilder("x");
+        dfUS.formatRawCellContents(1.1376, -1, "[h]:mm:ss", false, sb);
+        sb.append(';');
+        dfUS.formatRawCellContents(41000.75, -1, "mmmmm yyyy", false, sb);
+        sb.append(';');
+        dfUS.formatRawCellContents(0.0000116898, -1, "ss.000", false, sb);
+        sb.append(';');
+        dfUS.formatRawCellContents(20.0 / (24 * 60), -1, "[mm]:ss", false, sb);
+        assertEquals("x27:18:08;A 2012;01.010;20:00", sb.toString());
+    }
+
     private static boolean doFormatTest(DataFormatter formatter, double n, String expected, int iteration) {
         int formatIndex = 105;
         String formatString = "[$-F400]m/d/yy h:mm:ss\\ AM/PM;[$-F400]m/d/yy h:mm:ss\\ AM/PM;_-* \"\"??_-;_-@_-";
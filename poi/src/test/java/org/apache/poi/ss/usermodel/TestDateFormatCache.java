@@ -0,0 +1,103 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+final class TestDateFormatCache {
+
+    @Test
+    void testFormats() {
+        DateFormatCache cache = new DateFormatCache();
+
+        // internal date formats don't need a format string
+        assertTrue(cache.isADateFormat(14, null));
+        assertFalse(cache.isADateFormat(164, null));
+        assertFalse(cache.isADateFormat(164, ""));
+
+        assertTrue(cache.isADateFormat(164, "yyyy-mm-dd"));
+        assertFalse(cache.isADateFormat(165, "0.00"));
+        assertTrue(cache.isADateFormat(164, "yyyy-mm-dd"));
+        assertFalse(cache.isADateFormat(165, "0.00"));
+
+        // the format of an index may change, e.g. for cells of another workbook
+        assertFalse(cache.isADateFormat(164, "#,##0"));
+        assertTrue(cache.isADateFormat(165, "[h]:mm"));
+
+        // indexes which aren't kept in the table
+        assertTrue(cache.isADateFormat(-1, "dd/mm/yy"));
+        assertFalse(cache.isADateFormat(-1, "0%"));
+        assertTrue(cache.isADateFormat(50000, "hh:mm:ss"));
+
+        cache.clear();
+        assertTrue(cache.isADateFormat(164, "yyyy-mm-dd"));
+        assertFalse(cache.isADateFormat(null));
+    }
+
+    @Test
+    void testCells() throws IOException {
+        try (Workbook wb = new HSSFWorkbook()) {
+            CellStyle dateStyle = wb.createCellStyle();
+            dateStyle.setDataFormat(wb.createDataFormat().getFormat("dd.mm.yyyy"));
+
+            Row row = wb.createSheet().createRow(0);
+            Cell date = row.createCell(0);
+            date.setCellValue(44000);
+            date.setCellStyle(dateStyle);
+            Cell number = row.createCell(1);
+            number.setCellValue(44000);
+            Cell invalid = row.createCell(2);
+            invalid.setCellValue(-1);
+            invalid.setCellStyle(dateStyle);
+
+            DateFormatCache cache = new DateFormatCache();
+            for (int i = 0; i < 2; i++) {
+                assertTrue(cache.isCellDateFormatted(date, null));
+                assertFalse(cache.isCellDateFormatted(number, null));
+                assertFalse(cache.isCellDateFormatted(invalid, null));
+                assertFalse(cache.isCellDateFormatted(null, null));
+            }
+        }
+    }
+
+    @Test
+    void testFormatTables() {
+        Object table1 = new Object();
+        Object table2 = new Object();
+        DateFormatCache cache = DateFormatCache.forFormatTable(table1);
+        assertSame(cache, DateFormatCache.forFormatTable(table1));
+        assertNotSame(cache, DateFormatCache.forFormatTable(table2));
+
+        DataFormatter formatter = new DataFormatter(Locale.ROOT);
+        assertNotSame(cache, formatter.getDateFormatCache());
+        formatter.setDateFormatCache(cache);
+        assertSame(cache, formatter.getDateFormatCache());
+        assertEquals("2020-06-19", formatter.formatRawCellContents(44001, 164, "yyyy-mm-dd"));
+        assertEquals("44001.00", formatter.formatRawCellContents(44001, 165, "0.00"));
+    }
+}
@@ -499,4 +499,54 @@ public abstract class BaseTestCellUtil {
         assertEquals(num1, num2);
         wb1.close();
     }
+
+    @Test
+    void setCellStylePropertyReusesStylesOfLargeWorkbooks() throws IOException {
+        try (Workbook wb = _testDataProvider.createWorkbook()) {
+            Row r = wb.createSheet().createRow(0);
+            for (int i = 0; i < 60; i++) {
+                CellUtil.setCellStyleProperty(r.createCell(i), CellUtil.ROTATION, (short)i);
+            }
+            int numStyles = wb.getNumCellStyles();
+
+            Row r2 = r.getSheet().createRow(1);
+            for (int i = 0; i < 60; i++) {
+                Cell c = r2.createCell(i);
+                CellUtil.setCellStyleProperty(c, CellUtil.ROTATION, (short)i);
+                assertEquals(r.getCell(i).getCellStyle().getIndex(), c.getCellStyle().getIndex());
+            }
+            assertEquals(numStyles, wb.getNumCellStyles());
+
+            // modify a style, which has been found by CellUtil before
+            r.getCell(10).getCellStyle().setRotation((short)75);
+            Cell c = r2.createCell(100);
+            CellUtil.setCellStyleProperty(c, CellUtil.ROTATION, (short)10);
+            assertEquals(10, c.getCellStyle().getRotation());
+            CellUtil.setCellStyleProperty(c, CellUtil.ROTATION, (short)75);
+            assertEquals(75, c.getCellStyle().getRotation());
+        }
+    }
+
+    @Test
+    void setCellStylePropertyFindsDirectlyModifiedStyles() throws IOException {
+        try (Workbook wb = _testDataProvider.createWorkbook()) {
+            Row r = wb.createSheet().createRow(0);
+            CellStyle style = wb.createCellStyle();
+            // index the new style with its default properties
+            CellUtil.setCellStyleProperty(r.createCell(0), CellUtil.ROTATION, (short)5);
+
+            // modify the style without CellUtil
+            style.setRotation((short)20);
+            style.setWrapText(true);
+            int numStyles = wb.getNumCellStyles();
+
+            Map<String, Object> props = new HashMap<>();
+            props.put(CellUtil.ROTATION, (short)20);
+            props.put(CellUtil.WRAP_TEXT, true);
+            Cell c = r.createCell(1);
+            CellUtil.setCellStyleProperties(c, props);
+            assertEquals(style.getIndex(), c.getCellStyle().getIndex());
+            assertEquals(numStyles, wb.getNumCellStyles());
+        }
+    }
 }
@@ -0,0 +1,113 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.jupiter.api.Test;
+
+final class TestColumnWidthEstimator {
+
+    @Test
+    void testSameAsSheetUtil() throws IOException {
+        try (Workbook wb = new HSSFWorkbook()) {
+            Sheet sheet = wb.createSheet();
+            Font bold = wb.createFont();
+            bold.setBold(true);
+            CellStyle boldStyle = wb.createCellStyle();
+            boldStyle.setFont(bold);
+            CellStyle rotated = wb.createCellStyle();
+            rotated.setRotation((short) 45);
+
+            Row row = sheet.createRow(0);
+            row.createCell(0).setCellValue("Some text");
+            row.createCell(1).setCellValue(12345.678);
+            row.createCell(2).setCellValue(true);
+            row.createCell(3).setCellValue("first line\nthe longer second line");
+            row.createCell(4).setCellValue("שלום");
+            row.createCell(5).setCellValue("rotated text");
+            row.getCell(5).setCellStyle(rotated);
+            row = sheet.createRow(3);
+            row.createCell(0).setCellValue("A longer bold text");
+            row.getCell(0).setCellStyle(boldStyle);
+            row.createCell(1).setCellValue("");
+
+            ColumnWidthEstimator estimator = new ColumnWidthEstimator(wb);
+            double[] widths = estimator.getColumnWidths(sheet, 0, 6, false);
+            assertEquals(7, widths.length);
+            for (int column = 0; column < 6; column++) {
+                double expected = SheetUtil.getColumnWidth(sheet, column, false);
+                // kerning is ignored by the estimator
+                assertEquals(expected, widths[column], expected * 0.05, "column " + column);
+                assertEquals(widths[column], estimator.getColumnWidth(sheet, column, false));
+            }
+            assertEquals(-1, widths[6]);
+        }
+    }
+
+    @Test
+    void testMergedCells() throws IOException {
+        try (Workbook wb = new HSSFWorkbook()) {
+            Sheet sheet = wb.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("A text over two columns");
+            sheet.createRow(1).createCell(1).setCellValue("short");
+            sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 1));
+
+            ColumnWidthEstimator estimator = new ColumnWidthEstimator(wb);
+            assertEquals(-1, estimator.getColumnWidth(sheet, 0, false));
+            assertTrue(estimator.getColumnWidth(sheet, 0, true) > 0);
+            assertEquals(SheetUtil.getColumnWidth(sheet, 1, false), estimator.getColumnWidth(sheet, 1, false), 0.5);
+        }
+    }
+
+    @Test
+    void testSampling() throws IOException {
+        try (Workbook wb = new HSSFWorkbook()) {
+            Sheet sheet = wb.createSheet();
+            for (int i = 0; i < 100; i++) {
+                sheet.createRow(i).createCell(0).setCellValue(i % 2 == 0 ? "short" : "a much longer text");
+            }
+
+            ColumnWidthEstimator estimator = new ColumnWidthEstimator(wb);
+            double all = estimator.getColumnWidth(sheet, 0, false);
+
+            // only the even rows are measured
+            estimator.setSampleSize(50);
+            assertEquals(50, estimator.getSampleSize());
+            double sampled = estimator.getColumnWidth(sheet, 0, false);
+            assertTrue(sampled < all);
+
+            estimator.setSampleSize(0);
+            estimator.autoSizeColumns(sheet, 0, 1, false);
+            assertEquals(Math.round(all * 256), sheet.getColumnWidth(0));
+
+            assertThrows(IllegalArgumentException.class, () -> estimator.setSampleSize(-1));
+            assertThrows(IllegalArgumentException.class, () -> estimator.getColumnWidths(sheet, 2, 1, false));
+        }
+    }
+}